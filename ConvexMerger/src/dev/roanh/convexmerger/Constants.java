@@ -63,4 +63,9 @@ public final class Constants{
 	 * The number of milliseconds an AI has to wait before making a move.
 	 */
 	public static final long AI_WAIT_TIME = 400;
+	/**
+	 * The default number of milliseconds an AI can think about its move
+	 * when the thinking time of players is limited.
+	 */
+	public static final long AI_TURN_BUDGET = 250;
 }
@@ -18,7 +18,10 @@
  */
 package dev.roanh.convexmerger;
 
+import java.nio.file.Paths;
+
 import dev.roanh.convexmerger.ui.ConvexMerger;
+import dev.roanh.convexmerger.util.DecompositionCache;
 import dev.roanh.util.Util;
 
 /**
@@ -29,12 +32,16 @@ public class Main{
 
 	/**
 	 * Main subroutine that starts the game.
-	 * @param args No valid command line arguments.
+	 * @param args Optionally a directory to cache the
+	 *        vertical decompositions of playfields in.
 	 */
 	public static void main(String[] args){
 		Util.installUI();
 		
 		ConvexMerger game = new ConvexMerger();
+		if(args.length > 0){
+			game.setDecompositionCache(new DecompositionCache(Paths.get(args[0])));
+		}
 		game.showGame();
 	}
 }
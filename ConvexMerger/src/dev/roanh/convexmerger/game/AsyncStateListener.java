@@ -0,0 +1,256 @@
+/*
+ * ConvexMerger:  An area maximisation game based on the idea of merging convex shapes.
+ * Copyright (C) 2021  Roan Hofland (roan@roanh.dev), Emiliyan Greshkov and contributors.
+ * GitHub Repository: https://github.com/RoanH/ConvexMerger
+ *
+ * ConvexMerger is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ConvexMerger is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package dev.roanh.convexmerger.game;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import dev.roanh.convexmerger.player.Player;
+
+/**
+ * Game state listener that forwards all events to another listener on a
+ * dedicated thread. Events are delivered in the order they occurred through
+ * a bounded queue, when the queue is full the game thread blocks until the
+ * listener catches up. This way a slow listener only delays the game once it
+ * falls far behind instead of on every move. The dispatch thread stops after
+ * the end or abort event of the game has been delivered.
+ * @author Roan
+ * @see GameStateListener#isSynchronous()
+ */
+public class AsyncStateListener implements GameStateListener{
+	/**
+	 * The default maximum number of events that can be waiting for delivery.
+	 */
+	public static final int DEFAULT_CAPACITY = 64;
+	/**
+	 * The listener to forward events to.
+	 */
+	private final GameStateListener listener;
+	/**
+	 * The events waiting to be delivered.
+	 */
+	private final BlockingQueue<Delivery> queue;
+	/**
+	 * The number of events that were submitted but not delivered yet.
+	 */
+	private int pending = 0;
+	/**
+	 * True if the end or abort event was submitted, later
+	 * events are no longer delivered. Only accessed by the game thread.
+	 */
+	private boolean closed = false;
+	/**
+	 * True if the dispatch thread stopped because the listener was interrupted.
+	 */
+	private volatile boolean stopped = false;
+	
+	/**
+	 * Constructs a new asynchronous listener with the default queue capacity.
+	 * @param listener The listener to forward events to.
+	 */
+	public AsyncStateListener(GameStateListener listener){
+		this(listener, DEFAULT_CAPACITY);
+	}
+	
+	/**
+	 * Constructs a new asynchronous listener.
+	 * @param listener The listener to forward events to.
+	 * @param capacity The maximum number of events that can be waiting for delivery.
+	 * @throws IllegalArgumentException When the capacity is not positive.
+	 */
+	public AsyncStateListener(GameStateListener listener, int capacity) throws IllegalArgumentException{
+		if(capacity <= 0){
+			throw new IllegalArgumentException("The queue capacity has to be positive.");
+		}
+		
+		this.listener = listener;
+		queue = new ArrayBlockingQueue<Delivery>(capacity);
+		
+		Thread thread = new Thread(this::dispatch, "GameStateListener-" + listener.getClass().getSimpleName());
+		thread.setDaemon(true);
+		thread.start();
+	}
+	
+	/**
+	 * Gets the listener events are forwarded to.
+	 * @return The listener events are forwarded to.
+	 */
+	public GameStateListener getListener(){
+		return listener;
+	}
+	
+	/**
+	 * Blocks until all events submitted so far have been delivered.
+	 * @throws InterruptedException When the current thread is interrupted.
+	 */
+	public synchronized void awaitDelivery() throws InterruptedException{
+		while(pending > 0){
+			wait();
+		}
+	}
+	
+	/**
+	 * Submits a new event for delivery, blocking while the queue is full.
+	 * @param event The event to deliver.
+	 * @param last True if this is the last event of the game.
+	 * @throws InterruptedException When the current thread is interrupted.
+	 */
+	private void submit(Event event, boolean last) throws InterruptedException{
+		if(closed || stopped){
+			return;
+		}
+		
+		synchronized(this){
+			pending++;
+		}
+		
+		try{
+			queue.put(new Delivery(event, last));
+		}catch(InterruptedException e){
+			delivered();
+			throw e;
+		}
+		
+		closed = last;
+	}
+	
+	/**
+	 * Submits a new event that cannot be interrupted for delivery. If the game
+	 * thread is interrupted the interrupt flag is restored and the event dropped,
+	 * since an interrupt signals that the game is being aborted anyway.
+	 * @param event The event to deliver.
+	 * @param last True if this is the last event of the game.
+	 */
+	private void submitUninterruptibly(Event event, boolean last){
+		try{
+			submit(event, last);
+		}catch(InterruptedException e){
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	/**
+	 * Marks a single submitted event as delivered.
+	 */
+	private synchronized void delivered(){
+		pending--;
+		notifyAll();
+	}
+	
+	/**
+	 * Delivers events to the listener until the last event of the game was delivered.
+	 */
+	private void dispatch(){
+		try{
+			while(true){
+				Delivery delivery = queue.take();
+				try{
+					delivery.event.deliver();
+				}catch(RuntimeException ignore){
+					//a failing listener should not stop the delivery of later events
+				}finally{
+					delivered();
+				}
+				
+				if(delivery.last){
+					return;
+				}
+			}
+		}catch(InterruptedException e){
+			//only happens when the listener itself was interrupted, no further events are delivered
+			stopped = true;
+			queue.clear();
+			synchronized(this){
+				pending = 0;
+				notifyAll();
+			}
+		}
+	}
+
+	@Override
+	public void claim(Player player, ConvexObject obj){
+		submitUninterruptibly(()->listener.claim(player, obj), false);
+	}
+
+	@Override
+	public void merge(Player player, ConvexObject source, ConvexObject target, ConvexObject result, List<ConvexObject> absorbed) throws InterruptedException{
+		submit(()->listener.merge(player, source, target, result, absorbed), false);
+	}
+
+	@Override
+	public void end(){
+		submitUninterruptibly(listener::end, true);
+	}
+
+	@Override
+	public void abort(){
+		submitUninterruptibly(listener::abort, true);
+	}
+	
+	/**
+	 * Always true since events are added to the queue synchronously.
+	 * @return True.
+	 */
+	@Override
+	public boolean isSynchronous(){
+		return true;
+	}
+	
+	/**
+	 * A single game state event waiting to be delivered.
+	 * @author Roan
+	 */
+	@FunctionalInterface
+	private static abstract interface Event{
+		
+		/**
+		 * Delivers this event to the listener.
+		 * @throws InterruptedException When the listener was interrupted.
+		 */
+		public abstract void deliver() throws InterruptedException;
+	}
+	
+	/**
+	 * An event in the queue together with whether
+	 * it is the last event of the game.
+	 * @author Roan
+	 */
+	private static final class Delivery{
+		/**
+		 * The event to deliver.
+		 */
+		private final Event event;
+		/**
+		 * True if this is the last event of the game, the
+		 * dispatch thread stops after delivering it.
+		 */
+		private final boolean last;
+		
+		/**
+		 * Constructs a new delivery.
+		 * @param event The event to deliver.
+		 * @param last True if this is the last event of the game.
+		 */
+		private Delivery(Event event, boolean last){
+			this.event = event;
+			this.last = last;
+		}
+	}
+}
@@ -30,11 +30,8 @@ import java.util.Objects;
 import dev.roanh.convexmerger.animation.RenderableObject;
 import dev.roanh.convexmerger.player.Player;
 import dev.roanh.convexmerger.ui.Theme;
-import dev.roanh.convexmerger.util.ConjugationTree;
 import dev.roanh.convexmerger.util.ConvexUtil;
-import dev.roanh.convexmerger.util.KDTree;
-import dev.roanh.convexmerger.util.SegmentPartitionTree;
-import dev.roanh.convexmerger.util.SegmentPartitionTree.LineSegment;
+import dev.roanh.convexmerger.util.FixedPoint;
 
 /**
  * Defines a convex object shown in the game
@@ -60,6 +57,10 @@ public class ConvexObject extends RenderableObject implements Identity, Serializ
 	 * The shape of this convex object.
 	 */
 	private Path2D shape;
+	/**
+	 * The area of this object.
+	 */
+	private double area;
 	/**
 	 * The player that owns this object.
 	 */
@@ -134,6 +135,19 @@ public class ConvexObject extends RenderableObject implements Identity, Serializ
 		constructShape();
 	}
 	
+	/**
+	 * Constructs a new convex object that is a copy of the given
+	 * object, the point data and shape are shared with the original.
+	 * @param original The object to copy.
+	 */
+	private ConvexObject(ConvexObject original){
+		id = original.id;
+		points = original.points;
+		shape = original.shape;
+		area = original.area;
+		owner = original.owner;
+	}
+	
 	/**
 	 * Constructs the shape object for the bounds of this object.
 	 */
@@ -144,6 +158,7 @@ public class ConvexObject extends RenderableObject implements Identity, Serializ
 			shape.lineTo(points.get(i).getX(), points.get(i).getY());
 		}
 		shape.closePath();
+		area = ConvexUtil.computeArea(points);
 	}
 	
 	/**
@@ -258,26 +273,10 @@ public class ConvexObject extends RenderableObject implements Identity, Serializ
 		
 		//check if the new hull is valid
 		if(state != null){
-			SegmentPartitionTree<ConjugationTree<LineSegment>> treeC = state.getSegmentTreeConj();
-			SegmentPartitionTree<KDTree<LineSegment>> treeK = state.getSegmentTreeKD();
-			
-			if(treeC.intersects(lines[0], lines[1]) || treeC.intersects(lines[2], lines[3]) || treeK.intersects(lines[0], lines[1]) || treeK.intersects(lines[2], lines[3])){
+			if(state.intersectsMergeLines(lines)){
 				return null;
 			}else if(saveSegments){
-				if(treeC.isAnimated()){
-					treeC.showAnimation(lines[0], lines[1]).waitFor();
-					treeC.showAnimation(lines[2], lines[3]).waitFor();
-				}
-				
-				if(treeK.isAnimated()){
-					treeK.showAnimation(lines[0], lines[1]).waitFor();
-					treeK.showAnimation(lines[2], lines[3]).waitFor();
-				}
-				
-				treeC.addSegment(lines[0], lines[1]);
-				treeC.addSegment(lines[2], lines[3]);
-				treeK.addSegment(lines[0], lines[1]);
-				treeK.addSegment(lines[2], lines[3]);
+				state.addMergeLines(lines);
 			}
 		}
 		
@@ -341,11 +340,11 @@ public class ConvexObject extends RenderableObject implements Identity, Serializ
 	}
 	
 	/**
-	 * Computes the area of this convex object.
+	 * Gets the area of this convex object.
 	 * @return The area for this convex object.
 	 */
 	public double getArea(){
-		return ConvexUtil.computeArea(points);
+		return area;
 	}
 	
 	/**
@@ -389,6 +388,32 @@ public class ConvexObject extends RenderableObject implements Identity, Serializ
 		constructShape();
 	}
 	
+	/**
+	 * Rounds all the points of this object to the nearest exact fixed-point
+	 * coordinates. After this all geometry involving only this object and other
+	 * exact objects is computed exactly, including the area of merged objects.
+	 * @see FixedPoint
+	 */
+	public void snapToFixedPoint(){
+		for(Point2D p : points){
+			p.setLocation(FixedPoint.snap(p.getX()), FixedPoint.snap(p.getY()));
+		}
+		
+		assert ConvexUtil.checkInvariants(points) : "Game invariants violated for convex objects";
+		constructShape();
+	}
+	
+	/**
+	 * Creates a copy of this convex object with the same ID and owner.
+	 * The copy shares the point data and shape of this object, so only
+	 * the owner of the copy can be changed independently of this object.
+	 * @return The copy of this convex object.
+	 * @see GameState#fork()
+	 */
+	protected ConvexObject copy(){
+		return new ConvexObject(this);
+	}
+	
 	@Override
 	public void render(Graphics2D g){
 		g.setColor(Theme.getPlayerBody(this));
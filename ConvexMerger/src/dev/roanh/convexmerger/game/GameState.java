@@ -20,9 +20,15 @@ package dev.roanh.convexmerger.game;
 
 import java.awt.geom.Line2D;
 import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Stream;
 
 import dev.roanh.convexmerger.animation.Animation;
@@ -33,21 +39,45 @@ import dev.roanh.convexmerger.ui.MessageDialog;
 import dev.roanh.convexmerger.ui.Theme.PlayerTheme;
 import dev.roanh.convexmerger.util.ConjugationTree;
 import dev.roanh.convexmerger.util.ConvexUtil;
+import dev.roanh.convexmerger.util.DecompositionCache;
 import dev.roanh.convexmerger.util.KDTree;
+import dev.roanh.convexmerger.util.KirkpatrickLocator;
+import dev.roanh.convexmerger.util.ObjectGrid;
+import dev.roanh.convexmerger.util.PartitionedDecomposition;
+import dev.roanh.convexmerger.util.PointLocator;
 import dev.roanh.convexmerger.util.SegmentPartitionTree;
+import dev.roanh.convexmerger.util.SegmentTreeMetrics;
+import dev.roanh.convexmerger.util.SlabLocator;
 import dev.roanh.convexmerger.util.VerticalDecomposition;
 import dev.roanh.convexmerger.util.SegmentPartitionTree.LineSegment;
 
 /**
  * Class managing the main game state, data,
  * players and general control flow.
+ * <p>
+ * A game state can be forked to play speculative moves on,
+ * for example for AI lookahead. A fork shares all the data of
+ * the state it was forked from and only records its own changes,
+ * so forking is cheap and moves on a fork never modify the parent.
  * @author Roan
+ * @see #fork()
  */
 public class GameState{
 	/**
-	 * The convex objects in this game.
+	 * The convex objects in this game. For forks this list is only
+	 * materialised when requested and discarded on every change.
 	 */
 	private List<ConvexObject> objects;
+	/**
+	 * Index of all the convex objects in this game by their ID. For forks
+	 * this only contains the objects that were changed in the fork, an ID
+	 * that is mapped to <code>null</code> was removed by a merge in the fork.
+	 */
+	private Map<Integer, ConvexObject> objectIndex = new HashMap<Integer, ConvexObject>();
+	/**
+	 * The highest ID assigned to any convex object in this game so far.
+	 */
+	private int maxID = 0;
 	/**
 	 * The players playing in this game.
 	 */
@@ -55,7 +85,20 @@ public class GameState{
 	/**
 	 * The vertical decomposition for the game state.
 	 */
-	private VerticalDecomposition decomp = new VerticalDecomposition();
+	private VerticalDecomposition decomp;
+	/**
+	 * The uniform grid used to accelerate object point queries.
+	 */
+	private ObjectGrid grid;
+	/**
+	 * The point locator used to find the object at a given location.
+	 */
+	private PointLocator locator;
+	/**
+	 * The number of slabs to build a partitioned decomposition with when
+	 * the game is initialised or 0 to not build a partitioned decomposition.
+	 */
+	private int slabs = 0;
 	/**
 	 * The index of the player whose turn it is.
 	 */
@@ -85,6 +128,10 @@ public class GameState{
 	 * Listeners subscribed for gamestate events.
 	 */
 	private List<GameStateListener> listeners = new ArrayList<GameStateListener>();
+	/**
+	 * The listeners registered with this game that receive their updates asynchronously.
+	 */
+	private List<AsyncStateListener> asyncListeners = new ArrayList<AsyncStateListener>();
 	/**
 	 * The seed of the generator that generated this game's playfield.
 	 */
@@ -97,6 +144,54 @@ public class GameState{
 	 * The kd-tree based segment intersection tree.
 	 */
 	private SegmentPartitionTree<KDTree<LineSegment>> segmentTreeKD;
+	/**
+	 * The cache to load the vertical decomposition and segment partition
+	 * trees from or <code>null</code> if they are always built.
+	 */
+	private DecompositionCache cache = null;
+	/**
+	 * The scheduler that controls the pacing of the turns in this game.
+	 */
+	private volatile TurnScheduler scheduler = TurnScheduler.INTERACTIVE;
+	/**
+	 * The game state this state was forked from or
+	 * <code>null</code> if this state is not a fork.
+	 */
+	private GameState parent = null;
+	/**
+	 * The number of changes made to this game state, used to
+	 * detect changes to the parent of a fork after it was forked.
+	 */
+	private int version = 0;
+	/**
+	 * The version of the parent state this state was forked from.
+	 */
+	private int parentVersion = 0;
+	/**
+	 * The objects created by merges in this fork in ascending ID order.
+	 */
+	private List<ConvexObject> created;
+	/**
+	 * The merge lines added to this fork.
+	 */
+	private List<LineSegment> segments;
+	/**
+	 * The area gained by every player in this fork.
+	 */
+	private double[] areas;
+	/**
+	 * The journal of moves made on this fork that can be undone, most recent last.
+	 */
+	private List<JournalEntry> undoMoves;
+	/**
+	 * The journal of moves that were undone on this fork and can be redone, most recent last.
+	 */
+	private List<JournalEntry> redoMoves;
+	/**
+	 * The journal entry for the move that is currently being made
+	 * on this fork or <code>null</code> if no move is being made.
+	 */
+	private JournalEntry current = null;
 
 	/**
 	 * Constructs a new game state with the given playfield generator and
@@ -119,10 +214,13 @@ public class GameState{
 		this.objects = new ArrayList<ConvexObject>(objects);
 		this.players = Collections.unmodifiableList(players);
 		this.seed = seed;
+		decomp = new VerticalDecomposition();
 		for(int i = 0; i < objects.size(); i++){
 			ConvexObject obj = objects.get(i);
 			obj.setID(i + 1);
+			objectIndex.put(obj.getID(), obj);
 		}
+		maxID = objects.size();
 		for(int i = 0; i < players.size(); i++){
 			Player player = players.get(i);
 			player.init(this, PlayerTheme.get(i + 1));
@@ -132,9 +230,353 @@ public class GameState{
 			}
 		}
 		registerStateListener(decomp);
+		grid = new ObjectGrid(objects, decomp);
+		registerStateListener(grid);
+		locator = grid;
 
-		segmentTreeConj = SegmentPartitionTree.TYPE_CONJUGATION_TREE.fromObjects(objects);
-		segmentTreeKD = SegmentPartitionTree.TYPE_KD_TREE.fromObjects(objects);
+		//the segment trees are built or loaded when the game is initialised
+		segmentTreeConj = SegmentPartitionTree.TYPE_CONJUGATION_TREE.empty();
+		segmentTreeKD = SegmentPartitionTree.TYPE_KD_TREE.empty();
+	}
+	
+	/**
+	 * Constructs a new fork of the given game state.
+	 * @param parent The game state to fork.
+	 * @see #fork()
+	 */
+	private GameState(GameState parent){
+		this.parent = parent;
+		parentVersion = parent.version;
+		players = parent.players;
+		seed = parent.seed;
+		decomp = parent.decomp;
+		grid = parent.grid;
+		locator = parent.locator;
+		segmentTreeConj = parent.segmentTreeConj;
+		segmentTreeKD = parent.segmentTreeKD;
+		activePlayer = parent.activePlayer;
+		selected = parent.selected;
+		ended = parent.ended;
+		gameStart = parent.gameStart;
+		gameEnd = parent.gameEnd;
+		turns = parent.turns;
+		maxID = parent.maxID;
+		objects = null;
+		created = new ArrayList<ConvexObject>();
+		segments = new ArrayList<LineSegment>();
+		areas = new double[players.size()];
+		undoMoves = new ArrayList<JournalEntry>();
+		redoMoves = new ArrayList<JournalEntry>();
+	}
+	
+	/**
+	 * Creates a fork of this game state to play speculative moves on. The
+	 * fork shares all objects, ownership and search structures with this state
+	 * and only records the changes made to it, so a fork is created in constant
+	 * time and every move on the fork only costs time proportional to its own
+	 * changes. An object whose owner changes in the fork is replaced by a copy
+	 * in the fork and merges are checked against both the shared segment trees
+	 * and the merge lines added in the fork. Moves on a fork never modify this
+	 * state or its players, the area of the players in the fork is available
+	 * from {@link #getArea(Player)}. Moves on a fork can be undone and redone.
+	 * Forks do not notify any listeners, do not
+	 * record player statistics and cannot execute player turns. Since a fork
+	 * shares the data of this state, this state should not be modified
+	 * while the fork is in use, forks detect this and then fail.
+	 * @return The new fork of this game state.
+	 * @throws IllegalStateException When this game state is a
+	 *         fork whose parent was modified after it was forked.
+	 * @see #claimObject(ConvexObject)
+	 * @see #getObjectByID(int)
+	 * @see #undo()
+	 */
+	public GameState fork() throws IllegalStateException{
+		checkParent();
+		return new GameState(this);
+	}
+	
+	/**
+	 * Checks if this game state is a fork of another game state.
+	 * @return True if this game state is a fork.
+	 * @see #fork()
+	 */
+	public boolean isFork(){
+		return parent != null;
+	}
+	
+	/**
+	 * Checks that the parents of this fork were not modified after it was forked.
+	 * @throws IllegalStateException When a parent of this fork was modified.
+	 */
+	private void checkParent() throws IllegalStateException{
+		if(parent != null){
+			if(parent.version != parentVersion){
+				throw new IllegalStateException("The parent game state was modified after it was forked.");
+			}
+			parent.checkParent();
+		}
+	}
+	
+	/**
+	 * Gets the version of the given object in this game state. In a fork
+	 * this is the copy of the object made by the fork if it has one.
+	 * @param obj The object to get the version in this game state of.
+	 * @return The version of the object in this game state or
+	 *         <code>null</code> if the object is not in this game.
+	 */
+	private ConvexObject resolve(ConvexObject obj){
+		return parent == null ? obj : getObjectByID(obj.getID());
+	}
+	
+	/**
+	 * Gets a version of the given object that can be modified by
+	 * this game state. Forks copy objects that are not their own.
+	 * @param obj The object to get a modifiable version of.
+	 * @return The modifiable version of the object.
+	 */
+	private ConvexObject modifiable(ConvexObject obj){
+		if(parent == null || objectIndex.containsKey(obj.getID())){
+			return obj;
+		}else{
+			ConvexObject copy = obj.copy();
+			putIndex(copy.getID(), copy);
+			return copy;
+		}
+	}
+	
+	/**
+	 * Changes the area owned by the given player.
+	 * @param player The player to change the area of.
+	 * @param delta The area to add to the player, negative to remove area.
+	 */
+	private void addArea(Player player, double delta){
+		if(parent == null){
+			if(delta >= 0.0D){
+				player.addArea(delta);
+			}else{
+				player.removeArea(-delta);
+			}
+		}else{
+			int idx = players.indexOf(player);
+			areas[idx] += delta;
+			if(current != null){
+				current.areas[idx] += delta;
+			}
+		}
+	}
+	
+	/**
+	 * Maps the given ID to the given object in the object index of this
+	 * fork, the change is recorded in the journal entry of the current move.
+	 * @param id The ID of the object.
+	 * @param obj The object to map the ID to or <code>null</code>
+	 *        to mark the object with the given ID as removed.
+	 */
+	private void putIndex(int id, ConvexObject obj){
+		if(current != null){
+			current.changes.add(new IndexChange(id, objectIndex.containsKey(id), objectIndex.get(id), obj));
+		}
+		objectIndex.put(id, obj);
+		objects = null;
+	}
+	
+	/**
+	 * Starts recording the journal entry for a new move on this fork.
+	 * @see #endMove()
+	 */
+	private void startMove(){
+		current = new JournalEntry(activePlayer, maxID, players.size());
+	}
+	
+	/**
+	 * Finishes the journal entry for the current move on this fork and adds
+	 * it to the journal, this discards all moves that could be redone.
+	 * @see #startMove()
+	 */
+	private void endMove(){
+		current.playerAfter = activePlayer;
+		current.maxIDAfter = maxID;
+		undoMoves.add(current);
+		redoMoves.clear();
+		current = null;
+	}
+	
+	/**
+	 * Checks if there is a move on this fork that can be undone.
+	 * @return True if there is a move that can be undone.
+	 * @see #undo()
+	 */
+	public boolean canUndo(){
+		return parent != null && !undoMoves.isEmpty();
+	}
+	
+	/**
+	 * Checks if there is an undone move on this fork that can be redone.
+	 * @return True if there is a move that can be redone.
+	 * @see #redo()
+	 */
+	public boolean canRedo(){
+		return parent != null && !redoMoves.isEmpty();
+	}
+	
+	/**
+	 * Undoes the last claim or merge made on this fork. Every move on a fork
+	 * records exactly the changes it made, so undoing a move only restores
+	 * those changes and does not recompute anything. This makes it possible
+	 * for search based players to make and unmake moves on a single fork
+	 * instead of forking for every move. After undoing a move the active
+	 * player is the player that made the move and no object is selected.
+	 * Any forks of this fork can no longer be used after a move is undone.
+	 * Moves on game states that are not a fork cannot be undone, as these are
+	 * also applied to the vertical decomposition, segment trees and listeners.
+	 * @return True if a move was undone, false if there were no moves to undo.
+	 * @throws IllegalStateException When this game state is not a fork or
+	 *         when its parent was modified after it was forked.
+	 * @see #redo()
+	 * @see #fork()
+	 */
+	public boolean undo() throws IllegalStateException{
+		if(parent == null){
+			throw new IllegalStateException("Only moves on forked game states can be undone.");
+		}
+		
+		checkParent();
+		if(undoMoves.isEmpty()){
+			return false;
+		}
+		
+		JournalEntry move = undoMoves.remove(undoMoves.size() - 1);
+		for(int i = move.changes.size() - 1; i >= 0; i--){
+			IndexChange change = move.changes.get(i);
+			if(change.existed){
+				objectIndex.put(change.id, change.before);
+			}else{
+				objectIndex.remove(change.id);
+			}
+		}
+		
+		if(move.claimed != null){
+			move.claimed.setOwner(null);
+		}
+		
+		if(move.created != null){
+			created.remove(created.size() - 1);
+			segments.subList(segments.size() - move.segments.length, segments.size()).clear();
+		}
+		
+		for(int i = 0; i < areas.length; i++){
+			areas[i] -= move.areas[i];
+		}
+		
+		maxID = move.maxIDBefore;
+		activePlayer = move.playerBefore;
+		selected = null;
+		objects = null;
+		version++;
+		redoMoves.add(move);
+		return true;
+	}
+	
+	/**
+	 * Redoes the last move on this fork that was undone. The
+	 * changes of the move are restored without recomputing anything.
+	 * @return True if a move was redone, false if there were no moves to redo.
+	 * @throws IllegalStateException When this game state is not a fork or
+	 *         when its parent was modified after it was forked.
+	 * @see #undo()
+	 */
+	public boolean redo() throws IllegalStateException{
+		if(parent == null){
+			throw new IllegalStateException("Only moves on forked game states can be redone.");
+		}
+		
+		checkParent();
+		if(redoMoves.isEmpty()){
+			return false;
+		}
+		
+		JournalEntry move = redoMoves.remove(redoMoves.size() - 1);
+		for(IndexChange change : move.changes){
+			objectIndex.put(change.id, change.after);
+		}
+		
+		if(move.claimed != null){
+			move.claimed.setOwner(move.owner);
+		}
+		
+		if(move.created != null){
+			created.add(move.created);
+			segments.addAll(Arrays.asList(move.segments));
+		}
+		
+		for(int i = 0; i < areas.length; i++){
+			areas[i] += move.areas[i];
+		}
+		
+		maxID = move.maxIDAfter;
+		activePlayer = move.playerAfter;
+		selected = null;
+		objects = null;
+		version++;
+		undoMoves.add(move);
+		return true;
+	}
+	
+	/**
+	 * Gets the area owned by the given player in this game state. For
+	 * states that are not a fork this is the same as {@link Player#getArea()}.
+	 * @param player The player to get the area of.
+	 * @return The area owned by the given player.
+	 * @see #fork()
+	 */
+	public double getArea(Player player){
+		return parent == null ? player.getArea() : (parent.getArea(player) + areas[players.indexOf(player)]);
+	}
+	
+	/**
+	 * Checks if the given merge lines intersect any of the segments in this game state.
+	 * @param lines The end points of the two merge lines.
+	 * @return True if either merge line intersects a segment in this game state.
+	 * @see ConvexUtil#computeMergeLines(List, List, boolean)
+	 */
+	protected boolean intersectsMergeLines(Point2D[] lines){
+		if(parent == null){
+			return segmentTreeConj.intersects(lines[0], lines[1]) || segmentTreeConj.intersects(lines[2], lines[3]) || segmentTreeKD.intersects(lines[0], lines[1]) || segmentTreeKD.intersects(lines[2], lines[3]);
+		}else{
+			return parent.intersectsMergeLines(lines) || SegmentPartitionTree.intersectsAny(segments, lines[0], lines[1]) || SegmentPartitionTree.intersectsAny(segments, lines[2], lines[3]);
+		}
+	}
+	
+	/**
+	 * Adds the given merge lines to the segments in this game state.
+	 * @param lines The end points of the two merge lines.
+	 * @throws InterruptedException When the player was
+	 *         interrupted while making its move. Signalling
+	 *         that the game was aborted.
+	 * @see ConvexUtil#computeMergeLines(List, List, boolean)
+	 */
+	protected void addMergeLines(Point2D[] lines) throws InterruptedException{
+		if(parent != null){
+			segments.add(new LineSegment(lines[0], lines[1]));
+			segments.add(new LineSegment(lines[2], lines[3]));
+			return;
+		}
+		
+		boolean animated = scheduler.isAnimated();
+		if(animated && segmentTreeConj.isAnimated()){
+			segmentTreeConj.showAnimation(lines[0], lines[1]).waitFor();
+			segmentTreeConj.showAnimation(lines[2], lines[3]).waitFor();
+		}
+		
+		if(animated && segmentTreeKD.isAnimated()){
+			segmentTreeKD.showAnimation(lines[0], lines[1]).waitFor();
+			segmentTreeKD.showAnimation(lines[2], lines[3]).waitFor();
+		}
+		
+		segmentTreeConj.addSegment(lines[0], lines[1]);
+		segmentTreeConj.addSegment(lines[2], lines[3]);
+		segmentTreeKD.addSegment(lines[0], lines[1]);
+		segmentTreeKD.addSegment(lines[2], lines[3]);
 	}
 	
 	/**
@@ -153,20 +595,123 @@ public class GameState{
 		return segmentTreeKD;
 	}
 	
+	/**
+	 * Gets the query cost metrics for the conjugation tree based segment intersection tree.
+	 * @return The conjugation tree segment intersection metrics.
+	 * @see #setSegmentTreeMetricsEnabled(boolean)
+	 */
+	public SegmentTreeMetrics getSegmentTreeMetricsConj(){
+		return segmentTreeConj.getMetrics();
+	}
+	
+	/**
+	 * Gets the query cost metrics for the kd-tree based segment intersection tree.
+	 * @return The kd-tree segment intersection metrics.
+	 * @see #setSegmentTreeMetricsEnabled(boolean)
+	 */
+	public SegmentTreeMetrics getSegmentTreeMetricsKD(){
+		return segmentTreeKD.getMetrics();
+	}
+	
+	/**
+	 * Enables or disables query cost metric collection for
+	 * both segment intersection trees of this game state.
+	 * @param enabled True to enable metric collection.
+	 */
+	public void setSegmentTreeMetricsEnabled(boolean enabled){
+		segmentTreeConj.getMetrics().setEnabled(enabled);
+		segmentTreeKD.getMetrics().setEnabled(enabled);
+	}
+	
 	/**
 	 * Initialises the game state running tasks that
-	 * need to run on the main game thread.
+	 * need to run on the main game thread. This builds
+	 * or loads the vertical decomposition and segment
+	 * partition trees for the playfield objects.
 	 * @throws InterruptedException When the player was
 	 *         interrupted while making its move. Signalling
 	 *         that the game was aborted.
+	 * @throws IllegalStateException When this game state is a fork.
 	 */
-	public void init() throws InterruptedException{
-		for(ConvexObject obj : objects){
-			decomp.addObject(obj);
+	public void init() throws InterruptedException, IllegalStateException{
+		if(parent != null){
+			throw new IllegalStateException("Forked game states cannot be initialised.");
+		}
+		
+		if(cache == null || seed == null || !cache.load(seed, objects, decomp, segmentTreeConj, segmentTreeKD)){
+			segmentTreeConj.setObjects(objects);
+			segmentTreeKD.setObjects(objects);
+			decomp.addObjects(objects, Objects.hashCode(seed));
+			if(cache != null && seed != null){
+				cache.store(seed, objects, decomp, segmentTreeConj, segmentTreeKD);
+			}
+		}
+		
+		if(slabs > 0){
+			PartitionedDecomposition partitioned = new PartitionedDecomposition(objects, slabs);
+			registerStateListener(partitioned);
+			locator = partitioned;
 		}
 		gameStart = System.currentTimeMillis();
 	}
 	
+	/**
+	 * Sets the cache to load the vertical decomposition and segment partition trees
+	 * for this game from. If the cache has no decomposition for the seed of this game
+	 * yet, the decomposition and trees are built as usual and then stored in the cache.
+	 * This has to be set before the game state is initialised.
+	 * @param cache The decomposition cache to use or <code>null</code>
+	 *        to always build the decomposition and trees.
+	 * @see #init()
+	 */
+	public void setDecompositionCache(DecompositionCache cache){
+		this.cache = cache;
+	}
+	
+	/**
+	 * Sets the number of vertical slabs to build a partitioned decomposition
+	 * with when this game is initialised. The decompositions of the slabs are
+	 * built in parallel, each on its own thread. The partitioned decomposition
+	 * then replaces the point locator of this game and is kept up to date
+	 * when objects are merged. This has to be set before the game state is
+	 * initialised.
+	 * @param slabs The number of slabs to use or 0 to not build
+	 *        a partitioned decomposition.
+	 * @throws IllegalArgumentException When the number of slabs is negative.
+	 * @see PartitionedDecomposition
+	 * @see #init()
+	 */
+	public void setPartitionedLocator(int slabs) throws IllegalArgumentException{
+		if(slabs < 0){
+			throw new IllegalArgumentException("The number of slabs cannot be negative.");
+		}
+		this.slabs = slabs;
+	}
+	
+	/**
+	 * Sets the scheduler that controls the pacing of the turns in this
+	 * game. The scheduler can be changed at any time while the game is
+	 * being played, the new scheduler is used from the next turn on.
+	 * Note that the scheduler is only used by games that are being
+	 * rendered, {@link #executePlayerTurn()} itself never waits.
+	 * @param scheduler The new turn scheduler.
+	 */
+	public void setTurnScheduler(TurnScheduler scheduler){
+		this.scheduler = scheduler;
+		if(parent == null){
+			decomp.setTurnScheduler(scheduler);
+		}
+	}
+	
+	/**
+	 * Gets the scheduler that controls the pacing of the turns in this game.
+	 * @return The turn scheduler for this game.
+	 * @see #setTurnScheduler(TurnScheduler)
+	 */
+	public TurnScheduler getTurnScheduler(){
+		return scheduler;
+	}
+	
 	/**
 	 * Checks if the game state is ready to handle the next turn.
 	 * @return True if the game state is ready for the next turn.
@@ -185,11 +730,31 @@ public class GameState{
 	}
 	
 	/**
-	 * Registers a listener to receive game status updates.
+	 * Registers a listener to receive game status updates. Listeners that
+	 * are not synchronous receive their updates on a dedicated thread.
 	 * @param listener The listener to register.
+	 * @see GameStateListener#isSynchronous()
 	 */
 	public void registerStateListener(GameStateListener listener){
-		listeners.add(listener);
+		if(listener.isSynchronous()){
+			listeners.add(listener);
+		}else{
+			AsyncStateListener async = new AsyncStateListener(listener);
+			asyncListeners.add(async);
+			listeners.add(async);
+		}
+	}
+	
+	/**
+	 * Blocks until all the game status updates that happened so far
+	 * have been delivered to all the listeners that are not synchronous.
+	 * @throws InterruptedException When the current thread is interrupted.
+	 * @see GameStateListener#isSynchronous()
+	 */
+	public void awaitListeners() throws InterruptedException{
+		for(AsyncStateListener listener : asyncListeners){
+			listener.awaitDelivery();
+		}
 	}
 	
 	/**
@@ -213,9 +778,26 @@ public class GameState{
 	 * @throws InterruptedException When the player was
 	 *         interrupted while making its move. Signalling
 	 *         that the game was aborted.
+	 * @throws IllegalArgumentException When this game state is a fork
+	 *         and the given object is not part of the fork.
+	 * @throws IllegalStateException When this game state is a fork whose
+	 *         parent was modified after it was forked.
 	 * @see #getActivePlayer()
+	 * @see #fork()
 	 */
 	public ClaimResult claimObject(ConvexObject obj, Point2D location) throws InterruptedException{
+		if(parent != null){
+			checkParent();
+			obj = resolve(obj);
+			if(obj == null){
+				throw new IllegalArgumentException("The given object is not part of this game state.");
+			}
+			
+			if(selected != null){
+				selected = resolve(selected);
+			}
+		}
+		
 		if(!obj.isOwned()){
 			if(selected != null){
 				ConvexObject merged = mergeObjects(selected, obj);
@@ -228,15 +810,30 @@ public class GameState{
 				}
 			}else{
 				Player player = getActivePlayer();
-				player.addArea(obj.getArea());
-				synchronized(objects){
-					obj.setOwner(player);
-					obj.setAnimation(new ClaimAnimation(obj, location));
+				if(parent != null){
+					startMove();
 				}
-				player.getStats().addClaim();
-				listeners.forEach(l->l.claim(player, obj));
+				
+				ConvexObject claimed = modifiable(obj);
+				addArea(player, claimed.getArea());
+				if(parent == null){
+					synchronized(objects){
+						claimed.setOwner(player);
+						if(scheduler.isAnimated()){
+							claimed.setAnimation(new ClaimAnimation(claimed, location));
+						}
+					}
+					player.getStats().addClaim();
+				}else{
+					claimed.setOwner(player);
+					current.claimed = claimed;
+					current.owner = player;
+				}
+				
+				version++;
+				listeners.forEach(l->l.claim(player, claimed));
 				endTurn();
-				return ClaimResult.of(obj);
+				return ClaimResult.of(claimed);
 			}
 		}else if(getActivePlayer().equals(obj.getOwner())){
 			if(selected == null){
@@ -272,6 +869,9 @@ public class GameState{
 	private void endTurn(){
 		selected = null;
 		activePlayer = (activePlayer + 1) % players.size();
+		if(current != null){
+			endMove();
+		}
 	}
 	
 	/**
@@ -291,14 +891,20 @@ public class GameState{
 			Player player = first.getOwner();
 			
 			List<ConvexObject> contained = new ArrayList<ConvexObject>();
-			int maxID = Math.max(first.getID(), second.getID());
+			if(parent != null){
+				startMove();
+				mergeFork(player, first, second, merged, contained);
+				return merged;
+			}
+			
 			synchronized(objects){
 				objects.remove(first);
 				objects.remove(second);
+				objectIndex.remove(first.getID());
+				objectIndex.remove(second.getID());
 				
-				for(ConvexObject obj : objects){
-					maxID = Math.max(maxID, obj.getID());
-					if(merged.contains(obj)){
+				for(ConvexObject obj : getContainedObjects(merged)){
+					if(!obj.equals(first) && !obj.equals(second)){
 						contained.add(obj);
 						if(obj.isOwned()){
 							obj.getOwner().removeArea(obj.getArea());
@@ -306,6 +912,9 @@ public class GameState{
 					}
 				}
 				objects.removeAll(contained);
+				for(ConvexObject obj : contained){
+					objectIndex.remove(obj.getID());
+				}
 				
 				objects.add(merged);
 				
@@ -316,14 +925,20 @@ public class GameState{
 				player.getStats().addAbsorbed(contained.size());
 				
 				merged.setOwner(player);
-				merged.setID(maxID + 1);
+				merged.setID(++maxID);
+				objectIndex.put(merged.getID(), merged);
 				merged.setAnimation(Animation.EMPTY);
 			}
 			
+			version++;
 			for(GameStateListener listener : listeners){
 				listener.merge(player, first, second, merged, contained);
 			}
-			merged.setAnimation(new MergeAnimation(first, second, merged, contained));
+			if(scheduler.isAnimated()){
+				merged.setAnimation(new MergeAnimation(first, second, merged, contained));
+			}else{
+				merged.setAnimation(null);
+			}
 			
 			return merged;
 		}else{
@@ -331,6 +946,44 @@ public class GameState{
 		}
 	}
 	
+	/**
+	 * Applies the result of a merge to this fork, the merged
+	 * object is assigned its ID and owner by this method.
+	 * @param player The player that performed the merge.
+	 * @param first The first object that was merged.
+	 * @param second The second object that was merged.
+	 * @param merged The object resulting from the merge.
+	 * @param contained The list to add the objects absorbed by the merge to.
+	 * @see #mergeObjects(ConvexObject, ConvexObject)
+	 */
+	private void mergeFork(Player player, ConvexObject first, ConvexObject second, ConvexObject merged, List<ConvexObject> contained){
+		for(ConvexObject obj : getContainedObjects(merged)){
+			if(!obj.equals(first) && !obj.equals(second)){
+				contained.add(obj);
+				if(obj.isOwned()){
+					addArea(obj.getOwner(), -obj.getArea());
+				}
+			}
+		}
+		
+		putIndex(first.getID(), null);
+		putIndex(second.getID(), null);
+		for(ConvexObject obj : contained){
+			putIndex(obj.getID(), null);
+		}
+		
+		addArea(player, merged.getArea() - first.getArea() - second.getArea());
+		merged.setOwner(player);
+		merged.setID(++maxID);
+		putIndex(merged.getID(), merged);
+		created.add(merged);
+		
+		//the merge lines of a merge are always the last two segments
+		current.created = merged;
+		current.segments = segments.subList(segments.size() - 2, segments.size()).toArray(new LineSegment[0]);
+		version++;
+	}
+	
 	/**
 	 * Gets the active players whose turn it is currently.
 	 * @return The active player.
@@ -349,23 +1002,141 @@ public class GameState{
 	}
 	
 	/**
-	 * Gets the object located at the given coordinates.
+	 * Gets the object located at the given coordinates. By default
+	 * queries are first answered using the object grid, queries in cells
+	 * the grid cannot resolve are answered by the latest snapshot of the
+	 * vertical decomposition. Neither requires locking, so this method
+	 * can be called from any thread while a merge is in progress.
 	 * @param x The x coordinate to look at.
 	 * @param y The y coordinate to look at.
 	 * @return The object at the given coordinates.
+	 * @see #setPointLocator(PointLocator)
+	 * @see ObjectGrid#queryObject(double, double)
+	 * @see VerticalDecomposition#getSnapshot()
 	 */
 	public ConvexObject getObject(double x, double y){
-		return decomp.queryObject(x, y);
+		if(parent == null){
+			return locator.queryObject(x, y);
+		}
+		
+		//objects created by merges in forks are not known to the locator
+		for(ConvexObject obj : getCreatedObjects()){
+			if(obj.contains(x, y)){
+				return obj;
+			}
+		}
+		
+		ConvexObject obj = locator.queryObject(x, y);
+		return obj == null ? null : resolve(obj);
+	}
+	
+	/**
+	 * Sets the point locator used to answer object queries for
+	 * this game state. Note that static locators such as the
+	 * {@link SlabLocator} and {@link KirkpatrickLocator} are not
+	 * updated when objects are merged, so they should be replaced
+	 * after every merge or only be used for finished games.
+	 * @param locator The new point locator to use.
+	 * @see #getObject(double, double)
+	 */
+	public void setPointLocator(PointLocator locator){
+		this.locator = locator;
 	}
 	
 	/**
-	 * Gets all the objects in this game.
+	 * Gets all the objects in this game. For forks the list
+	 * of objects is constructed from the objects of the parent
+	 * when it is first requested after a change to the fork.
 	 * @return All the objects in this game.
 	 */
 	public List<ConvexObject> getObjects(){
+		if(objects == null){
+			List<ConvexObject> data = new ArrayList<ConvexObject>();
+			for(ConvexObject obj : parent.getObjects()){
+				obj = resolve(obj);
+				if(obj != null){
+					data.add(obj);
+				}
+			}
+			for(ConvexObject obj : created){
+				if(resolve(obj) != null){
+					data.add(obj);
+				}
+			}
+			objects = data;
+		}
+		
 		return objects;
 	}
 	
+	/**
+	 * Gets all the objects in this game that are fully contained in the given
+	 * convex object. Only the objects whose bounding box is inside the bounding box
+	 * of the given object are tested for containment, these are found using the
+	 * object grid so the cost of this depends only on the neighbourhood of the object.
+	 * @param hull The convex object to find the contained objects of, this
+	 *        can also be an object that is not part of this game.
+	 * @return The objects contained in the given object in ascending ID order,
+	 *         if the given object is part of this game it is included itself.
+	 * @see ObjectGrid#getObjectsInside(Rectangle2D)
+	 */
+	public List<ConvexObject> getContainedObjects(ConvexObject hull){
+		Rectangle2D bounds = hull.getShape().getBounds2D();
+		List<ConvexObject> contained = new ArrayList<ConvexObject>();
+		for(ConvexObject obj : grid.getObjectsInside(bounds)){
+			obj = resolve(obj);
+			if(obj != null && hull.contains(obj)){
+				contained.add(obj);
+			}
+		}
+		
+		if(parent != null){
+			//objects created by merges in forks are not in the grid
+			for(ConvexObject obj : getCreatedObjects()){
+				if(bounds.contains(obj.getShape().getBounds2D()) && hull.contains(obj)){
+					contained.add(obj);
+				}
+			}
+			contained.sort(Comparator.comparingInt(ConvexObject::getID));
+		}
+		
+		return contained;
+	}
+	
+	/**
+	 * Gets all the objects in this fork that were created by
+	 * merges in this fork or any of the forks it was forked from.
+	 * @return The objects created by merges in forks in ascending ID order.
+	 */
+	private List<ConvexObject> getCreatedObjects(){
+		List<ConvexObject> all = parent.parent == null ? new ArrayList<ConvexObject>() : parent.getCreatedObjects();
+		all.addAll(created);
+		all.replaceAll(this::resolve);
+		all.removeIf(Objects::isNull);
+		return all;
+	}
+	
+	/**
+	 * Gets the object in this game with the given ID.
+	 * @param id The ID of the object to get.
+	 * @return The object with the given ID or <code>null</code>
+	 *         if there is no such object or the object was
+	 *         absorbed by a merge.
+	 * @see ConvexObject#getID()
+	 */
+	public ConvexObject getObjectByID(int id){
+		return parent == null || objectIndex.containsKey(id) ? objectIndex.get(id) : parent.getObjectByID(id);
+	}
+	
+	/**
+	 * Gets the highest ID assigned to any object in this game so far.
+	 * The next object created by a merge is assigned the ID after this one.
+	 * @return The highest object ID so far.
+	 */
+	public int getMaxObjectID(){
+		return maxID;
+	}
+	
 	/**
 	 * Gets the vertical decomposition for the game state.
 	 * @return The vertical decomposition.
@@ -374,6 +1145,14 @@ public class GameState{
 		return decomp;
 	}
 	
+	/**
+	 * Gets the object grid used to accelerate point queries for the game state.
+	 * @return The object grid.
+	 */
+	public ObjectGrid getObjectGrid(){
+		return grid;
+	}
+	
 	/**
 	 * Gets the helper lines to be drawn from the currently
 	 * selected first object to the given point.
@@ -405,7 +1184,7 @@ public class GameState{
 	 * @return A stream of all the objects in this game.
 	 */
 	public Stream<ConvexObject> stream(){
-		return objects.stream();
+		return getObjects().stream();
 	}
 	
 	/**
@@ -430,9 +1209,14 @@ public class GameState{
 	 *         thread is interrupted while the player
 	 *         is executing its move. This signals that
 	 *         the game was aborted.
+	 * @throws IllegalStateException When this game state is a fork.
 	 * @see #getActivePlayer()
 	 */
-	public void executePlayerTurn() throws InterruptedException{
+	public void executePlayerTurn() throws InterruptedException, IllegalStateException{
+		if(parent != null){
+			throw new IllegalStateException("Players cannot execute turns on forked game states.");
+		}
+		
 		ended = !getActivePlayer().executeMove();
 		if(ended){
 			turns--;
@@ -510,4 +1294,103 @@ public class GameState{
 	public void abort(){
 		listeners.forEach(GameStateListener::abort);
 	}
+	
+	/**
+	 * Journal entry recording all the changes a single claim
+	 * or merge made to a fork, so the move can be undone and redone.
+	 * @author Roan
+	 * @see GameState#undo()
+	 * @see GameState#redo()
+	 */
+	private static final class JournalEntry{
+		/**
+		 * The index of the active player before the move.
+		 */
+		private final int playerBefore;
+		/**
+		 * The index of the active player after the move.
+		 */
+		private int playerAfter;
+		/**
+		 * The highest object ID before the move.
+		 */
+		private final int maxIDBefore;
+		/**
+		 * The highest object ID after the move.
+		 */
+		private int maxIDAfter;
+		/**
+		 * The changes made to the object index of the fork in order.
+		 */
+		private final List<IndexChange> changes = new ArrayList<IndexChange>();
+		/**
+		 * The area gained by every player with the move.
+		 */
+		private final double[] areas;
+		/**
+		 * The object that was claimed by the move or <code>null</code>.
+		 */
+		private ConvexObject claimed = null;
+		/**
+		 * The player that claimed the claimed object or <code>null</code>.
+		 */
+		private Player owner = null;
+		/**
+		 * The object created by the move if it was a merge or <code>null</code>.
+		 */
+		private ConvexObject created = null;
+		/**
+		 * The merge lines added by the move if it was a merge.
+		 */
+		private LineSegment[] segments = null;
+		
+		/**
+		 * Constructs a new journal entry for a move.
+		 * @param player The index of the active player before the move.
+		 * @param maxID The highest object ID before the move.
+		 * @param players The number of players in the game.
+		 */
+		private JournalEntry(int player, int maxID, int players){
+			playerBefore = player;
+			maxIDBefore = maxID;
+			areas = new double[players];
+		}
+	}
+	
+	/**
+	 * A single change to the object index of a fork.
+	 * @author Roan
+	 */
+	private static final class IndexChange{
+		/**
+		 * The ID of the object that was changed.
+		 */
+		private final int id;
+		/**
+		 * Whether the fork had an entry for the ID before the change.
+		 */
+		private final boolean existed;
+		/**
+		 * The object the ID was mapped to before the change.
+		 */
+		private final ConvexObject before;
+		/**
+		 * The object the ID is mapped to after the change.
+		 */
+		private final ConvexObject after;
+		
+		/**
+		 * Constructs a new object index change.
+		 * @param id The ID of the object that was changed.
+		 * @param existed Whether the fork had an entry for the ID before the change.
+		 * @param before The object the ID was mapped to before the change.
+		 * @param after The object the ID is mapped to after the change.
+		 */
+		private IndexChange(int id, boolean existed, ConvexObject before, ConvexObject after){
+			this.id = id;
+			this.existed = existed;
+			this.before = before;
+			this.after = after;
+		}
+	}
 }
@@ -57,4 +57,19 @@ public abstract interface GameStateListener{
 	 * Called when the game is aborted (forcefully terminated).
 	 */
 	public abstract void abort();
+	
+	/**
+	 * Checks if this listener has to receive events synchronously on the
+	 * game thread. Synchronous listeners have fully processed an event before
+	 * the game continues, this is required for listeners that the game itself
+	 * depends on such as the vertical decomposition. Listeners that are not
+	 * synchronous receive events in order on a dedicated thread instead, so
+	 * they never stall the game thread unless they fall far behind. Such
+	 * listeners have to be safe to call from a thread other than the game thread.
+	 * @return True if this listener has to receive events synchronously.
+	 * @see AsyncStateListener
+	 */
+	public default boolean isSynchronous(){
+		return true;
+	}
 }
\ No newline at end of file
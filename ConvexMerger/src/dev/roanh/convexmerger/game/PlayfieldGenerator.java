@@ -26,6 +26,7 @@ import java.util.concurrent.ThreadLocalRandom;
 
 import dev.roanh.convexmerger.Constants;
 import dev.roanh.convexmerger.util.ConvexUtil;
+import dev.roanh.convexmerger.util.FixedPoint;
 
 /**
  * Generator to generate a playfield of randomly placed convex objects
@@ -85,6 +86,10 @@ public class PlayfieldGenerator{
 	 * Listener to notify of generation progress.
 	 */
 	private GeneratorProgressListener listener;
+	/**
+	 * Whether generated objects are snapped to exact fixed-point coordinates.
+	 */
+	private boolean fixedPoint = false;
 	
 	/**
 	 * Constructs a new playfield generator with a random seed,
@@ -184,6 +189,29 @@ public class PlayfieldGenerator{
 		return scaleNum;
 	}
 	
+	/**
+	 * Sets whether generated objects should be snapped to exact fixed-point
+	 * coordinates after they are scaled. In fixed-point mode all areas and
+	 * collinearity tests are computed exactly and player areas never accumulate
+	 * rounding errors. Note that this setting is not part of the seed, the
+	 * objects in fixed-point mode differ from the regular objects by less than
+	 * <code>2^-16</code> in every coordinate.
+	 * @param fixedPoint True to enable fixed-point mode.
+	 * @see FixedPoint
+	 */
+	public void setFixedPoint(boolean fixedPoint){
+		this.fixedPoint = fixedPoint;
+	}
+	
+	/**
+	 * Checks if generated objects are snapped to exact fixed-point coordinates.
+	 * @return True if fixed-point mode is enabled.
+	 * @see #setFixedPoint(boolean)
+	 */
+	public boolean isFixedPoint(){
+		return fixedPoint;
+	}
+	
 	/**
 	 * Gets the seed that describes this random generator.
 	 * @return The seed for this random generator.
@@ -327,6 +355,9 @@ public class PlayfieldGenerator{
 		}while(totalArea < (Constants.PLAYFIELD_WIDTH * Constants.PLAYFIELD_HEIGHT) * coverage);
 		
 		objects.forEach(obj->obj.scale(scale));
+		if(fixedPoint){
+			objects.forEach(ConvexObject::snapToFixedPoint);
+		}
 
 		return objects;
 	}
@@ -0,0 +1,179 @@
+/*
+ * ConvexMerger:  An area maximisation game based on the idea of merging convex shapes.
+ * Copyright (C) 2021  Roan Hofland (roan@roanh.dev), Emiliyan Greshkov and contributors.
+ * GitHub Repository: https://github.com/RoanH/ConvexMerger
+ *
+ * ConvexMerger is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ConvexMerger is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package dev.roanh.convexmerger.game;
+
+import java.util.concurrent.TimeUnit;
+
+import dev.roanh.convexmerger.Constants;
+import dev.roanh.convexmerger.player.Player;
+
+/**
+ * Scheduler that controls the pacing of the turns of a game that is
+ * being rendered. The scheduler decides how long to wait before and after
+ * every turn, whether the game waits for animations to finish and how long
+ * AI players are allowed to think about their move.
+ * @author Roan
+ * @see GameState#setTurnScheduler(TurnScheduler)
+ */
+public abstract class TurnScheduler{
+	/**
+	 * Scheduler that paces turns such that they can be followed by a human,
+	 * AI players wait before making their move, every turn takes a minimum
+	 * amount of time and all animations are shown. AI players are not limited
+	 * in how long they can think about their move.
+	 */
+	public static final TurnScheduler INTERACTIVE = new TurnScheduler("Interactive"){
+		
+		@Override
+		public void beforeGame(GameState state) throws InterruptedException{
+			if(state.getActivePlayer().isAI()){
+				Thread.sleep(Constants.MIN_TURN_TIME);
+			}
+		}
+		
+		@Override
+		public void beforeTurn(Player player) throws InterruptedException{
+			if(player.isAI()){
+				Thread.sleep(Constants.AI_WAIT_TIME);
+			}
+		}
+		
+		@Override
+		public void afterTurn(Player player, long duration) throws InterruptedException{
+			if(duration < Constants.MIN_TURN_TIME){
+				Thread.sleep(Constants.MIN_TURN_TIME - duration);
+			}
+		}
+	};
+	/**
+	 * Scheduler that plays turns as fast as possible, there are no waits
+	 * between turns and the game never waits for an animation to finish.
+	 * Claim and merge animations are also skipped. This allows games between
+	 * AI players to run at full speed while the game is still being rendered.
+	 */
+	public static final TurnScheduler TURBO = new TurnScheduler("Turbo"){
+		
+		@Override
+		public boolean isAnimated(){
+			return false;
+		}
+	};
+	/**
+	 * Scheduler with the same pacing as {@link #INTERACTIVE} that
+	 * limits AI players to {@value Constants#AI_TURN_BUDGET} milliseconds
+	 * of thinking time per turn.
+	 * @see #budgeted(long)
+	 */
+	public static final TurnScheduler BUDGETED = budgeted(Constants.AI_TURN_BUDGET);
+	/**
+	 * The display name of this scheduler.
+	 */
+	private final String name;
+	
+	/**
+	 * Constructs a new turn scheduler with the given name.
+	 * @param name The display name of the scheduler.
+	 */
+	protected TurnScheduler(String name){
+		this.name = name;
+	}
+	
+	/**
+	 * Creates a scheduler with the same pacing as {@link #INTERACTIVE} that
+	 * limits the thinking time of players. When their time runs out players
+	 * make the best move they have found so far, as a result turns can take
+	 * slightly longer than the budget but never much longer.
+	 * @param budget The thinking time budget per turn in milliseconds.
+	 * @return The budgeted turn scheduler.
+	 * @throws IllegalArgumentException When the budget is not positive.
+	 * @see Player#setTurnDeadline(long)
+	 */
+	public static TurnScheduler budgeted(long budget) throws IllegalArgumentException{
+		if(budget <= 0){
+			throw new IllegalArgumentException("The turn budget has to be positive.");
+		}
+		
+		return new TurnScheduler("Budgeted"){
+			
+			@Override
+			public void beforeGame(GameState state) throws InterruptedException{
+				INTERACTIVE.beforeGame(state);
+			}
+			
+			@Override
+			public void beforeTurn(Player player) throws InterruptedException{
+				INTERACTIVE.beforeTurn(player);
+				player.setTurnDeadline(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budget));
+			}
+			
+			@Override
+			public void afterTurn(Player player, long duration) throws InterruptedException{
+				player.clearTurnDeadline();
+				INTERACTIVE.afterTurn(player, duration);
+			}
+		};
+	}
+	
+	/**
+	 * Gets the display name of this scheduler.
+	 * @return The name of this scheduler.
+	 */
+	public String getName(){
+		return name;
+	}
+	
+	/**
+	 * Called once after the game was initialised and before the first turn.
+	 * @param state The game that is about to start.
+	 * @throws InterruptedException When the game was aborted.
+	 */
+	public void beforeGame(GameState state) throws InterruptedException{
+	}
+	
+	/**
+	 * Called right before the given player executes its turn.
+	 * @param player The player that is about to execute its turn.
+	 * @throws InterruptedException When the game was aborted.
+	 */
+	public void beforeTurn(Player player) throws InterruptedException{
+	}
+	
+	/**
+	 * Called right after the given player executed its turn.
+	 * @param player The player that executed its turn.
+	 * @param duration The time the turn took in milliseconds.
+	 * @throws InterruptedException When the game was aborted.
+	 */
+	public void afterTurn(Player player, long duration) throws InterruptedException{
+	}
+	
+	/**
+	 * Checks if animations should be shown while the game is played.
+	 * When false the game does not wait for any animation to finish.
+	 * @return True if animations should be shown.
+	 */
+	public boolean isAnimated(){
+		return true;
+	}
+	
+	@Override
+	public String toString(){
+		return name;
+	}
+}
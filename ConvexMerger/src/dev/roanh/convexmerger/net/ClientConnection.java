@@ -115,33 +115,21 @@ public class ClientConnection extends Connection implements GameStateListener{
 	@Override
 	public void claim(Player player, ConvexObject obj){
 		if(player.isLocal()){
-			try{
-				sendPacket(new PacketPlayerMove(player, obj));
-			}catch(IOException e){
-				close();
-			}
+			queuePacket(new PacketPlayerMove(player, obj));
 		}
 	}
 
 	@Override
 	public void merge(Player player, ConvexObject source, ConvexObject target, ConvexObject result, List<ConvexObject> absorbed){
 		if(player.isLocal()){
-			try{
-				sendPacket(new PacketPlayerMove(player, source, target));
-			}catch(IOException e){
-				close();
-			}
+			queuePacket(new PacketPlayerMove(player, source, target));
 		}
 	}
 
 	@Override
 	public void end(){
 		if(!isClosed()){
-			try{
-				sendPacket(new PacketGameEnd());
-			}catch(IOException e){
-				close();
-			}
+			queuePacket(new PacketGameEnd());
 		}
 	}
 	
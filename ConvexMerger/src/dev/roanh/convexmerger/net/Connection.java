@@ -22,6 +22,9 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.net.Socket;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import dev.roanh.convexmerger.net.packet.Packet;
 
@@ -30,6 +33,18 @@ import dev.roanh.convexmerger.net.packet.Packet;
  * @author Roan
  */
 public class Connection{
+	/**
+	 * The maximum number of packets that can be waiting to be sent.
+	 */
+	private static final int OUTBOX_CAPACITY = 64;
+	/**
+	 * Packets queued to be sent by the sender thread, stored as send tasks.
+	 */
+	private final BlockingQueue<Runnable> outbox = new ArrayBlockingQueue<Runnable>(OUTBOX_CAPACITY);
+	/**
+	 * The thread sending queued packets, <code>null</code> if no packets were queued yet.
+	 */
+	private Thread sender = null;
 	/**
 	 * The input stream for this connection.
 	 */
@@ -92,6 +107,90 @@ public class Connection{
 		out.flush();
 	}
 	
+	/**
+	 * Queues a packet to be sent over this connection by a dedicated sender
+	 * thread. Packets are sent in the order they were queued, if too many
+	 * packets are waiting the calling thread blocks until space is available
+	 * or the connection is closed. This way the packet is constructed on the
+	 * calling thread while the actual network write does not block it. Packets
+	 * queued after the connection was closed are dropped, as are packets queued
+	 * by a thread that is interrupted, in which case the interrupt flag is restored.
+	 * @param packet The packet to send.
+	 * @see #closeWhenSent()
+	 */
+	public void queuePacket(Packet packet){
+		queue(()->{
+			if(!isClosed()){
+				try{
+					sendPacket(packet);
+				}catch(IOException e){
+					//will be detected on read
+					close();
+				}
+			}
+		});
+	}
+	
+	/**
+	 * Closes this connection once all packets queued
+	 * so far have been sent.
+	 * @see #queuePacket(Packet)
+	 */
+	public void closeWhenSent(){
+		queue(this::close);
+	}
+	
+	/**
+	 * Adds a new task to the outbox, starting the sender thread if required.
+	 * Tasks are dropped if the connection is closed, either before the task
+	 * was queued or while waiting for space in the outbox.
+	 * @param task The task to queue.
+	 */
+	private void queue(Runnable task){
+		if(isClosed()){
+			return;
+		}
+		
+		synchronized(outbox){
+			if(sender == null){
+				sender = new Thread(this::send, "ConnectionSender");
+				sender.setDaemon(true);
+				sender.start();
+			}
+		}
+		
+		try{
+			while(!outbox.offer(task, 100, TimeUnit.MILLISECONDS)){
+				if(isClosed()){
+					//the sender may have stopped, it will never make space
+					return;
+				}
+			}
+		}catch(InterruptedException e){
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	/**
+	 * Runs queued send tasks until the connection is closed. Tasks
+	 * queued after the connection was closed are discarded, this
+	 * includes tasks queued concurrently with this thread stopping.
+	 */
+	private void send(){
+		try{
+			while(!isClosed()){
+				Runnable task = outbox.poll(1, TimeUnit.SECONDS);
+				if(task != null){
+					task.run();
+				}
+			}
+		}catch(InterruptedException e){
+			//nothing else interrupts this thread, just stop sending
+		}finally{
+			outbox.clear();
+		}
+	}
+	
 	/**
 	 * Checks if this connection is closed.
 	 * @return True if this connection is closed.
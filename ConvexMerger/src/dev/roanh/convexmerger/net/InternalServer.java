@@ -113,7 +113,7 @@ public final class InternalServer implements GameStateListener{
 	@Override
 	public void end(){
 		thread.broadCast(new PacketPlayerMove());
-		thread.close();
+		thread.closeWhenSent();
 	}
 	
 	@Override
@@ -166,38 +166,42 @@ public final class InternalServer implements GameStateListener{
 			}
 		}
 		
+		/**
+		 * Closes all connections held by this server thread
+		 * after all packets queued so far have been sent.
+		 */
+		private void closeWhenSent(){
+			for(Connection con : connections.values()){
+				con.closeWhenSent();
+			}
+		}
+		
 		/**
 		 * Broadcasts a packet to all connected players
-		 * except for the given source player.
+		 * except for the given source player. The packet
+		 * is queued so slow connections do not block the game.
 		 * @param source The player to exclude.
 		 * @param packet The packet to send.
+		 * @see Connection#queuePacket(Packet)
 		 */
 		private void broadCast(Player source, Packet packet){
 			for(Entry<Integer, Connection> entry : connections.entrySet()){
 				if(entry.getKey() != source.getID() && !entry.getValue().isClosed()){
-					try{
-						entry.getValue().sendPacket(packet);
-					}catch(IOException e){
-						//will be detected on read
-						entry.getValue().close();
-					}
+					entry.getValue().queuePacket(packet);
 				}
 			}
 		}
 		
 		/**
-		 * Broadcasts a packet to all connected players.
+		 * Broadcasts a packet to all connected players. The packet
+		 * is queued so slow connections do not block the game.
 		 * @param packet The packet to send.
+		 * @see Connection#queuePacket(Packet)
 		 */
 		private void broadCast(Packet packet){
 			for(Connection con : connections.values()){
 				if(!con.isClosed()){
-					try{
-						con.sendPacket(packet);
-					}catch(IOException e){
-						//will be detected on read
-						con.close();
-					}
+					con.queuePacket(packet);
 				}
 			}
 		}
@@ -59,6 +59,10 @@ public class GreedyPlayer extends Player{
 		MergeOption bestMerge = null;
 
 		for(ConvexObject obj : owned){
+			if(bestMerge != null && isOutOfTime()){
+				break;
+			}
+			
 			MergeOption option = findBestMergeFrom(obj);
 			if(option != null && (bestMerge == null || option.getIncrease() > bestMerge.getIncrease())){
 				bestMerge = option;
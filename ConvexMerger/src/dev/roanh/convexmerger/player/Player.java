@@ -72,6 +72,15 @@ public abstract class Player implements Identity{
 	 * Whether this player is local or acting as remote proxy.
 	 */
 	private boolean local;
+	/**
+	 * True if this player has a deadline for its current turn.
+	 */
+	private boolean timed = false;
+	/**
+	 * The {@link System#nanoTime()} at which the current
+	 * turn of this player should end if it is timed.
+	 */
+	private long deadline;
 
 	/**
 	 * Constructs a new player instance.
@@ -227,6 +236,38 @@ public abstract class Player implements Identity{
 		this.name = name;
 	}
 	
+	/**
+	 * Sets the deadline for the current turn of this player. AI players
+	 * stop searching for better moves once the deadline has passed and
+	 * make the best move they found so far instead.
+	 * @param deadline The {@link System#nanoTime()} at which
+	 *        the current turn of this player should end.
+	 * @see #isOutOfTime()
+	 * @see #clearTurnDeadline()
+	 */
+	public void setTurnDeadline(long deadline){
+		this.deadline = deadline;
+		timed = true;
+	}
+	
+	/**
+	 * Removes the deadline for the current turn of this player.
+	 * @see #setTurnDeadline(long)
+	 */
+	public void clearTurnDeadline(){
+		timed = false;
+	}
+	
+	/**
+	 * Checks if the deadline for the current turn of this player has passed.
+	 * @return True if the turn of this player is past its deadline,
+	 *         always false if the turn of this player has no deadline.
+	 * @see #setTurnDeadline(long)
+	 */
+	protected boolean isOutOfTime(){
+		return timed && System.nanoTime() - deadline >= 0;
+	}
+	
 	/**
 	 * Checks if there exists a possible valid merge from the
 	 * given object to any other object. The given object does
@@ -248,7 +289,8 @@ public abstract class Player implements Identity{
 	
 	/**
 	 * Finds the best possible merge (largest relative area gain)
-	 * from the given object for this player.
+	 * from the given object for this player. If the turn of this
+	 * player is past its deadline the best merge found so far is returned.
 	 * @param obj The object to check from.
 	 * @return The best possible merge option or <code>null</code>
 	 *         if there are no possible merges left in the game.
@@ -259,6 +301,10 @@ public abstract class Player implements Identity{
 		double increase = 0.0D;
 		
 		for(ConvexObject other : state.getObjects()){
+			if(first != null && isOutOfTime()){
+				break;
+			}
+			
 			if((!other.isOwned() || other.isOwnedBy(this)) && !other.equals(obj)){
 				ConvexObject combined = obj.merge(state, other);
 				if(combined != null){
@@ -271,8 +317,8 @@ public abstract class Player implements Identity{
 						area -= obj.getArea();
 					}
 					
-					for(ConvexObject check : state.getObjects()){
-						if(!obj.equals(check) && !other.equals(check) && combined.contains(check)){
+					for(ConvexObject check : state.getContainedObjects(combined)){
+						if(!obj.equals(check) && !other.equals(check)){
 							if(check.isOwnedBy(this)){
 								area -= check.getArea();
 							}else if(check.isOwned()){
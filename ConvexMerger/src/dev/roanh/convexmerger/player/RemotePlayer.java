@@ -20,6 +20,7 @@ package dev.roanh.convexmerger.player;
 
 import java.io.IOException;
 
+import dev.roanh.convexmerger.game.ConvexObject;
 import dev.roanh.convexmerger.net.Connection;
 import dev.roanh.convexmerger.net.packet.Packet;
 import dev.roanh.convexmerger.net.packet.PacketPlayerMove;
@@ -112,12 +113,19 @@ public class RemotePlayer extends GreedyPlayer{
 				this.setName(this.getName() + " [Lost]");
 			}
 			
+			ConvexObject source = state.getObjectByID(move.getSource());
+			ConvexObject target = move.getType() == MoveType.MERGE ? state.getObjectByID(move.getTarget()) : null;
+			if(source == null || (move.getType() == MoveType.MERGE && target == null)){
+				//the remote player is out of sync with the game state
+				return fallback();
+			}
+			
 			if(move.getType() == MoveType.CLAIM){
-				state.claimObject(state.stream().filter(obj->obj.getID() == move.getSource()).findFirst().get());
+				state.claimObject(source);
 				return true;
 			}else if(move.getType() == MoveType.MERGE){
-				state.claimObject(state.stream().filter(obj->obj.getID() == move.getSource()).findFirst().get());
-				state.claimObject(state.stream().filter(obj->obj.getID() == move.getTarget()).findFirst().get());
+				state.claimObject(source);
+				state.claimObject(target);
 				return true;
 			}
 		}catch(IOException e){
@@ -0,0 +1,61 @@
+/*
+ * ConvexMerger:  An area maximisation game based on the idea of merging convex shapes.
+ * Copyright (C) 2021  Roan Hofland (roan@roanh.dev), Emiliyan Greshkov and contributors.
+ * GitHub Repository: https://github.com/RoanH/ConvexMerger
+ *
+ * ConvexMerger is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ConvexMerger is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package dev.roanh.convexmerger.replay;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import dev.roanh.convexmerger.player.Player;
+
+/**
+ * Player that makes the moves recorded in a replay.
+ * @author Roan
+ * @see ReplayReader
+ */
+public class ReplayPlayer extends Player{
+	/**
+	 * The reader to read the moves of this player from.
+	 */
+	private final ReplayReader reader;
+
+	/**
+	 * Constructs a new replay player.
+	 * @param reader The reader to read the moves of this player from.
+	 * @param name The name of the recorded player.
+	 * @param ai Whether the recorded player was an AI.
+	 */
+	protected ReplayPlayer(ReplayReader reader, String name, boolean ai){
+		super(true, ai, name);
+		this.reader = reader;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @throws UncheckedIOException When the next move could not be read from
+	 *         the replay or is not a valid move for this player.
+	 */
+	@Override
+	public boolean executeMove() throws InterruptedException, UncheckedIOException{
+		try{
+			return reader.playMove(state);
+		}catch(IOException e){
+			throw new UncheckedIOException(e);
+		}
+	}
+}
@@ -0,0 +1,331 @@
+/*
+ * ConvexMerger:  An area maximisation game based on the idea of merging convex shapes.
+ * Copyright (C) 2021  Roan Hofland (roan@roanh.dev), Emiliyan Greshkov and contributors.
+ * GitHub Repository: https://github.com/RoanH/ConvexMerger
+ *
+ * ConvexMerger is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ConvexMerger is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package dev.roanh.convexmerger.replay;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import dev.roanh.convexmerger.game.ClaimResult;
+import dev.roanh.convexmerger.game.ConvexObject;
+import dev.roanh.convexmerger.game.GameConstructor;
+import dev.roanh.convexmerger.game.GameState;
+import dev.roanh.convexmerger.game.PlayfieldGenerator;
+import dev.roanh.convexmerger.player.Player;
+
+/**
+ * Streaming reader for replays written by a {@link ReplayWriter}. The header
+ * of the replay is read when the reader is constructed, moves are only read when
+ * they are replayed. Games are reproduced by constructing a game state from the
+ * seed of the replay with a {@link ReplayPlayer} for every recorded player, these
+ * players then make the recorded moves in turn as the game is played.
+ * @author Roan
+ * @see ReplayWriter
+ * @see ReplayPlayer
+ */
+public class ReplayReader implements GameConstructor, Closeable{
+	/**
+	 * The stream the replay is read from.
+	 */
+	private final PushbackInputStream in;
+	/**
+	 * The seed of the recorded game.
+	 */
+	private final String seed;
+	/**
+	 * The names of the recorded players.
+	 */
+	private final String[] names;
+	/**
+	 * Whether each of the recorded players was an AI.
+	 */
+	private final boolean[] ai;
+	/**
+	 * True if all the moves in the replay were read.
+	 */
+	private boolean ended = false;
+	/**
+	 * True if the end of the replay was marked, meaning
+	 * the recorded game was played until its end.
+	 */
+	private boolean complete = false;
+	
+	/**
+	 * Constructs a new replay reader reading from the given stream.
+	 * @param in The stream to read the replay from.
+	 * @throws IOException When an IOException occurs or when the
+	 *         given stream does not contain a valid replay.
+	 */
+	public ReplayReader(InputStream in) throws IOException{
+		this.in = new PushbackInputStream(in);
+		int magic = 0;
+		for(int i = 0; i < 4; i++){
+			magic = (magic << 8) | readByte(this.in);
+		}
+		
+		if(magic != ReplayWriter.MAGIC){
+			throw new IOException("The given stream is not a replay.");
+		}
+		
+		int version = readVarInt(this.in);
+		if(version != ReplayWriter.FORMAT_VERSION){
+			throw new IOException("Unsupported replay format version: " + version);
+		}
+		
+		seed = readString(this.in);
+		if(!PlayfieldGenerator.isValidSeed(seed)){
+			throw new IOException("Invalid replay seed: " + seed);
+		}
+		
+		names = new String[readVarInt(this.in)];
+		ai = new boolean[names.length];
+		for(int i = 0; i < names.length; i++){
+			names[i] = readString(this.in);
+			ai[i] = readByte(this.in) != 0;
+		}
+	}
+	
+	/**
+	 * Gets the seed of the recorded game.
+	 * @return The seed of the recorded game.
+	 */
+	public String getSeed(){
+		return seed;
+	}
+	
+	/**
+	 * Gets the number of players in the recorded game.
+	 * @return The number of players.
+	 */
+	public int getPlayerCount(){
+		return names.length;
+	}
+	
+	/**
+	 * Gets the name of the given recorded player.
+	 * @param player The index of the player in turn order.
+	 * @return The name of the player.
+	 */
+	public String getPlayerName(int player){
+		return names[player];
+	}
+	
+	/**
+	 * Checks if the given recorded player was an AI.
+	 * @param player The index of the player in turn order.
+	 * @return True if the player was an AI.
+	 */
+	public boolean isAI(int player){
+		return ai[player];
+	}
+	
+	/**
+	 * Checks if the replay marked the end of the recorded game. This is only
+	 * known after all the moves have been read, replays of aborted games or
+	 * replays of games that are still in progress do not have an end marker.
+	 * @return True if the recorded game was played until its end.
+	 */
+	public boolean isComplete(){
+		return complete;
+	}
+	
+	/**
+	 * Constructs a new game state for the recorded game, the players
+	 * of the game replay the recorded moves when they execute a move.
+	 * Note that moves are read from the replay as they are played,
+	 * so only a single game state should be created per reader.
+	 * @return The game state for the recorded game.
+	 */
+	@Override
+	public GameState create(){
+		List<Player> players = new ArrayList<Player>(names.length);
+		for(int i = 0; i < names.length; i++){
+			players.add(new ReplayPlayer(this, names[i], ai[i]));
+		}
+		return new GameState(new PlayfieldGenerator(seed), players);
+	}
+	
+	/**
+	 * Replays the entire recorded game. If the replay is of an aborted game
+	 * then the returned game is not finished and is left at the last recorded move.
+	 * @return The game state at the end of the replay.
+	 * @throws IOException When an IOException occurs or when the
+	 *         replay does not match the game generated from its seed.
+	 * @throws InterruptedException When the replay was interrupted.
+	 * @see #create()
+	 */
+	public GameState replay() throws IOException, InterruptedException{
+		GameState state = create();
+		state.init();
+		try{
+			while(!state.isFinished() && hasMoreMoves()){
+				state.executePlayerTurn();
+			}
+		}catch(UncheckedIOException e){
+			throw e.getCause();
+		}
+		return state;
+	}
+	
+	/**
+	 * Checks if there is more data to read from the replay, this is either
+	 * another move or the marker for the end of the recorded game.
+	 * @return True if the replay has more data to read.
+	 * @throws IOException When an IOException occurs.
+	 */
+	private boolean hasMoreMoves() throws IOException{
+		if(ended){
+			return false;
+		}
+		
+		int next = in.read();
+		if(next == -1){
+			ended = true;
+			return false;
+		}
+		
+		in.unread(next);
+		return true;
+	}
+	
+	/**
+	 * Reads the next move from the replay and makes it in the given game.
+	 * @param state The game to make the move in.
+	 * @return True if a move was made, false if there are no more moves.
+	 * @throws IOException When an IOException occurs or when the move
+	 *         is not a valid move for the active player of the game.
+	 * @throws InterruptedException When the move was interrupted.
+	 */
+	protected boolean playMove(GameState state) throws IOException, InterruptedException{
+		if(!hasMoreMoves()){
+			return false;
+		}
+		
+		int code = readVarInt(in);
+		if(code == ReplayWriter.END){
+			ended = true;
+			complete = true;
+			return false;
+		}
+		
+		ConvexObject source = getObject(state, code >>> 1);
+		if((code & 1) == 0){
+			checkResult(state.claimObject(source));
+		}else{
+			ConvexObject target = getObject(state, readVarInt(in));
+			
+			//the source of a merge is the object that was clicked second if both were owned
+			if(target.isOwned()){
+				checkResult(state.claimObject(target));
+				checkResult(state.claimObject(source));
+			}else{
+				checkResult(state.claimObject(source));
+				checkResult(state.claimObject(target));
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Gets the object with the given ID in the given game.
+	 * @param state The game to get the object from.
+	 * @param id The ID of the object.
+	 * @return The object with the given ID.
+	 * @throws IOException When there is no object with the given ID.
+	 */
+	private static ConvexObject getObject(GameState state, int id) throws IOException{
+		ConvexObject obj = state.getObjectByID(id);
+		if(obj == null){
+			throw new IOException("Replay references an unknown object: " + id);
+		}
+		return obj;
+	}
+	
+	/**
+	 * Checks that the given claim result is not an error.
+	 * @param result The claim result to check.
+	 * @throws IOException When the claim result is an error.
+	 */
+	private static void checkResult(ClaimResult result) throws IOException{
+		if(result.hasMessage()){
+			throw new IOException("Replay contains an invalid move.");
+		}
+	}
+	
+	@Override
+	public void close() throws IOException{
+		in.close();
+	}
+	
+	/**
+	 * Reads a single byte from the given stream.
+	 * @param in The stream to read from.
+	 * @return The byte that was read.
+	 * @throws IOException When an IOException occurs.
+	 * @throws EOFException When the end of the stream was reached.
+	 */
+	private static int readByte(InputStream in) throws IOException, EOFException{
+		int b = in.read();
+		if(b == -1){
+			throw new EOFException("Unexpected end of replay.");
+		}
+		return b;
+	}
+	
+	/**
+	 * Reads a variable length integer.
+	 * @param in The stream to read from.
+	 * @return The integer that was read.
+	 * @throws IOException When an IOException occurs or
+	 *         the integer is not correctly encoded.
+	 * @see ReplayWriter#writeVarInt(java.io.OutputStream, int)
+	 */
+	protected static int readVarInt(InputStream in) throws IOException{
+		int value = 0;
+		for(int shift = 0; shift < 32; shift += 7){
+			int b = readByte(in);
+			value |= (b & 0x7F) << shift;
+			if((b & 0x80) == 0){
+				return value;
+			}
+		}
+		throw new IOException("Malformed variable length integer.");
+	}
+	
+	/**
+	 * Reads a string written as its length followed by its UTF-8 bytes.
+	 * @param in The stream to read from.
+	 * @return The string that was read.
+	 * @throws IOException When an IOException occurs.
+	 * @see ReplayWriter#writeString(java.io.OutputStream, String)
+	 */
+	protected static String readString(InputStream in) throws IOException{
+		byte[] data = new byte[readVarInt(in)];
+		for(int i = 0; i < data.length; i++){
+			data[i] = (byte)readByte(in);
+		}
+		return new String(data, StandardCharsets.UTF_8);
+	}
+}
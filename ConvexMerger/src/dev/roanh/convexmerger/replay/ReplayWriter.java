@@ -0,0 +1,199 @@
+/*
+ * ConvexMerger:  An area maximisation game based on the idea of merging convex shapes.
+ * Copyright (C) 2021  Roan Hofland (roan@roanh.dev), Emiliyan Greshkov and contributors.
+ * GitHub Repository: https://github.com/RoanH/ConvexMerger
+ *
+ * ConvexMerger is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ConvexMerger is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package dev.roanh.convexmerger.replay;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import dev.roanh.convexmerger.game.ConvexObject;
+import dev.roanh.convexmerger.game.GameState;
+import dev.roanh.convexmerger.game.GameStateListener;
+import dev.roanh.convexmerger.player.Player;
+
+/**
+ * Game state listener that records a game as a compact binary replay.
+ * A replay starts with a header containing the seed of the game and the
+ * names of its players, followed by a stream of moves that is written
+ * as the game is played. Every move is identified by the IDs of the objects
+ * involved, encoded as variable length integers. The player that made a move
+ * follows from the turn order, so a typical game takes a few hundred bytes.
+ * <p>
+ * Since listeners cannot throw I/O exceptions, the first exception
+ * encountered while writing moves is stored and thrown on {@link #close()}.
+ * Moves are written on a dedicated thread so writes never stall the game,
+ * {@link GameState#awaitListeners()} has to be called before closing the
+ * writer to make sure all moves made so far have been written.
+ * @author Roan
+ * @see ReplayReader
+ */
+public class ReplayWriter implements GameStateListener, Closeable{
+	/**
+	 * Magic number at the start of every replay.
+	 */
+	protected static final int MAGIC = 0x434D5250;
+	/**
+	 * The version of the replay format, this has to be incremented
+	 * whenever the binary format of replays changes.
+	 */
+	protected static final int FORMAT_VERSION = 1;
+	/**
+	 * Move code marking the end of the game.
+	 */
+	protected static final int END = 0;
+	/**
+	 * The stream the replay is written to.
+	 */
+	private final OutputStream out;
+	/**
+	 * The first exception that occurred while writing
+	 * the replay or <code>null</code> if there was none.
+	 */
+	private volatile IOException error = null;
+
+	/**
+	 * Constructs a new replay writer for the given game and
+	 * immediately writes the header of the replay. The writer
+	 * still has to be registered as a listener for the game.
+	 * @param state The game to record, this has to be a game
+	 *        generated from a seed that has not started yet.
+	 * @param out The stream to write the replay to. Every move
+	 *        is flushed to this stream as soon as it is made.
+	 * @throws IOException When an IOException occurs.
+	 * @throws IllegalArgumentException When the given game has no seed.
+	 * @see GameState#registerStateListener(GameStateListener)
+	 */
+	public ReplayWriter(GameState state, OutputStream out) throws IOException, IllegalArgumentException{
+		if(state.getSeed() == null){
+			throw new IllegalArgumentException("Only games generated from a seed can be recorded.");
+		}
+		
+		this.out = out;
+		for(int shift = 24; shift >= 0; shift -= 8){
+			out.write(MAGIC >>> shift);
+		}
+		writeVarInt(out, FORMAT_VERSION);
+		writeString(out, state.getSeed());
+		
+		List<Player> players = state.getPlayers();
+		writeVarInt(out, players.size());
+		for(Player player : players){
+			writeString(out, player.getName());
+			out.write(player.isAI() ? 1 : 0);
+		}
+		out.flush();
+	}
+	
+	/**
+	 * Gets the first exception that occurred while
+	 * writing moves to the replay, if any.
+	 * @return The first exception that occurred while writing
+	 *         the replay or <code>null</code> if there was none.
+	 */
+	public IOException getError(){
+		return error;
+	}
+	
+	/**
+	 * Writes the given move codes to the replay and flushes them.
+	 * @param codes The move codes to write.
+	 */
+	private void writeMove(int... codes){
+		if(error == null){
+			try{
+				for(int code : codes){
+					writeVarInt(out, code);
+				}
+				out.flush();
+			}catch(IOException e){
+				error = e;
+			}
+		}
+	}
+
+	@Override
+	public void claim(Player player, ConvexObject obj){
+		writeMove(obj.getID() << 1);
+	}
+
+	@Override
+	public void merge(Player player, ConvexObject source, ConvexObject target, ConvexObject result, List<ConvexObject> absorbed){
+		writeMove((source.getID() << 1) | 1, target.getID());
+	}
+
+	@Override
+	public void end(){
+		writeMove(END);
+	}
+
+	@Override
+	public void abort(){
+		//an aborted game simply ends without an end marker
+	}
+	
+	@Override
+	public boolean isSynchronous(){
+		return false;
+	}
+	
+	/**
+	 * Closes the underlying stream of this writer.
+	 * @throws IOException When an exception occurred while writing
+	 *         a move to the replay or while closing the stream.
+	 */
+	@Override
+	public void close() throws IOException{
+		out.close();
+		if(error != null){
+			throw error;
+		}
+	}
+	
+	/**
+	 * Writes the given non-negative integer as a variable length
+	 * integer, using 7 bits per byte with the high bit of every byte
+	 * indicating that more bytes follow.
+	 * @param out The stream to write to.
+	 * @param value The value to write.
+	 * @throws IOException When an IOException occurs.
+	 * @see ReplayReader#readVarInt(java.io.InputStream)
+	 */
+	protected static void writeVarInt(OutputStream out, int value) throws IOException{
+		while((value & ~0x7F) != 0){
+			out.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.write(value);
+	}
+	
+	/**
+	 * Writes the given string as its length followed by its UTF-8 bytes.
+	 * @param out The stream to write to.
+	 * @param str The string to write.
+	 * @throws IOException When an IOException occurs.
+	 * @see ReplayReader#readString(java.io.InputStream)
+	 */
+	protected static void writeString(OutputStream out, String str) throws IOException{
+		byte[] data = str.getBytes(StandardCharsets.UTF_8);
+		writeVarInt(out, data.length);
+		out.write(data);
+	}
+}
@@ -0,0 +1,171 @@
+/*
+ * ConvexMerger:  An area maximisation game based on the idea of merging convex shapes.
+ * Copyright (C) 2021  Roan Hofland (roan@roanh.dev), Emiliyan Greshkov and contributors.
+ * GitHub Repository: https://github.com/RoanH/ConvexMerger
+ *
+ * ConvexMerger is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ConvexMerger is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package dev.roanh.convexmerger.tournament;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.LongSummaryStatistics;
+
+import dev.roanh.convexmerger.player.AIRegistry;
+
+/**
+ * The result of a single tournament game.
+ * @author Roan
+ * @see Tournament
+ */
+public class GameResult{
+	/**
+	 * The index of the game in the tournament.
+	 */
+	private final int game;
+	/**
+	 * The seed of the playfield the game was played on.
+	 */
+	private final String seed;
+	/**
+	 * The AIs that played the game in turn order.
+	 */
+	private final List<AIRegistry> players;
+	/**
+	 * The final area of every player in turn order.
+	 */
+	private final double[] areas;
+	/**
+	 * The turn times of every player in turn order in nanoseconds.
+	 */
+	private final LongSummaryStatistics[] turnTimes;
+	/**
+	 * The number of rounds the game lasted.
+	 */
+	private final int rounds;
+	
+	/**
+	 * Constructs a new game result.
+	 * @param game The index of the game in the tournament.
+	 * @param seed The seed of the playfield the game was played on.
+	 * @param players The AIs that played the game in turn order.
+	 * @param areas The final area of every player in turn order.
+	 * @param turnTimes The turn times of every player in turn order in nanoseconds.
+	 * @param rounds The number of rounds the game lasted.
+	 */
+	protected GameResult(int game, String seed, List<AIRegistry> players, double[] areas, LongSummaryStatistics[] turnTimes, int rounds){
+		this.game = game;
+		this.seed = seed;
+		this.players = Collections.unmodifiableList(players);
+		this.areas = areas;
+		this.turnTimes = turnTimes;
+		this.rounds = rounds;
+	}
+	
+	/**
+	 * Gets the index of this game in the tournament.
+	 * @return The index of this game.
+	 */
+	public int getGame(){
+		return game;
+	}
+	
+	/**
+	 * Gets the seed of the playfield this game was played on.
+	 * @return The playfield seed.
+	 */
+	public String getSeed(){
+		return seed;
+	}
+	
+	/**
+	 * Gets the AIs that played this game in turn order.
+	 * @return The AIs that played this game.
+	 */
+	public List<AIRegistry> getPlayers(){
+		return players;
+	}
+	
+	/**
+	 * Gets the final area of the given player.
+	 * @param player The index of the player in turn order.
+	 * @return The final area of the player.
+	 */
+	public double getArea(int player){
+		return areas[player];
+	}
+	
+	/**
+	 * Gets the score of the given player, this is the fraction
+	 * of the total area owned by all players that is owned by
+	 * the given player. Unlike the raw area the score can be
+	 * compared between games on different playfields.
+	 * @param player The index of the player in turn order.
+	 * @return The score of the player between 0 and 1.
+	 */
+	public double getScore(int player){
+		double total = 0.0D;
+		for(double area : areas){
+			total += area;
+		}
+		return total == 0.0D ? 0.0D : (areas[player] / total);
+	}
+	
+	/**
+	 * Checks if the given player won this game, when
+	 * multiple players tie for the largest area they all win.
+	 * @param player The index of the player in turn order.
+	 * @return True if the given player won this game.
+	 * @see #getWinnerCount()
+	 */
+	public boolean isWinner(int player){
+		for(double area : areas){
+			if(area > areas[player]){
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Gets the number of players that tied for the largest area.
+	 * @return The number of players that won this game.
+	 */
+	public int getWinnerCount(){
+		int winners = 0;
+		for(int i = 0; i < areas.length; i++){
+			if(isWinner(i)){
+				winners++;
+			}
+		}
+		return winners;
+	}
+	
+	/**
+	 * Gets the turn time statistics of the given player.
+	 * @param player The index of the player in turn order.
+	 * @return The turn times of the player in nanoseconds.
+	 */
+	public LongSummaryStatistics getTurnTimes(int player){
+		return turnTimes[player];
+	}
+	
+	/**
+	 * Gets the number of rounds this game lasted.
+	 * @return The number of rounds.
+	 */
+	public int getRounds(){
+		return rounds;
+	}
+}
@@ -0,0 +1,285 @@
+/*
+ * ConvexMerger:  An area maximisation game based on the idea of merging convex shapes.
+ * Copyright (C) 2021  Roan Hofland (roan@roanh.dev), Emiliyan Greshkov and contributors.
+ * GitHub Repository: https://github.com/RoanH/ConvexMerger
+ *
+ * ConvexMerger is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ConvexMerger is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package dev.roanh.convexmerger.tournament;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.LongSummaryStatistics;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import dev.roanh.convexmerger.game.GameState;
+import dev.roanh.convexmerger.game.PlayfieldGenerator;
+import dev.roanh.convexmerger.player.AIRegistry;
+import dev.roanh.convexmerger.player.Player;
+import dev.roanh.convexmerger.replay.ReplayWriter;
+import dev.roanh.convexmerger.util.DecompositionCache;
+
+/**
+ * Headless runner that plays AI players against each other. A tournament
+ * plays one game for every seed and every matchup of AIs, where a matchup
+ * is an ordered selection of distinct AIs so every AI plays every turn
+ * order position. Games are played in parallel on a fixed size thread pool,
+ * every game is confined to a single thread for its entire duration so the
+ * game state and players never need to be shared between threads.
+ * @author Roan
+ * @see TournamentResult
+ */
+public class Tournament{
+	/**
+	 * The seeds of the playfields to play on.
+	 */
+	private final List<String> seeds;
+	/**
+	 * The AI matchups to play on every seed.
+	 */
+	private final List<List<AIRegistry>> matchups = new ArrayList<List<AIRegistry>>();
+	/**
+	 * The directory to write game replays to or <code>null</code>.
+	 */
+	private Path replayDir = null;
+	/**
+	 * The cache to load the vertical decompositions of
+	 * all games from or <code>null</code> if not caching.
+	 */
+	private DecompositionCache cache = null;
+	
+	/**
+	 * Constructs a new tournament between all the registered AIs.
+	 * @param seeds The seeds of the playfields to play on.
+	 * @param playersPerGame The number of players in every game.
+	 * @throws IllegalArgumentException When the number of players
+	 *         is not positive or larger than the number of AIs.
+	 */
+	public Tournament(List<String> seeds, int playersPerGame) throws IllegalArgumentException{
+		this(seeds, Arrays.asList(AIRegistry.values()), playersPerGame);
+	}
+	
+	/**
+	 * Constructs a new tournament between the given AIs.
+	 * @param seeds The seeds of the playfields to play on.
+	 * @param ais The AIs to play against each other.
+	 * @param playersPerGame The number of players in every game.
+	 * @throws IllegalArgumentException When the number of players
+	 *         is not positive or larger than the number of AIs.
+	 */
+	public Tournament(List<String> seeds, List<AIRegistry> ais, int playersPerGame) throws IllegalArgumentException{
+		if(playersPerGame <= 0 || playersPerGame > ais.size()){
+			throw new IllegalArgumentException("The number of players per game has to be between 1 and the number of AIs.");
+		}
+		
+		this.seeds = new ArrayList<String>(seeds);
+		computeMatchups(ais, new ArrayList<AIRegistry>(), playersPerGame);
+	}
+	
+	/**
+	 * Sets the directory to write a replay of every game to. Replays
+	 * are named after the index of their game in the tournament.
+	 * @param dir The replay directory or <code>null</code>
+	 *        to not record any replays.
+	 * @see ReplayWriter
+	 */
+	public void setReplayDirectory(Path dir){
+		replayDir = dir;
+	}
+	
+	/**
+	 * Sets the cache to load the vertical decompositions of all games from.
+	 * Since every seed is played by every matchup, the decomposition for a
+	 * seed only has to be built by the first game on that seed.
+	 * @param cache The decomposition cache to use or <code>null</code>
+	 *        to always build the decomposition.
+	 * @see GameState#setDecompositionCache(DecompositionCache)
+	 */
+	public void setDecompositionCache(DecompositionCache cache){
+		this.cache = cache;
+	}
+	
+	/**
+	 * Gets all the AI matchups played on every seed.
+	 * @return The AI matchups, the AIs of every matchup are in turn order.
+	 */
+	public List<List<AIRegistry>> getMatchups(){
+		return Collections.unmodifiableList(matchups);
+	}
+	
+	/**
+	 * Gets the total number of games in this tournament.
+	 * @return The total number of games.
+	 */
+	public int getGameCount(){
+		return seeds.size() * matchups.size();
+	}
+	
+	/**
+	 * Plays all the games in this tournament.
+	 * @param threads The number of games to play in parallel.
+	 * @return The results of the tournament.
+	 * @throws InterruptedException When the tournament was interrupted.
+	 * @throws IllegalArgumentException When the number of threads is not positive.
+	 */
+	public TournamentResult run(int threads) throws InterruptedException, IllegalArgumentException{
+		if(threads <= 0){
+			throw new IllegalArgumentException("The number of threads has to be positive.");
+		}
+		
+		List<Callable<GameResult>> tasks = new ArrayList<Callable<GameResult>>(getGameCount());
+		for(String seed : seeds){
+			for(List<AIRegistry> matchup : matchups){
+				final int game = tasks.size();
+				tasks.add(()->play(game, seed, matchup));
+			}
+		}
+		
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try{
+			List<GameResult> results = new ArrayList<GameResult>(tasks.size());
+			for(Future<GameResult> result : executor.invokeAll(tasks)){
+				results.add(result.get());
+			}
+			return new TournamentResult(results);
+		}catch(ExecutionException e){
+			throw new IllegalStateException("Failed to play a tournament game.", e.getCause());
+		}finally{
+			executor.shutdownNow();
+		}
+	}
+	
+	/**
+	 * Plays a single tournament game.
+	 * @param game The index of the game in the tournament.
+	 * @param seed The seed of the playfield to play on.
+	 * @param matchup The AIs to play in turn order.
+	 * @return The result of the game.
+	 * @throws InterruptedException When the game was interrupted.
+	 * @throws IOException When an IOException occurs while writing the replay.
+	 */
+	protected GameResult play(int game, String seed, List<AIRegistry> matchup) throws InterruptedException, IOException{
+		List<Player> players = new ArrayList<Player>(matchup.size());
+		LongSummaryStatistics[] turnTimes = new LongSummaryStatistics[matchup.size()];
+		for(int i = 0; i < matchup.size(); i++){
+			players.add(matchup.get(i).createInstance());
+			turnTimes[i] = new LongSummaryStatistics();
+		}
+		
+		GameState state = new GameState(new PlayfieldGenerator(seed), players);
+		state.setDecompositionCache(cache);
+		ReplayWriter replay = null;
+		if(replayDir != null){
+			Files.createDirectories(replayDir);
+			OutputStream out = new BufferedOutputStream(Files.newOutputStream(replayDir.resolve(String.format("%06d.cmr", game))));
+			try{
+				replay = new ReplayWriter(state, out);
+			}catch(IOException e){
+				out.close();
+				throw e;
+			}
+			state.registerStateListener(replay);
+		}
+		
+		try{
+			state.init();
+			while(!state.isFinished()){
+				int player = players.indexOf(state.getActivePlayer());
+				long start = System.nanoTime();
+				state.executePlayerTurn();
+				turnTimes[player].accept(System.nanoTime() - start);
+			}
+		}finally{
+			if(replay != null){
+				state.awaitListeners();
+				replay.close();
+			}
+		}
+		
+		double[] areas = new double[players.size()];
+		for(int i = 0; i < areas.length; i++){
+			areas[i] = players.get(i).getArea();
+		}
+		
+		return new GameResult(game, seed, new ArrayList<AIRegistry>(matchup), areas, turnTimes, state.getRounds());
+	}
+	
+	/**
+	 * Computes all ordered selections of distinct AIs of the given size.
+	 * @param ais The AIs to select from.
+	 * @param prefix The AIs selected so far.
+	 * @param size The number of AIs to select.
+	 */
+	private void computeMatchups(List<AIRegistry> ais, List<AIRegistry> prefix, int size){
+		if(prefix.size() == size){
+			matchups.add(Collections.unmodifiableList(new ArrayList<AIRegistry>(prefix)));
+			return;
+		}
+		
+		for(AIRegistry ai : ais){
+			if(!prefix.contains(ai)){
+				prefix.add(ai);
+				computeMatchups(ais, prefix, size);
+				prefix.remove(prefix.size() - 1);
+			}
+		}
+	}
+	
+	/**
+	 * Runs a tournament between all the registered AIs on random seeds.
+	 * @param args The number of seeds (default 10), the number of threads
+	 *        (default the number of available processors), the number of
+	 *        players per game (default 2), optionally a directory to
+	 *        write game replays to (<code>-</code> for no replays) and
+	 *        optionally a directory to cache vertical decompositions in.
+	 * @throws InterruptedException When the tournament was interrupted.
+	 */
+	public static void main(String[] args) throws InterruptedException{
+		int seedCount = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		int playersPerGame = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+		
+		List<String> seeds = new ArrayList<String>(seedCount);
+		for(int i = 0; i < seedCount; i++){
+			seeds.add(new PlayfieldGenerator().getSeed());
+		}
+		
+		Tournament tournament = new Tournament(seeds, playersPerGame);
+		if(args.length > 3 && !args[3].equals("-")){
+			tournament.setReplayDirectory(Paths.get(args[3]));
+		}
+		
+		if(args.length > 4){
+			tournament.setDecompositionCache(new DecompositionCache(Paths.get(args[4])));
+		}
+		
+		System.out.println("Playing " + tournament.getGameCount() + " games on " + threads + " threads...");
+		long start = System.currentTimeMillis();
+		TournamentResult result = tournament.run(threads);
+		System.out.println("Finished in " + (System.currentTimeMillis() - start) + " ms");
+		System.out.print(result);
+	}
+}
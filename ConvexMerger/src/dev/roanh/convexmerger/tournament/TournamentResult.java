@@ -0,0 +1,222 @@
+/*
+ * ConvexMerger:  An area maximisation game based on the idea of merging convex shapes.
+ * Copyright (C) 2021  Roan Hofland (roan@roanh.dev), Emiliyan Greshkov and contributors.
+ * GitHub Repository: https://github.com/RoanH/ConvexMerger
+ *
+ * ConvexMerger is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ConvexMerger is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package dev.roanh.convexmerger.tournament;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.DoubleSummaryStatistics;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.LongSummaryStatistics;
+import java.util.Map;
+
+import dev.roanh.convexmerger.player.AIRegistry;
+
+/**
+ * Aggregated results of all the games in a tournament.
+ * @author Roan
+ * @see Tournament
+ */
+public class TournamentResult{
+	/**
+	 * The results of all games in the order they appear in the tournament.
+	 */
+	private final List<GameResult> games;
+	/**
+	 * The standing of every AI that played in the tournament.
+	 */
+	private final Map<AIRegistry, Standing> standings = new EnumMap<AIRegistry, Standing>(AIRegistry.class);
+	
+	/**
+	 * Constructs a new tournament result from the given game results.
+	 * @param games The results of all the games in the tournament.
+	 */
+	protected TournamentResult(List<GameResult> games){
+		this.games = Collections.unmodifiableList(games);
+		for(GameResult game : games){
+			for(int i = 0; i < game.getPlayers().size(); i++){
+				standings.computeIfAbsent(game.getPlayers().get(i), Standing::new).add(game, i);
+			}
+		}
+	}
+	
+	/**
+	 * Gets the results of all the games in the tournament.
+	 * @return The results of all games in tournament order.
+	 */
+	public List<GameResult> getGames(){
+		return games;
+	}
+	
+	/**
+	 * Gets the standings of all the AIs that played in the tournament.
+	 * @return The standings ordered by descending win rate.
+	 */
+	public List<Standing> getStandings(){
+		List<Standing> list = new ArrayList<Standing>(standings.values());
+		list.sort((a, b)->Double.compare(b.getWinRate(), a.getWinRate()));
+		return list;
+	}
+	
+	/**
+	 * Gets the standing of the given AI.
+	 * @param ai The AI to get the standing of.
+	 * @return The standing of the given AI or <code>null</code>
+	 *         if the AI did not play in the tournament.
+	 */
+	public Standing getStanding(AIRegistry ai){
+		return standings.get(ai);
+	}
+	
+	@Override
+	public String toString(){
+		StringBuilder buf = new StringBuilder();
+		buf.append(String.format("%-8s %6s %8s %8s %8s %8s %8s %10s %10s%n", "AI", "Games", "Win%", "Min", "Q1", "Median", "Q3", "Turn(ms)", "Max(ms)"));
+		for(Standing standing : getStandings()){
+			buf.append(String.format(
+				"%-8s %6d %8.2f %8.4f %8.4f %8.4f %8.4f %10.3f %10.3f%n",
+				standing.getAI().getName(),
+				standing.getGames(),
+				standing.getWinRate() * 100.0D,
+				standing.getScorePercentile(0.0D),
+				standing.getScorePercentile(0.25D),
+				standing.getScorePercentile(0.5D),
+				standing.getScorePercentile(0.75D),
+				standing.getTurnTimes().getAverage() / 1000000.0D,
+				standing.getTurnTimes().getMax() / 1000000.0D
+			));
+		}
+		return buf.toString();
+	}
+	
+	/**
+	 * The aggregated results of a single AI in the tournament.
+	 * @author Roan
+	 */
+	public static class Standing{
+		/**
+		 * The AI these results are for.
+		 */
+		private final AIRegistry ai;
+		/**
+		 * The number of games won by the AI, ties count as a partial win.
+		 */
+		private double wins = 0.0D;
+		/**
+		 * The scores of the AI in every game it played.
+		 * @see GameResult#getScore(int)
+		 */
+		private final List<Double> scores = new ArrayList<Double>();
+		/**
+		 * The turn times of the AI in nanoseconds.
+		 */
+		private final LongSummaryStatistics turnTimes = new LongSummaryStatistics();
+		/**
+		 * True if the list of scores is sorted.
+		 */
+		private boolean sorted = true;
+		
+		/**
+		 * Constructs a new empty standing for the given AI.
+		 * @param ai The AI these results are for.
+		 */
+		private Standing(AIRegistry ai){
+			this.ai = ai;
+		}
+		
+		/**
+		 * Adds the result of the given player in the given game.
+		 * @param game The game to add.
+		 * @param player The index of the player for this AI.
+		 */
+		private void add(GameResult game, int player){
+			if(game.isWinner(player)){
+				wins += 1.0D / game.getWinnerCount();
+			}
+			scores.add(game.getScore(player));
+			turnTimes.combine(game.getTurnTimes(player));
+			sorted = false;
+		}
+		
+		/**
+		 * Gets the AI these results are for.
+		 * @return The AI.
+		 */
+		public AIRegistry getAI(){
+			return ai;
+		}
+		
+		/**
+		 * Gets the number of games the AI played.
+		 * @return The number of games played.
+		 */
+		public int getGames(){
+			return scores.size();
+		}
+		
+		/**
+		 * Gets the number of games the AI won, when multiple
+		 * players tie for a win the win is split between them.
+		 * @return The number of games won.
+		 */
+		public double getWins(){
+			return wins;
+		}
+		
+		/**
+		 * Gets the fraction of games the AI won.
+		 * @return The win rate of the AI between 0 and 1.
+		 */
+		public double getWinRate(){
+			return scores.isEmpty() ? 0.0D : (wins / scores.size());
+		}
+		
+		/**
+		 * Gets summary statistics of the scores of the AI.
+		 * @return The score statistics.
+		 * @see GameResult#getScore(int)
+		 */
+		public DoubleSummaryStatistics getScoreStatistics(){
+			return scores.stream().mapToDouble(Double::doubleValue).summaryStatistics();
+		}
+		
+		/**
+		 * Gets the score at the given percentile of the score distribution
+		 * of the AI using the nearest rank method.
+		 * @param p The percentile between 0 and 1.
+		 * @return The score at the given percentile.
+		 * @see GameResult#getScore(int)
+		 */
+		public double getScorePercentile(double p){
+			if(!sorted){
+				Collections.sort(scores);
+				sorted = true;
+			}
+			return scores.isEmpty() ? 0.0D : scores.get((int)Math.max(0, Math.ceil(p * scores.size()) - 1));
+		}
+		
+		/**
+		 * Gets the turn time statistics of the AI.
+		 * @return The turn times of the AI in nanoseconds.
+		 */
+		public LongSummaryStatistics getTurnTimes(){
+			return turnTimes;
+		}
+	}
+}
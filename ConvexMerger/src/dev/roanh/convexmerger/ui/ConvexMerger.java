@@ -38,7 +38,9 @@ import javax.swing.SwingUtilities;
 import dev.roanh.convexmerger.Constants;
 import dev.roanh.convexmerger.game.GameConstructor;
 import dev.roanh.convexmerger.game.GameState;
+import dev.roanh.convexmerger.game.TurnScheduler;
 import dev.roanh.convexmerger.player.Player;
+import dev.roanh.convexmerger.util.DecompositionCache;
 
 /**
  * Main game entry point, manages the main state of the game.
@@ -69,6 +71,11 @@ public class ConvexMerger implements KeyEventDispatcher{
 	 * Cached new game menu to persist settings.
 	 */
 	private NewGameMenu newGame = new NewGameMenu(this);
+	/**
+	 * The cache to load vertical decompositions for new
+	 * games from or <code>null</code> if not caching.
+	 */
+	private DecompositionCache cache = null;
 	
 	/**
 	 * Shows the main game window.
@@ -125,12 +132,23 @@ public class ConvexMerger implements KeyEventDispatcher{
 		switchScene(newGame);
 	}
 	
+	/**
+	 * Sets the cache to load the vertical decompositions of all
+	 * games started after this call from.
+	 * @param cache The decomposition cache to use or <code>null</code>
+	 *        to always build the decomposition.
+	 * @see GameState#setDecompositionCache(DecompositionCache)
+	 */
+	public void setDecompositionCache(DecompositionCache cache){
+		this.cache = cache;
+	}
+	
 	/**
 	 * Initialises a new game with the given game constructor.
 	 * @param ctor The constructor to build the game.
 	 */
 	public void initialiseGame(GameConstructor ctor){
-		gameThread = new GameThread(ctor);
+		gameThread = new GameThread(ctor, cache);
 		gameThread.start();
 	}
 	
@@ -189,41 +207,43 @@ public class ConvexMerger implements KeyEventDispatcher{
 		 * The constructor to use to create the game state.
 		 */
 		private GameConstructor ctor;
+		/**
+		 * The cache to load the vertical decomposition from or <code>null</code>.
+		 */
+		private DecompositionCache cache;
 		
 		/**
 		 * Constructs a new game thread with the given game constructor.
 		 * @param ctor The constructor to create the game state with.
+		 * @param cache The cache to load the vertical decomposition
+		 *        from or <code>null</code> to always build it.
 		 */
-		private GameThread(GameConstructor ctor){
+		private GameThread(GameConstructor ctor, DecompositionCache cache){
 			this.setName("GameThread");
 			this.setDaemon(true);
 			this.ctor = ctor;
+			this.cache = cache;
 		}
 		
 		@Override
 		public void run(){
 			GameState state = ctor.create();
+			state.setDecompositionCache(cache);
 			try{
 				SwingUtilities.invokeAndWait(()->renderer.setScreen(new GamePanel(ConvexMerger.this, state)));
 				state.init();
-				
-				if(state.getActivePlayer().isAI()){
-					Thread.sleep(Constants.MIN_TURN_TIME);
-				}
+				state.getTurnScheduler().beforeGame(state);
 				
 				while(!state.isFinished() && !this.isInterrupted()){
 					Player player = state.getActivePlayer();
-					if(player.isAI()){
-						Thread.sleep(Constants.AI_WAIT_TIME);
-					}
+					TurnScheduler scheduler = state.getTurnScheduler();
+					scheduler.beforeTurn(player);
 					
 					long start = System.currentTimeMillis();
 					state.executePlayerTurn();
 					long duration = System.currentTimeMillis() - start;
 					player.getStats().addTurnTime(duration);
-					if(duration < Constants.MIN_TURN_TIME){
-						Thread.sleep(Constants.MIN_TURN_TIME - duration);
-					}
+					scheduler.afterTurn(player, duration);
 					
 					frame.repaint();
 				}
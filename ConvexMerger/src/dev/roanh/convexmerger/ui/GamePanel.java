@@ -42,6 +42,7 @@ import dev.roanh.convexmerger.animation.ProxyAnimation;
 import dev.roanh.convexmerger.game.ConvexObject;
 import dev.roanh.convexmerger.game.GameState;
 import dev.roanh.convexmerger.game.GameStateListener;
+import dev.roanh.convexmerger.game.TurnScheduler;
 import dev.roanh.convexmerger.player.HumanPlayer;
 import dev.roanh.convexmerger.player.Player;
 import dev.roanh.convexmerger.util.SegmentPartitionTree;
@@ -229,6 +230,9 @@ public final class GamePanel extends Screen implements GameStateListener{
 		if(showCallipers){
 			info.add("Merge Callipers");
 		}
+		if(state.getTurnScheduler() != TurnScheduler.INTERACTIVE){
+			info.add(state.getTurnScheduler().getName() + " Mode");
+		}
 		if(info.length() != 0){
 			g.setFont(Theme.PRIDI_MEDIUM_14);
 			g.setColor(Color.WHITE);
@@ -481,6 +485,15 @@ public final class GamePanel extends Screen implements GameStateListener{
 				state.getSegmentTreeKD().setAnimated(!state.getSegmentTreeKD().isAnimated());
 			}else if(e.getKeyCode() == KeyEvent.VK_M){
 				showCallipers = !showCallipers;
+			}else if(e.getKeyCode() == KeyEvent.VK_T){
+				TurnScheduler scheduler = state.getTurnScheduler();
+				if(scheduler == TurnScheduler.INTERACTIVE){
+					state.setTurnScheduler(TurnScheduler.TURBO);
+				}else if(scheduler == TurnScheduler.TURBO){
+					state.setTurnScheduler(TurnScheduler.BUDGETED);
+				}else{
+					state.setTurnScheduler(TurnScheduler.INTERACTIVE);
+				}
 			}
 		}
 	}
@@ -517,7 +530,7 @@ public final class GamePanel extends Screen implements GameStateListener{
 
 	@Override
 	public void merge(Player player, ConvexObject source, ConvexObject target, ConvexObject result, List<ConvexObject> absorbed) throws InterruptedException{
-		if(showCallipers){
+		if(showCallipers && state.getTurnScheduler().isAnimated()){
 			result.setAnimation(new ProxyAnimation(source, target, absorbed));
 			Animation anim = new CalliperAnimation(source, target);
 			addAnimation(anim);
@@ -73,7 +73,7 @@ public class InfoMenu extends Screen{
 	/**
 	 * Height of the shortcuts box.
 	 */
-	private static final int KEYS_HEIGHT = 280;
+	private static final int KEYS_HEIGHT = 310;
 	/**
 	 * Width of a keyboard key frame.
 	 */
@@ -187,6 +187,10 @@ public class InfoMenu extends Screen{
 		drawKeyFrame(g, x, y, "Ctrl");
 		drawKeyFrame(g, x + KEY_WIDTH + SPACING + extra, y, "M");
 		g.drawString("Show merge callipers (used to compute merge lines)", (float)(x + (KEY_WIDTH + SPACING + extra) * 2.0D), (float)(y + fm.getAscent()));
+		y += fm.getHeight() + SPACING + extra;
+		drawKeyFrame(g, x, y, "Ctrl");
+		drawKeyFrame(g, x + KEY_WIDTH + SPACING + extra, y, "T");
+		g.drawString("Cycle turn pacing (interactive, turbo, budgeted)", (float)(x + (KEY_WIDTH + SPACING + extra) * 2.0D), (float)(y + fm.getAscent()));
 	}
 	
 	/**
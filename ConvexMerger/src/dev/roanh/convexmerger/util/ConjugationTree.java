@@ -25,6 +25,10 @@ import java.awt.geom.Ellipse2D;
 import java.awt.geom.Line2D;
 import java.awt.geom.Path2D;
 import java.awt.geom.Point2D;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -84,12 +88,6 @@ public class ConjugationTree<T> extends PartitionTree<T, ConjugationTree<T>>{
 	 * @param points The point set to store.
 	 */
 	public ConjugationTree(List<Point2D> points){
-		//only root bisector finding requires O(n log n) time
-		points.sort(Comparator.comparingDouble(Point2D::getX));
-		int idx = points.size() / 2;
-		
-		double mid = points.get(idx).getX();
-		bisector = new Line2D.Double(mid, 0.0D, mid, Constants.PLAYFIELD_HEIGHT);
 		hull = Arrays.asList(
 			new Point2D.Double(0.0D, 0.0D),
 			new Point2D.Double(Constants.PLAYFIELD_WIDTH, 0.0D),
@@ -97,6 +95,19 @@ public class ConjugationTree<T> extends PartitionTree<T, ConjugationTree<T>>{
 			new Point2D.Double(0.0D, Constants.PLAYFIELD_HEIGHT)
 		);
 		
+		if(points.isEmpty()){
+			//a tree without points is a single leaf cell
+			constructShape();
+			return;
+		}
+		
+		//only root bisector finding requires O(n log n) time
+		points.sort(Comparator.comparingDouble(Point2D::getX));
+		int idx = points.size() / 2;
+		
+		double mid = points.get(idx).getX();
+		bisector = new Line2D.Double(mid, 0.0D, mid, Constants.PLAYFIELD_HEIGHT);
+		
 		//by assumption we have few points on the bisector, but for other applications this could be false
 		List<Point2D> leftPoints = new ArrayList<Point2D>(idx);
 		List<Point2D> rightPoints = new ArrayList<Point2D>(idx);
@@ -184,6 +195,28 @@ public class ConjugationTree<T> extends PartitionTree<T, ConjugationTree<T>>{
 		constructShape();
 	}
 	
+	/**
+	 * Constructs a new conjugation tree node with the given parent
+	 * node by reading its structure from the given buffer.
+	 * @param parent The parent node for this conjugation tree node.
+	 * @param in The buffer to read from.
+	 * @throws BufferUnderflowException When the buffer does not contain a complete tree.
+	 * @throws IndexOutOfBoundsException When the buffer contains a cell without a hull.
+	 * @see #write(DataOutput)
+	 */
+	private ConjugationTree(ConjugationTree<T> parent, ByteBuffer in) throws BufferUnderflowException, IndexOutOfBoundsException{
+		this.parent = parent;
+		hull = readPoints(in);
+		if(in.get() != 0){
+			bisector = new Line2D.Double(in.getDouble(), in.getDouble(), in.getDouble(), in.getDouble());
+			on.addAll(readPoints(in));
+			left = new ConjugationTree<T>(this, in);
+			right = new ConjugationTree<T>(this, in);
+		}
+		
+		constructShape();
+	}
+	
 	/**
 	 * Constructs the shape object for the bounds of this object.
 	 */
@@ -284,6 +317,67 @@ public class ConjugationTree<T> extends PartitionTree<T, ConjugationTree<T>>{
 	public ConjugationTree<T> getSelf(){
 		return this;
 	}
+	
+	@Override
+	public void write(DataOutput out) throws IOException{
+		writePoints(out, hull);
+		if(isLeafCell()){
+			out.writeByte(0);
+		}else{
+			out.writeByte(1);
+			out.writeDouble(bisector.getX1());
+			out.writeDouble(bisector.getY1());
+			out.writeDouble(bisector.getX2());
+			out.writeDouble(bisector.getY2());
+			writePoints(out, on);
+			left.write(out);
+			right.write(out);
+		}
+	}
+	
+	/**
+	 * Reads a conjugation tree that was previously written
+	 * to the given buffer. The cells of the returned tree
+	 * do not store any data.
+	 * @param <T> The metadata storage type.
+	 * @param in The buffer to read from.
+	 * @return The conjugation tree that was read.
+	 * @throws BufferUnderflowException When the buffer does not contain a complete tree.
+	 * @throws IndexOutOfBoundsException When the buffer contains a cell without a hull.
+	 * @see #write(DataOutput)
+	 */
+	public static <T> ConjugationTree<T> read(ByteBuffer in) throws BufferUnderflowException, IndexOutOfBoundsException{
+		return new ConjugationTree<T>(null, in);
+	}
+	
+	/**
+	 * Writes the given points preceded by the number of points.
+	 * @param out The output to write to.
+	 * @param points The points to write.
+	 * @throws IOException When an IOException occurs.
+	 */
+	private static final void writePoints(DataOutput out, List<Point2D> points) throws IOException{
+		out.writeInt(points.size());
+		for(Point2D p : points){
+			out.writeDouble(p.getX());
+			out.writeDouble(p.getY());
+		}
+	}
+	
+	/**
+	 * Reads a list of points written as coordinates preceded by the number of points.
+	 * @param in The buffer to read from.
+	 * @return The points that were read.
+	 * @throws BufferUnderflowException When the buffer does not contain all points.
+	 */
+	private static final List<Point2D> readPoints(ByteBuffer in) throws BufferUnderflowException{
+		int size = DecompositionCache.readCount(in, 16);
+		List<Point2D> points = new ArrayList<Point2D>(size);
+		for(int i = 0; i < size; i++){
+			points.add(new Point2D.Double(in.getDouble(), in.getDouble()));
+		}
+		return points;
+	}
 
 	/**
 	 * Clips the given line segment to be fully contained within the bounds
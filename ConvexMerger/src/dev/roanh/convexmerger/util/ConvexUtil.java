@@ -295,13 +295,20 @@ public class ConvexUtil{
 	}
 	
 	/**
-	 * Function to check if 3 points are collinear.
+	 * Function to check if 3 points are collinear. If all three
+	 * points are exact fixed-point coordinates this check is exact,
+	 * otherwise points that are close to collinear are also accepted.
 	 * @param p1 The first point.
 	 * @param p2 The second point.
 	 * @param p3 The third point.
 	 * @return True if the given points are (close to) collinear.
+	 * @see FixedPoint
 	 */
 	public static final boolean checkCollinear(Point2D p1, Point2D p2, Point2D p3){
+		if(FixedPoint.isExact(p1) && FixedPoint.isExact(p2) && FixedPoint.isExact(p3)){
+			return FixedPoint.orientation(p1, p2, p3) == 0;
+		}
+		
 		return checkCollinear(p1.getX(), p1.getY(), p2.getX(), p2.getY(), p3.getX(), p3.getY());
 	}
 	
@@ -745,10 +752,16 @@ public class ConvexUtil{
 	 * Computes the area of the given convex object.
 	 * @param points The points that make up the convex object
 	 *        in (counter) clockwise order.
-	 * @return The area for the convex object.
+	 * @return The area for the convex object, this area is exact
+	 *         if all points are exact fixed-point coordinates.
 	 * @see <a href="https://en.wikipedia.org/wiki/Shoelace_formula">Shoelace formula</a>
+	 * @see FixedPoint
 	 */
 	public static final double computeArea(List<Point2D> points){
+		if(FixedPoint.isExact(points)){
+			return FixedPoint.toArea(FixedPoint.doubledArea(points));
+		}
+		
 		double area = 0.0D;
 		for(int i = 0; i < points.size(); i++){
 			int j = (i + 1) % points.size();
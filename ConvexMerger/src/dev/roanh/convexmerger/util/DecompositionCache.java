@@ -0,0 +1,206 @@
+/*
+ * ConvexMerger:  An area maximisation game based on the idea of merging convex shapes.
+ * Copyright (C) 2021  Roan Hofland (roan@roanh.dev), Emiliyan Greshkov and contributors.
+ * GitHub Repository: https://github.com/RoanH/ConvexMerger
+ *
+ * ConvexMerger is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ConvexMerger is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package dev.roanh.convexmerger.util;
+
+import java.awt.geom.Point2D;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import dev.roanh.convexmerger.game.ConvexObject;
+
+/**
+ * On-disk cache of built vertical decompositions and segment partition trees
+ * keyed by playfield seed. Since a seed fully determines the playfield objects
+ * and the order in which they are added to the decomposition, a decomposition
+ * and the segment partition trees only have to be built once per seed. Every seed is stored in its own file in a compact binary format
+ * that is memory mapped when loaded. Every file also stores a checksum of the
+ * objects it was built for, so files for different objects are never loaded.
+ * @author Roan
+ * @see VerticalDecomposition#write(java.io.DataOutput, List)
+ * @see VerticalDecomposition#read(ByteBuffer, List)
+ * @see SegmentPartitionTree#write(java.io.DataOutput)
+ * @see SegmentPartitionTree#read(ByteBuffer)
+ */
+public class DecompositionCache{
+	/**
+	 * Magic number at the start of every cache file.
+	 */
+	private static final int MAGIC = 0x434D5644;
+	/**
+	 * The version of the cache file format, this has to be incremented
+	 * whenever the binary format of the decomposition changes.
+	 */
+	private static final int FORMAT_VERSION = 3;
+	/**
+	 * The directory the cache files are stored in.
+	 */
+	private final Path dir;
+
+	/**
+	 * Constructs a new decomposition cache that stores
+	 * its files in the given directory.
+	 * @param dir The cache directory, it is created
+	 *        when the first decomposition is stored.
+	 */
+	public DecompositionCache(Path dir){
+		this.dir = dir;
+	}
+
+	/**
+	 * Gets the file the decomposition for the given seed is stored in.
+	 * @param seed The playfield seed.
+	 * @return The cache file for the given seed.
+	 */
+	public Path getFile(String seed){
+		return dir.resolve(seed.replaceAll("[^A-Za-z0-9]", "_") + ".vd");
+	}
+
+	/**
+	 * Attempts to load the cached decomposition and segment partition trees
+	 * for the given seed into the given decomposition and trees, replacing
+	 * their current state. The trees have to be of the same types and in the
+	 * same order as the trees that were stored.
+	 * @param seed The playfield seed.
+	 * @param objects The objects the decomposition was built from.
+	 * @param decomp The decomposition to load into.
+	 * @param trees The segment partition trees to load into.
+	 * @return True if the cached decomposition and trees were loaded, false
+	 *         if there is no valid cached decomposition for the given seed,
+	 *         objects and trees. In this case the given decomposition and trees
+	 *         may have been partially loaded and have to be rebuilt.
+	 * @see VerticalDecomposition#addObjects(List, long)
+	 * @see SegmentPartitionTree#setObjects(List)
+	 */
+	public boolean load(String seed, List<ConvexObject> objects, VerticalDecomposition decomp, SegmentPartitionTree<?>... trees){
+		Path file = getFile(seed);
+		if(!Files.exists(file)){
+			return false;
+		}
+
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+			ByteBuffer in = channel.map(MapMode.READ_ONLY, 0, channel.size());
+			if(in.getInt() != MAGIC || in.getInt() != FORMAT_VERSION || in.getLong() != checksum(objects)){
+				return false;
+			}
+
+			if(in.getInt() != trees.length){
+				return false;
+			}
+			
+			//the trees are read first as a decomposition is not modified if its data is incomplete
+			for(SegmentPartitionTree<?> tree : trees){
+				tree.read(in);
+			}
+			
+			decomp.read(in, objects);
+			return true;
+		}catch(IOException | RuntimeException ignore){
+			//corrupt or truncated cache files are treated as missing
+			return false;
+		}
+	}
+
+	/**
+	 * Stores the given decomposition and segment partition trees for
+	 * the given seed, replacing any decomposition and trees that were
+	 * previously stored for the seed.
+	 * @param seed The playfield seed.
+	 * @param objects The objects the decomposition was built from.
+	 * @param decomp The decomposition to store.
+	 * @param trees The segment partition trees to store.
+	 * @return True if the decomposition was stored, false if an
+	 *         IOException occurred or the decomposition references
+	 *         objects that are not in the given list of objects.
+	 */
+	public boolean store(String seed, List<ConvexObject> objects, VerticalDecomposition decomp, SegmentPartitionTree<?>... trees){
+		Path file = getFile(seed);
+		Path tmp = null;
+		try{
+			Files.createDirectories(dir);
+			tmp = Files.createTempFile(dir, "decomp", ".tmp");
+			try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))){
+				out.writeInt(MAGIC);
+				out.writeInt(FORMAT_VERSION);
+				out.writeLong(checksum(objects));
+				out.writeInt(trees.length);
+				for(SegmentPartitionTree<?> tree : trees){
+					tree.write(out);
+				}
+				decomp.write(out, objects);
+			}
+
+			//the file is replaced atomically so concurrent readers never see a partial file
+			Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			return true;
+		}catch(IOException | IllegalArgumentException e){
+			if(tmp != null){
+				try{
+					Files.deleteIfExists(tmp);
+				}catch(IOException ignore){
+					//the temporary file is left behind
+				}
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * Reads the number of elements in a list from the given buffer and
+	 * validates that the buffer has enough bytes remaining for all elements.
+	 * @param in The buffer to read from.
+	 * @param bytes The minimum number of bytes every element takes up.
+	 * @return The number of elements in the list.
+	 * @throws BufferUnderflowException When the count is negative or the buffer
+	 *         does not have enough bytes remaining for the given number of elements.
+	 */
+	static int readCount(ByteBuffer in, int bytes) throws BufferUnderflowException{
+		int count = in.getInt();
+		if(count < 0 || (long)count * bytes > in.remaining()){
+			throw new BufferUnderflowException();
+		}
+		return count;
+	}
+
+	/**
+	 * Computes a checksum of the points of the given objects.
+	 * @param objects The objects to compute a checksum for.
+	 * @return The checksum for the given objects.
+	 */
+	private static long checksum(List<ConvexObject> objects){
+		long hash = objects.size();
+		for(ConvexObject obj : objects){
+			hash = hash * 31 + obj.getPoints().size();
+			for(Point2D p : obj.getPoints()){
+				hash = hash * 31 + Double.doubleToLongBits(p.getX());
+				hash = hash * 31 + Double.doubleToLongBits(p.getY());
+			}
+		}
+		return hash;
+	}
+}
@@ -0,0 +1,796 @@
+/*
+ * ConvexMerger:  An area maximisation game based on the idea of merging convex shapes.
+ * Copyright (C) 2021  Roan Hofland (roan@roanh.dev), Emiliyan Greshkov and contributors.
+ * GitHub Repository: https://github.com/RoanH/ConvexMerger
+ *
+ * ConvexMerger is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ConvexMerger is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package dev.roanh.convexmerger.util;
+
+import java.awt.geom.Line2D;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.UnaryOperator;
+
+import dev.roanh.convexmerger.game.ConvexObject;
+import dev.roanh.convexmerger.util.VerticalDecomposition.DecompVertex;
+import dev.roanh.convexmerger.util.VerticalDecomposition.DecompVertexType;
+import dev.roanh.convexmerger.util.VerticalDecomposition.Trapezoid;
+
+/**
+ * Immutable snapshot of the search structure of a vertical decomposition.
+ * Every search structure vertex is assigned a fixed slot in a set of arrays
+ * and every trapezoid is reduced to its bounding coordinates and the object
+ * it is part of at the time the snapshot was taken. The arrays are split into
+ * fixed size blocks that are shared between consecutive snapshots, when the
+ * decomposition is updated only the blocks holding changed vertices are copied.
+ * Since nothing in a published snapshot is ever modified it can be queried
+ * from any thread without locking, while the decomposition itself is updated
+ * and publishes a new snapshot.
+ * @author Roan
+ * @see VerticalDecomposition#getSnapshot()
+ * @see Builder
+ */
+public final class DecompositionSnapshot implements PointLocator{
+	/**
+	 * The number of coordinates stored for every trapezoid, these are
+	 * the bottom segment, the top segment and the left and right wall.
+	 */
+	private static final int LEAF_STRIDE = 10;
+	/**
+	 * The number of bits of a slot that index into a block, blocks hold data
+	 * for <code>2^BLOCK_BITS</code> slots. Small blocks keep the amount of data
+	 * copied for an update low, since changed vertices are spread over the slots.
+	 */
+	private static final int BLOCK_BITS = 6;
+	/**
+	 * The mask to extract the index within a block from a slot.
+	 */
+	private static final int BLOCK_MASK = (1 << BLOCK_BITS) - 1;
+	/**
+	 * Kind of a vertex slot that is a point vertex.
+	 */
+	private static final byte POINT = 1;
+	/**
+	 * Kind of a vertex slot that is a segment vertex.
+	 */
+	private static final byte SEGMENT = 2;
+	/**
+	 * Kind of a vertex slot that is a leaf vertex.
+	 */
+	private static final byte LEAF = 3;
+	/**
+	 * The number of queries that are answered together when a batch of queries
+	 * is answered, larger batches are split into batches of this size.
+	 * @see #queryObjects(double[], double[], ConvexObject[])
+	 */
+	private static final int BATCH_SIZE = 1 << 14;
+	/**
+	 * The version of the decomposition this snapshot was taken of.
+	 */
+	private final int version;
+	/**
+	 * The slot of the root of the search structure.
+	 */
+	private final int root;
+	/**
+	 * The kind of every vertex slot, one of {@link #POINT},
+	 * {@link #SEGMENT} or {@link #LEAF}.
+	 */
+	private final byte[][] kinds;
+	/**
+	 * Two values for every vertex slot. For internal vertices these are the
+	 * slots of the left and right child, for leaf vertices the index of the
+	 * trapezoid coordinates and the index of the object of the trapezoid.
+	 */
+	private final int[][] children;
+	/**
+	 * The coordinates of every vertex slot, 4 per slot. Point vertices
+	 * only use the first to store the x-coordinate of their point, segment
+	 * vertices store the end points of their segment.
+	 */
+	private final double[][] coords;
+	/**
+	 * The coordinates of every trapezoid, {@value #LEAF_STRIDE} per trapezoid.
+	 */
+	private final double[][] leaves;
+	/**
+	 * The object every object index currently resolves to, the object of a
+	 * trapezoid is <code>null</code> if it is part of the free space.
+	 */
+	private final ConvexObject[] owners;
+	/**
+	 * The number of internal vertices in the search structure.
+	 */
+	private final int vertexCount;
+	/**
+	 * The number of trapezoids in the search structure.
+	 */
+	private final int trapezoidCount;
+	/**
+	 * The number of vertices that were written for this snapshot.
+	 */
+	private final int written;
+
+	/**
+	 * Constructs a new snapshot from the given published blocks.
+	 * @param builder The builder publishing the snapshot.
+	 * @param version The version of the decomposition.
+	 * @param root The slot of the root of the search structure.
+	 * @param owners The object every object index resolves to.
+	 * @param written The number of vertices that were written for this snapshot.
+	 */
+	private DecompositionSnapshot(Builder builder, int version, int root, ConvexObject[] owners, int written){
+		this.version = version;
+		this.root = root;
+		this.owners = owners;
+		this.written = written;
+		kinds = builder.kinds.publish();
+		children = builder.children.publish();
+		coords = builder.coords.publish();
+		leaves = builder.leaves.publish();
+		vertexCount = builder.vertexCount;
+		trapezoidCount = builder.trapezoidCount;
+	}
+
+	/**
+	 * Gets the version of the decomposition this snapshot was taken of.
+	 * @return The version of the decomposition.
+	 */
+	public int getVersion(){
+		return version;
+	}
+
+	/**
+	 * Gets the number of internal search structure vertices in this snapshot.
+	 * @return The number of internal vertices.
+	 */
+	public int getVertexCount(){
+		return vertexCount;
+	}
+
+	/**
+	 * Gets the number of trapezoids in this snapshot.
+	 * @return The number of trapezoids.
+	 */
+	public int getTrapezoidCount(){
+		return trapezoidCount;
+	}
+	
+	/**
+	 * Gets the number of search structure vertices that were written for
+	 * this snapshot, all other vertices are shared with the previous snapshot.
+	 * @return The number of vertices written for this snapshot.
+	 */
+	int getWrittenCount(){
+		return written;
+	}
+
+	/**
+	 * Queries the convex object that is at the given position as it was
+	 * when this snapshot was taken. Points on the boundary of a trapezoid
+	 * are not located, matching {@link VerticalDecomposition#queryObject(double, double)}.
+	 * @param x The x-coordinate of the query point.
+	 * @param y The y-coordinate of the query point.
+	 * @return The convex object at the given position or
+	 *         <code>null</code> if there is no convex object at
+	 *         the given position.
+	 */
+	@Override
+	public ConvexObject queryObject(double x, double y){
+		int ref = root;
+		while(true){
+			int block = ref >>> BLOCK_BITS;
+			int off = ref & BLOCK_MASK;
+			byte kind = kinds[block][off];
+			if(kind == LEAF){
+				return leafObject(block, off, x, y);
+			}
+			
+			double[] data = coords[block];
+			int idx = off * 4;
+			if(kind == POINT){
+				ref = x <= data[idx] ? children[block][off * 2] : children[block][off * 2 + 1];
+			}else{
+				ref = Line2D.relativeCCW(data[idx], data[idx + 1], data[idx + 2], data[idx + 3], x, y) <= 0 ? children[block][off * 2] : children[block][off * 2 + 1];
+			}
+		}
+	}
+	
+	/**
+	 * Queries the convex object that is at the given position as it was when
+	 * this snapshot was taken, first checking the trapezoid found by the previous
+	 * query made with the given hint. This is intended for spatially coherent
+	 * queries such as those following the mouse cursor, where most queries hit
+	 * the same trapezoid as the previous query and the search structure does not
+	 * have to be searched at all. Since vertices keep their slot across snapshots
+	 * a hint can be used with any snapshot of the same decomposition, a hint that
+	 * no longer refers to a trapezoid containing the query point is simply ignored.
+	 * @param x The x-coordinate of the query point.
+	 * @param y The y-coordinate of the query point.
+	 * @param hint The hint of the calling reader, this
+	 *        hint is updated with the trapezoid found.
+	 * @return The convex object at the given position or
+	 *         <code>null</code> if there is no convex object at
+	 *         the given position.
+	 * @see #queryObject(double, double)
+	 */
+	public ConvexObject queryObject(double x, double y, Hint hint){
+		int last = hint.slot;
+		int block = last >>> BLOCK_BITS;
+		if(last >= 0 && block < kinds.length && kinds[block] != null && kinds[block][last & BLOCK_MASK] == LEAF && leafContains(block, last & BLOCK_MASK, x, y)){
+			return leafOwner(block, last & BLOCK_MASK);
+		}
+		
+		int ref = root;
+		while(true){
+			block = ref >>> BLOCK_BITS;
+			int off = ref & BLOCK_MASK;
+			byte kind = kinds[block][off];
+			if(kind == LEAF){
+				hint.slot = ref;
+				return leafObject(block, off, x, y);
+			}
+			
+			double[] data = coords[block];
+			int idx = off * 4;
+			if(kind == POINT){
+				ref = x <= data[idx] ? children[block][off * 2] : children[block][off * 2 + 1];
+			}else{
+				ref = Line2D.relativeCCW(data[idx], data[idx + 1], data[idx + 2], data[idx + 3], x, y) <= 0 ? children[block][off * 2] : children[block][off * 2 + 1];
+			}
+		}
+	}
+	
+	/**
+	 * Queries the convex objects that are at each of the given positions as they
+	 * were when this snapshot was taken. The queries are answered in consecutive
+	 * batches. In every batch all queries are routed through the search structure
+	 * together, at every vertex the queries that reach it are partitioned in place
+	 * into the queries that continue to the left and the right child. This way all
+	 * queries that share a prefix of their search path are handled together and
+	 * every vertex is only read once for all of them.
+	 * @param xs The x-coordinates of the query points.
+	 * @param ys The y-coordinates of the query points.
+	 * @param out The array to store the convex object at each position in.
+	 * @throws IllegalArgumentException When the given arrays are not all of the same length.
+	 * @see #queryObject(double, double)
+	 * @see #queryObjects(double[], double[], ConvexObject[], ForkJoinPool)
+	 */
+	@Override
+	public void queryObjects(double[] xs, double[] ys, ConvexObject[] out) throws IllegalArgumentException{
+		checkBatch(xs, ys, out);
+		for(int i = 0; i < xs.length; i += BATCH_SIZE){
+			queryBatch(xs, ys, out, i, Math.min(xs.length, i + BATCH_SIZE));
+		}
+	}
+	
+	/**
+	 * Queries the convex objects that are at each of the given positions as they
+	 * were when this snapshot was taken. The queries are split into consecutive
+	 * batches that are each answered on the given fork join pool.
+	 * @param xs The x-coordinates of the query points.
+	 * @param ys The y-coordinates of the query points.
+	 * @param out The array to store the convex object at each position in.
+	 * @param pool The fork join pool to answer the batches on.
+	 * @throws IllegalArgumentException When the given arrays are not all of the same length.
+	 * @see #queryObjects(double[], double[], ConvexObject[])
+	 */
+	public void queryObjects(double[] xs, double[] ys, ConvexObject[] out, ForkJoinPool pool) throws IllegalArgumentException{
+		checkBatch(xs, ys, out);
+		pool.invoke(new BatchTask(xs, ys, out, 0, xs.length));
+	}
+	
+	/**
+	 * Validates that the arrays of the given batch of queries are of the same length.
+	 * @param xs The x-coordinates of the query points.
+	 * @param ys The y-coordinates of the query points.
+	 * @param out The array to store the convex object at each position in.
+	 * @throws IllegalArgumentException When the given arrays are not all of the same length.
+	 */
+	private static void checkBatch(double[] xs, double[] ys, ConvexObject[] out) throws IllegalArgumentException{
+		if(xs.length != ys.length || xs.length != out.length){
+			throw new IllegalArgumentException("The query and output arrays must have the same length.");
+		}
+	}
+	
+	/**
+	 * Answers a single batch of queries by routing all of
+	 * them through the search structure together.
+	 * @param xs The x-coordinates of the query points.
+	 * @param ys The y-coordinates of the query points.
+	 * @param out The array to store the convex object at each position in.
+	 * @param from The index of the first query in the batch (inclusive).
+	 * @param to The index of the last query in the batch (exclusive).
+	 * @see #queryObjects(double[], double[], ConvexObject[])
+	 */
+	private void queryBatch(double[] xs, double[] ys, ConvexObject[] out, int from, int to){
+		int[] queries = new int[to - from];
+		for(int i = 0; i < queries.length; i++){
+			queries[i] = from + i;
+		}
+		
+		//pending (reference, from, to) triples
+		int[] stack = new int[3 * 64];
+		int size = 0;
+		stack[size++] = root;
+		stack[size++] = 0;
+		stack[size++] = queries.length;
+		
+		while(size > 0){
+			int hi = stack[--size];
+			int lo = stack[--size];
+			int ref = stack[--size];
+			int block = ref >>> BLOCK_BITS;
+			int off = ref & BLOCK_MASK;
+			byte kind = kinds[block][off];
+			
+			if(kind == LEAF){
+				for(int i = lo; i < hi; i++){
+					int q = queries[i];
+					out[q] = leafObject(block, off, xs[q], ys[q]);
+				}
+				continue;
+			}
+			
+			//partition the queries into those going left and those going right
+			double[] data = coords[block];
+			int idx = off * 4;
+			int mid = lo;
+			if(kind == POINT){
+				double px = data[idx];
+				for(int i = lo; i < hi; i++){
+					int q = queries[i];
+					if(xs[q] <= px){
+						queries[i] = queries[mid];
+						queries[mid++] = q;
+					}
+				}
+			}else{
+				double x1 = data[idx];
+				double y1 = data[idx + 1];
+				double x2 = data[idx + 2];
+				double y2 = data[idx + 3];
+				for(int i = lo; i < hi; i++){
+					int q = queries[i];
+					if(Line2D.relativeCCW(x1, y1, x2, y2, xs[q], ys[q]) <= 0){
+						queries[i] = queries[mid];
+						queries[mid++] = q;
+					}
+				}
+			}
+			
+			if(size + 6 > stack.length){
+				stack = Arrays.copyOf(stack, stack.length * 2);
+			}
+			
+			if(mid < hi){
+				stack[size++] = children[block][off * 2 + 1];
+				stack[size++] = mid;
+				stack[size++] = hi;
+			}
+			
+			if(lo < mid){
+				stack[size++] = children[block][off * 2];
+				stack[size++] = lo;
+				stack[size++] = mid;
+			}
+		}
+	}
+	
+	/**
+	 * Gets the object of the trapezoid of the given leaf vertex
+	 * if the given point is strictly inside the trapezoid.
+	 * @param block The block of the leaf vertex slot.
+	 * @param off The index of the leaf vertex slot within its block.
+	 * @param x The x-coordinate of the query point.
+	 * @param y The y-coordinate of the query point.
+	 * @return The object of the trapezoid or <code>null</code> if the trapezoid
+	 *         is part of the free space or the point is not strictly inside it.
+	 */
+	private ConvexObject leafObject(int block, int off, double x, double y){
+		return leafContains(block, off, x, y) ? leafOwner(block, off) : null;
+	}
+	
+	/**
+	 * Gets the object of the trapezoid of the given leaf vertex.
+	 * @param block The block of the leaf vertex slot.
+	 * @param off The index of the leaf vertex slot within its block.
+	 * @return The object of the trapezoid or <code>null</code>
+	 *         if the trapezoid is part of the free space.
+	 */
+	private ConvexObject leafOwner(int block, int off){
+		int owner = children[block][off * 2 + 1];
+		return owner == -1 ? null : owners[owner];
+	}
+	
+	/**
+	 * Checks if the given point is strictly inside the trapezoid of the given leaf vertex.
+	 * @param block The block of the leaf vertex slot.
+	 * @param off The index of the leaf vertex slot within its block.
+	 * @param x The x-coordinate of the query point.
+	 * @param y The y-coordinate of the query point.
+	 * @return True if the point is strictly inside the trapezoid.
+	 */
+	private boolean leafContains(int block, int off, double x, double y){
+		int leaf = children[block][off * 2];
+		double[] data = leaves[leaf >>> BLOCK_BITS];
+		int idx = (leaf & BLOCK_MASK) * LEAF_STRIDE;
+		return x > data[idx + 8] && x < data[idx + 9]
+			&& Line2D.relativeCCW(data[idx], data[idx + 1], data[idx + 2], data[idx + 3], x, y) < 0
+			&& Line2D.relativeCCW(data[idx + 4], data[idx + 5], data[idx + 6], data[idx + 7], x, y) > 0;
+	}
+	
+	/**
+	 * Fork join task that answers a range of queries, large
+	 * ranges are split in half and answered in parallel.
+	 * @author Roan
+	 */
+	private final class BatchTask extends RecursiveAction{
+		/**
+		 * Serial ID.
+		 */
+		private static final long serialVersionUID = -2203917405377521409L;
+		/**
+		 * The x-coordinates of the query points.
+		 */
+		private final double[] xs;
+		/**
+		 * The y-coordinates of the query points.
+		 */
+		private final double[] ys;
+		/**
+		 * The array to store the convex object at each position in.
+		 */
+		private final ConvexObject[] out;
+		/**
+		 * The index of the first query to answer (inclusive).
+		 */
+		private final int from;
+		/**
+		 * The index of the last query to answer (exclusive).
+		 */
+		private final int to;
+		
+		/**
+		 * Constructs a new batch task for the given range of queries.
+		 * @param xs The x-coordinates of the query points.
+		 * @param ys The y-coordinates of the query points.
+		 * @param out The array to store the convex object at each position in.
+		 * @param from The index of the first query to answer (inclusive).
+		 * @param to The index of the last query to answer (exclusive).
+		 */
+		private BatchTask(double[] xs, double[] ys, ConvexObject[] out, int from, int to){
+			this.xs = xs;
+			this.ys = ys;
+			this.out = out;
+			this.from = from;
+			this.to = to;
+		}
+		
+		@Override
+		protected void compute(){
+			if(to - from <= BATCH_SIZE){
+				queryBatch(xs, ys, out, from, to);
+			}else{
+				int mid = from + (((to - from) / BATCH_SIZE + 1) / 2) * BATCH_SIZE;
+				invokeAll(new BatchTask(xs, ys, out, from, mid), new BatchTask(xs, ys, out, mid, to));
+			}
+		}
+	}
+	
+	/**
+	 * Hint for point location queries that remembers the trapezoid
+	 * found by the last query. Every reader should use its own hint
+	 * as hints are not safe to share between threads.
+	 * @author Roan
+	 * @see DecompositionSnapshot#queryObject(double, double, Hint)
+	 */
+	public static final class Hint{
+		/**
+		 * The slot of the leaf vertex found by the
+		 * last query or -1 if there was no query yet.
+		 */
+		private int slot = -1;
+	}
+	
+	/**
+	 * Builder that publishes snapshots of the search structure of a single
+	 * decomposition. Every vertex that is published is assigned a slot that
+	 * it keeps for as long as it is part of the search structure, even when it is
+	 * converted from a leaf to an internal vertex. Published vertices report their
+	 * changes to the builder, so a new snapshot only has to write the vertices that
+	 * changed since the previous snapshot and the vertices that were newly added.
+	 * The builder has to be used by the thread that updates the decomposition.
+	 * @author Roan
+	 * @see DecompVertex
+	 */
+	protected static final class Builder{
+		/**
+		 * The kind of every vertex slot.
+		 */
+		private final BlockTable<byte[]> kinds = new BlockTable<byte[]>(new byte[0][], n->new byte[n], byte[]::clone);
+		/**
+		 * The child slots or trapezoid and object index of every vertex slot.
+		 */
+		private final BlockTable<int[]> children = new BlockTable<int[]>(new int[0][], n->new int[n * 2], int[]::clone);
+		/**
+		 * The coordinates of every vertex slot.
+		 */
+		private final BlockTable<double[]> coords = new BlockTable<double[]>(new double[0][], n->new double[n * 4], double[]::clone);
+		/**
+		 * The coordinates of every trapezoid.
+		 */
+		private final BlockTable<double[]> leaves = new BlockTable<double[]>(new double[0][], n->new double[n * LEAF_STRIDE], double[]::clone);
+		/**
+		 * The slot assigned to every published vertex.
+		 */
+		private final Map<DecompVertex, Integer> slots = new IdentityHashMap<DecompVertex, Integer>();
+		/**
+		 * The published vertices that changed since the last snapshot.
+		 */
+		private final Set<DecompVertex> changed = Collections.newSetFromMap(new IdentityHashMap<DecompVertex, Boolean>());
+		/**
+		 * The index assigned to every object that was the object of a trapezoid.
+		 */
+		private final Map<ConvexObject, Integer> objectIds = new IdentityHashMap<ConvexObject, Integer>();
+		/**
+		 * The objects that were assigned an index in index order.
+		 */
+		private final List<ConvexObject> objects = new ArrayList<ConvexObject>();
+		/**
+		 * The number of trapezoid coordinate entries assigned so far.
+		 */
+		private int leafCount = 0;
+		/**
+		 * The number of internal vertices in the search structure.
+		 */
+		private int vertexCount = 0;
+		/**
+		 * The number of trapezoids in the search structure.
+		 */
+		private int trapezoidCount = 0;
+		
+		/**
+		 * Records that the given published vertex changed and has
+		 * to be written again for the next snapshot.
+		 * @param vertex The vertex that changed.
+		 */
+		protected void changed(DecompVertex vertex){
+			changed.add(vertex);
+		}
+		
+		/**
+		 * Publishes a new snapshot of the search structure rooted at the given vertex.
+		 * Only vertices that changed since the previous snapshot and vertices that were
+		 * not published before are written, all other data is shared with the previous
+		 * snapshot. The objects of trapezoids are resolved again for every snapshot,
+		 * which only takes time proportional to the number of objects.
+		 * @param root The root of the search structure.
+		 * @param version The current version of the decomposition.
+		 * @param owner Function giving the object directly above the bottom segment
+		 *        of a trapezoid, this object is resolved when queried.
+		 * @param resolver Function resolving an object to the object it is
+		 *        currently part of, for example after it was merged.
+		 * @return The new snapshot.
+		 */
+		protected DecompositionSnapshot publish(DecompVertex root, int version, Function<Trapezoid, ConvexObject> owner, UnaryOperator<ConvexObject> resolver){
+			Deque<DecompVertex> pending = new ArrayDeque<DecompVertex>(changed);
+			changed.clear();
+			int rootSlot = slot(root, pending);
+			
+			int written = 0;
+			while(!pending.isEmpty()){
+				write(pending.pop(), pending, owner);
+				written++;
+			}
+			
+			ConvexObject[] owners = new ConvexObject[objects.size()];
+			for(int i = 0; i < owners.length; i++){
+				owners[i] = resolver.apply(objects.get(i));
+			}
+			
+			return new DecompositionSnapshot(this, version, rootSlot, owners, written);
+		}
+		
+		/**
+		 * Gets the slot of the given vertex, if the vertex was not published
+		 * before it is assigned a new slot and queued to be written.
+		 * @param vertex The vertex to get the slot for.
+		 * @param pending The queue of vertices that still have to be written.
+		 * @return The slot of the given vertex.
+		 */
+		private int slot(DecompVertex vertex, Deque<DecompVertex> pending){
+			Integer slot = slots.get(vertex);
+			if(slot == null){
+				slot = slots.size();
+				slots.put(vertex, slot);
+				pending.push(vertex);
+			}
+			return slot;
+		}
+		
+		/**
+		 * Writes the current state of the given vertex to its slot, assigning slots to
+		 * new children of the vertex and from then on tracking changes to the vertex.
+		 * @param vertex The vertex to write.
+		 * @param pending The queue of vertices that still have to be written.
+		 * @param owner Function giving the object directly above the bottom segment of a trapezoid.
+		 */
+		private void write(DecompVertex vertex, Deque<DecompVertex> pending, Function<Trapezoid, ConvexObject> owner){
+			int slot = slots.get(vertex);
+			int off = slot & BLOCK_MASK;
+			byte[] kind = kinds.writable(slot);
+			int[] refs = children.writable(slot);
+			byte old = kind[off];
+			
+			if(vertex.getType() == DecompVertexType.LEAF){
+				int leaf;
+				if(old == LEAF){
+					leaf = refs[off * 2];
+				}else{
+					leaf = leafCount++;
+					trapezoidCount++;
+				}
+				
+				Trapezoid trap = vertex.getTrapezoid();
+				double[] data = leaves.writable(leaf);
+				int idx = (leaf & BLOCK_MASK) * LEAF_STRIDE;
+				data[idx] = trap.getBotSegment().getX1();
+				data[idx + 1] = trap.getBotSegment().getY1();
+				data[idx + 2] = trap.getBotSegment().getX2();
+				data[idx + 3] = trap.getBotSegment().getY2();
+				data[idx + 4] = trap.getTopSegment().getX1();
+				data[idx + 5] = trap.getTopSegment().getY1();
+				data[idx + 6] = trap.getTopSegment().getX2();
+				data[idx + 7] = trap.getTopSegment().getY2();
+				data[idx + 8] = trap.getXLeft();
+				data[idx + 9] = trap.getXRight();
+				
+				kind[off] = LEAF;
+				refs[off * 2] = leaf;
+				refs[off * 2 + 1] = objectId(owner.apply(trap));
+			}else{
+				if(old == LEAF){
+					trapezoidCount--;
+					vertexCount++;
+				}else if(old == 0){
+					vertexCount++;
+				}
+				
+				double[] data = coords.writable(slot);
+				int idx = off * 4;
+				if(vertex.getType() == DecompVertexType.POINT){
+					kind[off] = POINT;
+					data[idx] = vertex.getPoint().getX();
+				}else{
+					kind[off] = SEGMENT;
+					Line2D seg = vertex.getSegment();
+					data[idx] = seg.getX1();
+					data[idx + 1] = seg.getY1();
+					data[idx + 2] = seg.getX2();
+					data[idx + 3] = seg.getY2();
+				}
+				
+				refs[off * 2] = slot(vertex.getLeftChild(), pending);
+				refs[off * 2 + 1] = slot(vertex.getRightChild(), pending);
+			}
+			
+			vertex.setBuilder(this);
+		}
+		
+		/**
+		 * Gets the index of the given object, assigning a new index if required.
+		 * @param obj The object to get the index of.
+		 * @return The index of the object or -1 if the object is <code>null</code>.
+		 */
+		private int objectId(ConvexObject obj){
+			if(obj == null){
+				return -1;
+			}
+			
+			Integer id = objectIds.get(obj);
+			if(id == null){
+				id = objects.size();
+				objectIds.put(obj, id);
+				objects.add(obj);
+			}
+			return id;
+		}
+	}
+	
+	/**
+	 * Table of fixed size blocks of data that is copied on write. Blocks
+	 * are shared with all snapshots published since the block was last
+	 * written and are only copied on the first write after a publication.
+	 * @author Roan
+	 * @param <T> The array type of the blocks.
+	 */
+	private static final class BlockTable<T>{
+		/**
+		 * Function creating a new empty block for the given number of slots.
+		 */
+		private final IntFunction<T> factory;
+		/**
+		 * Function creating a copy of a block.
+		 */
+		private final UnaryOperator<T> copy;
+		/**
+		 * The current blocks of the table.
+		 */
+		private T[] blocks;
+		/**
+		 * For every block whether it was copied or created since
+		 * the last publication and can be written in place.
+		 */
+		private boolean[] owned = new boolean[0];
+		
+		/**
+		 * Constructs a new empty block table.
+		 * @param empty An empty array of blocks.
+		 * @param factory Function creating a new empty block for the given number of slots.
+		 * @param copy Function creating a copy of a block.
+		 */
+		private BlockTable(T[] empty, IntFunction<T> factory, UnaryOperator<T> copy){
+			blocks = empty;
+			this.factory = factory;
+			this.copy = copy;
+		}
+		
+		/**
+		 * Gets the block holding the given slot such that it can be written.
+		 * The block is created or copied first if required.
+		 * @param slot The slot to get the block for.
+		 * @return The block holding the given slot.
+		 */
+		private T writable(int slot){
+			int block = slot >>> BLOCK_BITS;
+			if(block >= blocks.length){
+				blocks = Arrays.copyOf(blocks, Math.max(block + 1, blocks.length * 2));
+				owned = Arrays.copyOf(owned, blocks.length);
+			}
+			
+			if(blocks[block] == null){
+				blocks[block] = factory.apply(1 << BLOCK_BITS);
+				owned[block] = true;
+			}else if(!owned[block]){
+				blocks[block] = copy.apply(blocks[block]);
+				owned[block] = true;
+			}
+			
+			return blocks[block];
+		}
+		
+		/**
+		 * Publishes the current blocks, after this call all current
+		 * blocks are shared and copied on their next write.
+		 * @return The current blocks.
+		 */
+		private T[] publish(){
+			Arrays.fill(owned, false);
+			return Arrays.copyOf(blocks, blocks.length);
+		}
+	}
+}
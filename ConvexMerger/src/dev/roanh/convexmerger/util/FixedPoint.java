@@ -0,0 +1,168 @@
+/*
+ * ConvexMerger:  An area maximisation game based on the idea of merging convex shapes.
+ * Copyright (C) 2021  Roan Hofland (roan@roanh.dev), Emiliyan Greshkov and contributors.
+ * GitHub Repository: https://github.com/RoanH/ConvexMerger
+ *
+ * ConvexMerger is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ConvexMerger is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package dev.roanh.convexmerger.util;
+
+import java.awt.geom.Point2D;
+import java.util.List;
+
+/**
+ * Utilities for exact geometry on fixed-point coordinates. A coordinate is
+ * exact if it is a multiple of <code>2^-{@value #FRACTION_BITS}</code> with a
+ * magnitude less than {@value #LIMIT}, such a coordinate is represented exactly
+ * by a <code>double</code> and also by a scaled <code>long</code>. Orientation
+ * tests and doubled areas of exact points are computed exactly with <code>long</code>
+ * arithmetic, so no tolerances are needed for them.
+ * <p>
+ * Since merging objects only ever selects a subset of the existing vertices,
+ * every object formed from exact objects is exact itself. The area of an exact
+ * object is a multiple of <code>2^-(2 * FRACTION_BITS + 1)</code> well below
+ * <code>2^21</code>, which means that areas and all sums of areas on the playfield
+ * fit in the 53 bit mantissa of a <code>double</code>. So adding and removing
+ * exact areas never accumulates rounding errors either.
+ * @author Roan
+ * @see dev.roanh.convexmerger.game.PlayfieldGenerator#setFixedPoint(boolean)
+ */
+public class FixedPoint{
+	/**
+	 * The number of fractional bits of exact coordinates.
+	 */
+	public static final int FRACTION_BITS = 15;
+	/**
+	 * The scaling factor between exact coordinates and their <code>long</code> representation.
+	 */
+	private static final double SCALE = 1 << FRACTION_BITS;
+	/**
+	 * Upper bound on the magnitude of exact coordinates, this ensures that
+	 * products of coordinate differences never overflow a <code>long</code>.
+	 */
+	public static final double LIMIT = 1 << 14;
+
+	/**
+	 * Rounds the given coordinate to the nearest exact coordinate.
+	 * @param value The coordinate to round.
+	 * @return The nearest exact coordinate.
+	 * @throws IllegalArgumentException When the given coordinate is out of range.
+	 */
+	public static final double snap(double value) throws IllegalArgumentException{
+		if(!(Math.abs(value) < LIMIT)){
+			throw new IllegalArgumentException("Coordinate out of range: " + value);
+		}
+		return Math.rint(value * SCALE) / SCALE;
+	}
+	
+	/**
+	 * Checks if the given coordinate is an exact fixed-point coordinate.
+	 * @param value The coordinate to check.
+	 * @return True if the given coordinate is exact.
+	 */
+	public static final boolean isExact(double value){
+		double scaled = value * SCALE;
+		return scaled == Math.rint(scaled) && Math.abs(value) < LIMIT;
+	}
+	
+	/**
+	 * Checks if both coordinates of the given point are exact.
+	 * @param p The point to check.
+	 * @return True if the given point is exact.
+	 */
+	public static final boolean isExact(Point2D p){
+		return isExact(p.getX()) && isExact(p.getY());
+	}
+	
+	/**
+	 * Checks if all the given points are exact.
+	 * @param points The points to check.
+	 * @return True if all the given points are exact.
+	 */
+	public static final boolean isExact(List<Point2D> points){
+		for(Point2D p : points){
+			if(!isExact(p)){
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Converts the given exact coordinate to its <code>long</code> representation.
+	 * @param value The exact coordinate to convert.
+	 * @return The scaled <code>long</code> representation of the coordinate.
+	 * @see #isExact(double)
+	 */
+	public static final long toFixed(double value){
+		return (long)(value * SCALE);
+	}
+	
+	/**
+	 * Computes the orientation of the given exact points.
+	 * @param a The first point.
+	 * @param b The second point.
+	 * @param c The third point.
+	 * @return 1 if the points make a counter-clockwise turn (in a
+	 *         coordinate system with the y-axis pointing up), -1 if
+	 *         they make a clockwise turn and 0 if they are collinear.
+	 * @see #isExact(Point2D)
+	 */
+	public static final int orientation(Point2D a, Point2D b, Point2D c){
+		long ax = toFixed(a.getX());
+		long ay = toFixed(a.getY());
+		return Long.signum((toFixed(b.getX()) - ax) * (toFixed(c.getY()) - ay) - (toFixed(b.getY()) - ay) * (toFixed(c.getX()) - ax));
+	}
+	
+	/**
+	 * Computes twice the signed area of the given convex polygon
+	 * with exact points in units of the squared fixed-point scale.
+	 * @param points The exact points of the polygon in (counter) clockwise order.
+	 * @return Twice the signed area of the polygon, positive if the
+	 *         points are in counter-clockwise order.
+	 * @see #toArea(long)
+	 */
+	public static final long doubledArea(List<Point2D> points){
+		if(points.size() < 3){
+			return 0;
+		}
+		
+		long x0 = toFixed(points.get(0).getX());
+		long y0 = toFixed(points.get(0).getY());
+		long area = 0;
+		
+		//relative coordinates keep all intermediate values within the range of the final area
+		long px = toFixed(points.get(1).getX()) - x0;
+		long py = toFixed(points.get(1).getY()) - y0;
+		for(int i = 2; i < points.size(); i++){
+			long x = toFixed(points.get(i).getX()) - x0;
+			long y = toFixed(points.get(i).getY()) - y0;
+			area += px * y - py * x;
+			px = x;
+			py = y;
+		}
+		
+		return area;
+	}
+	
+	/**
+	 * Converts a doubled area in units of the squared fixed-point scale to an area.
+	 * @param doubled The doubled area to convert.
+	 * @return The corresponding area, this conversion is exact.
+	 * @see #doubledArea(List)
+	 */
+	public static final double toArea(long doubled){
+		return doubled / (2.0D * SCALE * SCALE);
+	}
+}
@@ -25,6 +25,10 @@ import java.awt.geom.Ellipse2D;
 import java.awt.geom.Line2D;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -112,6 +116,26 @@ public class KDTree<T> extends PartitionTree<T, KDTree<T>>{
 		}
 	}
 	
+	/**
+	 * Constructs a new kd-tree node with the given parent node and axis
+	 * to split on by reading its structure from the given buffer.
+	 * @param parent The parent node of this kd-tree node.
+	 * @param xAxis True if this cell is split based on the X
+	 *        coordinate of points, false to split on the Y coordinate.
+	 * @param in The buffer to read from.
+	 * @throws BufferUnderflowException When the buffer does not contain a complete tree.
+	 * @see #write(DataOutput)
+	 */
+	private KDTree(KDTree<T> parent, boolean xAxis, ByteBuffer in) throws BufferUnderflowException{
+		this.parent = parent;
+		this.xAxis = xAxis;
+		if(in.get() != 0){
+			point = new Point2D.Double(in.getDouble(), in.getDouble());
+			low = new KDTree<T>(this, !xAxis, in);
+			high = new KDTree<T>(this, !xAxis, in);
+		}
+	}
+	
 	/**
 	 * Gets the point defining the line dividing this kd-tree
 	 * node into two child nodes.
@@ -243,4 +267,31 @@ public class KDTree<T> extends PartitionTree<T, KDTree<T>>{
 	public KDTree<T> getSelf(){
 		return this;
 	}
+	
+	@Override
+	public void write(DataOutput out) throws IOException{
+		if(isLeafCell()){
+			out.writeByte(0);
+		}else{
+			out.writeByte(1);
+			out.writeDouble(point.getX());
+			out.writeDouble(point.getY());
+			low.write(out);
+			high.write(out);
+		}
+	}
+	
+	/**
+	 * Reads a kd-tree that was previously written to the
+	 * given buffer. The cells of the returned tree do not
+	 * store any data.
+	 * @param <T> The per cell item data type.
+	 * @param in The buffer to read from.
+	 * @return The kd-tree that was read.
+	 * @throws BufferUnderflowException When the buffer does not contain a complete tree.
+	 * @see #write(DataOutput)
+	 */
+	public static <T> KDTree<T> read(ByteBuffer in) throws BufferUnderflowException{
+		return new KDTree<T>(null, true, in);
+	}
 }
@@ -0,0 +1,653 @@
+/*
+ * ConvexMerger:  An area maximisation game based on the idea of merging convex shapes.
+ * Copyright (C) 2021  Roan Hofland (roan@roanh.dev), Emiliyan Greshkov and contributors.
+ * GitHub Repository: https://github.com/RoanH/ConvexMerger
+ *
+ * ConvexMerger is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ConvexMerger is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package dev.roanh.convexmerger.util;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import dev.roanh.convexmerger.Constants;
+import dev.roanh.convexmerger.game.ConvexObject;
+
+/**
+ * Static point locator based on the triangulation refinement hierarchy of
+ * Kirkpatrick. The playfield is first triangulated such that every object
+ * edge is a triangulation edge, so every triangle is either inside a single
+ * object or empty. Coarser triangulations are then derived by repeatedly
+ * removing an independent set of low degree vertices and retriangulating the
+ * resulting holes, until only a single triangle enclosing the playfield remains.
+ * Every triangle links to the triangles of the finer level it overlaps, so
+ * a query descends from the root visiting a constant number of triangles
+ * per level for a total of <code>O(log n)</code> triangles.
+ * <p>
+ * The locator is a snapshot of the objects it was constructed
+ * with and does not reflect later changes to the game state.
+ * @author Roan
+ * @see PointLocator
+ */
+public class KirkpatrickLocator implements PointLocator{
+	/**
+	 * The maximum degree of vertices removed when building a coarser level.
+	 */
+	private static final int MAX_DEGREE = 8;
+	/**
+	 * The maximum number of edge flips spent on recovering a single object edge.
+	 */
+	private static final int MAX_FLIPS = 10000;
+	/**
+	 * The objects this locator was constructed with, used to answer
+	 * queries that the hierarchy misses due to rounding errors.
+	 */
+	private final List<ConvexObject> objects;
+	/**
+	 * The x-coordinates of all triangulation vertices, the first
+	 * three vertices are the corners of the enclosing triangle.
+	 */
+	private double[] vx = new double[16];
+	/**
+	 * The y-coordinates of all triangulation vertices, the first
+	 * three vertices are the corners of the enclosing triangle.
+	 */
+	private double[] vy = new double[16];
+	/**
+	 * The number of triangulation vertices.
+	 */
+	private int vertices = 0;
+	/**
+	 * The triangles of the coarsest level of the hierarchy.
+	 */
+	private Triangle[] roots;
+	/**
+	 * The number of levels in the hierarchy.
+	 */
+	private int levels = 1;
+	/**
+	 * The total number of triangles across all levels of the hierarchy.
+	 */
+	private int triangleCount = 0;
+	/**
+	 * Index from directed triangulation edges to the triangle that has the edge
+	 * in counter clockwise order, only used while building the hierarchy.
+	 * @see #key(int, int)
+	 */
+	private Map<Long, Triangle> edges = new HashMap<Long, Triangle>();
+	/**
+	 * The triangles of the level currently being built.
+	 */
+	private Set<Triangle> alive = new LinkedHashSet<Triangle>();
+	/**
+	 * Random instance used to pick the edge order when walking
+	 * through the triangulation, the randomisation guarantees
+	 * that walks terminate on any triangulation.
+	 */
+	private Random random = new Random(0);
+
+	/**
+	 * Constructs a new Kirkpatrick hierarchy for the given objects.
+	 * @param objects The objects to locate, these should not overlap.
+	 * @throws IllegalStateException When an object edge could not be made
+	 *         part of the triangulation, for example because objects overlap.
+	 */
+	public KirkpatrickLocator(List<ConvexObject> objects) throws IllegalStateException{
+		this.objects = new ArrayList<ConvexObject>(objects);
+		double w = Constants.PLAYFIELD_WIDTH;
+		double h = Constants.PLAYFIELD_HEIGHT;
+		addTriangle(addVertex(-10.0D * w, -10.0D * h), addVertex(10.0D * w, -10.0D * h), addVertex(w / 2.0D, 10.0D * h));
+
+		Map<Point2D, Integer> index = new HashMap<Point2D, Integer>();
+		List<ConvexObject> owners = new ArrayList<ConvexObject>(Arrays.asList(null, null, null));
+		List<int[]> constraints = new ArrayList<int[]>();
+		Triangle last = alive.iterator().next();
+		for(ConvexObject obj : objects){
+			List<Point2D> points = obj.getPoints();
+			int first = -1;
+			int prev = -1;
+			for(Point2D p : points){
+				Integer v = index.get(p);
+				if(v == null){
+					v = addVertex(p.getX(), p.getY());
+					index.put(p, v);
+					owners.add(obj);
+					last = insertVertex(last, v);
+				}
+
+				if(prev == -1){
+					first = v;
+				}else{
+					constraints.add(new int[]{prev, v});
+				}
+				prev = v;
+			}
+			constraints.add(new int[]{prev, first});
+		}
+
+		for(int[] edge : constraints){
+			recoverEdge(edge[0], edge[1]);
+		}
+		
+		//recovering an edge can flip a previously recovered edge if objects overlap
+		for(int[] edge : constraints){
+			if(!hasEdge(edge[0], edge[1])){
+				throw new IllegalStateException("Failed to recover object edge from " + vx[edge[0]] + "," + vy[edge[0]] + " to " + vx[edge[1]] + "," + vy[edge[1]]);
+			}
+		}
+
+		for(Triangle t : alive){
+			double cx = (vx[t.a] + vx[t.b] + vx[t.c]) / 3.0D;
+			double cy = (vy[t.a] + vy[t.b] + vy[t.c]) / 3.0D;
+			for(int v : new int[]{t.a, t.b, t.c}){
+				ConvexObject owner = owners.get(v);
+				if(owner != null && owner.contains(cx, cy)){
+					t.object = owner;
+					break;
+				}
+			}
+		}
+
+		triangleCount = alive.size();
+		while(alive.size() > 1 && buildLevel()){
+			levels++;
+		}
+
+		roots = alive.toArray(new Triangle[0]);
+		edges = null;
+		alive = null;
+		random = null;
+		vx = Arrays.copyOf(vx, vertices);
+		vy = Arrays.copyOf(vy, vertices);
+	}
+
+	/**
+	 * Gets the number of levels in the hierarchy, including
+	 * the level of the original triangulation.
+	 * @return The number of hierarchy levels.
+	 */
+	public int getLevels(){
+		return levels;
+	}
+
+	/**
+	 * Gets the total number of triangles across all levels of the hierarchy.
+	 * @return The total number of triangles.
+	 */
+	public int getTriangleCount(){
+		return triangleCount;
+	}
+
+	/**
+	 * Queries the convex object that is at the given position. If rounding errors
+	 * make the query fall outside all the triangles of a level, the object is
+	 * instead found by checking which object contains the query point.
+	 * @param x The x-coordinate of the query point.
+	 * @param y The y-coordinate of the query point.
+	 * @return The convex object at the given position or
+	 *         <code>null</code> if there is no convex object at
+	 *         the given position.
+	 */
+	@Override
+	public ConvexObject queryObject(double x, double y){
+		Triangle tri = null;
+		for(Triangle root : roots){
+			if(contains(root, x, y)){
+				tri = root;
+				break;
+			}
+		}
+		
+		if(tri == null){
+			return queryContaining(x, y);
+		}
+
+		descend: while(tri.children != null){
+			for(Triangle child : tri.children){
+				if(contains(child, x, y)){
+					tri = child;
+					continue descend;
+				}
+			}
+			return queryContaining(x, y);
+		}
+
+		return tri.object;
+	}
+	
+	/**
+	 * Finds the object containing the given point by checking every object.
+	 * @param x The x-coordinate of the query point.
+	 * @param y The y-coordinate of the query point.
+	 * @return The convex object containing the given point or
+	 *         <code>null</code> if there is no such object.
+	 */
+	private ConvexObject queryContaining(double x, double y){
+		for(ConvexObject obj : objects){
+			if(obj.contains(x, y)){
+				return obj;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Checks if the given point is inside or on the boundary of the given triangle.
+	 * @param tri The triangle to check.
+	 * @param x The x-coordinate of the point.
+	 * @param y The y-coordinate of the point.
+	 * @return True if the triangle contains the given point.
+	 */
+	private boolean contains(Triangle tri, double x, double y){
+		return orient(tri.a, tri.b, x, y) >= 0.0D && orient(tri.b, tri.c, x, y) >= 0.0D && orient(tri.c, tri.a, x, y) >= 0.0D;
+	}
+
+	/**
+	 * Builds the next coarser level of the hierarchy by removing an independent
+	 * set of vertices with a degree of at most {@value #MAX_DEGREE} and
+	 * retriangulating the resulting holes.
+	 * @return True if at least one vertex was removed.
+	 */
+	private boolean buildLevel(){
+		int[] degree = new int[vertices];
+		Triangle[] incident = new Triangle[vertices];
+		for(Triangle t : alive){
+			for(int v : new int[]{t.a, t.b, t.c}){
+				degree[v]++;
+				incident[v] = t;
+			}
+		}
+
+		boolean[] blocked = new boolean[vertices];
+		boolean removed = false;
+		for(int v = 3; v < vertices; v++){
+			if(blocked[v] || degree[v] == 0 || degree[v] > MAX_DEGREE){
+				continue;
+			}
+
+			List<Triangle> star = new ArrayList<Triangle>(degree[v]);
+			int[] ring = new int[degree[v]];
+			Triangle t = incident[v];
+			for(int i = 0; i < ring.length; i++){
+				star.add(t);
+				ring[i] = t.next(v);
+				t = edges.get(key(v, t.prev(v)));
+			}
+
+			List<int[]> triangles = triangulate(ring);
+			if(triangles == null){
+				continue;
+			}
+
+			blocked[v] = true;
+			for(int u : ring){
+				blocked[u] = true;
+			}
+
+			for(Triangle old : star){
+				removeTriangle(old);
+			}
+
+			for(int[] tri : triangles){
+				Triangle coarse = addTriangle(tri[0], tri[1], tri[2]);
+				List<Triangle> children = new ArrayList<Triangle>();
+				for(Triangle old : star){
+					if(overlaps(coarse, old) && overlaps(old, coarse)){
+						children.add(old);
+					}
+				}
+				coarse.children = children.toArray(new Triangle[0]);
+				triangleCount++;
+			}
+			removed = true;
+		}
+
+		return removed;
+	}
+
+	/**
+	 * Triangulates the given simple polygon using ear clipping.
+	 * @param ring The vertices of the polygon in counter clockwise order.
+	 * @return The triangles of the triangulation in counter clockwise
+	 *         order or <code>null</code> if no ear could be found.
+	 */
+	private List<int[]> triangulate(int[] ring){
+		List<Integer> poly = new ArrayList<Integer>(ring.length);
+		for(int v : ring){
+			poly.add(v);
+		}
+
+		List<int[]> triangles = new ArrayList<int[]>(ring.length - 2);
+		ears: while(poly.size() > 3){
+			for(int i = 0; i < poly.size(); i++){
+				int a = poly.get((i + poly.size() - 1) % poly.size());
+				int b = poly.get(i);
+				int c = poly.get((i + 1) % poly.size());
+				if(orient(a, b, vx[c], vy[c]) > 0.0D && isEar(poly, a, b, c)){
+					triangles.add(new int[]{a, b, c});
+					poly.remove(i);
+					continue ears;
+				}
+			}
+			return null;
+		}
+
+		if(orient(poly.get(0), poly.get(1), vx[poly.get(2)], vy[poly.get(2)]) <= 0.0D){
+			return null;
+		}
+		triangles.add(new int[]{poly.get(0), poly.get(1), poly.get(2)});
+		return triangles;
+	}
+
+	/**
+	 * Checks if no polygon vertex other than the given triangle
+	 * corners lies inside or on the boundary of the given triangle.
+	 * @param poly The polygon vertices.
+	 * @param a The first triangle corner.
+	 * @param b The second triangle corner.
+	 * @param c The third triangle corner.
+	 * @return True if the given triangle is an ear of the polygon.
+	 */
+	private boolean isEar(List<Integer> poly, int a, int b, int c){
+		for(int p : poly){
+			if(p != a && p != b && p != c && orient(a, b, vx[p], vy[p]) >= 0.0D && orient(b, c, vx[p], vy[p]) >= 0.0D && orient(c, a, vx[p], vy[p]) >= 0.0D){
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Checks that no edge of the first triangle separates it from the second triangle.
+	 * @param first The first triangle.
+	 * @param second The second triangle.
+	 * @return True if none of the edges of the first triangle
+	 *         has the second triangle entirely on its outside.
+	 */
+	private boolean overlaps(Triangle first, Triangle second){
+		int[] corners = new int[]{first.a, first.b, first.c};
+		edges: for(int i = 0; i < 3; i++){
+			int u = corners[i];
+			int v = corners[(i + 1) % 3];
+			for(int p : new int[]{second.a, second.b, second.c}){
+				if(orient(u, v, vx[p], vy[p]) > 0.0D){
+					continue edges;
+				}
+			}
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Inserts the given vertex into the triangulation.
+	 * @param start The triangle to start the walk to the
+	 *        triangle containing the vertex from.
+	 * @param v The vertex to insert.
+	 * @return A triangle incident to the inserted vertex.
+	 */
+	private Triangle insertVertex(Triangle start, int v){
+		Triangle t = start;
+		walk: while(true){
+			int[] corners = new int[]{t.a, t.b, t.c};
+			int rotation = random.nextInt(3);
+			for(int i = 0; i < 3; i++){
+				int u = corners[(i + rotation) % 3];
+				int w = corners[(i + rotation + 1) % 3];
+				if(orient(u, w, vx[v], vy[v]) < 0.0D){
+					t = edges.get(key(w, u));
+					continue walk;
+				}
+			}
+			break;
+		}
+
+		int[] corners = new int[]{t.a, t.b, t.c};
+		for(int i = 0; i < 3; i++){
+			int u = corners[i];
+			int w = corners[(i + 1) % 3];
+			if(orient(u, w, vx[v], vy[v]) == 0.0D){
+				int opposite = corners[(i + 2) % 3];
+				Triangle other = edges.get(key(w, u));
+				int far = other.next(u);
+				removeTriangle(t);
+				removeTriangle(other);
+				addTriangle(u, v, opposite);
+				addTriangle(v, w, opposite);
+				addTriangle(w, v, far);
+				return addTriangle(v, u, far);
+			}
+		}
+
+		removeTriangle(t);
+		addTriangle(t.a, t.b, v);
+		addTriangle(t.b, t.c, v);
+		return addTriangle(t.c, t.a, v);
+	}
+
+	/**
+	 * Makes sure the edge between the two given vertices is
+	 * part of the triangulation by flipping all edges that cross it.
+	 * @param a The first vertex of the edge.
+	 * @param b The second vertex of the edge.
+	 * @throws IllegalStateException When the edge could not be recovered
+	 *         within {@value #MAX_FLIPS} flips or is blocked by a vertex on it.
+	 */
+	private void recoverEdge(int a, int b) throws IllegalStateException{
+		if(hasEdge(a, b)){
+			return;
+		}
+
+		Deque<int[]> crossing = new ArrayDeque<int[]>();
+		for(Triangle t : alive){
+			int[] corners = new int[]{t.a, t.b, t.c};
+			for(int i = 0; i < 3; i++){
+				int u = corners[i];
+				int v = corners[(i + 1) % 3];
+				if(u < v && crosses(a, b, u, v)){
+					crossing.add(new int[]{u, v});
+				}
+			}
+		}
+
+		for(int flips = 0; !crossing.isEmpty() && flips < MAX_FLIPS; flips++){
+			int[] edge = crossing.poll();
+			Triangle first = edges.get(key(edge[0], edge[1]));
+			Triangle second = edges.get(key(edge[1], edge[0]));
+			int w = first.next(edge[1]);
+			int z = second.next(edge[0]);
+			if(crosses(w, z, edge[0], edge[1])){
+				removeTriangle(first);
+				removeTriangle(second);
+				addTriangle(edge[0], z, w);
+				addTriangle(z, edge[1], w);
+				if(crosses(a, b, w, z)){
+					crossing.add(new int[]{w, z});
+				}
+			}else{
+				crossing.add(edge);
+			}
+		}
+		
+		if(!hasEdge(a, b)){
+			throw new IllegalStateException("Failed to recover object edge from " + vx[a] + "," + vy[a] + " to " + vx[b] + "," + vy[b]);
+		}
+	}
+	
+	/**
+	 * Checks if the edge between the two given vertices
+	 * is part of the current triangulation.
+	 * @param a The first vertex of the edge.
+	 * @param b The second vertex of the edge.
+	 * @return True if the edge is part of the triangulation.
+	 */
+	private boolean hasEdge(int a, int b){
+		return edges.containsKey(key(a, b)) || edges.containsKey(key(b, a));
+	}
+
+	/**
+	 * Checks if the two given segments properly intersect.
+	 * @param a The first vertex of the first segment.
+	 * @param b The second vertex of the first segment.
+	 * @param u The first vertex of the second segment.
+	 * @param v The second vertex of the second segment.
+	 * @return True if the segments cross in a single point
+	 *         interior to both segments.
+	 */
+	private boolean crosses(int a, int b, int u, int v){
+		double ou = orient(a, b, vx[u], vy[u]);
+		double ov = orient(a, b, vx[v], vy[v]);
+		double oa = orient(u, v, vx[a], vy[a]);
+		double ob = orient(u, v, vx[b], vy[b]);
+		return ((ou > 0.0D && ov < 0.0D) || (ou < 0.0D && ov > 0.0D)) && ((oa > 0.0D && ob < 0.0D) || (oa < 0.0D && ob > 0.0D));
+	}
+
+	/**
+	 * Computes the orientation of the given point relative to the
+	 * directed line through the two given vertices.
+	 * @param u The first vertex of the line.
+	 * @param v The second vertex of the line.
+	 * @param x The x-coordinate of the point.
+	 * @param y The y-coordinate of the point.
+	 * @return A positive value if the point is to the left of the line,
+	 *         a negative value if it is to the right and zero if it is on the line.
+	 */
+	private double orient(int u, int v, double x, double y){
+		return (vx[v] - vx[u]) * (y - vy[u]) - (vy[v] - vy[u]) * (x - vx[u]);
+	}
+
+	/**
+	 * Adds a new vertex to the triangulation.
+	 * @param x The x-coordinate of the vertex.
+	 * @param y The y-coordinate of the vertex.
+	 * @return The index of the new vertex.
+	 */
+	private int addVertex(double x, double y){
+		if(vertices == vx.length){
+			vx = Arrays.copyOf(vx, vertices * 2);
+			vy = Arrays.copyOf(vy, vertices * 2);
+		}
+		vx[vertices] = x;
+		vy[vertices] = y;
+		return vertices++;
+	}
+
+	/**
+	 * Adds a new triangle to the current level of the hierarchy.
+	 * @param a The first corner of the triangle.
+	 * @param b The second corner of the triangle.
+	 * @param c The third corner of the triangle.
+	 * @return The newly added triangle.
+	 */
+	private Triangle addTriangle(int a, int b, int c){
+		Triangle t = new Triangle(a, b, c);
+		edges.put(key(a, b), t);
+		edges.put(key(b, c), t);
+		edges.put(key(c, a), t);
+		alive.add(t);
+		return t;
+	}
+
+	/**
+	 * Removes a triangle from the current level of the hierarchy.
+	 * @param t The triangle to remove.
+	 */
+	private void removeTriangle(Triangle t){
+		edges.remove(key(t.a, t.b), t);
+		edges.remove(key(t.b, t.c), t);
+		edges.remove(key(t.c, t.a), t);
+		alive.remove(t);
+	}
+
+	/**
+	 * Computes the key of a directed triangulation edge.
+	 * @param u The start vertex of the edge.
+	 * @param v The end vertex of the edge.
+	 * @return The key of the edge.
+	 */
+	private static long key(int u, int v){
+		return (((long)u) << 32) | v;
+	}
+
+	/**
+	 * A single triangle in the hierarchy.
+	 * @author Roan
+	 */
+	private static final class Triangle{
+		/**
+		 * The first corner of the triangle.
+		 */
+		private final int a;
+		/**
+		 * The second corner of the triangle.
+		 */
+		private final int b;
+		/**
+		 * The third corner of the triangle.
+		 */
+		private final int c;
+		/**
+		 * The object this triangle is inside of or <code>null</code>
+		 * if this is not a triangle of the original triangulation
+		 * or if it is not inside any object.
+		 */
+		private ConvexObject object = null;
+		/**
+		 * The triangles of the next finer level this triangle overlaps
+		 * or <code>null</code> if this triangle is part of the original
+		 * triangulation.
+		 */
+		private Triangle[] children = null;
+
+		/**
+		 * Constructs a new triangle with the given corners
+		 * in counter clockwise order.
+		 * @param a The first corner of the triangle.
+		 * @param b The second corner of the triangle.
+		 * @param c The third corner of the triangle.
+		 */
+		private Triangle(int a, int b, int c){
+			this.a = a;
+			this.b = b;
+			this.c = c;
+		}
+
+		/**
+		 * Gets the corner following the given corner in counter clockwise order.
+		 * @param v The corner to get the next corner for.
+		 * @return The next corner.
+		 */
+		private int next(int v){
+			return v == a ? b : (v == b ? c : a);
+		}
+
+		/**
+		 * Gets the corner preceding the given corner in counter clockwise order.
+		 * @param v The corner to get the previous corner for.
+		 * @return The previous corner.
+		 */
+		private int prev(int v){
+			return v == a ? c : (v == b ? a : b);
+		}
+	}
+}
@@ -0,0 +1,311 @@
+/*
+ * ConvexMerger:  An area maximisation game based on the idea of merging convex shapes.
+ * Copyright (C) 2021  Roan Hofland (roan@roanh.dev), Emiliyan Greshkov and contributors.
+ * GitHub Repository: https://github.com/RoanH/ConvexMerger
+ *
+ * ConvexMerger is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ConvexMerger is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package dev.roanh.convexmerger.util;
+
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import dev.roanh.convexmerger.Constants;
+import dev.roanh.convexmerger.game.ConvexObject;
+import dev.roanh.convexmerger.game.GameStateListener;
+import dev.roanh.convexmerger.player.Player;
+import dev.roanh.convexmerger.util.DecompositionSnapshot.Hint;
+
+/**
+ * Uniform grid over the playfield that accelerates point location
+ * queries for convex objects. Each grid cell is either fully inside
+ * a single object, fully empty or lists the objects overlapping it.
+ * Queries in cells overlapped by only a few objects are answered with
+ * direct containment tests, queries in all other cells are answered by
+ * the latest snapshot of the vertical decomposition the grid was constructed
+ * with, starting from the trapezoid found by the previous query of the same
+ * thread. Since both the grid cells and the decomposition snapshot are immutable
+ * once published, queries can be made from any thread without locking.
+ * @author Roan
+ * @see VerticalDecomposition
+ * @see PointLocator
+ */
+public class ObjectGrid implements GameStateListener, PointLocator{
+	/**
+	 * The width and height of a single grid cell.
+	 */
+	private static final double CELL_SIZE = 50.0D;
+	/**
+	 * The number of grid columns.
+	 */
+	private static final int COLUMNS = (int)Math.ceil(Constants.PLAYFIELD_WIDTH / CELL_SIZE);
+	/**
+	 * The number of grid rows.
+	 */
+	private static final int ROWS = (int)Math.ceil(Constants.PLAYFIELD_HEIGHT / CELL_SIZE);
+	/**
+	 * The maximum number of objects overlapping a cell for which
+	 * queries are still answered with direct containment tests.
+	 */
+	private static final int MAX_CANDIDATES = 3;
+	/**
+	 * Shared cell instance for cells that do not overlap any object.
+	 */
+	private static final Cell EMPTY = new Cell(null, new ConvexObject[0]);
+	/**
+	 * The vertical decomposition used to answer queries in ambiguous cells.
+	 */
+	private final VerticalDecomposition decomp;
+	/**
+	 * The hint of every querying thread for queries answered by the decomposition.
+	 * Queries from the same thread, such as those following the mouse cursor,
+	 * tend to hit the same trapezoid as the previous query.
+	 */
+	private final ThreadLocal<Hint> hints = ThreadLocal.withInitial(Hint::new);
+	/**
+	 * The grid cells in row major order. The array is replaced
+	 * as a whole on every update so queries always see a consistent grid.
+	 */
+	private volatile Cell[] cells;
+
+	/**
+	 * Constructs a new object grid for the given objects.
+	 * @param objects The objects to add to the grid.
+	 * @param decomp The vertical decomposition to use for ambiguous queries.
+	 */
+	public ObjectGrid(List<ConvexObject> objects, VerticalDecomposition decomp){
+		this.decomp = decomp;
+		Cell[] data = new Cell[COLUMNS * ROWS];
+		Arrays.fill(data, EMPTY);
+		for(ConvexObject obj : objects){
+			addObject(data, obj);
+		}
+		cells = data;
+	}
+
+	@Override
+	public ConvexObject queryObject(double x, double y){
+		if(!(x >= 0.0D && x < Constants.PLAYFIELD_WIDTH && y >= 0.0D && y < Constants.PLAYFIELD_HEIGHT)){
+			return decomp.getSnapshot().queryObject(x, y, hints.get());
+		}
+
+		Cell cell = cells[(int)(y / CELL_SIZE) * COLUMNS + (int)(x / CELL_SIZE)];
+		if(cell.full != null){
+			return cell.full;
+		}else if(cell.objects.length > MAX_CANDIDATES){
+			return decomp.getSnapshot().queryObject(x, y, hints.get());
+		}
+
+		for(ConvexObject obj : cell.objects){
+			if(containsStrict(obj, x, y)){
+				return obj;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Gets all the objects in the grid whose bounding box is inside the given
+	 * bounds. Only the objects in the grid cells overlapping the given bounds are
+	 * considered, so the cost of this query depends on the size of the bounds and
+	 * not on the total number of objects. This makes it suitable for finding all
+	 * candidate objects that could be contained in a given convex object.
+	 * @param bounds The bounds to find the objects inside of.
+	 * @return The objects inside the given bounds in ascending ID order,
+	 *         which is also the order in which they appear in the game.
+	 */
+	public List<ConvexObject> getObjectsInside(Rectangle2D bounds){
+		Cell[] data = cells;
+		Set<ConvexObject> found = new TreeSet<ConvexObject>(Comparator.comparingInt(ConvexObject::getID));
+		for(int row = getRow(bounds.getMinY()); row <= getRow(bounds.getMaxY()); row++){
+			for(int col = getColumn(bounds.getMinX()); col <= getColumn(bounds.getMaxX()); col++){
+				for(ConvexObject obj : data[row * COLUMNS + col].objects){
+					if(!found.contains(obj) && bounds.contains(obj.getShape().getBounds2D())){
+						found.add(obj);
+					}
+				}
+			}
+		}
+		return new ArrayList<ConvexObject>(found);
+	}
+	
+	/**
+	 * Counts the number of cells that are fully inside an
+	 * object, empty or overlapped by multiple objects.
+	 * @return An array with the number of full cells, empty cells,
+	 *         cells answered with containment tests and cells
+	 *         answered by the vertical decomposition.
+	 */
+	public int[] getCellCounts(){
+		int[] counts = new int[4];
+		for(Cell cell : cells){
+			if(cell.full != null){
+				counts[0]++;
+			}else if(cell.objects.length == 0){
+				counts[1]++;
+			}else if(cell.objects.length <= MAX_CANDIDATES){
+				counts[2]++;
+			}else{
+				counts[3]++;
+			}
+		}
+		return counts;
+	}
+
+	/**
+	 * Adds the given object to all the cells it overlaps.
+	 * @param data The cells to update.
+	 * @param obj The object to add.
+	 */
+	private static void addObject(Cell[] data, ConvexObject obj){
+		Rectangle2D bounds = obj.getShape().getBounds2D();
+		for(int row = getRow(bounds.getMinY()); row <= getRow(bounds.getMaxY()); row++){
+			for(int col = getColumn(bounds.getMinX()); col <= getColumn(bounds.getMaxX()); col++){
+				double x = col * CELL_SIZE;
+				double y = row * CELL_SIZE;
+				int idx = row * COLUMNS + col;
+				if(containsStrict(obj, x, y) && containsStrict(obj, x + CELL_SIZE, y) && containsStrict(obj, x, y + CELL_SIZE) && containsStrict(obj, x + CELL_SIZE, y + CELL_SIZE)){
+					data[idx] = new Cell(obj, new ConvexObject[]{obj});
+				}else if(obj.getShape().intersects(x, y, CELL_SIZE, CELL_SIZE)){
+					ConvexObject[] objects = Arrays.copyOf(data[idx].objects, data[idx].objects.length + 1);
+					objects[objects.length - 1] = obj;
+					data[idx] = new Cell(null, objects);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Removes the given object from all the cells it overlaps.
+	 * @param data The cells to update.
+	 * @param obj The object to remove.
+	 */
+	private static void removeObject(Cell[] data, ConvexObject obj){
+		Rectangle2D bounds = obj.getShape().getBounds2D();
+		for(int row = getRow(bounds.getMinY()); row <= getRow(bounds.getMaxY()); row++){
+			for(int col = getColumn(bounds.getMinX()); col <= getColumn(bounds.getMaxX()); col++){
+				int idx = row * COLUMNS + col;
+				List<ConvexObject> objects = new ArrayList<ConvexObject>();
+				for(ConvexObject other : data[idx].objects){
+					if(other != obj){
+						objects.add(other);
+					}
+				}
+
+				if(objects.size() != data[idx].objects.length){
+					data[idx] = objects.isEmpty() ? EMPTY : new Cell(null, objects.toArray(new ConvexObject[0]));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the grid row for the given y coordinate, clamped to the grid.
+	 * @param y The y coordinate.
+	 * @return The grid row.
+	 */
+	private static int getRow(double y){
+		return (int)ConvexUtil.clamp(0, ROWS - 1, Math.floor(y / CELL_SIZE));
+	}
+
+	/**
+	 * Gets the grid column for the given x coordinate, clamped to the grid.
+	 * @param x The x coordinate.
+	 * @return The grid column.
+	 */
+	private static int getColumn(double x){
+		return (int)ConvexUtil.clamp(0, COLUMNS - 1, Math.floor(x / CELL_SIZE));
+	}
+
+	/**
+	 * Checks if the given point is strictly inside the given
+	 * convex object, points on the boundary are not contained.
+	 * @param obj The object to check.
+	 * @param x The x coordinate of the point.
+	 * @param y The y coordinate of the point.
+	 * @return True if the point is strictly inside the object.
+	 */
+	private static boolean containsStrict(ConvexObject obj, double x, double y){
+		List<Point2D> points = obj.getPoints();
+		int sign = 0;
+		for(int i = 0; i < points.size(); i++){
+			Point2D a = points.get(i);
+			Point2D b = points.get((i + 1) % points.size());
+			double cross = (b.getX() - a.getX()) * (y - a.getY()) - (b.getY() - a.getY()) * (x - a.getX());
+			int side = cross > 0.0D ? 1 : (cross < 0.0D ? -1 : 0);
+			if(side == 0 || (sign != 0 && side != sign)){
+				return false;
+			}
+			sign = side;
+		}
+		return true;
+	}
+
+	@Override
+	public void claim(Player player, ConvexObject obj){
+		//claims do not change the geometry of the playfield
+	}
+
+	@Override
+	public void merge(Player player, ConvexObject source, ConvexObject target, ConvexObject result, List<ConvexObject> absorbed){
+		Cell[] data = Arrays.copyOf(cells, cells.length);
+		removeObject(data, source);
+		removeObject(data, target);
+		for(ConvexObject obj : absorbed){
+			removeObject(data, obj);
+		}
+
+		addObject(data, result);
+		cells = data;
+	}
+
+	@Override
+	public void end(){
+	}
+
+	@Override
+	public void abort(){
+	}
+
+	/**
+	 * A single cell of the object grid.
+	 * @author Roan
+	 */
+	private static final class Cell{
+		/**
+		 * The object this cell is fully inside of or <code>null</code>.
+		 */
+		private final ConvexObject full;
+		/**
+		 * The objects overlapping this cell.
+		 */
+		private final ConvexObject[] objects;
+
+		/**
+		 * Constructs a new grid cell.
+		 * @param full The object this cell is fully inside of or <code>null</code>.
+		 * @param objects The objects overlapping this cell.
+		 */
+		private Cell(ConvexObject full, ConvexObject[] objects){
+			this.full = full;
+			this.objects = objects;
+		}
+	}
+}
@@ -21,6 +21,8 @@ package dev.roanh.convexmerger.util;
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.Shape;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Stream;
@@ -150,6 +152,14 @@ public abstract class PartitionTree<T, S extends PartitionTree<T, S>> extends Re
 	 */
 	public abstract S getSelf();
 	
+	/**
+	 * Writes the structure of this partition tree to the given output
+	 * in pre-order. The data stored in the tree cells is not written.
+	 * @param out The output to write to.
+	 * @throws IOException When an IOException occurs.
+	 */
+	public abstract void write(DataOutput out) throws IOException;
+	
 	@Override
 	public void render(Graphics2D g){
 		if(marked){
@@ -0,0 +1,222 @@
+/*
+ * ConvexMerger:  An area maximisation game based on the idea of merging convex shapes.
+ * Copyright (C) 2021  Roan Hofland (roan@roanh.dev), Emiliyan Greshkov and contributors.
+ * GitHub Repository: https://github.com/RoanH/ConvexMerger
+ *
+ * ConvexMerger is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ConvexMerger is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package dev.roanh.convexmerger.util;
+
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import dev.roanh.convexmerger.game.ConvexObject;
+import dev.roanh.convexmerger.game.GameStateListener;
+import dev.roanh.convexmerger.player.Player;
+
+/**
+ * Point locator that splits the playfield into vertical slabs
+ * and builds the vertical decomposition of every slab in parallel.
+ * Each slab decomposition contains all the objects that overlap the
+ * slab in full, objects are not clipped to the slab so no artificial
+ * boundaries are introduced. The slab decompositions are joined under
+ * a single root that selects the slab of a query point by its x-coordinate.
+ * <p>
+ * When registered as a game state listener merges are forwarded to the
+ * decomposition of every slab the merged object overlaps, so the locator
+ * keeps giving the same answers as the vertical decomposition of the game.
+ * @author Roan
+ * @see VerticalDecomposition
+ * @see PointLocator
+ * @see dev.roanh.convexmerger.game.GameState#setPartitionedLocator(int)
+ */
+public class PartitionedDecomposition implements PointLocator, GameStateListener{
+	/**
+	 * The x-coordinates of the boundaries between the slabs, slab
+	 * <code>i</code> covers the range <code>[bounds[i - 1], bounds[i])</code>
+	 * where the first and last slab are unbounded on the left and right side.
+	 */
+	private final double[] bounds;
+	/**
+	 * The vertical decomposition of every slab.
+	 */
+	private final VerticalDecomposition[] slabs;
+	/**
+	 * The unmerged objects in the decomposition of every slab.
+	 */
+	private final List<Set<ConvexObject>> known;
+
+	/**
+	 * Constructs a new partitioned decomposition for the given objects
+	 * using a slab for every available processor.
+	 * @param objects The objects to locate, these should not overlap.
+	 * @throws InterruptedException When the build is interrupted.
+	 */
+	public PartitionedDecomposition(List<ConvexObject> objects) throws InterruptedException{
+		this(objects, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Constructs a new partitioned decomposition for the given objects
+	 * using the given number of slabs. The slab boundaries are chosen
+	 * such that every slab contains roughly the same number of objects.
+	 * @param objects The objects to locate, these should not overlap.
+	 * @param k The number of slabs to use, each slab is built on its own thread.
+	 * @throws InterruptedException When the build is interrupted.
+	 * @throws IllegalArgumentException When the number of slabs is not positive.
+	 */
+	public PartitionedDecomposition(List<ConvexObject> objects, int k) throws InterruptedException, IllegalArgumentException{
+		if(k <= 0){
+			throw new IllegalArgumentException("The number of slabs has to be positive.");
+		}
+
+		double[] centers = objects.stream().mapToDouble(obj->obj.getShape().getBounds2D().getCenterX()).sorted().toArray();
+		k = Math.max(1, Math.min(k, centers.length));
+		bounds = new double[k - 1];
+		for(int i = 1; i < k; i++){
+			bounds[i - 1] = centers[(i * centers.length) / k];
+		}
+
+		List<List<ConvexObject>> parts = new ArrayList<List<ConvexObject>>(k);
+		known = new ArrayList<Set<ConvexObject>>(k);
+		for(int i = 0; i < k; i++){
+			parts.add(new ArrayList<ConvexObject>());
+			known.add(Collections.newSetFromMap(new IdentityHashMap<ConvexObject, Boolean>()));
+		}
+
+		for(ConvexObject obj : objects){
+			Rectangle2D box = obj.getShape().getBounds2D();
+			int first = getSlab(box.getMinX());
+			int last = getSlab(box.getMaxX());
+			for(int i = first; i <= last; i++){
+				parts.get(i).add(obj);
+				known.get(i).add(obj);
+			}
+		}
+
+		slabs = new VerticalDecomposition[k];
+		ExecutorService executor = Executors.newFixedThreadPool(k);
+		try{
+			List<Callable<VerticalDecomposition>> tasks = new ArrayList<Callable<VerticalDecomposition>>(k);
+			for(List<ConvexObject> part : parts){
+				tasks.add(()->new VerticalDecomposition(part));
+			}
+
+			List<Future<VerticalDecomposition>> results = executor.invokeAll(tasks);
+			for(int i = 0; i < k; i++){
+				slabs[i] = results.get(i).get();
+			}
+		}catch(ExecutionException e){
+			throw new IllegalStateException("Failed to build a slab decomposition.", e.getCause());
+		}finally{
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Gets the number of slabs the playfield was split into.
+	 * @return The number of slabs.
+	 */
+	public int getSlabCount(){
+		return slabs.length;
+	}
+
+	/**
+	 * Gets the vertical decomposition of the given slab.
+	 * @param slab The index of the slab.
+	 * @return The vertical decomposition of the slab.
+	 */
+	public VerticalDecomposition getSlab(int slab){
+		return slabs[slab];
+	}
+
+	/**
+	 * Gets the index of the slab containing the given x-coordinate.
+	 * @param x The x-coordinate.
+	 * @return The index of the slab containing the x-coordinate.
+	 */
+	private int getSlab(double x){
+		int idx = Arrays.binarySearch(bounds, x);
+		return idx >= 0 ? (idx + 1) : (-idx - 1);
+	}
+
+	@Override
+	public ConvexObject queryObject(double x, double y){
+		return slabs[getSlab(x)].queryObject(x, y);
+	}
+
+	@Override
+	public void claim(Player player, ConvexObject obj){
+		for(VerticalDecomposition slab : slabs){
+			slab.claim(player, obj);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The merge is forwarded to the decomposition of every slab the
+	 * merged object overlaps. If the source or target object of the
+	 * merge lies outside such a slab it is first added to the slab
+	 * decomposition. This is always possible since unmerged objects
+	 * never overlap and any absorbed objects in the slab lie within
+	 * an object the slab already knows about.
+	 */
+	@Override
+	public void merge(Player player, ConvexObject source, ConvexObject target, ConvexObject result, List<ConvexObject> absorbed) throws InterruptedException{
+		Rectangle2D box = result.getShape().getBounds2D();
+		int first = getSlab(box.getMinX());
+		int last = getSlab(box.getMaxX());
+		for(int i = first; i <= last; i++){
+			Set<ConvexObject> objects = known.get(i);
+			if(objects.add(source)){
+				slabs[i].addObject(source);
+			}
+			
+			if(objects.add(target)){
+				slabs[i].addObject(target);
+			}
+			
+			slabs[i].merge(player, source, target, result, absorbed);
+			objects.remove(source);
+			objects.remove(target);
+			objects.removeAll(absorbed);
+			objects.add(result);
+		}
+	}
+
+	@Override
+	public void end(){
+		for(VerticalDecomposition slab : slabs){
+			slab.end();
+		}
+	}
+
+	@Override
+	public void abort(){
+		for(VerticalDecomposition slab : slabs){
+			slab.abort();
+		}
+	}
+}
@@ -0,0 +1,68 @@
+/*
+ * ConvexMerger:  An area maximisation game based on the idea of merging convex shapes.
+ * Copyright (C) 2021  Roan Hofland (roan@roanh.dev), Emiliyan Greshkov and contributors.
+ * GitHub Repository: https://github.com/RoanH/ConvexMerger
+ *
+ * ConvexMerger is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ConvexMerger is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package dev.roanh.convexmerger.util;
+
+import dev.roanh.convexmerger.game.ConvexObject;
+
+/**
+ * Interface for data structures that can locate the
+ * convex object containing a given point on the playfield.
+ * The result for points exactly on the boundary of an object
+ * is implementation specific.
+ * @author Roan
+ * @see VerticalDecomposition
+ * @see ObjectGrid
+ * @see SlabLocator
+ * @see KirkpatrickLocator
+ */
+public abstract interface PointLocator{
+
+	/**
+	 * Queries the convex object that is at the given position.
+	 * If no such object exists <code>null</code> is returned.
+	 * @param x The x-coordinate of the query point.
+	 * @param y The y-coordinate of the query point.
+	 * @return The convex object at the given position or
+	 *         <code>null</code> if there is no convex object at
+	 *         the given position.
+	 */
+	public abstract ConvexObject queryObject(double x, double y);
+	
+	/**
+	 * Queries the convex objects that are at each of the given positions.
+	 * The object at position <code>(xs[i], ys[i])</code> is stored at
+	 * <code>out[i]</code>, or <code>null</code> if there is no object
+	 * at that position. Implementations may answer batches of queries
+	 * more efficiently than answering every query individually.
+	 * @param xs The x-coordinates of the query points.
+	 * @param ys The y-coordinates of the query points.
+	 * @param out The array to store the convex object at each position in.
+	 * @throws IllegalArgumentException When the given arrays are not all of the same length.
+	 * @see #queryObject(double, double)
+	 */
+	public default void queryObjects(double[] xs, double[] ys, ConvexObject[] out) throws IllegalArgumentException{
+		if(xs.length != ys.length || xs.length != out.length){
+			throw new IllegalArgumentException("The query and output arrays must have the same length.");
+		}
+		
+		for(int i = 0; i < xs.length; i++){
+			out[i] = queryObject(xs[i], ys[i]);
+		}
+	}
+}
@@ -95,7 +95,8 @@ public class Segment extends Line2D{
 
 	@Override
 	public int hashCode(){
-		return Objects.hash(p1, p2);
+		//symmetric in the end points, segments are equal regardless of orientation
+		return Objects.hashCode(p1) + Objects.hashCode(p2);
 	}
 
 	@Override
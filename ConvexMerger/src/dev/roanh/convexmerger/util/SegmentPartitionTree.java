@@ -23,10 +23,16 @@ import java.awt.Graphics2D;
 import java.awt.geom.Line2D;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.Function;
@@ -53,16 +59,32 @@ public class SegmentPartitionTree<T extends PartitionTree<SegmentPartitionTree.L
 	 * Constructor for kd-tree based segment partition trees.
 	 * @see KDTree
 	 */
-	public static final SegmentPartitionTreeConstructor<KDTree<LineSegment>> TYPE_KD_TREE = new SegmentPartitionTreeConstructor<KDTree<LineSegment>>(KDTree::new, SegmentPartitionTree::visitKDTree);
+	public static final SegmentPartitionTreeConstructor<KDTree<LineSegment>> TYPE_KD_TREE = new SegmentPartitionTreeConstructor<KDTree<LineSegment>>(KDTree::new, KDTree::read, SegmentPartitionTree::visitKDTree);
 	/**
 	 * Constructor for conjugation tree based segment partition trees.
 	 * @see ConjugationTree
 	 */
-	public static final SegmentPartitionTreeConstructor<ConjugationTree<LineSegment>> TYPE_CONJUGATION_TREE = new SegmentPartitionTreeConstructor<ConjugationTree<LineSegment>>(ConjugationTree::new, SegmentPartitionTree::visitConjugationTree);
+	public static final SegmentPartitionTreeConstructor<ConjugationTree<LineSegment>> TYPE_CONJUGATION_TREE = new SegmentPartitionTreeConstructor<ConjugationTree<LineSegment>>(ConjugationTree::new, ConjugationTree::read, SegmentPartitionTree::visitConjugationTree);
+	/**
+	 * Flag set for stored segments that were derived from another segment.
+	 */
+	private static final byte FLAG_DERIVED = 1;
+	/**
+	 * Flag set for stored segments with a clipped first end point.
+	 */
+	private static final byte FLAG_P1_CLIPPED = 2;
+	/**
+	 * Flag set for stored segments with a clipped second end point.
+	 */
+	private static final byte FLAG_P2_CLIPPED = 4;
 	/**
 	 * The partition tree used for store points for this segment partition tree.
 	 */
-	private final T partitions;
+	private T partitions;
+	/**
+	 * The constructor for the type of partition tree used by this tree.
+	 */
+	private final SegmentPartitionTreeConstructor<T> type;
 	/**
 	 * A search function that can be used to traverse the used partition tree.
 	 */
@@ -75,20 +97,33 @@ public class SegmentPartitionTree<T extends PartitionTree<SegmentPartitionTree.L
 	 * Whether this segment partition tree is animated.
 	 */
 	private boolean animated = false;
+	/**
+	 * Query cost metrics for this segment partition tree.
+	 */
+	private final SegmentTreeMetrics metrics = new SegmentTreeMetrics();
+	/**
+	 * The current index epoch, incremented each time a segment is added.
+	 */
+	private volatile int epoch = 0;
+	/**
+	 * Cache of intersection query results, only valid for the epoch it was created for.
+	 */
+	private volatile QueryCache cache = new QueryCache(0);
 	
 	/**
 	 * Constructs a new segment partition tree with the given
 	 * partitioning tree data structure.
 	 * @param partitions The partitioning data structure.
-	 * @param partitionVisitor Function that can be used to visit
-	 *        cells in the partition tree that either store or are
-	 *        along the search path for a certain query line.
+	 * @param type The constructor for the type of the partitioning data structure,
+	 *        its visiting function is used to visit cells in the partition tree that
+	 *        either store or are along the search path for a certain query line.
 	 * @see SegmentPartitionTree#TYPE_CONJUGATION_TREE
 	 * @see SegmentPartitionTree#TYPE_KD_TREE
 	 */
-	private SegmentPartitionTree(T partitions, VisitingFunction<T> partitionVisitor){
+	private SegmentPartitionTree(T partitions, SegmentPartitionTreeConstructor<T> type){
 		this.partitions = partitions;
-		this.partitionVisitor = partitionVisitor;
+		this.type = type;
+		partitionVisitor = type.visitFun;
 	}
 	
 	/**
@@ -110,6 +145,16 @@ public class SegmentPartitionTree<T extends PartitionTree<SegmentPartitionTree.L
 		}
 	}
 	
+	/**
+	 * Gets the query cost metrics for this segment partition tree.
+	 * Note that metrics are disabled by default.
+	 * @return The query metrics for this tree.
+	 * @see SegmentTreeMetrics#setEnabled(boolean)
+	 */
+	public SegmentTreeMetrics getMetrics(){
+		return metrics;
+	}
+	
 	/**
 	 * Adds a new line segment to this segment partition tree.
 	 * @param p1 The first point of the line segment to add.
@@ -127,6 +172,138 @@ public class SegmentPartitionTree<T extends PartitionTree<SegmentPartitionTree.L
 		addSegmentInternal(new LineSegment(line));
 	}
 	
+	/**
+	 * Replaces the contents of this segment partition tree with the line segments
+	 * making up the given set of convex objects. The underlying partition tree is
+	 * rebuilt for the points of the given objects. The objects are assumed to not
+	 * have any overlap. This cannot be called while queries are running.
+	 * @param objects The convex objects to initialise the segment tree with.
+	 * @see SegmentPartitionTreeConstructor#fromObjects(List)
+	 */
+	public void setObjects(List<ConvexObject> objects){
+		partitions = type.ctor.apply(objects.stream().flatMap(obj->obj.getPoints().stream()).collect(Collectors.toList()));
+		segments.clear();
+		
+		for(ConvexObject obj : objects){
+			List<Point2D> points = obj.getPoints();
+			for(int i = 0; i < points.size(); i++){
+				addSegment(points.get(i), points.get((i + 1) % points.size()));
+			}
+		}
+	}
+	
+	/**
+	 * Writes this segment partition tree to the given output. This writes
+	 * the structure of the underlying partition tree, all stored segments
+	 * and the cells every segment is stored in. This cannot be called
+	 * while segments are being added.
+	 * @param out The output to write to.
+	 * @throws IOException When an IOException occurs.
+	 * @see #read(ByteBuffer)
+	 */
+	public void write(DataOutput out) throws IOException{
+		partitions.write(out);
+		
+		Map<LineSegment, Integer> originalIds = new IdentityHashMap<LineSegment, Integer>();
+		List<LineSegment> originals = new ArrayList<LineSegment>();
+		Map<LineSegment, Integer> segmentIds = new IdentityHashMap<LineSegment, Integer>();
+		List<LineSegment> stored = new ArrayList<LineSegment>();
+		for(LineSegment seg : segments){
+			if(!segmentIds.containsKey(seg)){
+				segmentIds.put(seg, stored.size());
+				stored.add(seg);
+			}
+			
+			LineSegment original = seg.getOriginalSegment();
+			if(!originalIds.containsKey(original)){
+				originalIds.put(original, originals.size());
+				originals.add(original);
+			}
+		}
+		
+		out.writeInt(originals.size());
+		for(LineSegment seg : originals){
+			writeSegment(out, seg);
+			out.writeInt(seg.derivations);
+		}
+		
+		out.writeInt(stored.size());
+		for(LineSegment seg : stored){
+			out.writeInt(originalIds.get(seg.getOriginalSegment()));
+			out.writeByte((seg.original == null ? 0 : FLAG_DERIVED) | (seg.p1Clipped ? FLAG_P1_CLIPPED : 0) | (seg.p2Clipped ? FLAG_P2_CLIPPED : 0));
+			if(seg.original != null){
+				writeSegment(out, seg);
+			}
+		}
+		
+		writeIds(out, segments, segmentIds);
+		for(T node : (Iterable<T>)partitions.streamCells()::iterator){
+			writeIds(out, node.getData(), segmentIds);
+		}
+	}
+	
+	/**
+	 * Replaces the contents of this segment partition tree with the
+	 * contents read from the given buffer as written by {@link #write(DataOutput)}.
+	 * Reading a tree is much faster than adding all segments again as no
+	 * segments have to be clipped to the cells of the partition tree. The
+	 * contents of this tree are only replaced if the complete tree was read
+	 * successfully. This cannot be called while queries are running.
+	 * @param in The buffer to read from.
+	 * @throws BufferUnderflowException When the buffer does not contain a complete tree.
+	 * @throws IndexOutOfBoundsException When the buffer references segments that do not exist.
+	 * @see #write(DataOutput)
+	 */
+	public void read(ByteBuffer in) throws BufferUnderflowException, IndexOutOfBoundsException{
+		T tree = type.reader.apply(in);
+		
+		LineSegment[] originals = new LineSegment[DecompositionCache.readCount(in, 36)];
+		for(int i = 0; i < originals.length; i++){
+			originals[i] = readSegment(in);
+			originals[i].derivations = in.getInt();
+		}
+		
+		LineSegment[] stored = new LineSegment[DecompositionCache.readCount(in, 5)];
+		for(int i = 0; i < stored.length; i++){
+			LineSegment original = originals[in.getInt()];
+			byte flags = in.get();
+			if((flags & FLAG_DERIVED) == 0){
+				stored[i] = original;
+			}else{
+				LineSegment seg = readSegment(in);
+				seg.original = original;
+				seg.p1Clipped = (flags & FLAG_P1_CLIPPED) != 0;
+				seg.p2Clipped = (flags & FLAG_P2_CLIPPED) != 0;
+				stored[i] = seg;
+			}
+		}
+		
+		List<LineSegment> all = readList(in, stored);
+		for(T node : (Iterable<T>)tree.streamCells()::iterator){
+			readList(in, stored).forEach(node::addData);
+		}
+		
+		partitions = tree;
+		segments.clear();
+		segments.addAll(all);
+		
+		//only publish the new epoch once the tree is fully replaced
+		epoch++;
+	}
+	
+	/**
+	 * Gets the current index epoch of this tree. The epoch is
+	 * incremented each time a segment is added to the tree, query
+	 * results obtained in the same epoch are guaranteed to be the same.
+	 * Intersection queries can be answered concurrently from multiple
+	 * threads, for example by forks of a game state, but segments can
+	 * only be added while no queries are running.
+	 * @return The current index epoch.
+	 */
+	public int getEpoch(){
+		return epoch;
+	}
+	
 	/**
 	 * Adds a new line segment to this segment partition tree.
 	 * @param line The line segment to add.
@@ -136,6 +313,9 @@ public class SegmentPartitionTree<T extends PartitionTree<SegmentPartitionTree.L
 			node.addData(seg);
 			segments.add(seg);
 		}));
+		
+		//only publish the new epoch once the segment is fully stored
+		epoch++;
 	}
 	
 	/**
@@ -146,7 +326,7 @@ public class SegmentPartitionTree<T extends PartitionTree<SegmentPartitionTree.L
 	 * @return True if the given line segment intersects a stored segment.
 	 */
 	public boolean intersects(Point2D p1, Point2D p2){
-		return intersectsInternal(new LineSegment(p1, p2));
+		return intersectsCached(p1, p2);
 	}
 	
 	/**
@@ -156,7 +336,37 @@ public class SegmentPartitionTree<T extends PartitionTree<SegmentPartitionTree.L
 	 * @return True if the given line segment intersects a stored segment.
 	 */
 	public boolean intersects(Line2D line){
-		return intersectsInternal(new LineSegment(line));
+		return intersectsCached(line.getP1(), line.getP2());
+	}
+	
+	/**
+	 * Checks if the line segment defined by the given points
+	 * intersects any of the segments stored in this tree. Results
+	 * are cached until the next segment is added to the tree. This
+	 * method is safe to call concurrently from multiple threads.
+	 * @param p1 The first point of the line segment to check.
+	 * @param p2 The second point of the line segment to check.
+	 * @return True if the given line segment intersects a stored segment.
+	 * @see #getEpoch()
+	 */
+	private boolean intersectsCached(Point2D p1, Point2D p2){
+		int current = epoch;
+		QueryCache results = cache;
+		if(results.epoch != current){
+			//racing threads may each replace the cache, this only costs some recomputation
+			results = new QueryCache(current);
+			cache = results;
+		}
+		
+		SegmentKey key = new SegmentKey(p1, p2);
+		Boolean result = results.get(key);
+		if(result == null){
+			result = intersectsInternal(new LineSegment(p1, p2));
+			results.put(key, result);
+		}else if(metrics.isEnabled()){
+			metrics.recordCacheHit();
+		}
+		return result;
 	}
 	
 	/**
@@ -166,9 +376,20 @@ public class SegmentPartitionTree<T extends PartitionTree<SegmentPartitionTree.L
 	 * @return True if the given line segment intersects a stored segment.
 	 */
 	private boolean intersectsInternal(LineSegment line){
-		return !partitionVisitor.visitTree(partitions, line, true, PartitionTreeVisitor.all((node, seg)->{
-			return !intersectsAny(node.getData(), line);
+		if(!metrics.isEnabled()){
+			return !partitionVisitor.visitTree(partitions, line, true, PartitionTreeVisitor.all((node, seg)->{
+				return !intersectsAny(node.getData(), line, null);
+			}));
+		}
+		
+		long start = System.nanoTime();
+		QueryCounter counter = new QueryCounter();
+		boolean found = !partitionVisitor.visitTree(partitions, line, true, PartitionTreeVisitor.all((node, seg)->{
+			counter.visits++;
+			return !intersectsAny(node.getData(), line, counter);
 		}));
+		metrics.recordQuery(counter.visits, counter.scans, line.derivations, System.nanoTime() - start);
+		return found;
 	}
 	
 	/**
@@ -215,6 +436,21 @@ public class SegmentPartitionTree<T extends PartitionTree<SegmentPartitionTree.L
 		g.drawLine(Constants.PLAYFIELD_WIDTH, 0, Constants.PLAYFIELD_WIDTH, Constants.PLAYFIELD_HEIGHT);
 	}
 	
+	/**
+	 * Checks if the line segment defined by the given points intersects any
+	 * of the line segments in the given set of line segments using the same
+	 * rules as a segment partition tree. Overlapping end points are not
+	 * reported as intersections and degenerate segments never intersect.
+	 * @param lines The set of lines to check for intersection with.
+	 * @param p1 The first point of the line segment to check.
+	 * @param p2 The second point of the line segment to check.
+	 * @return True if an intersection was found with a line segment.
+	 * @see #intersects(Point2D, Point2D)
+	 */
+	public static final boolean intersectsAny(List<LineSegment> lines, Point2D p1, Point2D p2){
+		return !ConvexUtil.approxEqual(p1, p2) && intersectsAny(lines, new LineSegment(p1, p2), null);
+	}
+	
 	/**
 	 * Checks if the given line segment intersects any of the line segments
 	 * in the given set of line segments. Overlapping end points are not
@@ -222,10 +458,16 @@ public class SegmentPartitionTree<T extends PartitionTree<SegmentPartitionTree.L
 	 * @param lines The set of lines to check for intersection with.
 	 * @param line The line to check for whether it intersects any of
 	 *        the lines in the given set of lines.
+	 * @param counter The counter to record the number of tested segments
+	 *        in, can be <code>null</code> if metrics are disabled.
 	 * @return True if an intersection was found with a line segment.
 	 */
-	private static final boolean intersectsAny(List<LineSegment> lines, LineSegment line){
+	private static final boolean intersectsAny(List<LineSegment> lines, LineSegment line, QueryCounter counter){
 		for(LineSegment test : lines){
+			if(counter != null){
+				counter.scans++;
+			}
+			
 			test = test.getOriginalSegment();
 			//ensure exact endpoint matches are not intersections
 			boolean p1Either = ConvexUtil.approxEqual(test.getP1(), line.getP1()) || ConvexUtil.approxEqual(test.getP1(), line.getP2());
@@ -241,6 +483,60 @@ public class SegmentPartitionTree<T extends PartitionTree<SegmentPartitionTree.L
 		return false;
 	}
 	
+	/**
+	 * Writes the end points of the given line segment.
+	 * @param out The output to write to.
+	 * @param seg The line segment to write.
+	 * @throws IOException When an IOException occurs.
+	 */
+	private static final void writeSegment(DataOutput out, LineSegment seg) throws IOException{
+		out.writeDouble(seg.getX1());
+		out.writeDouble(seg.getY1());
+		out.writeDouble(seg.getX2());
+		out.writeDouble(seg.getY2());
+	}
+	
+	/**
+	 * Reads a line segment written as the coordinates of its end points.
+	 * @param in The buffer to read from.
+	 * @return The line segment that was read.
+	 * @throws BufferUnderflowException When the buffer does not contain a complete segment.
+	 */
+	private static final LineSegment readSegment(ByteBuffer in) throws BufferUnderflowException{
+		return new LineSegment(new Point2D.Double(in.getDouble(), in.getDouble()), new Point2D.Double(in.getDouble(), in.getDouble()));
+	}
+	
+	/**
+	 * Writes the ids of the given segments preceded by the number of segments.
+	 * @param out The output to write to.
+	 * @param segs The segments to write the ids of.
+	 * @param ids The ids of all segments.
+	 * @throws IOException When an IOException occurs.
+	 */
+	private static final void writeIds(DataOutput out, List<LineSegment> segs, Map<LineSegment, Integer> ids) throws IOException{
+		out.writeInt(segs.size());
+		for(LineSegment seg : segs){
+			out.writeInt(ids.get(seg));
+		}
+	}
+	
+	/**
+	 * Reads a list of segments written as ids preceded by the number of segments.
+	 * @param in The buffer to read from.
+	 * @param all All segments in id order.
+	 * @return The list of segments that was read.
+	 * @throws BufferUnderflowException When the buffer does not contain all ids.
+	 * @throws IndexOutOfBoundsException When an id does not exist.
+	 */
+	private static final List<LineSegment> readList(ByteBuffer in, LineSegment[] all) throws BufferUnderflowException, IndexOutOfBoundsException{
+		int size = DecompositionCache.readCount(in, 4);
+		List<LineSegment> list = new ArrayList<LineSegment>(size);
+		for(int i = 0; i < size; i++){
+			list.add(all[in.getInt()]);
+		}
+		return list;
+	}
+	
 	/**
 	 * Visitor function for kd-tree traversal.
 	 * @param tree The kd-tree to traverse.
@@ -429,6 +725,110 @@ public class SegmentPartitionTree<T extends PartitionTree<SegmentPartitionTree.L
 		}
 	}
 	
+	/**
+	 * Cache of intersection query results for a single index epoch
+	 * of the tree. Queries for the same epoch can safely share a cache.
+	 * @author Roan
+	 */
+	private static final class QueryCache extends ConcurrentHashMap<SegmentKey, Boolean>{
+		/**
+		 * Serial ID.
+		 */
+		private static final long serialVersionUID = 1L;
+		/**
+		 * The index epoch the results in this cache are valid for.
+		 */
+		private final int epoch;
+		
+		/**
+		 * Constructs a new empty query cache.
+		 * @param epoch The index epoch the cached results are valid for.
+		 */
+		private QueryCache(int epoch){
+			this.epoch = epoch;
+		}
+	}
+	
+	/**
+	 * Hash key for a line segment based on the coordinates
+	 * of its end points, independent of their order.
+	 * @author Roan
+	 */
+	private static final class SegmentKey{
+		/**
+		 * The x coordinate of the first end point in canonical order.
+		 */
+		private final double x1;
+		/**
+		 * The y coordinate of the first end point in canonical order.
+		 */
+		private final double y1;
+		/**
+		 * The x coordinate of the second end point in canonical order.
+		 */
+		private final double x2;
+		/**
+		 * The y coordinate of the second end point in canonical order.
+		 */
+		private final double y2;
+		
+		/**
+		 * Constructs a new segment key for the segment
+		 * between the given two end points.
+		 * @param p1 The first end point of the segment.
+		 * @param p2 The second end point of the segment.
+		 */
+		private SegmentKey(Point2D p1, Point2D p2){
+			if(p1.getX() < p2.getX() || (p1.getX() == p2.getX() && p1.getY() <= p2.getY())){
+				x1 = p1.getX();
+				y1 = p1.getY();
+				x2 = p2.getX();
+				y2 = p2.getY();
+			}else{
+				x1 = p2.getX();
+				y1 = p2.getY();
+				x2 = p1.getX();
+				y2 = p1.getY();
+			}
+		}
+		
+		@Override
+		public int hashCode(){
+			long hash = Double.doubleToLongBits(x1);
+			hash = hash * 31 + Double.doubleToLongBits(y1);
+			hash = hash * 31 + Double.doubleToLongBits(x2);
+			hash = hash * 31 + Double.doubleToLongBits(y2);
+			return (int)(hash ^ (hash >>> 32));
+		}
+		
+		@Override
+		public boolean equals(Object other){
+			if(other instanceof SegmentKey){
+				SegmentKey key = (SegmentKey)other;
+				return key.x1 == x1 && key.y1 == y1 && key.x2 == x2 && key.y2 == y2;
+			}else{
+				return false;
+			}
+		}
+	}
+	
+	/**
+	 * Simple counter used to collect the cost of a single query
+	 * when metrics are enabled.
+	 * @author Roan
+	 * @see SegmentTreeMetrics
+	 */
+	private static final class QueryCounter{
+		/**
+		 * The number of partition tree nodes visited.
+		 */
+		private int visits = 0;
+		/**
+		 * The number of stored segments tested for intersection.
+		 */
+		private int scans = 0;
+	}
+	
 	/**
 	 * Interface for a function that can be used to search a partition tree.
 	 * @author Roan
@@ -577,6 +977,10 @@ public class SegmentPartitionTree<T extends PartitionTree<SegmentPartitionTree.L
 		 * The partition tree constructor.
 		 */
 		private Function<List<Point2D>, T> ctor;
+		/**
+		 * Function that reads a partition tree previously written to a buffer.
+		 */
+		private Function<ByteBuffer, T> reader;
 		/**
 		 * A function that can traverse the partition tree type.
 		 */
@@ -585,12 +989,15 @@ public class SegmentPartitionTree<T extends PartitionTree<SegmentPartitionTree.L
 		/**
 		 * Constructs a new segment partition tree constructor.
 		 * @param ctor The partition tree constructor.
+		 * @param reader The partition tree reading function.
 		 * @param visitFun The partition tree visiting function.
 		 * @see VisitingFunction
 		 * @see PartitionTree
+		 * @see PartitionTree#write(DataOutput)
 		 */
-		private SegmentPartitionTreeConstructor(Function<List<Point2D>, T> ctor, VisitingFunction<T> visitFun){
+		private SegmentPartitionTreeConstructor(Function<List<Point2D>, T> ctor, Function<ByteBuffer, T> reader, VisitingFunction<T> visitFun){
 			this.ctor = ctor;
+			this.reader = reader;
 			this.visitFun = visitFun;
 		}
 		
@@ -601,15 +1008,8 @@ public class SegmentPartitionTree<T extends PartitionTree<SegmentPartitionTree.L
 		 * @return The newly created segment partition tree.
 		 */
 		public final SegmentPartitionTree<T> fromObjects(List<ConvexObject> objects){
-			SegmentPartitionTree<T> tree = fromPoints(objects.stream().flatMap(obj->obj.getPoints().stream()).collect(Collectors.toList()));
-			
-			for(ConvexObject obj : objects){
-				List<Point2D> points = obj.getPoints();
-				for(int i = 0; i < points.size(); i++){
-					tree.addSegment(points.get(i), points.get((i + 1) % points.size()));
-				}
-			}
-			
+			SegmentPartitionTree<T> tree = empty();
+			tree.setObjects(objects);
 			return tree;
 		}
 		
@@ -633,7 +1033,18 @@ public class SegmentPartitionTree<T extends PartitionTree<SegmentPartitionTree.L
 		 * @return The newly created segment partition tree.
 		 */
 		public final SegmentPartitionTree<T> fromPoints(List<Point2D> points){
-			return new SegmentPartitionTree<T>(ctor.apply(points), visitFun);
+			return new SegmentPartitionTree<T>(ctor.apply(points), this);
+		}
+		
+		/**
+		 * Constructs a new empty segment partition tree without any points
+		 * or line segments. The contents of the tree can be set later.
+		 * @return The newly created segment partition tree.
+		 * @see SegmentPartitionTree#setObjects(List)
+		 * @see SegmentPartitionTree#read(ByteBuffer)
+		 */
+		public final SegmentPartitionTree<T> empty(){
+			return fromPoints(new ArrayList<Point2D>());
 		}
 	}
 	
@@ -663,6 +1074,11 @@ public class SegmentPartitionTree<T extends PartitionTree<SegmentPartitionTree.L
 		 * Whether this segment is marked, used for animation.
 		 */
 		private boolean marked = false;
+		/**
+		 * The number of segments derived from this segment, only
+		 * tracked for original (non derived) segments.
+		 */
+		private int derivations = 0;
 
 		/**
 		 * Constructs a new line segment from the given line.
@@ -720,6 +1136,7 @@ public class SegmentPartitionTree<T extends PartitionTree<SegmentPartitionTree.L
 				line.p1Clipped = p1Clipped | (p1 != this.p1);
 				line.p2Clipped = p2Clipped | (p2 != this.p2);
 				line.original = getOriginalSegment();
+				line.original.derivations++;
 				return line;
 			}
 		}
@@ -785,12 +1202,14 @@ public class SegmentPartitionTree<T extends PartitionTree<SegmentPartitionTree.L
 				line.p1Clipped = true;
 				line.p2Clipped = p2Clipped;
 				line.original = getOriginalSegment();
+				line.original.derivations++;
 				return line;
 			}else{
 				LineSegment line = new LineSegment(p1, intersection);
 				line.p2Clipped = true;
 				line.p1Clipped = p1Clipped;
 				line.original = getOriginalSegment();
+				line.original.derivations++;
 				return line;
 			}
 		}
@@ -0,0 +1,251 @@
+/*
+ * ConvexMerger:  An area maximisation game based on the idea of merging convex shapes.
+ * Copyright (C) 2021  Roan Hofland (roan@roanh.dev), Emiliyan Greshkov and contributors.
+ * GitHub Repository: https://github.com/RoanH/ConvexMerger
+ *
+ * ConvexMerger is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ConvexMerger is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package dev.roanh.convexmerger.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Query cost metrics for a single segment partition tree. Metrics
+ * are disabled by default, when disabled queries skip all bookkeeping
+ * including the timing calls. Latencies are recorded in a histogram
+ * with power of two nanosecond buckets, where bucket <code>i</code>
+ * holds queries that took less than <code>2^i</code> nanoseconds
+ * (and at least <code>2^(i-1)</code> nanoseconds).
+ * @author Roan
+ * @see SegmentPartitionTree#getMetrics()
+ */
+public class SegmentTreeMetrics{
+	/**
+	 * The number of buckets in the latency histogram.
+	 */
+	public static final int LATENCY_BUCKETS = 40;
+	/**
+	 * Whether metrics are currently being collected.
+	 */
+	private volatile boolean enabled = false;
+	/**
+	 * The total number of recorded queries.
+	 */
+	private final LongAdder queries = new LongAdder();
+	/**
+	 * The total number of queries answered from the query result cache.
+	 */
+	private final LongAdder cacheHits = new LongAdder();
+	/**
+	 * The total number of partition tree nodes visited by queries.
+	 */
+	private final LongAdder nodeVisits = new LongAdder();
+	/**
+	 * The total number of stored segments tested for intersection by queries.
+	 */
+	private final LongAdder segmentScans = new LongAdder();
+	/**
+	 * The total number of derived (clipped) query segments allocated by queries.
+	 */
+	private final LongAdder derivedSegments = new LongAdder();
+	/**
+	 * The total time spent on queries in nanoseconds.
+	 */
+	private final LongAdder totalTime = new LongAdder();
+	/**
+	 * The query latency histogram.
+	 */
+	private final AtomicLongArray latency = new AtomicLongArray(LATENCY_BUCKETS);
+
+	/**
+	 * Checks if metrics are currently being collected.
+	 * @return True if metrics are being collected.
+	 */
+	public boolean isEnabled(){
+		return enabled;
+	}
+
+	/**
+	 * Sets whether metrics should be collected. Disabling
+	 * metrics does not reset any previously collected data.
+	 * @param enabled True to enable metric collection.
+	 * @see #reset()
+	 */
+	public void setEnabled(boolean enabled){
+		this.enabled = enabled;
+	}
+
+	/**
+	 * Records the cost of a single intersection query.
+	 * @param visits The number of partition tree nodes visited.
+	 * @param scans The number of stored segments tested for intersection.
+	 * @param derived The number of derived query segments allocated.
+	 * @param nanos The time the query took in nanoseconds.
+	 */
+	protected void recordQuery(int visits, int scans, int derived, long nanos){
+		queries.increment();
+		nodeVisits.add(visits);
+		segmentScans.add(scans);
+		derivedSegments.add(derived);
+		totalTime.add(nanos);
+		latency.incrementAndGet(Math.min(LATENCY_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(Math.max(0L, nanos))));
+	}
+
+	/**
+	 * Records a query that was answered from the query result cache.
+	 * Cached queries are not included in the other query statistics.
+	 */
+	protected void recordCacheHit(){
+		cacheHits.increment();
+	}
+
+	/**
+	 * Gets the total number of queries answered from the query result cache.
+	 * @return The total number of cached query results returned.
+	 */
+	public long getCacheHits(){
+		return cacheHits.sum();
+	}
+
+	/**
+	 * Gets the total number of recorded queries.
+	 * @return The total number of recorded queries.
+	 */
+	public long getQueryCount(){
+		return queries.sum();
+	}
+
+	/**
+	 * Gets the total number of partition tree nodes visited by all recorded queries.
+	 * @return The total number of visited nodes.
+	 */
+	public long getNodeVisits(){
+		return nodeVisits.sum();
+	}
+
+	/**
+	 * Gets the total number of stored segments that were tested
+	 * for intersection in visited cells by all recorded queries.
+	 * @return The total number of scanned segments.
+	 */
+	public long getSegmentScans(){
+		return segmentScans.sum();
+	}
+
+	/**
+	 * Gets the total number of derived (clipped) query segments
+	 * that were allocated by all recorded queries.
+	 * @return The total number of derived segment allocations.
+	 */
+	public long getDerivedSegments(){
+		return derivedSegments.sum();
+	}
+
+	/**
+	 * Gets the total time spent on all recorded queries.
+	 * @return The total query time in nanoseconds.
+	 */
+	public long getTotalTime(){
+		return totalTime.sum();
+	}
+
+	/**
+	 * Gets the average number of visited nodes per query.
+	 * @return The average number of visited nodes per query.
+	 */
+	public double getAverageNodeVisits(){
+		long n = queries.sum();
+		return n == 0 ? 0.0D : ((double)nodeVisits.sum() / n);
+	}
+
+	/**
+	 * Gets the average query latency.
+	 * @return The average query latency in nanoseconds.
+	 */
+	public double getAverageLatency(){
+		long n = queries.sum();
+		return n == 0 ? 0.0D : ((double)totalTime.sum() / n);
+	}
+
+	/**
+	 * Gets a copy of the query latency histogram.
+	 * @return The query latency histogram.
+	 * @see #getBucketBound(int)
+	 */
+	public long[] getLatencyHistogram(){
+		long[] data = new long[LATENCY_BUCKETS];
+		for(int i = 0; i < data.length; i++){
+			data[i] = latency.get(i);
+		}
+		return data;
+	}
+
+	/**
+	 * Gets the (exclusive) upper bound in nanoseconds
+	 * of the latency histogram bucket with the given index.
+	 * @param bucket The bucket index.
+	 * @return The upper latency bound for the bucket.
+	 */
+	public static long getBucketBound(int bucket){
+		return 1L << bucket;
+	}
+
+	/**
+	 * Estimates the given latency percentile from the histogram. The
+	 * returned value is the upper bound of the bucket the percentile
+	 * falls in, so it overestimates by at most a factor of two.
+	 * @param percentile The percentile to compute, between 0 and 1.
+	 * @return The estimated latency percentile in nanoseconds or
+	 *         0 if no queries were recorded.
+	 */
+	public long getLatencyPercentile(double percentile){
+		long[] data = getLatencyHistogram();
+		long total = 0;
+		for(long count : data){
+			total += count;
+		}
+
+		long target = (long)Math.ceil(total * percentile);
+		long seen = 0;
+		for(int i = 0; i < data.length; i++){
+			seen += data[i];
+			if(seen >= target && seen != 0){
+				return getBucketBound(i);
+			}
+		}
+		return 0L;
+	}
+
+	/**
+	 * Resets all collected metrics.
+	 */
+	public void reset(){
+		queries.reset();
+		cacheHits.reset();
+		nodeVisits.reset();
+		segmentScans.reset();
+		derivedSegments.reset();
+		totalTime.reset();
+		for(int i = 0; i < LATENCY_BUCKETS; i++){
+			latency.set(i, 0L);
+		}
+	}
+
+	@Override
+	public String toString(){
+		return "SegmentTreeMetrics[queries=" + getQueryCount() + ",cacheHits=" + getCacheHits() + ",visits=" + getNodeVisits() + ",scans=" + getSegmentScans()
+			+ ",derived=" + getDerivedSegments() + ",avgNanos=" + getAverageLatency() + ",p99Nanos=" + getLatencyPercentile(0.99D) + "]";
+	}
+}
@@ -0,0 +1,232 @@
+/*
+ * ConvexMerger:  An area maximisation game based on the idea of merging convex shapes.
+ * Copyright (C) 2021  Roan Hofland (roan@roanh.dev), Emiliyan Greshkov and contributors.
+ * GitHub Repository: https://github.com/RoanH/ConvexMerger
+ *
+ * ConvexMerger is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ConvexMerger is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package dev.roanh.convexmerger.util;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import dev.roanh.convexmerger.game.ConvexObject;
+
+/**
+ * Static point locator based on a slab decomposition of the playfield.
+ * The playfield is split into vertical slabs at the x-coordinate of every
+ * object vertex, within a slab the object edges crossing it are totally
+ * ordered from bottom to top. A query performs a binary search for the slab
+ * followed by a binary search over the edges in the slab. All slabs are stored
+ * in flat arrays to keep queries free of allocations and pointer chasing.
+ * <p>
+ * The locator is a snapshot of the objects it was constructed
+ * with and does not reflect later changes to the game state.
+ * @author Roan
+ * @see PointLocator
+ */
+public class SlabLocator implements PointLocator{
+	/**
+	 * The sorted distinct x-coordinates of all slab boundaries.
+	 */
+	private final double[] xs;
+	/**
+	 * The index of the first edge of every slab in the edge arrays,
+	 * the edges of slab <code>i</code> are stored in the range
+	 * <code>[start[i], start[i + 1])</code>.
+	 */
+	private final int[] start;
+	/**
+	 * The slopes of the edges of all slabs.
+	 */
+	private final double[] slope;
+	/**
+	 * The y-intercepts of the edges of all slabs.
+	 */
+	private final double[] intercept;
+	/**
+	 * The object directly above each edge of all slabs or
+	 * <code>null</code> if the space above the edge is empty.
+	 */
+	private final ConvexObject[] above;
+
+	/**
+	 * Constructs a new slab locator for the given objects.
+	 * @param objects The objects to locate, these should not overlap.
+	 */
+	public SlabLocator(List<ConvexObject> objects){
+		List<Edge> edges = new ArrayList<Edge>();
+		double[] coords = new double[objects.stream().mapToInt(obj->obj.getPoints().size()).sum()];
+		int n = 0;
+		for(ConvexObject obj : objects){
+			List<Point2D> points = obj.getPoints();
+			Point2D centroid = obj.getCentroid();
+			for(int i = 0; i < points.size(); i++){
+				Point2D a = points.get(i);
+				Point2D b = points.get((i + 1) % points.size());
+				coords[n++] = a.getX();
+				if(a.getX() != b.getX()){
+					edges.add(new Edge(a, b, obj, centroid));
+				}
+			}
+		}
+
+		Arrays.sort(coords);
+		int unique = 0;
+		for(int i = 0; i < coords.length; i++){
+			if(unique == 0 || coords[i] != coords[unique - 1]){
+				coords[unique++] = coords[i];
+			}
+		}
+		xs = Arrays.copyOf(coords, unique);
+
+		List<List<Edge>> slabs = new ArrayList<List<Edge>>(Math.max(0, xs.length - 1));
+		for(int i = 0; i < xs.length - 1; i++){
+			slabs.add(new ArrayList<Edge>());
+		}
+
+		for(Edge edge : edges){
+			for(int i = Arrays.binarySearch(xs, edge.minX); i < xs.length - 1 && xs[i + 1] <= edge.maxX; i++){
+				slabs.get(i).add(edge);
+			}
+		}
+
+		start = new int[xs.length];
+		int total = slabs.stream().mapToInt(List::size).sum();
+		slope = new double[total];
+		intercept = new double[total];
+		above = new ConvexObject[total];
+		int idx = 0;
+		for(int i = 0; i < slabs.size(); i++){
+			start[i] = idx;
+			double mid = (xs[i] + xs[i + 1]) / 2.0D;
+			List<Edge> slab = slabs.get(i);
+			slab.sort((a, b)->Double.compare(a.getY(mid), b.getY(mid)));
+			for(Edge edge : slab){
+				slope[idx] = edge.slope;
+				intercept[idx] = edge.intercept;
+				above[idx] = edge.below ? edge.obj : null;
+				idx++;
+			}
+		}
+
+		if(xs.length > 0){
+			start[xs.length - 1] = idx;
+		}
+	}
+
+	/**
+	 * Gets the total number of edges stored across all slabs.
+	 * @return The total number of stored edges.
+	 */
+	public int getEdgeCount(){
+		return slope.length;
+	}
+
+	/**
+	 * Gets the number of slabs in this slab decomposition.
+	 * @return The number of slabs.
+	 */
+	public int getSlabCount(){
+		return Math.max(0, xs.length - 1);
+	}
+
+	@Override
+	public ConvexObject queryObject(double x, double y){
+		if(xs.length == 0 || !(x > xs[0] && x < xs[xs.length - 1])){
+			return null;
+		}
+
+		//points on slab boundaries are located in the slab to the right
+		int slab = Arrays.binarySearch(xs, x);
+		slab = slab >= 0 ? slab : (-slab - 2);
+
+		int low = start[slab];
+		int high = start[slab + 1] - 1;
+		int below = -1;
+		while(low <= high){
+			int mid = (low + high) >>> 1;
+			double edgeY = slope[mid] * x + intercept[mid];
+			if(edgeY < y){
+				below = mid;
+				low = mid + 1;
+			}else if(edgeY > y){
+				high = mid - 1;
+			}else{
+				return null;
+			}
+		}
+
+		return below == -1 ? null : above[below];
+	}
+
+	/**
+	 * A single non-vertical object edge.
+	 * @author Roan
+	 */
+	private static final class Edge{
+		/**
+		 * The smallest x-coordinate of the edge.
+		 */
+		private final double minX;
+		/**
+		 * The largest x-coordinate of the edge.
+		 */
+		private final double maxX;
+		/**
+		 * The slope of the line through the edge.
+		 */
+		private final double slope;
+		/**
+		 * The y-intercept of the line through the edge.
+		 */
+		private final double intercept;
+		/**
+		 * The object this edge belongs to.
+		 */
+		private final ConvexObject obj;
+		/**
+		 * True if this edge is below its object, meaning
+		 * the object is directly above this edge.
+		 */
+		private final boolean below;
+
+		/**
+		 * Constructs a new edge.
+		 * @param a The first end point of the edge.
+		 * @param b The second end point of the edge.
+		 * @param obj The object the edge belongs to.
+		 * @param centroid The centroid of the object the edge belongs to.
+		 */
+		private Edge(Point2D a, Point2D b, ConvexObject obj, Point2D centroid){
+			this.obj = obj;
+			minX = Math.min(a.getX(), b.getX());
+			maxX = Math.max(a.getX(), b.getX());
+			slope = (b.getY() - a.getY()) / (b.getX() - a.getX());
+			intercept = a.getY() - slope * a.getX();
+			below = getY(centroid.getX()) < centroid.getY();
+		}
+
+		/**
+		 * Gets the y-coordinate of the line through this edge at the given x-coordinate.
+		 * @param x The x-coordinate.
+		 * @return The y-coordinate of the line through this edge.
+		 */
+		private double getY(double x){
+			return slope * x + intercept;
+		}
+	}
+}
@@ -24,26 +24,39 @@ import java.awt.Shape;
 import java.awt.geom.Line2D;
 import java.awt.geom.Path2D;
 import java.awt.geom.Point2D;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Queue;
+import java.util.Random;
 import java.util.Set;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import dev.roanh.convexmerger.Constants;
 import dev.roanh.convexmerger.animation.Animation;
 import dev.roanh.convexmerger.animation.RenderableObject;
 import dev.roanh.convexmerger.game.ConvexObject;
 import dev.roanh.convexmerger.game.GameStateListener;
+import dev.roanh.convexmerger.game.TurnScheduler;
 import dev.roanh.convexmerger.player.Player;
 import dev.roanh.convexmerger.ui.Theme;
 
@@ -54,33 +67,80 @@ import dev.roanh.convexmerger.ui.Theme;
  * @author Roan
  * @author Emu
  */
-public class VerticalDecomposition extends RenderableObject implements GameStateListener{
+public class VerticalDecomposition extends RenderableObject implements GameStateListener, PointLocator{
 	/**
-	 * The trapezoids of the decomposition.
+	 * The factor by which the maximum or average trapezoid depth has to grow
+	 * compared to the last (re)build before the search structure is rebuilt.
 	 */
-	private final List<Trapezoid> trapezoids = new CopyOnWriteArrayList<Trapezoid>();
+	private static final double REBUILD_DEPTH_FACTOR = 1.1D;
+	/**
+	 * Executor used to rebuild decompositions in the background.
+	 */
+	private static final ExecutorService REBUILD_EXECUTOR = Executors.newSingleThreadExecutor(task->{
+		Thread thread = new Thread(task, "DecompositionRebuild");
+		thread.setDaemon(true);
+		return thread;
+	});
+	/**
+	 * The trapezoids of the decomposition. This set is only
+	 * accessed by the thread that is updating the decomposition.
+	 */
+	private Set<Trapezoid> trapezoids = new LinkedHashSet<Trapezoid>();
+	/**
+	 * The most recently published immutable snapshot of all the trapezoids of
+	 * the decomposition. A new snapshot is published once an update completes.
+	 * @see #publishTrapezoids()
+	 */
+	private volatile List<Trapezoid> trapezoidSnapshot = Collections.emptyList();
 	/**
 	 * The search structure of the decomposition. 
 	 * It is a DAG with 3 types of vertices (leaf, point, and segment).
+	 * This structure is replaced when the decomposition is rebuilt.
+	 */
+	private volatile DecompVertex searchStructure;
+	/**
+	 * The most recently published immutable snapshot of the search structure.
+	 * A new snapshot is published once an update completes.
+	 * @see #publishSnapshot()
+	 */
+	private volatile DecompositionSnapshot snapshot;
+	/**
+	 * The builder publishing snapshots of the search structure. This builder
+	 * is replaced together with the search structure when it is rebuilt.
+	 * @see #publishSnapshot()
+	 */
+	private DecompositionSnapshot.Builder snapshotBuilder = new DecompositionSnapshot.Builder();
+	/**
+	 * Index of the segments that have been added to the decomposition. Since
+	 * segments are equal regardless of orientation any segment can be used to
+	 * look up the oriented segment that was added to the decomposition.
 	 */
-	private final DecompVertex searchStructure;
+	private Map<Line, Line> orientedSegments = new HashMap<Line, Line>();
 	/**
-	 * The list of segments that have been added to the decomposition. 
+	 * The last oriented segment that was added to the decomposition.
 	 */
-	private List<Line> orientedSegments = new ArrayList<Line>();
+	private Line lastSegment = null;
 	/**
-	 * The list of vertical segments.
+	 * The set of vertical segments.
 	 */
-	private List<Line> verticalSegments = new ArrayList<Line>();
+	private Set<Line> verticalSegments = new HashSet<Line>();
 	/**
 	 * Map of segments to the object above them or to <code>null</code>
 	 * if that object is the playing field.
 	 */
 	private Map<Line, ConvexObject> segToObj = new HashMap<Line, ConvexObject>();
 	/**
-	 * The list of points added to the decomposition.
+	 * Union-find forest mapping objects that were merged to the object they
+	 * were merged into. Objects in the decomposition keep pointing to their
+	 * original object and are resolved to their current owner on lookup.
+	 * Objects are compared by identity as their IDs are not necessarily unique.
+	 * @see #resolveObject(ConvexObject)
 	 */
-	private List<DecompositionPoint> points = new ArrayList<DecompositionPoint>();
+	private Map<ConvexObject, ConvexObject> mergedInto = Collections.synchronizedMap(new IdentityHashMap<ConvexObject, ConvexObject>());
+	/**
+	 * Index of the points added to the decomposition by their location.
+	 */
+	private Map<Point2D, DecompositionPoint> points = new HashMap<Point2D, DecompositionPoint>();
 	/**
 	 * All line segments ever added into the vertical decomposition.
 	 */
@@ -90,6 +150,53 @@ public class VerticalDecomposition extends RenderableObject implements GameState
 	 * individual segment updates.
 	 */
 	private boolean animate = false;
+	/**
+	 * The scheduler of the game this decomposition belongs to, segment
+	 * updates are only animated if the scheduler allows animations.
+	 */
+	private volatile TurnScheduler scheduler = TurnScheduler.INTERACTIVE;
+	/**
+	 * The objects currently in the decomposition, these are all
+	 * objects that segments were added for and that were not
+	 * merged into another object, in the order they were added.
+	 */
+	private List<ConvexObject> objects = new ArrayList<ConvexObject>();
+	/**
+	 * Version of the decomposition, incremented on every update.
+	 */
+	private volatile int version = 0;
+	/**
+	 * Running statistics of the depths of all trapezoids in the search structure.
+	 * These statistics are replaced together with the search structure when
+	 * it is rebuilt.
+	 */
+	private LeafDepths leafDepths = new LeafDepths();
+	/**
+	 * The maximum trapezoid depth right after the last (re)build.
+	 */
+	private int baseMaxDepth = 0;
+	/**
+	 * The average trapezoid depth right after the last (re)build.
+	 */
+	private double baseAvgDepth = 0.0D;
+	/**
+	 * The pending background rebuild of this decomposition or
+	 * <code>null</code> if there is no pending rebuild.
+	 */
+	private Future<VerticalDecomposition> rebuild = null;
+	/**
+	 * The version of the decomposition the pending rebuild was started for.
+	 */
+	private int rebuildVersion;
+	/**
+	 * The factor by which the maximum or average trapezoid depth has to grow
+	 * compared to the last (re)build before the search structure is rebuilt.
+	 */
+	private double rebuildFactor = REBUILD_DEPTH_FACTOR;
+	/**
+	 * The number of background rebuilds that replaced the search structure.
+	 */
+	private int rebuilds = 0;
 	
 	/**
 	 * Constructs a new blank vertical decomposition with a corresponding
@@ -112,6 +219,7 @@ public class VerticalDecomposition extends RenderableObject implements GameState
 		trapezoids.add(initialTrapezoid);
 		initialTrapezoid.computeDecompLines();
 		searchStructure = initialVertex;
+		publishSnapshot();
 	}
 	
 	/**
@@ -128,8 +236,26 @@ public class VerticalDecomposition extends RenderableObject implements GameState
 		this();
 		
 		for(ConvexObject obj : objects){
-			addObject(obj);
+			addObjectSegments(obj);
 		}
+		publishSnapshot();
+		resetDepthBaseline();
+	}
+	
+	/**
+	 * Constructs a new vertical decomposition with the given objects.
+	 * The objects are inserted in a random order that is determined
+	 * by the given seed. The size of the vertical decomposition
+	 * is defined by {@link Constants#PLAYFIELD_WIDTH} and {@link Constants#PLAYFIELD_HEIGHT}.
+	 * @param objects The objects that the vertical decomposition
+	 *        will contain at the beginning.
+	 * @param seed The seed for the object insertion order.
+	 * @throws InterruptedException When the game is aborted.
+	 * @see #addObjects(List, long)
+	 */
+	public VerticalDecomposition(List<ConvexObject> objects, long seed) throws InterruptedException{
+		this();
+		addObjects(objects, seed);
 	}
 	
 	/**
@@ -145,7 +271,7 @@ public class VerticalDecomposition extends RenderableObject implements GameState
 	 * @return The last line segment added to the vertical decomposition.
 	 */
 	public Line2D getLastLine(){
-		return orientedSegments.isEmpty() ? null : orientedSegments.get(orientedSegments.size() - 1);
+		return lastSegment;
 	}
 	
 	/**
@@ -160,7 +286,34 @@ public class VerticalDecomposition extends RenderableObject implements GameState
 	 *         left during addition (on the top of the object).
 	 */
 	public ConvexObject getObjectOfSegment(Line segment){
-		return segToObj.get(segment);
+		return resolveObject(segToObj.get(segment));
+	}
+	
+	/**
+	 * Resolves the given object to the object it was most recently merged
+	 * into, if any. Paths in the union-find forest are halved on lookup.
+	 * @param obj The object to resolve, can be <code>null</code>.
+	 * @return The object that currently contains the given object,
+	 *         this is the given object itself if it was never merged.
+	 */
+	private ConvexObject resolveObject(ConvexObject obj){
+		if(obj == null){
+			return null;
+		}
+		
+		ConvexObject parent = mergedInto.get(obj);
+		while(parent != null){
+			ConvexObject grandparent = mergedInto.get(parent);
+			if(grandparent == null){
+				return parent;
+			}
+			
+			mergedInto.put(obj, grandparent);
+			obj = grandparent;
+			parent = mergedInto.get(obj);
+		}
+		
+		return obj;
 	}
 	
 	/**
@@ -173,11 +326,60 @@ public class VerticalDecomposition extends RenderableObject implements GameState
 	}
 	
 	/**
-	 * Gets all the trapezoids that make up the vertical decomposition.
+	 * Sets the scheduler of the game this decomposition belongs to. Segment
+	 * updates are only animated if both this decomposition is animated and
+	 * the scheduler allows animations.
+	 * @param scheduler The turn scheduler of the game.
+	 * @see #setAnimated(boolean)
+	 * @see TurnScheduler#isAnimated()
+	 */
+	public void setTurnScheduler(TurnScheduler scheduler){
+		this.scheduler = scheduler;
+	}
+	
+	/**
+	 * Gets all the trapezoids that make up the vertical decomposition. The
+	 * returned list is an immutable snapshot of the decomposition as it was
+	 * after the last completed update and is safe to iterate from any thread.
 	 * @return All decomposition trapezoids.
 	 */
 	public List<Trapezoid> getTrapezoids(){
-		return trapezoids;
+		return trapezoidSnapshot;
+	}
+	
+	/**
+	 * Publishes a new snapshot of the current trapezoids of the decomposition.
+	 * Snapshots are only published after an update completes (or after every
+	 * segment when animated) so the cost of copying is not paid on every change.
+	 * @see #getTrapezoids()
+	 */
+	private void publishTrapezoids(){
+		trapezoidSnapshot = Collections.unmodifiableList(new ArrayList<Trapezoid>(trapezoids));
+	}
+	
+	/**
+	 * Publishes a new snapshot of the current trapezoids and search structure
+	 * of the decomposition. This should only be called once an update completes
+	 * so readers never observe a partially updated decomposition. Only the parts
+	 * of the search structure that changed since the last snapshot are written.
+	 * @see #getTrapezoids()
+	 * @see #getSnapshot()
+	 */
+	private void publishSnapshot(){
+		publishTrapezoids();
+		snapshot = snapshotBuilder.publish(searchStructure, version, trap->segToObj.get(trap.botSegment), this::resolveObject);
+	}
+	
+	/**
+	 * Gets the most recent immutable snapshot of the search structure of this
+	 * decomposition. The snapshot reflects the decomposition as it was after the
+	 * last completed update and can be queried from any thread without locking,
+	 * unlike the decomposition itself which is only safe to query from the
+	 * thread that updates it.
+	 * @return The most recent search structure snapshot.
+	 */
+	public DecompositionSnapshot getSnapshot(){
+		return snapshot;
 	}
 	
 	/**
@@ -207,12 +409,45 @@ public class VerticalDecomposition extends RenderableObject implements GameState
 	 * @throws InterruptedException When the game is aborted.
 	 */
 	public void addObject(ConvexObject obj) throws InterruptedException{
+		addObjectSegments(obj);
+		publishSnapshot();
+		resetDepthBaseline();
+	}
+	
+	/**
+	 * Adds the segments of a new convex object to this vertical
+	 * decomposition without publishing a new trapezoid snapshot.
+	 * @param obj The convex object to add.
+	 * @throws InterruptedException When the game is aborted.
+	 */
+	private void addObjectSegments(ConvexObject obj) throws InterruptedException{
 		List<Point2D> points = obj.getPoints();
 		for(int i = 0; i < points.size(); i++){
 			addSegment(new Line(points.get(i), points.get((i + 1) % points.size())), obj);
 		}
 	}
 	
+	/**
+	 * Adds all the given convex objects to this vertical decomposition in a
+	 * random order that is determined by the given seed. This makes the expected
+	 * logarithmic depth of the search structure independent of the order in which
+	 * the objects were given. Note that the segments of a single object are still
+	 * added in polygon order as segment insertion relies on this.
+	 * @param objects The convex objects to add.
+	 * @param seed The seed for the object insertion order.
+	 * @throws InterruptedException When the game is aborted.
+	 * @see #addObject(ConvexObject)
+	 */
+	public void addObjects(List<ConvexObject> objects, long seed) throws InterruptedException{
+		List<ConvexObject> order = new ArrayList<ConvexObject>(objects);
+		Collections.shuffle(order, new Random(seed));
+		for(ConvexObject obj : order){
+			addObjectSegments(obj);
+		}
+		publishSnapshot();
+		resetDepthBaseline();
+	}
+	
 	/**
 	 * Checks if the vertical decomposition is animated,
 	 * meaning it is showing individual segment updates.
@@ -231,9 +466,26 @@ public class VerticalDecomposition extends RenderableObject implements GameState
 	 *         <code>null</code> if there is no convex object at
 	 *         the given position.
 	 */
+	@Override
 	public ConvexObject queryObject(double x, double y){
 		Trapezoid trap = queryTrapezoid(x, y);
-		return trap.pointInside(x, y) ? segToObj.get(trap.botSegment) : null;
+		return trap.pointInside(x, y) ? trap.getObject() : null;
+	}
+	
+	/**
+	 * Queries the convex objects that are at each of the given positions.
+	 * The queries are answered together by the latest snapshot of this
+	 * decomposition, so this reflects the decomposition as it was after
+	 * the last completed update.
+	 * @param xs The x-coordinates of the query points.
+	 * @param ys The y-coordinates of the query points.
+	 * @param out The array to store the convex object at each position in.
+	 * @throws IllegalArgumentException When the given arrays are not all of the same length.
+	 * @see DecompositionSnapshot#queryObjects(double[], double[], ConvexObject[])
+	 */
+	@Override
+	public void queryObjects(double[] xs, double[] ys, ConvexObject[] out) throws IllegalArgumentException{
+		snapshot.queryObjects(xs, ys, out);
 	}
 	
 	/**
@@ -246,7 +498,7 @@ public class VerticalDecomposition extends RenderableObject implements GameState
 	 *         the given position.
 	 */
 	public Trapezoid queryTrapezoid(double x, double y){
-		return queryTrapezoid(new Point2D.Double(x, y));
+		return searchStructure.queryPoint(x, y);
 	}
 	
 	/**
@@ -262,15 +514,26 @@ public class VerticalDecomposition extends RenderableObject implements GameState
 	}
 	
 	/**
-	 * Computes the height of the vertical decomposition as the
-	 * length of the longest path to any trapezoid in the search structure.
-	 * Note that the implementation for this method is not very
-	 * efficient, so a call to this method may take relatively long to complete.
+	 * Gets the height of the vertical decomposition as the length
+	 * of the longest path to any trapezoid in the search structure.
+	 * Trapezoid depths are tracked as the search structure is built,
+	 * so this takes constant time.
 	 * @return The height of the vertical decomposition.
 	 * @see Trapezoid#getDepth()
 	 */
 	public int getHeight(){
-		return trapezoids.stream().mapToInt(Trapezoid::getDepth).max().orElse(0);
+		return leafDepths.max;
+	}
+	
+	/**
+	 * Gets the average depth of all the trapezoids in the search
+	 * structure. Trapezoid depths are tracked as the search structure
+	 * is built, so this takes constant time.
+	 * @return The average trapezoid depth.
+	 * @see Trapezoid#getDepth()
+	 */
+	public double getAverageDepth(){
+		return leafDepths.getAverage();
 	}
 	
 	/**
@@ -282,7 +545,7 @@ public class VerticalDecomposition extends RenderableObject implements GameState
 	public List<Line2D> getDecompLines(){
 		List<Line2D> lines = new ArrayList<Line2D>();
 
-		for(Trapezoid trap : trapezoids){
+		for(Trapezoid trap : getTrapezoids()){
 			lines.addAll(trap.getDecompLines());
 		}
 
@@ -295,40 +558,37 @@ public class VerticalDecomposition extends RenderableObject implements GameState
 	 * @return The added decomposition point or the existing decomposition point at this point.
 	 */
 	private DecompositionPoint getOrCreatePoint(Point2D point){
-		int idx = points.indexOf(point);
-		if(idx != -1){
-			return points.get(idx);
+		DecompositionPoint dp = getPoint(point);
+		if(dp == null){
+			dp = new DecompositionPoint(point);
+			addPoint(dp);
 		}
-
-		DecompositionPoint dp = new DecompositionPoint(point);
-		addPoint(dp);
 		return dp;
 	}
 	
 	/**
-	 * Adds a decomposition point to the list of decomposition points.
-	 * @param point The decomposition point to add to the list.
+	 * Adds a decomposition point to the index of decomposition points.
+	 * @param point The decomposition point to add to the index.
 	 */
 	private void addPoint(DecompositionPoint point){
-		points.add(point);
+		points.put(point.getPoint(), point);
 	}
 	
 	/**
-	 * Removes a decomposition point from the list of decomposition points.
+	 * Removes a decomposition point from the index of decomposition points.
 	 * @param point The decomposition point to remove from the list.
 	 */
 	private void removePoint(DecompositionPoint point){
-		points.remove(point);
+		points.remove(point.getPoint(), point);
 	}
 	
 	/**
 	 * Gets a decomposition point for a given query point.
-	 * @param point The query point to look for in the list.
-	 * @return The query point if it is in the list, or <code>null</code> otherwise.
+	 * @param point The query point to look for in the index.
+	 * @return The decomposition point at the query point if it exists, or <code>null</code> otherwise.
 	 */
 	private DecompositionPoint getPoint(Point2D point){
-		int idx = points.indexOf(point);
-		return idx == -1 ? null : points.get(idx);
+		return points.get(point);
 	}
 	
 	/**
@@ -359,28 +619,33 @@ public class VerticalDecomposition extends RenderableObject implements GameState
 	private void replaceOverlappedSegment(Line shortLine, Line line){
 		List<Line> toReplace = new ArrayList<Line>();
 		Line orientedLine = Line.orientedLine(line.getP1(), line.getP2());
-		Line sl = orientedSegments.get(orientedSegments.indexOf(shortLine));
+		Line sl = orientedSegments.get(shortLine);
 		toReplace.add(sl);
 		
 		if(shortLine.getP1() != line.getP1()){
-			toReplace.add(orientedSegments.get(orientedSegments.indexOf(new Line(shortLine.getP1(), line.getP1()))));
+			toReplace.add(orientedSegments.get(new Line(shortLine.getP1(), line.getP1())));
 		}
 		
 		if(shortLine.getP2() != line.getP2()){
-			toReplace.add(orientedSegments.get(orientedSegments.indexOf(new Line(shortLine.getP2(), line.getP2()))));
+			toReplace.add(orientedSegments.get(new Line(shortLine.getP2(), line.getP2())));
 		}
 		
 		for(Line l : toReplace){
 			for(Trapezoid t : l.getTrapsAbove()){
 				t.botSegment = orientedLine;
 				orientedLine.addTrapAbove(t);
+				t.changed();
 			}
 			
 			for(Trapezoid t : l.getTrapsBelow()){
 				t.topSegment = orientedLine;
 				orientedLine.addTrapBelow(t);
+				t.changed();
 			}
 			
+			l.getTrapsAbove().clear();
+			l.getTrapsBelow().clear();
+			
 			if(l.getX1() != l.getX2()){
 				DecompositionPoint p = getOrCreatePoint(l.getP1());
 				p.removeSegment(l);
@@ -397,7 +662,7 @@ public class VerticalDecomposition extends RenderableObject implements GameState
 		}
 
 		segToObj.put(orientedLine, segToObj.get(sl));
-		orientedSegments.add(orientedLine);
+		addOrientedSegment(orientedLine);
 		lines.add(orientedLine);
 		
 		if(orientedLine.getX1() == orientedLine.getX2()){
@@ -408,6 +673,16 @@ public class VerticalDecomposition extends RenderableObject implements GameState
 		}
 	}
 	
+	/**
+	 * Adds an oriented segment to the index of segments added to the decomposition.
+	 * If an equal segment was already added before the original segment is retained.
+	 * @param segment The oriented segment to add.
+	 */
+	private void addOrientedSegment(Line segment){
+		orientedSegments.putIfAbsent(segment, segment);
+		lastSegment = segment;
+	}
+	
 	/**
 	 * Adds a line segment belonging to an object to
 	 * the vertical decomposition and updates the structures.
@@ -419,8 +694,13 @@ public class VerticalDecomposition extends RenderableObject implements GameState
 		Point2D p1 = seg.getP1();
 		Point2D p2 = seg.getP2();
 		Line orientedSegment = Line.orientedLine(p1, p2);
+		
+		version++;
+		if(objects.isEmpty() || objects.get(objects.size() - 1) != obj){
+			objects.add(obj);
+		}
 
-		orientedSegments.add(orientedSegment);
+		addOrientedSegment(orientedSegment);
 		lines.add(orientedSegment);
 		ConvexObject toPut = p1.getX() < p2.getX() ? obj : null;
 		segToObj.put(orientedSegment, toPut);
@@ -442,7 +722,8 @@ public class VerticalDecomposition extends RenderableObject implements GameState
 			getOrCreatePoint(p2).addSegment(orientedSegment);
 		}
 		
-		if(animate){
+		if(animate && scheduler.isAnimated()){
+			publishTrapezoids();
 			Thread.sleep(100);
 		}
 	}
@@ -1064,7 +1345,8 @@ public class VerticalDecomposition extends RenderableObject implements GameState
 		if(start == null){
 			start = queryTrapezoid(seg.getP1());
 
-			if(segToObj.get(start.botSegment) == obj && start.botSegment.getP2() != seg.getP1() || segToObj.get(start.botSegment) == null){
+			ConvexObject above = getObjectOfSegment(start.botSegment);
+			if(above == obj && start.botSegment.getP2() != seg.getP1() || above == null){
 				q.add(start);
 			}else{
 				Trapezoid last = start;
@@ -1088,15 +1370,7 @@ public class VerticalDecomposition extends RenderableObject implements GameState
 			Trapezoid current = q.remove();
 			if(current.intersectsSegment(seg)){
 				if(!intersectedTraps.contains(current)){
-					int cnt = 0;
-					
-					for(Line2D decompLine : current.getDecompLines()){
-						if(decompLine.intersectsLine(seg)){
-							cnt++;
-						}
-					}
-					
-					if(cnt > 1 || current.pointInside(seg.getP1()) || current.pointInside(seg.getP2())){
+					if(current.countDecompLineIntersections(seg) > 1 || current.pointInside(seg.getP1()) || current.pointInside(seg.getP2())){
 						intersectedTraps.add(current);
 						q.clear();
 						visited.clear();
@@ -1117,10 +1391,15 @@ public class VerticalDecomposition extends RenderableObject implements GameState
 	
 	@Override
 	public void claim(Player player, ConvexObject obj){
+		applyRebuild();
 	}
 	
 	@Override
 	public void merge(Player player, ConvexObject source, ConvexObject target, ConvexObject result, List<ConvexObject> absorbed) throws InterruptedException{
+		applyRebuild();
+		version++;
+		objects.removeIf(obj->obj == source || obj == target || absorbed.stream().anyMatch(other->other == obj));
+		
 		setAnimation(new Animation(){
 			
 			@Override
@@ -1152,69 +1431,597 @@ public class VerticalDecomposition extends RenderableObject implements GameState
 			replaceOverlappedSegment(secondShortLine, secondLine);
 		}
 		
-		Queue<Trapezoid> q = new LinkedList<Trapezoid>();
-		Set<Trapezoid> visited = new HashSet<Trapezoid>();
-		Set<Line2D> visitedSeg = new HashSet<Line2D>();
+		//all merged objects now resolve to the result
+		for(ConvexObject obj : absorbed){
+			mergeInto(obj, result);
+		}
+		mergeInto(source, result);
+		mergeInto(target, result);
+		
+		//only the free space between the merged objects needs to be assigned to the result
 		List<Point2D> borderPoints = result.getPoints();
 		Set<Line2D> borderSegments = new HashSet<Line2D>();
+		Set<Trapezoid> gap = new HashSet<Trapezoid>();
 		for(int i = 0; i < borderPoints.size(); i++){
 			Point2D p1 = borderPoints.get(i);
 			Point2D p2 = borderPoints.get((i + 1) % borderPoints.size());
 			
-			Line segment = orientedSegments.get(orientedSegments.indexOf(Line.orientedLine(p1, p2)));
+			Line segment = orientedSegments.get(new Line(p1, p2));
 			borderSegments.add(segment);
-			if(p1.getX() == p2.getX()){
-				continue;
-			}
-			
-			if(segment.getP1() == p1){
-				q.addAll(segment.getTrapsAbove());
-			}else{
-				q.addAll(segment.getTrapsBelow());
+			if(p1.getX() != p2.getX() && (segment.equals(firstLine) || segment.equals(secondLine))){
+				gap.addAll(segment.getP1() == p1 ? segment.getTrapsAbove() : segment.getTrapsBelow());
 			}
 		}
 		
-		while(!q.isEmpty()){
-			Trapezoid curr = q.remove();
-
-			if(segToObj.replace(curr.botSegment, result) == null){
-				segToObj.put(curr.botSegment, result);
-			}
-
-			//Add unvisited neighbours to the queue
-			for(Trapezoid neib : curr.getNeighbours()){
-				if(!visited.contains(neib)){
-					q.add(neib);
-					visited.add(neib);
+		addGapTrapezoids(source, borderSegments, gap);
+		addGapTrapezoids(target, borderSegments, gap);
+		for(ConvexObject obj : absorbed){
+			addGapTrapezoids(obj, borderSegments, gap);
+		}
+		
+		for(Trapezoid trap : gap){
+			segToObj.put(trap.botSegment, result);
+			trap.botSegment.getTrapsAbove().forEach(Trapezoid::changed);
+		}
+		
+		publishSnapshot();
+		setAnimation(null);
+		checkRebuild();
+	}
+	
+	/**
+	 * Records the current maximum and average trapezoid depth
+	 * as the baseline to compare future depths against.
+	 * @see #checkRebuild()
+	 */
+	private void resetDepthBaseline(){
+		baseMaxDepth = getHeight();
+		baseAvgDepth = getAverageDepth();
+	}
+	
+	/**
+	 * Checks if the search structure has grown too deep compared to the
+	 * depth right after the last (re)build and if so starts rebuilding
+	 * the decomposition from the current objects in the background.
+	 * @see #applyRebuild()
+	 */
+	private void checkRebuild(){
+		if(rebuild != null){
+			return;
+		}
+		
+		if(getHeight() > baseMaxDepth * rebuildFactor || getAverageDepth() > baseAvgDepth * rebuildFactor){
+			List<ConvexObject> current = new ArrayList<ConvexObject>(objects);
+			long seed = version;
+			rebuildVersion = version;
+			rebuild = REBUILD_EXECUTOR.submit(()->new VerticalDecomposition(current, seed));
+		}
+	}
+	
+	/**
+	 * Swaps in the background rebuild of this decomposition if it completed,
+	 * the decomposition was not updated since the rebuild started and the
+	 * rebuild has a lower average trapezoid depth. Other rebuilds are discarded.
+	 * After a swap the trapezoids, and with them the decomposition lines, are those
+	 * of the rebuild. The history of added lines is kept, so {@link #getLines()}
+	 * and {@link #getLastLine()} are not affected by a rebuild. This method has
+	 * to be called from the thread that updates the decomposition.
+	 * @see #checkRebuild()
+	 * @see #getDecompLines()
+	 */
+	private void applyRebuild(){
+		if(rebuild == null || !rebuild.isDone()){
+			return;
+		}
+		
+		try{
+			if(rebuildVersion == version){
+				VerticalDecomposition decomp = rebuild.get();
+				if(decomp.baseAvgDepth >= getAverageDepth()){
+					//the rebuild is not an improvement, wait for the depth to grow further
+					resetDepthBaseline();
+					return;
 				}
-			}
-
-			if(!visitedSeg.contains(curr.botSegment)){
-				visitedSeg.add(curr.botSegment);
-				if(!borderSegments.contains(curr.botSegment)){
-					for(Trapezoid neib : curr.botSegment.getTrapsBelow()){
-						if(!visited.contains(neib)){
-							q.add(neib);
-							visited.add(neib);
-						}
-					}
+				
+				version++;
+				searchStructure = decomp.searchStructure;
+				snapshotBuilder = decomp.snapshotBuilder;
+				leafDepths = decomp.leafDepths;
+				trapezoids = decomp.trapezoids;
+				orientedSegments = decomp.orientedSegments;
+				verticalSegments = decomp.verticalSegments;
+				segToObj = decomp.segToObj;
+				mergedInto = decomp.mergedInto;
+				points = decomp.points;
+				for(Line line : lines){
+					//the history of added lines is kept but no longer bounds any trapezoids
+					line.trapsAbove.clear();
+					line.trapsBelow.clear();
 				}
-			}
-
-			if(!visitedSeg.contains(curr.topSegment)){
-				visitedSeg.add(curr.topSegment);
-				if(!borderSegments.contains(curr.topSegment)){
-					for(Trapezoid neib : curr.topSegment.getTrapsAbove()){
-						if(!visited.contains(neib)){
-							q.add(neib);
-							visited.add(neib);
-						}
-					}
+				
+				for(Trapezoid trap : trapezoids){
+					//the rebuilt trapezoids now belong to this decomposition
+					trap.owner = this;
 				}
+				
+				rebuilds++;
+				publishSnapshot();
+				resetDepthBaseline();
+			}
+		}catch(InterruptedException e){
+			Thread.currentThread().interrupt();
+		}catch(ExecutionException e){
+			//keep using the current search structure
+		}finally{
+			rebuild = null;
+		}
+	}
+	
+	/**
+	 * Sets the factor by which the maximum or average trapezoid depth has to
+	 * grow compared to the last (re)build before the search structure is rebuilt.
+	 * @param factor The new rebuild factor.
+	 * @see #checkRebuild()
+	 */
+	void setRebuildFactor(double factor){
+		rebuildFactor = factor;
+	}
+	
+	/**
+	 * Gets the number of background rebuilds that replaced the search structure.
+	 * @return The number of adopted rebuilds.
+	 * @see #applyRebuild()
+	 */
+	int getRebuildCount(){
+		return rebuilds;
+	}
+	
+	/**
+	 * Blocks until the pending background rebuild, if any, completed. The
+	 * rebuild is adopted on the next update of the decomposition.
+	 * @throws InterruptedException When the current thread is interrupted.
+	 * @see #applyRebuild()
+	 */
+	void awaitRebuild() throws InterruptedException{
+		Future<VerticalDecomposition> pending = rebuild;
+		if(pending != null){
+			try{
+				pending.get();
+			}catch(ExecutionException e){
+				//failed rebuilds are discarded when applied
+			}
+		}
+	}
+	
+	/**
+	 * Writes the complete state of this decomposition to the given output so it
+	 * can later be restored with {@link #read(ByteBuffer, List)} without having
+	 * to add any segments. Objects and their points are written as indices into
+	 * the given list of objects, so the decomposition can only be restored for
+	 * exactly the same objects. This has to be called from the thread that updates
+	 * the decomposition.
+	 * @param out The output to write to.
+	 * @param objects The objects the decomposition was built from.
+	 * @throws IOException When an IOException occurs.
+	 * @throws IllegalArgumentException When the decomposition references
+	 *         objects that are not in the given list of objects.
+	 * @see #read(ByteBuffer, List)
+	 */
+	public void write(DataOutput out, List<ConvexObject> objects) throws IOException, IllegalArgumentException{
+		Map<ConvexObject, Integer> objectIds = new IdentityHashMap<ConvexObject, Integer>();
+		Map<Point2D, Integer> pointIds = new IdentityHashMap<Point2D, Integer>();
+		for(ConvexObject obj : objects){
+			objectIds.put(obj, objectIds.size());
+			for(Point2D p : obj.getPoints()){
+				pointIds.putIfAbsent(p, pointIds.size());
+			}
+		}
+		
+		//assign an id to every reachable part of the decomposition
+		List<Point2D> extraPoints = new ArrayList<Point2D>();
+		Map<Line, Integer> lineIds = new IdentityHashMap<Line, Integer>();
+		List<Line> lineList = new ArrayList<Line>();
+		Map<Trapezoid, Integer> trapIds = new IdentityHashMap<Trapezoid, Integer>();
+		List<Trapezoid> trapList = new ArrayList<Trapezoid>();
+		Map<DecompVertex, Integer> vertexIds = new IdentityHashMap<DecompVertex, Integer>();
+		List<DecompVertex> vertexList = new ArrayList<DecompVertex>();
+		
+		assignId(vertexIds, vertexList, searchStructure);
+		trapezoids.forEach(trap->assignId(trapIds, trapList, trap));
+		lines.forEach(line->assignId(lineIds, lineList, line));
+		orientedSegments.forEach((key, line)->{
+			assignId(lineIds, lineList, key);
+			assignId(lineIds, lineList, line);
+		});
+		verticalSegments.forEach(line->assignId(lineIds, lineList, line));
+		segToObj.keySet().forEach(line->assignId(lineIds, lineList, line));
+		assignId(lineIds, lineList, lastSegment);
+		for(DecompositionPoint point : points.values()){
+			assignPointId(pointIds, extraPoints, point.getPoint());
+			point.getSegments().forEach(line->assignId(lineIds, lineList, line));
+		}
+		
+		int v = 0;
+		int t = 0;
+		int l = 0;
+		while(v < vertexList.size() || t < trapList.size() || l < lineList.size()){
+			for(; v < vertexList.size(); v++){
+				DecompVertex vertex = vertexList.get(v);
+				assignId(vertexIds, vertexList, vertex.left);
+				assignId(vertexIds, vertexList, vertex.right);
+				assignId(trapIds, trapList, vertex.trapezoid);
+				assignId(lineIds, lineList, (Line)vertex.segment);
+				assignPointId(pointIds, extraPoints, vertex.point);
+			}
+			
+			for(; t < trapList.size(); t++){
+				Trapezoid trap = trapList.get(t);
+				assignId(lineIds, lineList, trap.botSegment);
+				assignId(lineIds, lineList, trap.topSegment);
+				assignId(vertexIds, vertexList, trap.vertex);
+				trap.neighbours.forEach(neib->assignId(trapIds, trapList, neib));
+				trap.leftPoints.forEach(p->assignPointId(pointIds, extraPoints, p));
+				trap.rightPoints.forEach(p->assignPointId(pointIds, extraPoints, p));
+			}
+			
+			for(; l < lineList.size(); l++){
+				Line line = lineList.get(l);
+				assignPointId(pointIds, extraPoints, line.getP1());
+				assignPointId(pointIds, extraPoints, line.getP2());
+				line.trapsAbove.forEach(trap->assignId(trapIds, trapList, trap));
+				line.trapsBelow.forEach(trap->assignId(trapIds, trapList, trap));
 			}
 		}
 		
-		setAnimation(null);
+		out.writeInt(extraPoints.size());
+		for(Point2D p : extraPoints){
+			out.writeDouble(p.getX());
+			out.writeDouble(p.getY());
+		}
+		
+		out.writeInt(lineList.size());
+		for(Line line : lineList){
+			out.writeInt(pointIds.get(line.getP1()));
+			out.writeInt(pointIds.get(line.getP2()));
+		}
+		
+		out.writeInt(trapList.size());
+		for(Trapezoid trap : trapList){
+			out.writeInt(lineIds.get(trap.botSegment));
+			out.writeInt(lineIds.get(trap.topSegment));
+			writeIds(out, trap.leftPoints, pointIds);
+			writeIds(out, trap.rightPoints, pointIds);
+			out.writeBoolean(trap.hasLeftLine);
+			out.writeBoolean(trap.hasRightLine);
+			out.writeDouble(trap.leftBotY);
+			out.writeDouble(trap.leftTopY);
+			out.writeDouble(trap.rightBotY);
+			out.writeDouble(trap.rightTopY);
+		}
+		
+		out.writeInt(vertexList.size());
+		for(DecompVertex vertex : vertexList){
+			out.writeByte(vertex.type.ordinal());
+			out.writeInt(getId(trapIds, vertex.trapezoid));
+			out.writeInt(getId(pointIds, vertex.point));
+			out.writeInt(getId(lineIds, (Line)vertex.segment));
+			out.writeInt(vertex.depth);
+		}
+		
+		//links between parts of the decomposition
+		for(DecompVertex vertex : vertexList){
+			out.writeInt(getId(vertexIds, vertex.left));
+			out.writeInt(getId(vertexIds, vertex.right));
+		}
+		
+		for(Trapezoid trap : trapList){
+			out.writeInt(getId(vertexIds, trap.vertex));
+			writeIds(out, trap.neighbours, trapIds);
+		}
+		
+		for(Line line : lineList){
+			writeIds(out, line.trapsAbove, trapIds);
+			writeIds(out, line.trapsBelow, trapIds);
+		}
+		
+		//the indices of the decomposition itself
+		out.writeInt(vertexIds.get(searchStructure));
+		writeIds(out, trapezoids, trapIds);
+		writeIds(out, lines, lineIds);
+		writeIds(out, orientedSegments.keySet(), lineIds);
+		for(Line key : orientedSegments.keySet()){
+			out.writeInt(lineIds.get(orientedSegments.get(key)));
+		}
+		writeIds(out, verticalSegments, lineIds);
+		writeIds(out, segToObj.keySet(), lineIds);
+		for(Line line : segToObj.keySet()){
+			out.writeInt(getObjectId(objectIds, segToObj.get(line)));
+		}
+		out.writeInt(points.size());
+		for(DecompositionPoint point : points.values()){
+			out.writeInt(pointIds.get(point.getPoint()));
+			writeIds(out, point.getSegments(), lineIds);
+		}
+		out.writeInt(mergedInto.size());
+		synchronized(mergedInto){
+			for(Entry<ConvexObject, ConvexObject> entry : mergedInto.entrySet()){
+				out.writeInt(getObjectId(objectIds, entry.getKey()));
+				out.writeInt(getObjectId(objectIds, entry.getValue()));
+			}
+		}
+		out.writeInt(this.objects.size());
+		for(ConvexObject obj : this.objects){
+			out.writeInt(getObjectId(objectIds, obj));
+		}
+		out.writeInt(getId(lineIds, lastSegment));
+		out.writeInt(version);
+	}
+	
+	/**
+	 * Replaces the state of this decomposition with the state read from the given
+	 * buffer as written by {@link #write(DataOutput, List)}. Reading a decomposition
+	 * is much faster than adding all the segments of the objects again, only the
+	 * snapshot of the search structure is published again in a single pass. The given
+	 * objects have to be the exact same objects, with the same points, that were
+	 * given when the decomposition was written. The state of this decomposition
+	 * is only replaced if the complete decomposition was read successfully.
+	 * This has to be called from the thread that updates the decomposition.
+	 * @param in The buffer to read from.
+	 * @param objects The objects the decomposition was built from.
+	 * @throws BufferUnderflowException When the buffer does not contain a complete decomposition.
+	 * @throws IndexOutOfBoundsException When the buffer references objects, points
+	 *         or other parts of the decomposition that do not exist.
+	 * @see #write(DataOutput, List)
+	 */
+	public void read(ByteBuffer in, List<ConvexObject> objects) throws BufferUnderflowException, IndexOutOfBoundsException{
+		List<Point2D> pointList = new ArrayList<Point2D>();
+		objects.forEach(obj->pointList.addAll(obj.getPoints()));
+		int extraPoints = DecompositionCache.readCount(in, 16);
+		for(int i = 0; i < extraPoints; i++){
+			pointList.add(new Point2D.Double(in.getDouble(), in.getDouble()));
+		}
+		
+		Line[] lineList = new Line[DecompositionCache.readCount(in, 8)];
+		for(int i = 0; i < lineList.length; i++){
+			lineList[i] = new Line(pointList.get(in.getInt()), pointList.get(in.getInt()));
+		}
+		
+		Trapezoid[] trapList = new Trapezoid[DecompositionCache.readCount(in, 50)];
+		for(int i = 0; i < trapList.length; i++){
+			Line bot = lineList[in.getInt()];
+			Line top = lineList[in.getInt()];
+			Trapezoid trap = new Trapezoid(readList(in, pointList), readList(in, pointList), bot, top);
+			trap.hasLeftLine = in.get() != 0;
+			trap.hasRightLine = in.get() != 0;
+			trap.leftBotY = in.getDouble();
+			trap.leftTopY = in.getDouble();
+			trap.rightBotY = in.getDouble();
+			trap.rightTopY = in.getDouble();
+			trapList[i] = trap;
+		}
+		
+		DecompVertexType[] types = DecompVertexType.values();
+		DecompVertex[] vertexList = new DecompVertex[DecompositionCache.readCount(in, 17)];
+		for(int i = 0; i < vertexList.length; i++){
+			DecompVertex vertex = new DecompVertex(null, null, (Point2D)null);
+			vertex.type = types[in.get()];
+			vertex.trapezoid = getOrNull(trapList, in.getInt());
+			vertex.point = getOrNull(pointList, in.getInt());
+			vertex.setSegment(getOrNull(lineList, in.getInt()));
+			vertex.depth = in.getInt();
+			vertexList[i] = vertex;
+		}
+		
+		for(DecompVertex vertex : vertexList){
+			vertex.left = getOrNull(vertexList, in.getInt());
+			vertex.right = getOrNull(vertexList, in.getInt());
+		}
+		
+		for(Trapezoid trap : trapList){
+			trap.vertex = getOrNull(vertexList, in.getInt());
+			trap.neighbours.addAll(readList(in, Arrays.asList(trapList)));
+		}
+		
+		//trapezoid construction already registered the trapezoids with their segments
+		for(Line line : lineList){
+			line.trapsAbove = readList(in, Arrays.asList(trapList));
+			line.trapsBelow = readList(in, Arrays.asList(trapList));
+		}
+		
+		DecompVertex root = vertexList[in.getInt()];
+		Set<Trapezoid> traps = new LinkedHashSet<Trapezoid>(readList(in, Arrays.asList(trapList)));
+		List<Line> allLines = readList(in, Arrays.asList(lineList));
+		Map<Line, Line> oriented = new HashMap<Line, Line>();
+		for(Line key : readList(in, Arrays.asList(lineList))){
+			oriented.put(key, lineList[in.getInt()]);
+		}
+		Set<Line> vertical = new HashSet<Line>(readList(in, Arrays.asList(lineList)));
+		Map<Line, ConvexObject> owners = new HashMap<Line, ConvexObject>();
+		for(Line line : readList(in, Arrays.asList(lineList))){
+			owners.put(line, getOrNull(objects, in.getInt()));
+		}
+		Map<Point2D, DecompositionPoint> pointIndex = new HashMap<Point2D, DecompositionPoint>();
+		int pointCount = DecompositionCache.readCount(in, 8);
+		for(int i = 0; i < pointCount; i++){
+			DecompositionPoint point = new DecompositionPoint(pointList.get(in.getInt()));
+			point.segments = readList(in, Arrays.asList(lineList));
+			pointIndex.put(point.getPoint(), point);
+		}
+		Map<ConvexObject, ConvexObject> merged = Collections.synchronizedMap(new IdentityHashMap<ConvexObject, ConvexObject>());
+		int mergedCount = DecompositionCache.readCount(in, 8);
+		for(int i = 0; i < mergedCount; i++){
+			merged.put(objects.get(in.getInt()), objects.get(in.getInt()));
+		}
+		List<ConvexObject> current = readList(in, objects);
+		Line last = getOrNull(lineList, in.getInt());
+		int readVersion = in.getInt();
+		
+		version = readVersion;
+		searchStructure = root;
+		trapezoids = traps;
+		lines = allLines;
+		orientedSegments = oriented;
+		verticalSegments = vertical;
+		segToObj = owners;
+		points = pointIndex;
+		mergedInto = merged;
+		this.objects = current;
+		lastSegment = last;
+		rebuild = null;
+		leafDepths = new LeafDepths();
+		for(DecompVertex vertex : vertexList){
+			if(vertex.type == DecompVertexType.LEAF){
+				vertex.depths = leafDepths;
+				leafDepths.add(vertex.depth);
+			}
+		}
+		snapshotBuilder = new DecompositionSnapshot.Builder();
+		publishSnapshot();
+		resetDepthBaseline();
+	}
+	
+	/**
+	 * Assigns the next free id to the given object if it does not have an id yet.
+	 * @param <T> The type of the object.
+	 * @param ids The ids assigned so far.
+	 * @param list The objects with an id in id order.
+	 * @param obj The object to assign an id to, can be <code>null</code>.
+	 */
+	private static <T> void assignId(Map<T, Integer> ids, List<T> list, T obj){
+		if(obj != null && !ids.containsKey(obj)){
+			ids.put(obj, list.size());
+			list.add(obj);
+		}
+	}
+	
+	/**
+	 * Assigns the next free id to the given point if it does not have an id yet.
+	 * Points that are not a point of any object are recorded as extra points.
+	 * @param ids The ids assigned so far, object points have the lowest ids.
+	 * @param extra The extra points in id order.
+	 * @param p The point to assign an id to, can be <code>null</code>.
+	 */
+	private static void assignPointId(Map<Point2D, Integer> ids, List<Point2D> extra, Point2D p){
+		if(p != null && !ids.containsKey(p)){
+			ids.put(p, ids.size());
+			extra.add(p);
+		}
+	}
+	
+	/**
+	 * Gets the id of the given object.
+	 * @param <T> The type of the object.
+	 * @param ids The ids of all objects.
+	 * @param obj The object to get the id of, can be <code>null</code>.
+	 * @return The id of the object or -1 if the object is <code>null</code>.
+	 */
+	private static <T> int getId(Map<T, Integer> ids, T obj){
+		return obj == null ? -1 : ids.get(obj);
+	}
+	
+	/**
+	 * Gets the id of the given convex object.
+	 * @param ids The ids of all convex objects.
+	 * @param obj The convex object to get the id of, can be <code>null</code>.
+	 * @return The id of the object or -1 if the object is <code>null</code>.
+	 * @throws IllegalArgumentException When the object does not have an id.
+	 */
+	private static int getObjectId(Map<ConvexObject, Integer> ids, ConvexObject obj) throws IllegalArgumentException{
+		if(obj != null && !ids.containsKey(obj)){
+			throw new IllegalArgumentException("The decomposition references an unknown object.");
+		}
+		return getId(ids, obj);
+	}
+	
+	/**
+	 * Writes the ids of the given objects preceded by the number of objects.
+	 * @param <T> The type of the objects.
+	 * @param out The output to write to.
+	 * @param items The objects to write the ids of.
+	 * @param ids The ids of all objects.
+	 * @throws IOException When an IOException occurs.
+	 */
+	private static <T> void writeIds(DataOutput out, Collection<T> items, Map<T, Integer> ids) throws IOException{
+		out.writeInt(items.size());
+		for(T item : items){
+			out.writeInt(ids.get(item));
+		}
+	}
+	
+	/**
+	 * Reads a list of objects written as ids preceded by the number of objects.
+	 * @param <T> The type of the objects.
+	 * @param in The buffer to read from.
+	 * @param all All objects in id order.
+	 * @return The list of objects that was read.
+	 */
+	private static <T> List<T> readList(ByteBuffer in, List<T> all){
+		int size = DecompositionCache.readCount(in, 4);
+		List<T> list = new ArrayList<T>(size);
+		for(int i = 0; i < size; i++){
+			list.add(all.get(in.getInt()));
+		}
+		return list;
+	}
+	
+	/**
+	 * Gets the object with the given id.
+	 * @param <T> The type of the object.
+	 * @param all All objects in id order.
+	 * @param id The id of the object or -1.
+	 * @return The object with the given id or <code>null</code> if the id is -1.
+	 */
+	private static <T> T getOrNull(List<T> all, int id){
+		return id == -1 ? null : all.get(id);
+	}
+	
+	/**
+	 * Gets the object with the given id.
+	 * @param <T> The type of the object.
+	 * @param all All objects in id order.
+	 * @param id The id of the object or -1.
+	 * @return The object with the given id or <code>null</code> if the id is -1.
+	 */
+	private static <T> T getOrNull(T[] all, int id){
+		return id == -1 ? null : all[id];
+	}
+	
+	/**
+	 * Records in the union-find forest that the given object was merged into the given result.
+	 * @param obj The object that was merged.
+	 * @param result The object the given object was merged into.
+	 * @see #resolveObject(ConvexObject)
+	 */
+	private void mergeInto(ConvexObject obj, ConvexObject result){
+		ConvexObject root = resolveObject(obj);
+		if(root != result){
+			mergedInto.put(root, result);
+		}
+	}
+	
+	/**
+	 * Collects the trapezoids directly outside the given merged object that
+	 * lie inside the merged hull. These trapezoids are part of the free space
+	 * that was enclosed by the merge. Note that every trapezoid in this free space
+	 * has a bounding segment that is either a merge line or an edge of a merged object.
+	 * @param obj The merged object to collect trapezoids around.
+	 * @param borderSegments The oriented segments on the border of the merged hull.
+	 * @param gap The set to add the found free space trapezoids to.
+	 */
+	private void addGapTrapezoids(ConvexObject obj, Set<Line2D> borderSegments, Set<Trapezoid> gap){
+		List<Point2D> points = obj.getPoints();
+		for(int i = 0; i < points.size(); i++){
+			Point2D p1 = points.get(i);
+			Point2D p2 = points.get((i + 1) % points.size());
+			if(p1.getX() == p2.getX()){
+				continue;
+			}
+			
+			Line segment = orientedSegments.get(new Line(p1, p2));
+			if(segment != null && !borderSegments.contains(segment)){
+				gap.addAll(segment.getP1() == p1 ? segment.getTrapsBelow() : segment.getTrapsAbove());
+			}
+		}
 	}
 	
 	@Override
@@ -1241,7 +2048,7 @@ public class VerticalDecomposition extends RenderableObject implements GameState
 			g.draw(lines.get(i));
 		}
 		
-		for(Trapezoid trap : trapezoids){
+		for(Trapezoid trap : getTrapezoids()){
 			trap.getDecompLines().forEach(g::draw);
 		}
 		
@@ -1249,6 +2056,68 @@ public class VerticalDecomposition extends RenderableObject implements GameState
 		g.drawRect(0, 0, Constants.PLAYFIELD_WIDTH, Constants.PLAYFIELD_HEIGHT);
 	}
 
+	/**
+	 * Running statistics of the depths of the leaves of a search structure.
+	 * Leaves are added with depth 0 when they are created, their depth is
+	 * raised when they are linked into the search structure and they are removed
+	 * when they are converted to an internal vertex. Since a leaf is only ever
+	 * replaced by deeper leaves the maximum depth never decreases and is kept
+	 * as a running maximum.
+	 * @author Roan
+	 * @see DecompVertex#raiseDepth(int)
+	 */
+	private static final class LeafDepths{
+		/**
+		 * The number of leaves in the search structure.
+		 */
+		private int count = 0;
+		/**
+		 * The sum of the depths of all leaves in the search structure.
+		 */
+		private long sum = 0L;
+		/**
+		 * The maximum depth of any leaf in the search structure.
+		 */
+		private int max = 0;
+		
+		/**
+		 * Adds a new leaf with the given depth.
+		 * @param depth The depth of the new leaf.
+		 */
+		private void add(int depth){
+			count++;
+			sum += depth;
+			max = Math.max(max, depth);
+		}
+		
+		/**
+		 * Removes a leaf with the given depth.
+		 * @param depth The depth of the removed leaf.
+		 */
+		private void remove(int depth){
+			count--;
+			sum -= depth;
+		}
+		
+		/**
+		 * Raises the depth of a leaf.
+		 * @param from The old depth of the leaf.
+		 * @param to The new depth of the leaf.
+		 */
+		private void raise(int from, int to){
+			sum += to - from;
+			max = Math.max(max, to);
+		}
+		
+		/**
+		 * Gets the average depth of all leaves.
+		 * @return The average leaf depth.
+		 */
+		private double getAverage(){
+			return count == 0 ? 0.0D : ((double)sum / count);
+		}
+	}
+
 	/**
 	 * Represents a vertex in the search structure of the decomposition.
 	 * @author Emu
@@ -1278,6 +2147,44 @@ public class VerticalDecomposition extends RenderableObject implements GameState
 		 * If the vertex represents a segment, it points to it.
 		 */
 		private Line2D segment;
+		/**
+		 * If the vertex represents a segment, the x coordinate
+		 * of the left-bottom end point of the oriented segment.
+		 */
+		private double x1;
+		/**
+		 * If the vertex represents a segment, the y coordinate
+		 * of the left-bottom end point of the oriented segment.
+		 */
+		private double y1;
+		/**
+		 * If the vertex represents a segment, the x coordinate
+		 * of the right-top end point of the oriented segment.
+		 */
+		private double x2;
+		/**
+		 * If the vertex represents a segment, the y coordinate
+		 * of the right-top end point of the oriented segment.
+		 */
+		private double y2;
+		/**
+		 * The depth of this vertex in the search structure, this is the length
+		 * of the longest path from the root of the search structure to this vertex.
+		 */
+		private int depth = 0;
+		/**
+		 * The builder that published this vertex in a snapshot of the search
+		 * structure and is notified when the vertex changes, <code>null</code>
+		 * if this vertex was not published yet.
+		 * @see #changed()
+		 */
+		private DecompositionSnapshot.Builder builder = null;
+		/**
+		 * The depth statistics of the search structure this vertex is part of, the depth
+		 * of this vertex is included in them for as long as this vertex is a leaf.
+		 * This is <code>null</code> for vertices that were never a leaf.
+		 */
+		private LeafDepths depths = null;
 		
 		/**
 		 * Constructs a Decomposition Vertex of the leaf type with a linked trapezoid.
@@ -1291,6 +2198,8 @@ public class VerticalDecomposition extends RenderableObject implements GameState
 			point = null;
 			segment = null;
 			trapezoid.setDecompVertex(this);
+			depths = trapezoid.owner.leafDepths;
+			depths.add(depth);
 		}
 
 		/**
@@ -1300,8 +2209,8 @@ public class VerticalDecomposition extends RenderableObject implements GameState
 		 * @param point The corresponding point in the decomposition.
 		 */
 		public DecompVertex(DecompVertex left, DecompVertex right, Point2D point){
-			this.left = left;
-			this.right = right;
+			setLeftChild(left);
+			setRightChild(right);
 			this.point = point;
 			type = DecompVertexType.POINT;
 			trapezoid = null;
@@ -1315,9 +2224,9 @@ public class VerticalDecomposition extends RenderableObject implements GameState
 		 * @param segment The corresponding line segment in the decomposition.
 		 */
 		public DecompVertex(DecompVertex left, DecompVertex right, Line2D segment){
-			this.left = left;
-			this.right = right;
-			this.segment = segment;
+			setLeftChild(left);
+			setRightChild(right);
+			setSegment(segment);
 			type = DecompVertexType.SEGMENT;
 			trapezoid = null;
 			point = null;
@@ -1332,34 +2241,61 @@ public class VerticalDecomposition extends RenderableObject implements GameState
 		 * and returns the result of the left child if above, or the right child if below.  
 		 * @param query The point whose containing trapezoid is to be determined.
 		 * @return The trapezoid that contains the query point.
+		 * @see #queryPoint(double, double)
 		 */
 		public Trapezoid queryPoint(Point2D query){
-			switch(type){
-			case LEAF:
-				return trapezoid;
-			case POINT:
-				if(query.getX() <= point.getX()){
-					return left.queryPoint(query);
-				}else{
-					return right.queryPoint(query);
+			return queryPoint(query.getX(), query.getY());
+		}
+		
+		/**
+		 * Queries which trapezoid a point lies in by walking down the
+		 * search structure starting at this vertex. The walk does not
+		 * allocate any objects as segment orientations are precomputed.
+		 * @param x The x coordinate of the query point.
+		 * @param y The y coordinate of the query point.
+		 * @return The trapezoid that contains the query point.
+		 * @see #queryPoint(Point2D)
+		 */
+		public Trapezoid queryPoint(double x, double y){
+			DecompVertex vertex = this;
+			while(true){
+				switch(vertex.type){
+				case LEAF:
+					return vertex.trapezoid;
+				case POINT:
+					vertex = x <= vertex.point.getX() ? vertex.left : vertex.right;
+					break;
+				case SEGMENT:
+					vertex = Line2D.relativeCCW(vertex.x1, vertex.y1, vertex.x2, vertex.y2, x, y) <= 0 ? vertex.left : vertex.right;
+					break;
+				default:
+					throw new IllegalStateException("Unknown vertex type.");
 				}
-			case SEGMENT:
-				Line2D orientedSegment = Line.orientedLine(segment.getP1(), segment.getP2());
-				return orientedSegment.relativeCCW(query) <= 0 ? left.queryPoint(query) : right.queryPoint(query);
-			default:
-				throw new IllegalStateException("Unknown vertex type.");
 			}
 		}
 
+		/**
+		 * Gets the type of this decomposition vertex.
+		 * @return The type of this vertex.
+		 */
+		public DecompVertexType getType(){
+			return type;
+		}
+		
 		/**
 		 * Sets the type of this decomposition vertex.
 		 * @param type The new type to set.
 		 */
 		public void setType(DecompVertexType type){
+			if(this.type == DecompVertexType.LEAF && type != DecompVertexType.LEAF && depths != null){
+				depths.remove(depth);
+			}
+			
 			this.type = type;
 			if(this.type != DecompVertexType.LEAF){
 				trapezoid = null;
 			}
+			changed();
 		}
 		
 		/**
@@ -1415,6 +2351,10 @@ public class VerticalDecomposition extends RenderableObject implements GameState
 		 */
 		public void setLeftChild(DecompVertex vert){
 			this.left = vert;
+			changed();
+			if(vert != null){
+				vert.raiseDepth(depth + 1);
+			}
 		}
 
 		/**
@@ -1431,6 +2371,41 @@ public class VerticalDecomposition extends RenderableObject implements GameState
 		 */
 		public void setRightChild(DecompVertex vert){
 			this.right = vert;
+			changed();
+			if(vert != null){
+				vert.raiseDepth(depth + 1);
+			}
+		}
+		
+		/**
+		 * Gets the depth of this vertex in the search structure, this
+		 * is the length of the longest path from the root to this vertex.
+		 * @return The depth of this vertex.
+		 */
+		public int getDepth(){
+			return depth;
+		}
+		
+		/**
+		 * Raises the depth of this vertex to the given depth if it is currently
+		 * lower and propagates the change to the descendants of this vertex.
+		 * @param depth The new minimum depth for this vertex.
+		 */
+		private void raiseDepth(int depth){
+			if(depth > this.depth){
+				if(type == DecompVertexType.LEAF && depths != null){
+					depths.raise(this.depth, depth);
+				}
+				
+				this.depth = depth;
+				if(left != null){
+					left.raiseDepth(depth + 1);
+				}
+				
+				if(right != null){
+					right.raiseDepth(depth + 1);
+				}
+			}
 		}
 
 		/**
@@ -1447,6 +2422,7 @@ public class VerticalDecomposition extends RenderableObject implements GameState
 		 */
 		public void setTrapezoid(Trapezoid trapezoid){
 			this.trapezoid = trapezoid;
+			changed();
 		}
 
 		/**
@@ -1463,6 +2439,7 @@ public class VerticalDecomposition extends RenderableObject implements GameState
 		 */
 		public void setPoint(Point2D point){
 			this.point = point;
+			changed();
 		}
 
 		/**
@@ -1475,10 +2452,46 @@ public class VerticalDecomposition extends RenderableObject implements GameState
 
 		/**
 		 * Sets the segment that the vertex points to to a given segment, if the vertex is a segment vertex.
+		 * The end points of the segment are stored in left-bottom to right-top orientation for queries.
 		 * @param segment The point to associate with the vertex.
+		 * @see Line#orientedLine(Point2D, Point2D)
 		 */
 		public void setSegment(Line2D segment){
 			this.segment = segment;
+			changed();
+			if(segment != null){
+				int cmp = Double.compare(segment.getX1(), segment.getX2());
+				if(cmp < 0 || (cmp == 0 && Double.compare(segment.getY1(), segment.getY2()) <= 0)){
+					x1 = segment.getX1();
+					y1 = segment.getY1();
+					x2 = segment.getX2();
+					y2 = segment.getY2();
+				}else{
+					x1 = segment.getX2();
+					y1 = segment.getY2();
+					x2 = segment.getX1();
+					y2 = segment.getY1();
+				}
+			}
+		}
+		
+		/**
+		 * Sets the builder that published this vertex, from
+		 * now on changes to this vertex are reported to it.
+		 * @param builder The builder that published this vertex.
+		 */
+		protected void setBuilder(DecompositionSnapshot.Builder builder){
+			this.builder = builder;
+		}
+		
+		/**
+		 * Reports a change to this vertex to the builder that published
+		 * it, so the vertex is written again for the next snapshot.
+		 */
+		private void changed(){
+			if(builder != null){
+				builder.changed(this);
+			}
 		}
 	}
 
@@ -1487,6 +2500,13 @@ public class VerticalDecomposition extends RenderableObject implements GameState
 	 * @author Emu
 	 */
 	public class Trapezoid{
+		/**
+		 * The decomposition this trapezoid is part of. This is the decomposition
+		 * that created the trapezoid unless it was created by a background rebuild
+		 * that was adopted by another decomposition.
+		 * @see VerticalDecomposition#applyRebuild()
+		 */
+		private VerticalDecomposition owner = VerticalDecomposition.this;
 		/**
 		 * The segment that bound the trapezoid from the top.
 		 */
@@ -1512,9 +2532,31 @@ public class VerticalDecomposition extends RenderableObject implements GameState
 		 */
 		private DecompVertex vertex;
 		/**
-		 * The decomposition lines of the trapezoid.
+		 * True if the left decomposition line of this trapezoid has been computed.
+		 * @see #computeDecompLines()
+		 */
+		private boolean hasLeftLine = false;
+		/**
+		 * True if the right decomposition line of this trapezoid has been computed.
+		 * @see #computeDecompLines()
+		 */
+		private boolean hasRightLine = false;
+		/**
+		 * The y-coordinate of the bottom end point of the left decomposition line.
+		 */
+		private double leftBotY;
+		/**
+		 * The y-coordinate of the top end point of the left decomposition line.
+		 */
+		private double leftTopY;
+		/**
+		 * The y-coordinate of the bottom end point of the right decomposition line.
+		 */
+		private double rightBotY;
+		/**
+		 * The y-coordinate of the top end point of the right decomposition line.
 		 */
-		private List<Line2D> decompLines;
+		private double rightTopY;
 
 		/**
 		 * Constructs a trapezoid given a left and a right bounding point, and the top and bottom bounding segments.
@@ -1568,7 +2610,7 @@ public class VerticalDecomposition extends RenderableObject implements GameState
 			this.leftPoints = left;
 			this.rightPoints = right;
 
-			this.neighbours = new ArrayList<Trapezoid>();
+			this.neighbours = new ArrayList<Trapezoid>(4);
 			this.vertex = null;
 
 			if(!leftPoints.isEmpty() && !rightPoints.isEmpty()){
@@ -1577,31 +2619,30 @@ public class VerticalDecomposition extends RenderableObject implements GameState
 		}
 		
 		/**
-		 * Computes the maximum depth of this trapezoid in the search structure.
+		 * Gets the maximum depth of this trapezoid in the search structure.
 		 * Note that this will return the length of the longest path through the
 		 * search structure DAG if more than one path leads to this trapezoid.
-		 * Furthermore, note that this computation is relatively expensive.
 		 * @return The maximum depth of this trapezoid.
+		 * @see DecompVertex#getDepth()
 		 */
 		public int getDepth(){
-			return computeDepth(searchStructure);
+			return vertex.getDepth();
 		}
 		
 		/**
-		 * Computes the longest path from the given search structure vertex to
-		 * the vertex associated with this trapezoid.
-		 * @param root The vertex to treat as the search structure root.
-		 * @return The maximum depth of this trapezoid in the search structure
-		 *         rooted at the given vertex.
+		 * Gets the segment bounding this trapezoid from below.
+		 * @return The bottom segment of this trapezoid.
 		 */
-		private int computeDepth(DecompVertex root){
-			if(root == vertex){
-				return 0;
-			}else if(root.type == DecompVertexType.LEAF){
-				return -1;
-			}else{
-				return 1 + Math.max(computeDepth(root.left), computeDepth(root.right));
-			}
+		public Line getBotSegment(){
+			return botSegment;
+		}
+		
+		/**
+		 * Gets the segment bounding this trapezoid from above.
+		 * @return The top segment of this trapezoid.
+		 */
+		public Line getTopSegment(){
+			return topSegment;
 		}
 		
 		/**
@@ -1684,11 +2725,11 @@ public class VerticalDecomposition extends RenderableObject implements GameState
 						break checks;
 					}
 					
-					if(topSegment.getX1() == botSegment.getX1() && topSegment.getX1() == getXLeft() && neib.getXRight() == getXLeft() && verticalSegments.contains(new Line(botSegment.getP1(), topSegment.getP1()))){
+					if(topSegment.getX1() == botSegment.getX1() && topSegment.getX1() == getXLeft() && neib.getXRight() == getXLeft() && owner.verticalSegments.contains(new Line(botSegment.getP1(), topSegment.getP1()))){
 						break checks;
 					}
 
-					if(topSegment.getX2() == botSegment.getX2() && topSegment.getX2() == getXRight() && neib.getXLeft() == getXRight() && verticalSegments.contains(new Line(botSegment.getP2(), topSegment.getP2()))){
+					if(topSegment.getX2() == botSegment.getX2() && topSegment.getX2() == getXRight() && neib.getXLeft() == getXRight() && owner.verticalSegments.contains(new Line(botSegment.getP2(), topSegment.getP2()))){
 						break checks;
 					}
 					
@@ -1702,27 +2743,53 @@ public class VerticalDecomposition extends RenderableObject implements GameState
 		}
 
 		/**
-		 * Gets the vertical lines of this trapezoid.
+		 * Gets the vertical lines of this trapezoid. The returned
+		 * lines are new views of the stored line coordinates.
 		 * @return The vertical lines of this trapezoid.
 		 */
 		public List<Line2D> getDecompLines(){
-			return decompLines;
+			List<Line2D> lines = new ArrayList<Line2D>(2);
+			if(hasLeftLine){
+				lines.add(getLeftDecompLine());
+			}
+			if(hasRightLine){
+				lines.add(getRightDecompLine());
+			}
+			return lines;
 		}
 		
 		/**
-		 * Gets the left vertical line of this trapezoid.
+		 * Gets the left vertical line of this trapezoid. The
+		 * returned line is a new view of the stored line coordinates.
 		 * @return The left vertical line of this trapezoid.
 		 */
 		public Line2D getLeftDecompLine(){
-			return decompLines.get(0);
+			return new Line2D.Double(getXLeft(), leftBotY, getXLeft(), leftTopY);
 		}
 		
 		/**
-		 * Gets the right vertical line of this trapezoid.
+		 * Gets the right vertical line of this trapezoid. The
+		 * returned line is a new view of the stored line coordinates.
 		 * @return The right vertical line of this trapezoid.
 		 */
 		public Line2D getRightDecompLine(){
-			return decompLines.get(1);
+			return new Line2D.Double(getXRight(), rightBotY, getXRight(), rightTopY);
+		}
+		
+		/**
+		 * Counts the number of vertical lines of this trapezoid that intersect the given segment.
+		 * @param segment The line segment to check intersection with.
+		 * @return The number of vertical lines intersected by the segment.
+		 */
+		public int countDecompLineIntersections(Line2D segment){
+			int count = 0;
+			if(hasLeftLine && Line2D.linesIntersect(getXLeft(), leftBotY, getXLeft(), leftTopY, segment.getX1(), segment.getY1(), segment.getX2(), segment.getY2())){
+				count++;
+			}
+			if(hasRightLine && Line2D.linesIntersect(getXRight(), rightBotY, getXRight(), rightTopY, segment.getX1(), segment.getY1(), segment.getX2(), segment.getY2())){
+				count++;
+			}
+			return count;
 		}
 
 		/**
@@ -1738,29 +2805,24 @@ public class VerticalDecomposition extends RenderableObject implements GameState
 			Point2D botRight = botSegment.getP2();
 			Point2D topLeft = topSegment.getP1();
 			Point2D topRight = topSegment.getP2();
-			List<Line2D> verticalLines = new ArrayList<Line2D>();
 			
-			//Draw vertical line between top and bottom on the left
-			if(leftPoints.size() > 0){
+			//Vertical line between top and bottom on the left
+			hasLeftLine = leftPoints.size() > 0;
+			if(hasLeftLine){
 				double xRatioTop = (getXLeft() - topLeft.getX()) / (topRight.getX() - topLeft.getX());
 				double xRatioBot = (getXLeft() - botLeft.getX()) / (botRight.getX() - botLeft.getX());
-				verticalLines.add(new Line(
-					new Point2D.Double(getXLeft(), xRatioBot * botRight.getY() + (1 - xRatioBot) * botLeft.getY()),
-					new Point2D.Double(getXLeft(), xRatioTop * topRight.getY() + (1 - xRatioTop) * topLeft.getY()))
-				);
+				leftBotY = xRatioBot * botRight.getY() + (1 - xRatioBot) * botLeft.getY();
+				leftTopY = xRatioTop * topRight.getY() + (1 - xRatioTop) * topLeft.getY();
 			}
 			
-			//Draw vertical line between top and bottom on the right
-			if(rightPoints.size() > 0){
+			//Vertical line between top and bottom on the right
+			hasRightLine = rightPoints.size() > 0;
+			if(hasRightLine){
 				double xRatioTop = Math.abs((getXRight() - topLeft.getX()) / (topRight.getX() - topLeft.getX()));
 				double xRatioBot = Math.abs((getXRight() - botLeft.getX()) / (botRight.getX() - botLeft.getX()));
-				verticalLines.add(new Line(
-					new Point2D.Double(getXRight(), xRatioBot * botRight.getY() + (1 - xRatioBot) * botLeft.getY()),
-					new Point2D.Double(getXRight(), xRatioTop * topRight.getY() + (1 - xRatioTop) * topLeft.getY()))
-				);
+				rightBotY = xRatioBot * botRight.getY() + (1 - xRatioBot) * botLeft.getY();
+				rightTopY = xRatioTop * topRight.getY() + (1 - xRatioTop) * topLeft.getY();
 			}
-			
-			decompLines = verticalLines;
 		}
 		
 		/**
@@ -1785,12 +2847,7 @@ public class VerticalDecomposition extends RenderableObject implements GameState
 		 * @return True if the line segment is intersected, false otherwise.
 		 */
 		public boolean intersectsSegment(Line2D segment){
-			for(Line2D line : getDecompLines()){
-				if(line.intersectsLine(segment)){
-					return true;
-				}
-			}
-			return false;
+			return countDecompLineIntersections(segment) > 0;
 		}
 		
 		/**
@@ -1800,7 +2857,7 @@ public class VerticalDecomposition extends RenderableObject implements GameState
 		 * @return True if the point is contained in the trapezoid and not on the boundary, false otherwise.
 		 */
 		public boolean pointInside(double x, double y){
-			return pointInside(new Point2D.Double(x, y));
+			return botSegment.relativeCCW(x, y) < 0 && topSegment.relativeCCW(x, y) > 0 && x > getXLeft() && x < getXRight();
 		}
 
 		/**
@@ -1809,7 +2866,7 @@ public class VerticalDecomposition extends RenderableObject implements GameState
 		 * @return True if the point is contained in the trapezoid and not on the boundary, false otherwise.
 		 */
 		public boolean pointInside(Point2D p){
-			return botSegment.relativeCCW(p) < 0 && topSegment.relativeCCW(p) > 0 && p.getX() > getXLeft() && p.getX() < getXRight();
+			return pointInside(p.getX(), p.getY());
 		}
 		
 		/**
@@ -1819,6 +2876,7 @@ public class VerticalDecomposition extends RenderableObject implements GameState
 		 */
 		private void addLeftPoint(Point2D point){
 			leftPoints.add(point);
+			changed();
 			if(leftPoints.size() == 1 && !rightPoints.isEmpty()){
 				computeDecompLines();
 			}
@@ -1831,11 +2889,23 @@ public class VerticalDecomposition extends RenderableObject implements GameState
 		 */
 		private void addRightPoint(Point2D point){
 			rightPoints.add(point);
+			changed();
 			if(rightPoints.size() == 1 && !leftPoints.isEmpty()){
 				computeDecompLines();
 			}
 		}
 		
+		/**
+		 * Reports a change to the bounds or object of this trapezoid
+		 * to the search structure vertex of this trapezoid.
+		 * @see DecompVertex#changed()
+		 */
+		private void changed(){
+			if(vertex != null){
+				vertex.changed();
+			}
+		}
+		
 		/**
 		 * Returns the centroid of the trapezoid.
 		 * @return the centroid of the trapezoid.
@@ -1849,10 +2919,15 @@ public class VerticalDecomposition extends RenderableObject implements GameState
 		 * @return points of the trapezoid in counterclockwise order as a list.
 		 */
 		public List<Point2D> getEndPoints(){
-			if(decompLines == null){
+			if(!hasLeftLine || !hasRightLine){
 				computeDecompLines();
 			}
-			return Arrays.asList(decompLines.get(0).getP1(), decompLines.get(1).getP1(), decompLines.get(1).getP2(), decompLines.get(0).getP2());
+			return Arrays.asList(
+				new Point2D.Double(getXLeft(), leftBotY),
+				new Point2D.Double(getXRight(), rightBotY),
+				new Point2D.Double(getXRight(), rightTopY),
+				new Point2D.Double(getXLeft(), leftTopY)
+			);
 		}
 		
 		/**
@@ -1860,7 +2935,7 @@ public class VerticalDecomposition extends RenderableObject implements GameState
 		 * @return The convex object that contains this trapezoid, or <code>null</code> if it is not part of any convex object.
 		 */
 		public ConvexObject getObject(){
-			return segToObj.get(botSegment);
+			return owner.getObjectOfSegment(botSegment);
 		}
 		
 		/**
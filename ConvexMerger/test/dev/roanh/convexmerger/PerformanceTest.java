@@ -30,16 +30,31 @@ import java.util.HashMap;
 import java.util.IntSummaryStatistics;
 import java.util.List;
 import java.util.LongSummaryStatistics;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import dev.roanh.convexmerger.game.ConvexObject;
 import dev.roanh.convexmerger.game.GameState;
 import dev.roanh.convexmerger.game.PlayfieldGenerator;
 import dev.roanh.convexmerger.player.GreedyPlayer;
+import dev.roanh.convexmerger.player.Player;
+import dev.roanh.convexmerger.tournament.Tournament;
 import dev.roanh.convexmerger.util.ConjugationTree;
+import dev.roanh.convexmerger.util.DecompositionCache;
+import dev.roanh.convexmerger.util.DecompositionSnapshot;
+import dev.roanh.convexmerger.util.DecompositionSnapshot.Hint;
 import dev.roanh.convexmerger.util.KDTree;
+import dev.roanh.convexmerger.util.KirkpatrickLocator;
+import dev.roanh.convexmerger.util.PartitionedDecomposition;
+import dev.roanh.convexmerger.util.PointLocator;
 import dev.roanh.convexmerger.util.SegmentPartitionTree;
+import dev.roanh.convexmerger.util.SlabLocator;
 import dev.roanh.convexmerger.util.VerticalDecomposition;
 import dev.roanh.convexmerger.util.VerticalDecomposition.Trapezoid;
 
@@ -54,6 +69,420 @@ public class PerformanceTest{
 //		computeErrors(Paths.get(""));
 //		segmentDistribution();
 //		decompDepth();
+//		decompInsertionOrder();
+//		decompLocate();
+//		gridQuery();
+//		pointLocators();
+//		partitionedBuild();
+//		snapshotQuery();
+//		decompCache();
+//		batchQuery();
+//		forkCost();
+//		tournamentScaling();
+	}
+	
+	public static void tournamentScaling() throws InterruptedException{
+		List<String> seeds = new ArrayList<String>();
+		for(int i = 0; i < 20; i++){
+			seeds.add(new PlayfieldGenerator().getSeed());
+		}
+		
+		Tournament tournament = new Tournament(seeds, 2);
+		for(int threads = 1; threads <= Runtime.getRuntime().availableProcessors(); threads *= 2){
+			long start = System.currentTimeMillis();
+			tournament.run(threads);
+			System.out.println(threads + " threads: " + (System.currentTimeMillis() - start) + " ms for " + tournament.getGameCount() + " games");
+		}
+	}
+	
+	public static void forkCost() throws InterruptedException{
+		LongSummaryStatistics timeClaim = new LongSummaryStatistics();
+		LongSummaryStatistics timeMerge = new LongSummaryStatistics();
+		LongSummaryStatistics timeList = new LongSummaryStatistics();
+		LongSummaryStatistics timeUndo = new LongSummaryStatistics();
+		
+		for(int i = 0; i < 10; i++){
+			GameState game = new GameState(new PlayfieldGenerator(), Arrays.asList(new GreedyPlayer(), new GreedyPlayer()));
+			game.init();
+			for(int turn = 0; turn < 20 && !game.isFinished(); turn++){
+				game.executePlayerTurn();
+			}
+			
+			Player player = game.getActivePlayer();
+			GameState search = game.fork();
+			for(ConvexObject obj : game.getObjects()){
+				if(obj.canClaim()){
+					long start = System.nanoTime();
+					GameState fork = game.fork();
+					fork.claimObject(obj);
+					long claim = System.nanoTime();
+					fork.getObjects();
+					timeList.accept(System.nanoTime() - claim);
+					timeClaim.accept(claim - start);
+				}else if(obj.isOwnedBy(player)){
+					for(ConvexObject other : game.getObjects()){
+						if(other.canClaim() && obj.merge(game, other) != null){
+							long start = System.nanoTime();
+							GameState fork = game.fork();
+							fork.claimObject(obj);
+							fork.claimObject(other);
+							timeMerge.accept(System.nanoTime() - start);
+							
+							search.claimObject(obj);
+							search.claimObject(other);
+							start = System.nanoTime();
+							search.undo();
+							timeUndo.accept(System.nanoTime() - start);
+						}
+					}
+				}
+			}
+		}
+		
+		System.out.println("fork and claim ns: " + timeClaim.getAverage() + " " + timeClaim.getMin() + " " + timeClaim.getMax());
+		System.out.println("fork and merge ns: " + timeMerge.getAverage() + " " + timeMerge.getMin() + " " + timeMerge.getMax());
+		System.out.println("materialise objects ns: " + timeList.getAverage() + " " + timeList.getMin() + " " + timeList.getMax());
+		System.out.println("undo merge ns: " + timeUndo.getAverage() + " " + timeUndo.getMin() + " " + timeUndo.getMax());
+	}
+	
+	public static void batchQuery() throws InterruptedException{
+		LongSummaryStatistics timeQuery = new LongSummaryStatistics();
+		LongSummaryStatistics timeBatch = new LongSummaryStatistics();
+		LongSummaryStatistics timeParallel = new LongSummaryStatistics();
+		
+		int width = Constants.PLAYFIELD_WIDTH;
+		int height = Constants.PLAYFIELD_HEIGHT;
+		double[] xs = new double[width * height];
+		double[] ys = new double[width * height];
+		for(int y = 0; y < height; y++){
+			for(int x = 0; x < width; x++){
+				xs[y * width + x] = x + 0.5D;
+				ys[y * width + x] = y + 0.5D;
+			}
+		}
+		ConvexObject[] out = new ConvexObject[xs.length];
+		
+		for(int i = -3; i < 10; i++){
+			VerticalDecomposition decomp = new VerticalDecomposition(new PlayfieldGenerator().generatePlayfield());
+			DecompositionSnapshot snapshot = decomp.getSnapshot();
+			
+			long start = System.nanoTime();
+			for(int j = 0; j < xs.length; j++){
+				out[j] = decomp.queryObject(xs[j], ys[j]);
+			}
+			long batch = System.nanoTime();
+			snapshot.queryObjects(xs, ys, out);
+			long parallel = System.nanoTime();
+			snapshot.queryObjects(xs, ys, out, ForkJoinPool.commonPool());
+			long end = System.nanoTime();
+			
+			if(i >= 0){
+				timeQuery.accept(batch - start);
+				timeBatch.accept(parallel - batch);
+				timeParallel.accept(end - parallel);
+			}
+		}
+		
+		System.out.println("points: " + xs.length + " threads: " + ForkJoinPool.commonPool().getParallelism());
+		System.out.println("query ns: " + timeQuery.getAverage() + " " + timeQuery.getMin() + " " + timeQuery.getMax());
+		System.out.println("batch ns: " + timeBatch.getAverage() + " " + timeBatch.getMin() + " " + timeBatch.getMax());
+		System.out.println("parallel ns: " + timeParallel.getAverage() + " " + timeParallel.getMin() + " " + timeParallel.getMax());
+	}
+	
+	public static void decompCache() throws InterruptedException, IOException{
+		LongSummaryStatistics timeBuild = new LongSummaryStatistics();
+		LongSummaryStatistics timeLoad = new LongSummaryStatistics();
+		LongSummaryStatistics fileSize = new LongSummaryStatistics();
+		DecompositionCache cache = new DecompositionCache(Files.createTempDirectory("decomp"));
+		
+		for(int i = -10; i < 100; i++){
+			PlayfieldGenerator gen = new PlayfieldGenerator();
+			String seed = gen.getSeed();
+			List<ConvexObject> objs = gen.generatePlayfield();
+			
+			long start = System.nanoTime();
+			SegmentPartitionTree<?> conj = SegmentPartitionTree.TYPE_CONJUGATION_TREE.fromObjects(objs);
+			SegmentPartitionTree<?> kd = SegmentPartitionTree.TYPE_KD_TREE.fromObjects(objs);
+			VerticalDecomposition decomp = new VerticalDecomposition(objs, Objects.hashCode(seed));
+			long mid = System.nanoTime();
+			cache.store(seed, objs, decomp, conj, kd);
+			long load = System.nanoTime();
+			cache.load(seed, objs, new VerticalDecomposition(), SegmentPartitionTree.TYPE_CONJUGATION_TREE.empty(), SegmentPartitionTree.TYPE_KD_TREE.empty());
+			long end = System.nanoTime();
+			
+			if(i >= 0){
+				timeBuild.accept(mid - start);
+				timeLoad.accept(end - load);
+				fileSize.accept(Files.size(cache.getFile(seed)));
+			}
+		}
+		
+		System.out.println("build ns: " + timeBuild.getAverage() + " " + timeBuild.getMin() + " " + timeBuild.getMax());
+		System.out.println("load ns: " + timeLoad.getAverage() + " " + timeLoad.getMin() + " " + timeLoad.getMax());
+		System.out.println("file bytes: " + fileSize.getAverage() + " " + fileSize.getMin() + " " + fileSize.getMax());
+	}
+	
+	public static void snapshotQuery() throws InterruptedException{
+		LongSummaryStatistics timeQuery = new LongSummaryStatistics();
+		LongSummaryStatistics timeSnapshot = new LongSummaryStatistics();
+		Random r = new Random(0);
+		
+		for(int i = -10; i < 100; i++){
+			VerticalDecomposition decomp = new VerticalDecomposition(new PlayfieldGenerator().generatePlayfield());
+			
+			double[] clicks = new double[20000];
+			for(int j = 0; j < clicks.length; j += 2){
+				clicks[j] = r.nextDouble() * Constants.PLAYFIELD_WIDTH;
+				clicks[j + 1] = r.nextDouble() * Constants.PLAYFIELD_HEIGHT;
+			}
+			
+			long start = System.nanoTime();
+			for(int j = 0; j < clicks.length; j += 2){
+				decomp.queryObject(clicks[j], clicks[j + 1]);
+			}
+			long mid = System.nanoTime();
+			DecompositionSnapshot snapshot = decomp.getSnapshot();
+			for(int j = 0; j < clicks.length; j += 2){
+				snapshot.queryObject(clicks[j], clicks[j + 1]);
+			}
+			long end = System.nanoTime();
+			
+			if(i >= 0){
+				timeQuery.accept((mid - start) / (clicks.length / 2));
+				timeSnapshot.accept((end - mid) / (clicks.length / 2));
+			}
+		}
+		
+		System.out.println("query ns: " + timeQuery.getAverage() + " " + timeQuery.getMin() + " " + timeQuery.getMax());
+		System.out.println("snapshot ns: " + timeSnapshot.getAverage() + " " + timeSnapshot.getMin() + " " + timeSnapshot.getMax());
+	}
+	
+	public static void partitionedBuild() throws InterruptedException{
+		int threads = Runtime.getRuntime().availableProcessors();
+		List<List<ConvexObject>> playfields = new ArrayList<List<ConvexObject>>();
+		for(int i = 0; i < 20; i++){
+			PlayfieldGenerator gen = new PlayfieldGenerator();
+			gen.setRange(10, 20);
+			playfields.add(gen.generatePlayfield());
+		}
+		
+		System.out.println("objects: " + playfields.stream().mapToInt(List::size).average().orElse(0.0D) + " processors: " + threads);
+		for(int k = 0; k <= Math.max(8, threads); k = k == 0 ? 1 : k * 2){
+			LongSummaryStatistics time = new LongSummaryStatistics();
+			for(int i = -5; i < playfields.size(); i++){
+				List<ConvexObject> objs = playfields.get(Math.max(0, i));
+				
+				long start = System.nanoTime();
+				if(k == 0){
+					new VerticalDecomposition(objs);
+				}else{
+					new PartitionedDecomposition(objs, k);
+				}
+				
+				if(i >= 0){
+					time.accept(System.nanoTime() - start);
+				}
+			}
+			
+			System.out.println((k == 0 ? "build ns sequential: " : ("build ns " + k + " slabs: ")) + time.getAverage() + " " + time.getMin() + " " + time.getMax());
+		}
+	}
+	
+	public static void pointLocators() throws InterruptedException{
+		Map<String, Function<List<ConvexObject>, PointLocator>> backends = new LinkedHashMap<String, Function<List<ConvexObject>, PointLocator>>();
+		backends.put("decomposition", objs->{
+			try{
+				return new VerticalDecomposition(objs);
+			}catch(InterruptedException e){
+				throw new IllegalStateException(e);
+			}
+		});
+		backends.put("slab", SlabLocator::new);
+		backends.put("kirkpatrick", KirkpatrickLocator::new);
+		backends.put("partitioned", objs->{
+			try{
+				return new PartitionedDecomposition(objs);
+			}catch(InterruptedException e){
+				throw new IllegalStateException(e);
+			}
+		});
+		
+		Random r = new Random(0);
+		double[] points = new double[2000000];
+		for(int i = 0; i < points.length; i++){
+			points[i] = r.nextDouble() * (i % 2 == 0 ? Constants.PLAYFIELD_WIDTH : Constants.PLAYFIELD_HEIGHT);
+		}
+		
+		for(Entry<String, Function<List<ConvexObject>, PointLocator>> backend : backends.entrySet()){
+			LongSummaryStatistics build = new LongSummaryStatistics();
+			LongSummaryStatistics query = new LongSummaryStatistics();
+			LongSummaryStatistics memory = new LongSummaryStatistics();
+			
+			for(int i = -5; i < 20; i++){
+				List<ConvexObject> objs = new PlayfieldGenerator().generatePlayfield();
+				
+				long start = System.nanoTime();
+				PointLocator locator = backend.getValue().apply(objs);
+				long mid = System.nanoTime();
+				
+				int found = 0;
+				for(int j = 0; j < points.length; j += 2){
+					if(locator.queryObject(points[j], points[j + 1]) != null){
+						found++;
+					}
+				}
+				long end = System.nanoTime();
+				
+				PointLocator[] copies = new PointLocator[10];
+				long before = usedMemory();
+				for(int j = 0; j < copies.length; j++){
+					copies[j] = backend.getValue().apply(objs);
+				}
+				long after = usedMemory();
+				
+				if(i >= 0 && found >= 0 && copies[0] != null){
+					build.accept(mid - start);
+					query.accept((end - mid) / (points.length / 2));
+					memory.accept((after - before) / copies.length);
+				}
+			}
+			
+			System.out.println(backend.getKey() + " build ns: " + build.getAverage() + " " + build.getMin() + " " + build.getMax());
+			System.out.println(backend.getKey() + " query ns: " + query.getAverage() + " " + query.getMin() + " " + query.getMax());
+			System.out.println(backend.getKey() + " memory bytes: " + memory.getAverage() + " " + memory.getMin() + " " + memory.getMax());
+		}
+	}
+	
+	private static long usedMemory(){
+		Runtime runtime = Runtime.getRuntime();
+		for(int i = 0; i < 3; i++){
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+	
+	public static void gridQuery() throws InterruptedException{
+		LongSummaryStatistics timeQuery = new LongSummaryStatistics();
+		LongSummaryStatistics timeGrid = new LongSummaryStatistics();
+		IntSummaryStatistics cellsResolved = new IntSummaryStatistics();
+		Random r = new Random(0);
+		
+		for(int i = -10; i < 100; i++){
+			GameState state = new GameState(new PlayfieldGenerator(), Arrays.asList(new GreedyPlayer(), new GreedyPlayer()));
+			state.init();
+			VerticalDecomposition decomp = state.getVerticalDecomposition();
+			
+			double[] clicks = new double[20000];
+			for(int j = 0; j < clicks.length; j += 2){
+				clicks[j] = r.nextDouble() * Constants.PLAYFIELD_WIDTH;
+				clicks[j + 1] = r.nextDouble() * Constants.PLAYFIELD_HEIGHT;
+			}
+			
+			long start = System.nanoTime();
+			for(int j = 0; j < clicks.length; j += 2){
+				decomp.queryObject(clicks[j], clicks[j + 1]);
+			}
+			long mid = System.nanoTime();
+			for(int j = 0; j < clicks.length; j += 2){
+				state.getObject(clicks[j], clicks[j + 1]);
+			}
+			long end = System.nanoTime();
+			
+			if(i >= 0){
+				int[] counts = state.getObjectGrid().getCellCounts();
+				cellsResolved.accept((100 * (counts[0] + counts[1] + counts[2])) / (counts[0] + counts[1] + counts[2] + counts[3]));
+				timeQuery.accept((mid - start) / (clicks.length / 2));
+				timeGrid.accept((end - mid) / (clicks.length / 2));
+			}
+		}
+		
+		System.out.println("query ns: " + timeQuery.getAverage() + " " + timeQuery.getMin() + " " + timeQuery.getMax());
+		System.out.println("grid ns: " + timeGrid.getAverage() + " " + timeGrid.getMin() + " " + timeGrid.getMax());
+		System.out.println("grid resolved cells %: " + cellsResolved.getAverage() + " " + cellsResolved.getMin() + " " + cellsResolved.getMax());
+	}
+	
+	public static void decompLocate() throws InterruptedException{
+		LongSummaryStatistics timeQuery = new LongSummaryStatistics();
+		LongSummaryStatistics timeHinted = new LongSummaryStatistics();
+		Random r = new Random(0);
+		
+		for(int i = -10; i < 100; i++){
+			PlayfieldGenerator gen = new PlayfieldGenerator();
+			VerticalDecomposition decomp = new VerticalDecomposition(gen.generatePlayfield());
+			
+			double[] path = new double[20000];
+			double x = r.nextDouble() * Constants.PLAYFIELD_WIDTH;
+			double y = r.nextDouble() * Constants.PLAYFIELD_HEIGHT;
+			for(int j = 0; j < path.length; j += 2){
+				x = Math.max(0.0D, Math.min(Constants.PLAYFIELD_WIDTH, x + r.nextGaussian() * 5.0D));
+				y = Math.max(0.0D, Math.min(Constants.PLAYFIELD_HEIGHT, y + r.nextGaussian() * 5.0D));
+				path[j] = x;
+				path[j + 1] = y;
+			}
+			
+			DecompositionSnapshot snapshot = decomp.getSnapshot();
+			Hint hint = new Hint();
+			long start = System.nanoTime();
+			for(int j = 0; j < path.length; j += 2){
+				snapshot.queryObject(path[j], path[j + 1]);
+			}
+			long mid = System.nanoTime();
+			for(int j = 0; j < path.length; j += 2){
+				snapshot.queryObject(path[j], path[j + 1], hint);
+			}
+			long end = System.nanoTime();
+			
+			if(i >= 0){
+				timeQuery.accept((mid - start) / (path.length / 2));
+				timeHinted.accept((end - mid) / (path.length / 2));
+			}
+		}
+		
+		System.out.println("query ns: " + timeQuery.getAverage() + " " + timeQuery.getMin() + " " + timeQuery.getMax());
+		System.out.println("hinted ns: " + timeHinted.getAverage() + " " + timeHinted.getMin() + " " + timeHinted.getMax());
+	}
+	
+	public static void decompInsertionOrder() throws InterruptedException{
+		IntSummaryStatistics maxOrdered = new IntSummaryStatistics();
+		IntSummaryStatistics maxRandom = new IntSummaryStatistics();
+		DoubleSummaryStatistics avgOrdered = new DoubleSummaryStatistics();
+		DoubleSummaryStatistics avgRandom = new DoubleSummaryStatistics();
+		LongSummaryStatistics timeOrdered = new LongSummaryStatistics();
+		LongSummaryStatistics timeRandom = new LongSummaryStatistics();
+		
+		for(int i = -10; i < 100; i++){
+			PlayfieldGenerator gen = new PlayfieldGenerator();
+			gen.setRange(0, 100);
+			//gen.setRange(10, 20);
+			//gen.setRange(50, 100);
+			List<ConvexObject> objs = gen.generatePlayfield();
+			
+			long start = System.nanoTime();
+			VerticalDecomposition ordered = new VerticalDecomposition(objs);
+			long mid = System.nanoTime();
+			VerticalDecomposition random = new VerticalDecomposition(objs, gen.getSeed().hashCode());
+			long end = System.nanoTime();
+			
+			if(i < 0){
+				continue;
+			}
+			
+			IntSummaryStatistics os = ordered.getTrapezoids().stream().mapToInt(Trapezoid::getDepth).summaryStatistics();
+			IntSummaryStatistics rs = random.getTrapezoids().stream().mapToInt(Trapezoid::getDepth).summaryStatistics();
+			maxOrdered.accept(os.getMax());
+			maxRandom.accept(rs.getMax());
+			avgOrdered.accept(os.getAverage());
+			avgRandom.accept(rs.getAverage());
+			timeOrdered.accept(mid - start);
+			timeRandom.accept(end - mid);
+		}
+		
+		System.out.println("max depth ordered: " + maxOrdered.getAverage() + " " + maxOrdered.getMin() + " " + maxOrdered.getMax());
+		System.out.println("max depth random: " + maxRandom.getAverage() + " " + maxRandom.getMin() + " " + maxRandom.getMax());
+		System.out.println("avg depth ordered: " + avgOrdered.getAverage() + " " + avgOrdered.getMin() + " " + avgOrdered.getMax());
+		System.out.println("avg depth random: " + avgRandom.getAverage() + " " + avgRandom.getMin() + " " + avgRandom.getMax());
+		System.out.println("build ns ordered: " + timeOrdered.getAverage() + " " + timeOrdered.getMin() + " " + timeOrdered.getMax());
+		System.out.println("build ns random: " + timeRandom.getAverage() + " " + timeRandom.getMin() + " " + timeRandom.getMax());
 	}
 	
 	public static void decompDepth() throws InterruptedException{
@@ -0,0 +1,184 @@
+/*
+ * ConvexMerger:  An area maximisation game based on the idea of merging convex shapes.
+ * Copyright (C) 2021  Roan Hofland (roan@roanh.dev), Emiliyan Greshkov and contributors.
+ * GitHub Repository: https://github.com/RoanH/ConvexMerger
+ *
+ * ConvexMerger is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ConvexMerger is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package dev.roanh.convexmerger.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+
+import dev.roanh.convexmerger.player.GreedyPlayer;
+import dev.roanh.convexmerger.player.Player;
+import dev.roanh.convexmerger.player.SmallPlayer;
+
+public class AsyncStateListenerTest{
+
+	@Test
+	public void matchesSynchronous() throws InterruptedException{
+		GameState game = new GameState(new PlayfieldGenerator("3Y657GF0UKKHHRZ2NZD1"), Arrays.asList(new GreedyPlayer(), new SmallPlayer()));
+		RecordingListener sync = new RecordingListener(true);
+		RecordingListener async = new RecordingListener(false);
+		game.registerStateListener(sync);
+		game.registerStateListener(async);
+		game.init();
+		while(!game.isFinished()){
+			game.executePlayerTurn();
+		}
+		
+		game.awaitListeners();
+		assertTrue(sync.events.size() > 2);
+		assertEquals(sync.events, async.events);
+		assertEquals("end", async.events.get(async.events.size() - 1));
+		assertTrue(sync.threads.stream().allMatch(Thread.currentThread()::equals));
+		assertTrue(async.threads.stream().noneMatch(Thread.currentThread()::equals));
+	}
+	
+	@Test
+	public void slowListener() throws InterruptedException{
+		CountDownLatch release = new CountDownLatch(1);
+		RecordingListener slow = new RecordingListener(false){
+			
+			@Override
+			public void claim(Player player, ConvexObject obj){
+				try{
+					release.await();
+				}catch(InterruptedException e){
+					throw new IllegalStateException(e);
+				}
+				super.claim(player, obj);
+			}
+		};
+		
+		//the game thread does not block until the queue is full
+		AsyncStateListener async = new AsyncStateListener(slow, 4);
+		for(int i = 0; i < 5; i++){
+			async.claim(null, null);
+		}
+		assertTrue(slow.events.isEmpty());
+		
+		release.countDown();
+		async.end();
+		async.awaitDelivery();
+		assertEquals(6, slow.events.size());
+		
+		//events after the end of the game are dropped
+		async.claim(null, null);
+		async.awaitDelivery();
+		assertEquals(6, slow.events.size());
+	}
+	
+	@Test
+	public void endWithFullQueue() throws InterruptedException{
+		RecordingListener slow = new RecordingListener(false){
+			
+			@Override
+			public void claim(Player player, ConvexObject obj){
+				try{
+					Thread.sleep(20);
+				}catch(InterruptedException e){
+					throw new IllegalStateException(e);
+				}
+				super.claim(player, obj);
+			}
+		};
+		
+		//the end event is submitted while the queue is full
+		AsyncStateListener async = new AsyncStateListener(slow, 1);
+		for(int i = 0; i < 4; i++){
+			async.claim(null, null);
+		}
+		async.end();
+		async.awaitDelivery();
+		assertEquals(Arrays.asList("claim", "claim", "claim", "claim", "end"), slow.events);
+		
+		//the dispatch thread stops after delivering the end event
+		Thread dispatch = slow.threads.get(slow.threads.size() - 1);
+		dispatch.join(1000);
+		assertFalse(dispatch.isAlive());
+	}
+	
+	@Test
+	public void failingListener() throws InterruptedException{
+		RecordingListener failing = new RecordingListener(false){
+			
+			@Override
+			public void claim(Player player, ConvexObject obj){
+				super.claim(player, obj);
+				throw new IllegalStateException();
+			}
+		};
+		
+		AsyncStateListener async = new AsyncStateListener(failing);
+		async.claim(null, null);
+		async.claim(null, null);
+		async.abort();
+		async.awaitDelivery();
+		assertEquals(Arrays.asList("claim", "claim", "abort"), failing.events);
+		
+		assertThrows(IllegalArgumentException.class, ()->new AsyncStateListener(failing, 0));
+		assertFalse(async.getListener().isSynchronous());
+	}
+	
+	private static class RecordingListener implements GameStateListener{
+		private final boolean sync;
+		private final List<String> events = Collections.synchronizedList(new ArrayList<String>());
+		private final List<Thread> threads = Collections.synchronizedList(new ArrayList<Thread>());
+		
+		private RecordingListener(boolean sync){
+			this.sync = sync;
+		}
+		
+		@Override
+		public void claim(Player player, ConvexObject obj){
+			events.add(obj == null ? "claim" : ("claim " + obj.getID()));
+			threads.add(Thread.currentThread());
+		}
+
+		@Override
+		public void merge(Player player, ConvexObject source, ConvexObject target, ConvexObject result, List<ConvexObject> absorbed){
+			events.add("merge " + source.getID() + " " + target.getID() + " " + result.getID() + " " + absorbed.size());
+			threads.add(Thread.currentThread());
+		}
+
+		@Override
+		public void end(){
+			events.add("end");
+			threads.add(Thread.currentThread());
+		}
+
+		@Override
+		public void abort(){
+			events.add("abort");
+			threads.add(Thread.currentThread());
+		}
+		
+		@Override
+		public boolean isSynchronous(){
+			return sync;
+		}
+	}
+}
@@ -0,0 +1,265 @@
+/*
+ * ConvexMerger:  An area maximisation game based on the idea of merging convex shapes.
+ * Copyright (C) 2021  Roan Hofland (roan@roanh.dev), Emiliyan Greshkov and contributors.
+ * GitHub Repository: https://github.com/RoanH/ConvexMerger
+ *
+ * ConvexMerger is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ConvexMerger is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package dev.roanh.convexmerger.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import dev.roanh.convexmerger.player.GreedyPlayer;
+import dev.roanh.convexmerger.player.Player;
+import dev.roanh.convexmerger.player.SmallPlayer;
+
+public class GameStateTest{
+
+	@Test
+	public void objectIndex() throws InterruptedException{
+		GameState game = new GameState(new PlayfieldGenerator("3Y657GF0UKKHHRZ2NZD1"), Arrays.asList(new GreedyPlayer(), new SmallPlayer()));
+		game.init();
+		assertEquals(game.getObjects().size(), game.getMaxObjectID());
+		
+		while(!game.isFinished()){
+			game.executePlayerTurn();
+			
+			int max = game.getObjects().stream().mapToInt(ConvexObject::getID).max().getAsInt();
+			assertEquals(max, game.getMaxObjectID());
+			
+			int found = 0;
+			for(int id = 0; id <= max + 1; id++){
+				ConvexObject obj = game.getObjectByID(id);
+				if(obj != null){
+					assertEquals(id, obj.getID());
+					assertTrue(game.getObjects().contains(obj));
+					found++;
+				}
+			}
+			assertEquals(game.getObjects().size(), found);
+		}
+		
+		assertNull(game.getObjectByID(game.getMaxObjectID() + 1));
+	}
+	
+	@Test
+	public void forkMatchesGame() throws InterruptedException{
+		GameState game = new GameState(new PlayfieldGenerator("3Y657GF0UKKHHRZ2NZD1"), Arrays.asList(new GreedyPlayer(), new SmallPlayer()));
+		List<int[]> moves = record(game);
+		game.init();
+		
+		GameState base = new GameState(new PlayfieldGenerator("3Y657GF0UKKHHRZ2NZD1"), Arrays.asList(new GreedyPlayer(), new GreedyPlayer()));
+		base.init();
+		List<ConvexObject> initial = new ArrayList<ConvexObject>(base.getObjects());
+		GameState fork = base.fork();
+		GameState mid = null;
+		
+		while(!game.isFinished()){
+			game.executePlayerTurn();
+			for(int[] move : moves){
+				replay(fork, move);
+			}
+			moves.clear();
+			
+			assertSame(game, fork);
+			if(mid == null && game.getObjects().size() < initial.size() - 10){
+				mid = fork;
+				fork = fork.fork();
+			}
+		}
+		
+		//the parent states are never modified
+		assertEquals(initial, base.getObjects());
+		assertTrue(base.getObjects().stream().noneMatch(ConvexObject::isOwned));
+		assertEquals(0.0D, base.getPlayers().get(0).getArea());
+		assertTrue(mid.getObjects().size() > fork.getObjects().size());
+		assertTrue(mid.getArea(mid.getPlayers().get(0)) < fork.getArea(fork.getPlayers().get(0)));
+		
+		//forks of modified states fail
+		GameState child = mid.fork();
+		mid.claimObject(mid.getObjects().stream().filter(ConvexObject::canClaim).findFirst().orElse(mid.getObjects().get(0)));
+		assertThrows(IllegalStateException.class, ()->child.claimObject(child.getObjects().get(0)));
+		assertThrows(IllegalStateException.class, ()->child.executePlayerTurn());
+	}
+	
+	@Test
+	public void concurrentForks() throws Exception{
+		GameState game = new GameState(new PlayfieldGenerator("3Y64YQ01S7B35T82PK9G"), Arrays.asList(new GreedyPlayer(), new GreedyPlayer()));
+		List<int[]> moves = record(game);
+		game.init();
+		while(!game.isFinished()){
+			game.executePlayerTurn();
+		}
+		
+		GameState base = new GameState(new PlayfieldGenerator("3Y64YQ01S7B35T82PK9G"), Arrays.asList(new GreedyPlayer(), new GreedyPlayer()));
+		base.init();
+		int half = moves.size() / 2;
+		for(int[] move : moves.subList(0, half)){
+			replay(base, move);
+		}
+		
+		//all forks query the segment trees of the shared parent at the same time
+		List<Callable<String>> tasks = new ArrayList<Callable<String>>();
+		for(int i = 0; i < 16; i++){
+			tasks.add(()->{
+				GameState fork = base.fork();
+				for(int[] move : moves.subList(half, moves.size())){
+					replay(fork, move);
+				}
+				return describe(fork);
+			});
+		}
+		
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try{
+			for(Future<String> result : executor.invokeAll(tasks)){
+				assertEquals(describe(game), result.get());
+			}
+		}finally{
+			executor.shutdown();
+		}
+	}
+	
+	@Test
+	public void undoRedo() throws InterruptedException{
+		GameState game = new GameState(new PlayfieldGenerator("3Y64YQ01S7B35T82PK9G"), Arrays.asList(new GreedyPlayer(), new GreedyPlayer()));
+		List<int[]> moves = record(game);
+		game.init();
+		while(!game.isFinished()){
+			game.executePlayerTurn();
+		}
+		
+		GameState base = new GameState(new PlayfieldGenerator("3Y64YQ01S7B35T82PK9G"), Arrays.asList(new GreedyPlayer(), new GreedyPlayer()));
+		base.init();
+		GameState fork = base.fork();
+		assertThrows(IllegalStateException.class, ()->base.undo());
+		assertFalse(fork.undo());
+		
+		List<String> states = new ArrayList<String>();
+		states.add(describe(fork));
+		for(int[] move : moves){
+			replay(fork, move);
+			states.add(describe(fork));
+		}
+		assertEquals(describe(game), describe(fork));
+		
+		//unmake every move
+		for(int i = states.size() - 2; i >= 0; i--){
+			assertTrue(fork.undo());
+			assertEquals(states.get(i), describe(fork));
+		}
+		assertFalse(fork.undo());
+		
+		//make every move again
+		for(int i = 1; i < states.size(); i++){
+			assertTrue(fork.redo());
+			assertEquals(states.get(i), describe(fork));
+		}
+		assertFalse(fork.redo());
+		
+		//replaying after undoing gives the same result and clears the redo journal
+		for(int i = 0; i < 6; i++){
+			fork.undo();
+		}
+		for(int[] move : moves.subList(moves.size() - 6, moves.size())){
+			replay(fork, move);
+		}
+		assertFalse(fork.canRedo());
+		assertEquals(describe(game), describe(fork));
+	}
+	
+	private List<int[]> record(GameState game){
+		List<int[]> moves = new ArrayList<int[]>();
+		game.registerStateListener(new GameStateListener(){
+			@Override
+			public void claim(Player player, ConvexObject obj){
+				moves.add(new int[]{obj.getID()});
+			}
+			
+			@Override
+			public void merge(Player player, ConvexObject source, ConvexObject target, ConvexObject result, List<ConvexObject> absorbed){
+				moves.add(new int[]{source.getID(), target.getID()});
+			}
+			
+			@Override
+			public void end(){
+			}
+			
+			@Override
+			public void abort(){
+			}
+		});
+		return moves;
+	}
+	
+	private void replay(GameState fork, int[] move) throws InterruptedException{
+		ConvexObject source = fork.getObjectByID(move[0]);
+		if(move.length == 1){
+			fork.claimObject(source);
+		}else{
+			ConvexObject target = fork.getObjectByID(move[1]);
+			if(target.isOwned()){
+				fork.claimObject(target);
+				fork.claimObject(source);
+			}else{
+				fork.claimObject(source);
+				fork.claimObject(target);
+			}
+		}
+	}
+	
+	private String describe(GameState state){
+		StringBuilder buf = new StringBuilder();
+		buf.append(state.getActivePlayer().getID()).append(' ').append(state.getMaxObjectID());
+		for(ConvexObject obj : state.getObjects()){
+			buf.append(' ').append(obj.getID()).append(':').append(obj.isOwned() ? obj.getOwner().getID() : 0);
+			assertTrue(obj == state.getObjectByID(obj.getID()));
+		}
+		
+		for(Player player : state.getPlayers()){
+			buf.append(' ').append(Math.round(state.getArea(player)));
+		}
+		return buf.toString();
+	}
+	
+	private void assertSame(GameState expected, GameState fork){
+		assertTrue(fork.isFork());
+		assertFalse(expected.isFork());
+		assertEquals(expected.getObjects(), fork.getObjects());
+		for(ConvexObject obj : expected.getObjects()){
+			ConvexObject other = fork.getObjectByID(obj.getID());
+			assertEquals(obj.getPoints(), other.getPoints());
+			assertEquals(expected.getPlayers().indexOf(obj.getOwner()), fork.getPlayers().indexOf(other.getOwner()));
+			assertTrue(other == fork.getObject(obj.getCentroid()));
+		}
+		
+		for(int i = 0; i < expected.getPlayerCount(); i++){
+			assertEquals(expected.getPlayers().get(i).getArea(), fork.getArea(fork.getPlayers().get(i)), 0.0001D);
+		}
+	}
+}
@@ -0,0 +1,87 @@
+/*
+ * ConvexMerger:  An area maximisation game based on the idea of merging convex shapes.
+ * Copyright (C) 2021  Roan Hofland (roan@roanh.dev), Emiliyan Greshkov and contributors.
+ * GitHub Repository: https://github.com/RoanH/ConvexMerger
+ *
+ * ConvexMerger is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ConvexMerger is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package dev.roanh.convexmerger.game;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import dev.roanh.convexmerger.Constants;
+import dev.roanh.convexmerger.player.GreedyPlayer;
+import dev.roanh.convexmerger.player.Player;
+import dev.roanh.convexmerger.player.SmallPlayer;
+
+public class TurnSchedulerTest{
+
+	@Test
+	public void turboSkipsAnimations() throws InterruptedException{
+		GameState game = new GameState(new PlayfieldGenerator("3Y657GF0UKKHHRZ2NZD1"), Arrays.asList(new GreedyPlayer(), new SmallPlayer()));
+		game.setTurnScheduler(TurnScheduler.TURBO);
+		game.getVerticalDecomposition().setAnimated(true);
+		game.init();
+		
+		long start = System.currentTimeMillis();
+		TurnScheduler.TURBO.beforeGame(game);
+		while(!game.isFinished()){
+			Player player = game.getActivePlayer();
+			TurnScheduler.TURBO.beforeTurn(player);
+			game.executePlayerTurn();
+			TurnScheduler.TURBO.afterTurn(player, 0);
+			
+			for(ConvexObject obj : game.getObjects()){
+				assertFalse(obj.hasAnimation());
+			}
+		}
+		
+		//interactive pacing would take at least the minimum turn time for every turn
+		assertTrue(System.currentTimeMillis() - start < game.getRounds() * Constants.MIN_TURN_TIME);
+	}
+	
+	@Test
+	public void interactiveAnimates() throws InterruptedException{
+		GameState game = new GameState(new PlayfieldGenerator("3Y657GF0UKKHHRZ2NZD1"), Arrays.asList(new GreedyPlayer(), new SmallPlayer()));
+		game.init();
+		game.executePlayerTurn();
+		assertTrue(game.getObjects().stream().anyMatch(ConvexObject::hasAnimation));
+	}
+	
+	@Test
+	public void budgetedMovesStayValid() throws InterruptedException{
+		GameState game = new GameState(new PlayfieldGenerator("3Y657GF0UKKHHRZ2NZD1"), Arrays.asList(new GreedyPlayer(), new SmallPlayer()));
+		game.init();
+		
+		int turns = 0;
+		while(!game.isFinished()){
+			//a deadline in the past makes players use the first move they find
+			Player player = game.getActivePlayer();
+			player.setTurnDeadline(System.nanoTime() - 1);
+			game.executePlayerTurn();
+			player.clearTurnDeadline();
+			turns++;
+		}
+		
+		assertTrue(turns > 1);
+		assertTrue(game.getPlayers().stream().allMatch(p->p.getArea() > 0.0D));
+		assertThrows(IllegalArgumentException.class, ()->TurnScheduler.budgeted(0));
+	}
+}
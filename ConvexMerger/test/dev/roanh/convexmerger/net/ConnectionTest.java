@@ -0,0 +1,106 @@
+/*
+ * ConvexMerger:  An area maximisation game based on the idea of merging convex shapes.
+ * Copyright (C) 2021  Roan Hofland (roan@roanh.dev), Emiliyan Greshkov and contributors.
+ * GitHub Repository: https://github.com/RoanH/ConvexMerger
+ *
+ * ConvexMerger is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ConvexMerger is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package dev.roanh.convexmerger.net;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import dev.roanh.convexmerger.net.packet.PacketGameEnd;
+
+public class ConnectionTest{
+
+	@Test
+	@Timeout(10)
+	public void deliverQueued() throws Exception{
+		Connection[] pair = connect();
+		for(int i = 0; i < 200; i++){
+			pair[0].queuePacket(new PacketGameEnd());
+		}
+		pair[0].closeWhenSent();
+		
+		for(int i = 0; i < 200; i++){
+			assertTrue(pair[1].readPacket() instanceof PacketGameEnd);
+		}
+		
+		pair[1].close();
+	}
+	
+	@Test
+	@Timeout(10)
+	public void queueAfterClose() throws Exception{
+		Connection[] pair = connect();
+		pair[0].queuePacket(new PacketGameEnd());
+		pair[0].close();
+		pair[1].close();
+		
+		Thread game = new Thread(()->{
+			for(int i = 0; i < 1000; i++){
+				pair[0].queuePacket(new PacketGameEnd());
+			}
+		});
+		game.start();
+		game.join(5000);
+		assertFalse(game.isAlive());
+	}
+	
+	@Test
+	@Timeout(10)
+	public void closeWhileQueueFull() throws Exception{
+		Connection[] pair = connect();
+		
+		//nobody reads the other end so eventually the outbox fills up
+		Thread game = new Thread(()->{
+			while(!pair[0].isClosed()){
+				pair[0].queuePacket(new PacketGameEnd());
+			}
+			
+			pair[0].queuePacket(new PacketGameEnd());
+		});
+		game.start();
+		
+		Thread.sleep(500);
+		pair[0].close();
+		pair[1].close();
+		game.join(5000);
+		assertFalse(game.isAlive());
+	}
+	
+	private static Connection[] connect() throws Exception{
+		try(ServerSocket server = new ServerSocket(0)){
+			CompletableFuture<Connection> remote = CompletableFuture.supplyAsync(()->{
+				try{
+					return new Connection(server.accept());
+				}catch(IOException e){
+					throw new RuntimeException(e);
+				}
+			});
+			
+			Connection local = new Connection(new Socket(server.getInetAddress(), server.getLocalPort()));
+			return new Connection[]{local, remote.get()};
+		}
+	}
+}
@@ -0,0 +1,132 @@
+/*
+ * ConvexMerger:  An area maximisation game based on the idea of merging convex shapes.
+ * Copyright (C) 2021  Roan Hofland (roan@roanh.dev), Emiliyan Greshkov and contributors.
+ * GitHub Repository: https://github.com/RoanH/ConvexMerger
+ *
+ * ConvexMerger is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ConvexMerger is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package dev.roanh.convexmerger.replay;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import dev.roanh.convexmerger.game.ConvexObject;
+import dev.roanh.convexmerger.game.GameState;
+import dev.roanh.convexmerger.game.PlayfieldGenerator;
+import dev.roanh.convexmerger.player.GreedyPlayer;
+import dev.roanh.convexmerger.player.SmallPlayer;
+
+public class ReplayTest{
+	private static final String SEED = "3Y657GF0UKKHHRZ2NZD1";
+
+	@Test
+	public void replayGame() throws InterruptedException, IOException{
+		GameState game = new GameState(new PlayfieldGenerator(SEED), Arrays.asList(new GreedyPlayer(), new SmallPlayer()));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ReplayWriter writer = new ReplayWriter(game, out);
+		game.registerStateListener(writer);
+		game.init();
+		while(!game.isFinished()){
+			game.executePlayerTurn();
+		}
+		game.awaitListeners();
+		writer.close();
+		assertTrue(out.size() < 1024);
+		
+		ReplayReader reader = new ReplayReader(new ByteArrayInputStream(out.toByteArray()));
+		assertEquals(SEED, reader.getSeed());
+		assertEquals(2, reader.getPlayerCount());
+		assertEquals(game.getPlayers().get(0).getName(), reader.getPlayerName(0));
+		assertTrue(reader.isAI(1));
+		assertFalse(reader.isComplete());
+		
+		GameState replay = reader.replay();
+		assertTrue(reader.isComplete());
+		assertTrue(replay.isFinished());
+		assertSameState(game, replay);
+	}
+	
+	@Test
+	public void replayAborted() throws InterruptedException, IOException{
+		GameState game = new GameState(new PlayfieldGenerator(SEED), Arrays.asList(new GreedyPlayer(), new GreedyPlayer()));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ReplayWriter writer = new ReplayWriter(game, out);
+		game.registerStateListener(writer);
+		game.init();
+		for(int i = 0; i < 10; i++){
+			game.executePlayerTurn();
+		}
+		game.awaitListeners();
+		
+		ReplayReader reader = new ReplayReader(new ByteArrayInputStream(out.toByteArray()));
+		GameState replay = reader.replay();
+		assertFalse(reader.isComplete());
+		assertFalse(replay.isFinished());
+		assertSameState(game, replay);
+	}
+	
+	@Test
+	public void invalidReplay() throws IOException{
+		assertThrows(IOException.class, ()->new ReplayReader(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5})));
+		
+		GameState game = new GameState(new PlayfieldGenerator(SEED), Arrays.asList(new GreedyPlayer(), new GreedyPlayer()));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new ReplayWriter(game, out);
+		
+		//claim of an object that does not exist
+		ReplayWriter.writeVarInt(out, 100000 << 1);
+		ReplayReader reader = new ReplayReader(new ByteArrayInputStream(out.toByteArray()));
+		assertThrows(IOException.class, ()->reader.replay());
+	}
+	
+	@Test
+	public void varInt() throws IOException{
+		int[] values = new int[]{0, 1, 127, 128, 300, 16383, 16384, Integer.MAX_VALUE, -1, Integer.MIN_VALUE};
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		for(int value : values){
+			ReplayWriter.writeVarInt(out, value);
+		}
+		
+		ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+		for(int value : values){
+			assertEquals(value, ReplayReader.readVarInt(in));
+		}
+		assertEquals(-1, in.read());
+	}
+	
+	private void assertSameState(GameState expected, GameState actual){
+		assertEquals(expected.getObjects().size(), actual.getObjects().size());
+		for(int i = 0; i < expected.getObjects().size(); i++){
+			ConvexObject a = expected.getObjects().get(i);
+			ConvexObject b = actual.getObjects().get(i);
+			assertEquals(a.getID(), b.getID());
+			assertEquals(a.getPoints(), b.getPoints());
+			assertEquals(a.isOwned() ? expected.getPlayers().indexOf(a.getOwner()) : -1, b.isOwned() ? actual.getPlayers().indexOf(b.getOwner()) : -1);
+		}
+		
+		for(int i = 0; i < expected.getPlayers().size(); i++){
+			assertEquals(expected.getPlayers().get(i).getArea(), actual.getPlayers().get(i).getArea());
+		}
+		assertEquals(expected.getRounds(), actual.getRounds());
+	}
+}
@@ -0,0 +1,160 @@
+/*
+ * ConvexMerger:  An area maximisation game based on the idea of merging convex shapes.
+ * Copyright (C) 2021  Roan Hofland (roan@roanh.dev), Emiliyan Greshkov and contributors.
+ * GitHub Repository: https://github.com/RoanH/ConvexMerger
+ *
+ * ConvexMerger is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ConvexMerger is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package dev.roanh.convexmerger.tournament;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+import dev.roanh.convexmerger.game.ConvexObject;
+import dev.roanh.convexmerger.game.GameState;
+import dev.roanh.convexmerger.player.AIRegistry;
+import dev.roanh.convexmerger.replay.ReplayReader;
+import dev.roanh.convexmerger.util.DecompositionCache;
+import dev.roanh.convexmerger.util.SegmentPartitionTree;
+import dev.roanh.convexmerger.util.VerticalDecomposition;
+
+public class TournamentTest{
+	private static final List<String> SEEDS = Arrays.asList("3Y657GF0UKKHHRZ2NZD1", "3Y64YQ01S7B35T82PK9G");
+
+	@Test
+	public void matchups(){
+		Tournament tournament = new Tournament(SEEDS, 2);
+		assertEquals(AIRegistry.values().length * (AIRegistry.values().length - 1), tournament.getMatchups().size());
+		assertEquals(SEEDS.size() * tournament.getMatchups().size(), tournament.getGameCount());
+		for(List<AIRegistry> matchup : tournament.getMatchups()){
+			assertEquals(2, matchup.size());
+			assertTrue(matchup.get(0) != matchup.get(1));
+		}
+		
+		assertEquals(6, new Tournament(SEEDS, 3).getMatchups().size());
+		assertThrows(IllegalArgumentException.class, ()->new Tournament(SEEDS, 0));
+		assertThrows(IllegalArgumentException.class, ()->new Tournament(SEEDS, AIRegistry.values().length + 1));
+	}
+	
+	@Test
+	public void parallelMatchesSequential() throws InterruptedException{
+		Tournament tournament = new Tournament(SEEDS, 2);
+		TournamentResult sequential = tournament.run(1);
+		TournamentResult parallel = tournament.run(4);
+		
+		assertEquals(tournament.getGameCount(), parallel.getGames().size());
+		for(int i = 0; i < tournament.getGameCount(); i++){
+			GameResult expected = sequential.getGames().get(i);
+			GameResult actual = parallel.getGames().get(i);
+			assertEquals(i, actual.getGame());
+			assertEquals(expected.getSeed(), actual.getSeed());
+			assertEquals(expected.getPlayers(), actual.getPlayers());
+			assertEquals(expected.getRounds(), actual.getRounds());
+			for(int p = 0; p < 2; p++){
+				assertEquals(expected.getArea(p), actual.getArea(p));
+			}
+		}
+		
+		double wins = 0.0D;
+		for(AIRegistry ai : AIRegistry.values()){
+			TournamentResult.Standing standing = parallel.getStanding(ai);
+			assertEquals(SEEDS.size() * 2 * (AIRegistry.values().length - 1), standing.getGames());
+			assertEquals(sequential.getStanding(ai).getWins(), standing.getWins());
+			assertTrue(standing.getScorePercentile(0.0D) <= standing.getScorePercentile(0.5D));
+			assertTrue(standing.getScorePercentile(0.5D) <= standing.getScorePercentile(1.0D));
+			assertTrue(standing.getTurnTimes().getCount() > 0);
+			wins += standing.getWins();
+		}
+		assertEquals(tournament.getGameCount(), wins, 0.000001D);
+	}
+	
+	@Test
+	public void replays() throws InterruptedException, IOException{
+		Path dir = Files.createTempDirectory("replays");
+		try{
+			Tournament tournament = new Tournament(SEEDS.subList(0, 1), 2);
+			tournament.setReplayDirectory(dir);
+			TournamentResult result = tournament.run(2);
+			
+			for(GameResult game : result.getGames()){
+				try(InputStream in = Files.newInputStream(dir.resolve(String.format("%06d.cmr", game.getGame())))){
+					ReplayReader reader = new ReplayReader(in);
+					GameState replay = reader.replay();
+					assertTrue(reader.isComplete());
+					assertEquals(game.getSeed(), reader.getSeed());
+					for(int p = 0; p < 2; p++){
+						assertEquals(game.getArea(p), replay.getPlayers().get(p).getArea());
+					}
+				}
+			}
+		}finally{
+			delete(dir);
+		}
+	}
+
+	@Test
+	public void decompositionCache() throws InterruptedException, IOException{
+		Path dir = Files.createTempDirectory("decomp");
+		try{
+			AtomicInteger loaded = new AtomicInteger();
+			Tournament tournament = new Tournament(SEEDS, 2);
+			tournament.setDecompositionCache(new DecompositionCache(dir){
+				
+				@Override
+				public boolean load(String seed, List<ConvexObject> objects, VerticalDecomposition decomp, SegmentPartitionTree<?>... trees){
+					boolean success = super.load(seed, objects, decomp, trees);
+					if(success){
+						loaded.incrementAndGet();
+					}
+					return success;
+				}
+			});
+			
+			//only the first game on every seed builds the decomposition
+			TournamentResult cached = tournament.run(1);
+			assertEquals(tournament.getGameCount() - SEEDS.size(), loaded.get());
+			
+			tournament.setDecompositionCache(null);
+			TournamentResult plain = tournament.run(1);
+			for(int i = 0; i < tournament.getGameCount(); i++){
+				for(int p = 0; p < 2; p++){
+					assertEquals(plain.getGames().get(i).getArea(p), cached.getGames().get(i).getArea(p));
+				}
+			}
+		}finally{
+			delete(dir);
+		}
+	}
+
+	private void delete(Path dir) throws IOException{
+		try(Stream<Path> files = Files.walk(dir)){
+			for(Path file : (Iterable<Path>)files.sorted(Comparator.reverseOrder())::iterator){
+				Files.delete(file);
+			}
+		}
+	}
+}
@@ -0,0 +1,246 @@
+/*
+ * ConvexMerger:  An area maximisation game based on the idea of merging convex shapes.
+ * Copyright (C) 2021  Roan Hofland (roan@roanh.dev), Emiliyan Greshkov and contributors.
+ * GitHub Repository: https://github.com/RoanH/ConvexMerger
+ *
+ * ConvexMerger is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ConvexMerger is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package dev.roanh.convexmerger.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.geom.Point2D;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+import dev.roanh.convexmerger.Constants;
+import dev.roanh.convexmerger.game.ConvexObject;
+import dev.roanh.convexmerger.game.GameState;
+import dev.roanh.convexmerger.game.PlayfieldGenerator;
+import dev.roanh.convexmerger.player.GreedyPlayer;
+import dev.roanh.convexmerger.util.SegmentPartitionTree.LineSegment;
+
+public class DecompositionCacheTest{
+	private static final String SEED = "3Y657GF0UKKHHRZ2NZD1";
+
+	@Test
+	public void storeAndLoad() throws InterruptedException, IOException{
+		Path dir = Files.createTempDirectory("decomp");
+		try{
+			DecompositionCache cache = new DecompositionCache(dir);
+			List<ConvexObject> objects = new PlayfieldGenerator(SEED).generatePlayfield();
+			assertFalse(cache.load(SEED, objects, new VerticalDecomposition()));
+
+			VerticalDecomposition built = new VerticalDecomposition(objects, Objects.hashCode(SEED));
+			assertTrue(cache.store(SEED, objects, built));
+			assertTrue(Files.exists(cache.getFile(SEED)));
+
+			VerticalDecomposition loaded = new VerticalDecomposition();
+			assertTrue(cache.load(SEED, objects, loaded));
+			assertEquals(built.getTrapezoids().size(), loaded.getTrapezoids().size());
+			assertEquals(built.getLines().size(), loaded.getLines().size());
+			assertEquals(built.getHeight(), loaded.getHeight());
+
+			Random r = new Random(0);
+			for(int i = 0; i < 10000; i++){
+				double x = r.nextDouble() * Constants.PLAYFIELD_WIDTH;
+				double y = r.nextDouble() * Constants.PLAYFIELD_HEIGHT;
+				assertTrue(built.queryObject(x, y) == loaded.queryObject(x, y));
+				assertTrue(built.queryObject(x, y) == loaded.getSnapshot().queryObject(x, y));
+			}
+
+			//a different playfield does not match the cached checksum
+			assertFalse(cache.load(SEED, new PlayfieldGenerator("3Y64YQ01S7B35T82PK9G").generatePlayfield(), new VerticalDecomposition()));
+		}finally{
+			delete(dir);
+		}
+	}
+
+	@Test
+	public void cachedGame() throws InterruptedException, IOException{
+		Path dir = Files.createTempDirectory("decomp");
+		try{
+			SpyCache cache = new SpyCache(dir);
+			GameState first = new GameState(new PlayfieldGenerator(SEED), Arrays.asList(new GreedyPlayer(), new GreedyPlayer()));
+			first.setDecompositionCache(cache);
+			first.init();
+			assertTrue(Files.exists(cache.getFile(SEED)));
+			assertEquals(0, cache.loaded);
+			assertEquals(1, cache.stored);
+
+			GameState plain = new GameState(new PlayfieldGenerator(SEED), Arrays.asList(new GreedyPlayer(), new GreedyPlayer()));
+			plain.init();
+			GameState cached = new GameState(new PlayfieldGenerator(SEED), Arrays.asList(new GreedyPlayer(), new GreedyPlayer()));
+			cached.setDecompositionCache(cache);
+			cached.init();
+			assertEquals(1, cache.loaded);
+			assertEquals(1, cache.stored);
+			assertEquals(plain.getSegmentTreeConj().streamCells().count(), cached.getSegmentTreeConj().streamCells().count());
+			assertEquals(plain.getSegmentTreeKD().streamCells().count(), cached.getSegmentTreeKD().streamCells().count());
+
+			//merges on a loaded decomposition behave exactly like on a built one
+			Random r = new Random(0);
+			while(!plain.isFinished()){
+				assertFalse(cached.isFinished());
+				plain.executePlayerTurn();
+				cached.executePlayerTurn();
+
+				for(int i = 0; i < 500; i++){
+					double x = r.nextDouble() * Constants.PLAYFIELD_WIDTH;
+					double y = r.nextDouble() * Constants.PLAYFIELD_HEIGHT;
+					ConvexObject expected = plain.getVerticalDecomposition().queryObject(x, y);
+					ConvexObject actual = cached.getVerticalDecomposition().queryObject(x, y);
+					assertEquals(expected == null ? 0 : expected.getID(), actual == null ? 0 : actual.getID());
+				}
+				
+				for(int i = 0; i < 100; i++){
+					Point2D a = new Point2D.Double(r.nextDouble() * Constants.PLAYFIELD_WIDTH, r.nextDouble() * Constants.PLAYFIELD_HEIGHT);
+					Point2D b = new Point2D.Double(r.nextDouble() * Constants.PLAYFIELD_WIDTH, r.nextDouble() * Constants.PLAYFIELD_HEIGHT);
+					assertEquals(plain.getSegmentTreeConj().intersects(a, b), cached.getSegmentTreeConj().intersects(a, b));
+					assertEquals(plain.getSegmentTreeKD().intersects(a, b), cached.getSegmentTreeKD().intersects(a, b));
+				}
+			}
+			assertTrue(cached.isFinished());
+		}finally{
+			delete(dir);
+		}
+	}
+
+	@Test
+	public void storeAndLoadTrees() throws InterruptedException, IOException{
+		Path dir = Files.createTempDirectory("decomp");
+		try{
+			DecompositionCache cache = new DecompositionCache(dir);
+			List<ConvexObject> objects = new PlayfieldGenerator(SEED).generatePlayfield();
+			SegmentPartitionTree<ConjugationTree<LineSegment>> conj = SegmentPartitionTree.TYPE_CONJUGATION_TREE.fromObjects(objects);
+			SegmentPartitionTree<KDTree<LineSegment>> kd = SegmentPartitionTree.TYPE_KD_TREE.fromObjects(objects);
+			VerticalDecomposition built = new VerticalDecomposition(objects, Objects.hashCode(SEED));
+			assertTrue(cache.store(SEED, objects, built, conj, kd));
+			
+			//the number of trees has to match
+			assertFalse(cache.load(SEED, objects, new VerticalDecomposition()));
+			
+			SegmentPartitionTree<ConjugationTree<LineSegment>> loadedConj = SegmentPartitionTree.TYPE_CONJUGATION_TREE.empty();
+			SegmentPartitionTree<KDTree<LineSegment>> loadedKD = SegmentPartitionTree.TYPE_KD_TREE.empty();
+			assertTrue(cache.load(SEED, objects, new VerticalDecomposition(), loadedConj, loadedKD));
+			assertEquals(conj.streamCells().count(), loadedConj.streamCells().count());
+			assertEquals(kd.streamCells().count(), loadedKD.streamCells().count());
+			assertEquals(conj.streamCells().mapToInt(cell->cell.getData().size()).sum(), loadedConj.streamCells().mapToInt(cell->cell.getData().size()).sum());
+			assertEquals(kd.streamCells().mapToInt(cell->cell.getData().size()).sum(), loadedKD.streamCells().mapToInt(cell->cell.getData().size()).sum());
+			
+			Random r = new Random(0);
+			for(int i = 0; i < 10000; i++){
+				Point2D a = new Point2D.Double(r.nextDouble() * Constants.PLAYFIELD_WIDTH, r.nextDouble() * Constants.PLAYFIELD_HEIGHT);
+				Point2D b = new Point2D.Double(r.nextDouble() * Constants.PLAYFIELD_WIDTH, r.nextDouble() * Constants.PLAYFIELD_HEIGHT);
+				assertEquals(conj.intersects(a, b), loadedConj.intersects(a, b));
+				assertEquals(kd.intersects(a, b), loadedKD.intersects(a, b));
+			}
+			
+			//segments can still be added to loaded trees
+			Point2D a = objects.get(0).getPoints().get(0);
+			Point2D b = objects.get(1).getPoints().get(0);
+			conj.addSegment(a, b);
+			loadedConj.addSegment(a, b);
+			kd.addSegment(a, b);
+			loadedKD.addSegment(a, b);
+			for(int i = 0; i < 1000; i++){
+				Point2D p = new Point2D.Double(r.nextDouble() * Constants.PLAYFIELD_WIDTH, r.nextDouble() * Constants.PLAYFIELD_HEIGHT);
+				Point2D q = new Point2D.Double(r.nextDouble() * Constants.PLAYFIELD_WIDTH, r.nextDouble() * Constants.PLAYFIELD_HEIGHT);
+				assertEquals(conj.intersects(p, q), loadedConj.intersects(p, q));
+				assertEquals(kd.intersects(p, q), loadedKD.intersects(p, q));
+			}
+		}finally{
+			delete(dir);
+		}
+	}
+	
+	@Test
+	public void corruptCounts() throws InterruptedException, IOException{
+		Path dir = Files.createTempDirectory("decomp");
+		try{
+			DecompositionCache cache = new DecompositionCache(dir);
+			List<ConvexObject> objects = new PlayfieldGenerator(SEED).generatePlayfield();
+			assertTrue(cache.store(SEED, objects, new VerticalDecomposition(objects, Objects.hashCode(SEED))));
+			assertTrue(cache.load(SEED, objects, new VerticalDecomposition()));
+			
+			//the line count follows the header, number of trees and extra points
+			try(FileChannel channel = FileChannel.open(cache.getFile(SEED), StandardOpenOption.READ, StandardOpenOption.WRITE)){
+				ByteBuffer extra = ByteBuffer.allocate(4);
+				channel.read(extra, 20);
+				long offset = 24 + 16L * ((ByteBuffer)extra.flip()).getInt();
+				for(int count : new int[]{-1, Integer.MIN_VALUE, Integer.MAX_VALUE, 100000000}){
+					channel.write((ByteBuffer)ByteBuffer.allocate(4).putInt(count).flip(), offset);
+					assertFalse(cache.load(SEED, objects, new VerticalDecomposition()));
+				}
+			}
+			
+			//a truncated file is treated as missing
+			try(FileChannel channel = FileChannel.open(cache.getFile(SEED), StandardOpenOption.WRITE)){
+				channel.truncate(channel.size() / 2);
+			}
+			assertFalse(cache.load(SEED, objects, new VerticalDecomposition()));
+		}finally{
+			delete(dir);
+		}
+	}
+	
+	private static class SpyCache extends DecompositionCache{
+		private int loaded = 0;
+		private int stored = 0;
+		
+		private SpyCache(Path dir){
+			super(dir);
+		}
+		
+		@Override
+		public boolean load(String seed, List<ConvexObject> objects, VerticalDecomposition decomp, SegmentPartitionTree<?>... trees){
+			boolean success = super.load(seed, objects, decomp, trees);
+			if(success){
+				loaded++;
+			}
+			return success;
+		}
+		
+		@Override
+		public boolean store(String seed, List<ConvexObject> objects, VerticalDecomposition decomp, SegmentPartitionTree<?>... trees){
+			boolean success = super.store(seed, objects, decomp, trees);
+			if(success){
+				stored++;
+			}
+			return success;
+		}
+	}
+	
+	private void delete(Path dir) throws IOException{
+		try(Stream<Path> files = Files.walk(dir)){
+			for(Path file : (Iterable<Path>)files.sorted(Comparator.reverseOrder())::iterator){
+				Files.delete(file);
+			}
+		}
+	}
+}
@@ -0,0 +1,141 @@
+/*
+ * ConvexMerger:  An area maximisation game based on the idea of merging convex shapes.
+ * Copyright (C) 2021  Roan Hofland (roan@roanh.dev), Emiliyan Greshkov and contributors.
+ * GitHub Repository: https://github.com/RoanH/ConvexMerger
+ *
+ * ConvexMerger is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ConvexMerger is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package dev.roanh.convexmerger.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.geom.Point2D;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import dev.roanh.convexmerger.game.ConvexObject;
+import dev.roanh.convexmerger.game.GameState;
+import dev.roanh.convexmerger.game.GameStateListener;
+import dev.roanh.convexmerger.game.PlayfieldGenerator;
+import dev.roanh.convexmerger.player.GreedyPlayer;
+import dev.roanh.convexmerger.player.Player;
+import dev.roanh.convexmerger.player.SmallPlayer;
+
+public class FixedPointTest{
+
+	@Test
+	public void snap(){
+		assertTrue(FixedPoint.isExact(FixedPoint.snap(0.1D)));
+		assertFalse(FixedPoint.isExact(0.1D));
+		assertTrue(FixedPoint.isExact(12.5D));
+		assertTrue(Math.abs(FixedPoint.snap(0.1D) - 0.1D) <= Math.pow(2.0D, -FixedPoint.FRACTION_BITS - 1));
+		assertFalse(FixedPoint.isExact(FixedPoint.LIMIT));
+		assertThrows(IllegalArgumentException.class, ()->FixedPoint.snap(FixedPoint.LIMIT));
+		assertThrows(IllegalArgumentException.class, ()->FixedPoint.snap(Double.NaN));
+	}
+	
+	@Test
+	public void orientation(){
+		Point2D a = new Point2D.Double(FixedPoint.snap(0.1D), FixedPoint.snap(0.1D));
+		Point2D b = new Point2D.Double(FixedPoint.snap(1000.3D), FixedPoint.snap(1000.3D));
+		Point2D c = new Point2D.Double(b.getX() + b.getX() - a.getX(), b.getY() + b.getY() - a.getY());
+		assertEquals(0, FixedPoint.orientation(a, b, c));
+		assertTrue(ConvexUtil.checkCollinear(a, b, c));
+		
+		//the smallest possible deviation from collinear is detected
+		Point2D d = new Point2D.Double(c.getX(), c.getY() + Math.pow(2.0D, -FixedPoint.FRACTION_BITS));
+		assertEquals(1, FixedPoint.orientation(a, b, d));
+		assertEquals(-1, FixedPoint.orientation(a, d, b));
+		assertFalse(ConvexUtil.checkCollinear(a, b, d));
+	}
+	
+	@Test
+	public void area(){
+		List<Point2D> square = Arrays.asList(new Point2D.Double(0.0D, 0.0D), new Point2D.Double(2.5D, 0.0D), new Point2D.Double(2.5D, 2.5D), new Point2D.Double(0.0D, 2.5D));
+		assertEquals(6.25D, FixedPoint.toArea(FixedPoint.doubledArea(square)));
+		assertEquals(6.25D, ConvexUtil.computeArea(square));
+	}
+	
+	@Test
+	public void exactGame() throws InterruptedException{
+		PlayfieldGenerator gen = new PlayfieldGenerator("3Y64YQ01S7B35T82PK9G");
+		gen.setFixedPoint(true);
+		GameState game = new GameState(gen, Arrays.asList(new GreedyPlayer(), new SmallPlayer()));
+		assertTrue(game.getObjects().stream().allMatch(obj->FixedPoint.isExact(obj.getPoints())));
+		
+		//mirror the area bookkeeping of the game in exact integer arithmetic
+		Map<Player, Long> doubled = new HashMap<Player, Long>();
+		game.registerStateListener(new GameStateListener(){
+			
+			@Override
+			public void claim(Player player, ConvexObject obj){
+				doubled.merge(player, FixedPoint.doubledArea(obj.getPoints()), Long::sum);
+			}
+			
+			@Override
+			public void merge(Player player, ConvexObject source, ConvexObject target, ConvexObject result, List<ConvexObject> absorbed){
+				long delta = FixedPoint.doubledArea(result.getPoints()) - FixedPoint.doubledArea(source.getPoints()) - FixedPoint.doubledArea(target.getPoints());
+				doubled.merge(player, delta, Long::sum);
+				for(ConvexObject obj : absorbed){
+					if(obj.isOwned()){
+						doubled.merge(obj.getOwner(), -FixedPoint.doubledArea(obj.getPoints()), Long::sum);
+					}
+				}
+			}
+			
+			@Override
+			public void end(){
+			}
+			
+			@Override
+			public void abort(){
+			}
+		});
+		game.init();
+		
+		while(!game.isFinished()){
+			game.executePlayerTurn();
+			for(ConvexObject obj : game.getObjects()){
+				assertTrue(FixedPoint.isExact(obj.getPoints()));
+			}
+			
+			//player areas never drift from the exact values
+			for(Player player : game.getPlayers()){
+				assertEquals(FixedPoint.toArea(doubled.getOrDefault(player, 0L)), player.getArea());
+			}
+		}
+	}
+	
+	@Test
+	public void snappedPlayfield(){
+		List<ConvexObject> regular = new PlayfieldGenerator("3Y657GF0UKKHHRZ2NZD1").generatePlayfield();
+		PlayfieldGenerator gen = new PlayfieldGenerator("3Y657GF0UKKHHRZ2NZD1");
+		gen.setFixedPoint(true);
+		List<ConvexObject> fixed = gen.generatePlayfield();
+		
+		assertEquals(regular.size(), fixed.size());
+		for(int i = 0; i < regular.size(); i++){
+			assertEquals(regular.get(i).getPoints().size(), fixed.get(i).getPoints().size());
+			assertEquals(regular.get(i).getArea(), fixed.get(i).getArea(), 0.01D);
+			assertTrue(ConvexUtil.checkInvariants(fixed.get(i).getPoints()));
+		}
+	}
+}
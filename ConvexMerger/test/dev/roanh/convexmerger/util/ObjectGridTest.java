@@ -0,0 +1,102 @@
+/*
+ * ConvexMerger:  An area maximisation game based on the idea of merging convex shapes.
+ * Copyright (C) 2021  Roan Hofland (roan@roanh.dev), Emiliyan Greshkov and contributors.
+ * GitHub Repository: https://github.com/RoanH/ConvexMerger
+ *
+ * ConvexMerger is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ConvexMerger is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package dev.roanh.convexmerger.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import dev.roanh.convexmerger.Constants;
+import dev.roanh.convexmerger.game.ConvexObject;
+import dev.roanh.convexmerger.game.GameState;
+import dev.roanh.convexmerger.game.PlayfieldGenerator;
+import dev.roanh.convexmerger.player.GreedyPlayer;
+
+public class ObjectGridTest{
+
+	@Test
+	public void gridMatchesDecomposition() throws InterruptedException{
+		GameState game = new GameState(new PlayfieldGenerator("3Y64YQ01S7B35T82PK9G"), Arrays.asList(new GreedyPlayer(), new GreedyPlayer()));
+		game.init();
+		Random r = new Random(0);
+		
+		while(!game.isFinished()){
+			game.executePlayerTurn();
+			check(game, r);
+		}
+		
+		int[] counts = game.getObjectGrid().getCellCounts();
+		assertTrue(counts[0] > 0);
+	}
+	
+	@Test
+	public void gridMatchesDecompositionRandom() throws InterruptedException{
+		GameState game = new GameState(new PlayfieldGenerator(), Arrays.asList(new GreedyPlayer(), new GreedyPlayer()));
+		game.init();
+		Random r = new Random(1);
+		
+		check(game, r);
+		while(!game.isFinished()){
+			game.executePlayerTurn();
+			check(game, r);
+		}
+	}
+	
+	@Test
+	public void containedMatchesScan() throws InterruptedException{
+		GameState game = new GameState(new PlayfieldGenerator("3Y657GF0UKKHHRZ2NZD1"), Arrays.asList(new GreedyPlayer(), new GreedyPlayer()));
+		game.init();
+		Random r = new Random(0);
+		
+		while(!game.isFinished()){
+			game.executePlayerTurn();
+			
+			List<ConvexObject> objects = game.getObjects();
+			for(int i = 0; i < 20 && objects.size() > 1; i++){
+				int first = r.nextInt(objects.size());
+				int second = (first + 1 + r.nextInt(objects.size() - 1)) % objects.size();
+				ConvexObject hull = objects.get(first).merge(objects.get(second));
+				List<ConvexObject> expected = new ArrayList<ConvexObject>();
+				for(ConvexObject obj : objects){
+					if(hull.contains(obj)){
+						expected.add(obj);
+					}
+				}
+				
+				assertEquals(expected, game.getContainedObjects(hull));
+			}
+		}
+	}
+	
+	private void check(GameState game, Random r){
+		VerticalDecomposition decomp = game.getVerticalDecomposition();
+		for(int i = 0; i < 2000; i++){
+			double x = r.nextDouble() * Constants.PLAYFIELD_WIDTH;
+			double y = r.nextDouble() * Constants.PLAYFIELD_HEIGHT;
+			ConvexObject expected = decomp.queryObject(x, y);
+			assertTrue(expected == game.getObject(x, y), x + " " + y);
+		}
+	}
+}
@@ -0,0 +1,196 @@
+/*
+ * ConvexMerger:  An area maximisation game based on the idea of merging convex shapes.
+ * Copyright (C) 2021  Roan Hofland (roan@roanh.dev), Emiliyan Greshkov and contributors.
+ * GitHub Repository: https://github.com/RoanH/ConvexMerger
+ *
+ * ConvexMerger is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ConvexMerger is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package dev.roanh.convexmerger.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+import dev.roanh.convexmerger.Constants;
+import dev.roanh.convexmerger.game.ConvexObject;
+import dev.roanh.convexmerger.game.GameState;
+import dev.roanh.convexmerger.game.PlayfieldGenerator;
+import dev.roanh.convexmerger.player.GreedyPlayer;
+
+public class PointLocatorTest{
+
+	@Test
+	public void emptyPlayfield(){
+		List<ConvexObject> objects = new ArrayList<ConvexObject>();
+		assertNull(new SlabLocator(objects).queryObject(100.0D, 100.0D));
+		assertNull(new KirkpatrickLocator(objects).queryObject(100.0D, 100.0D));
+	}
+	
+	@Test
+	public void partitionedSlabCount() throws InterruptedException{
+		List<ConvexObject> objects = new PlayfieldGenerator("3Y64YQ01S7B35T82PK9G").generatePlayfield();
+		assertEquals(1, new PartitionedDecomposition(objects, 1).getSlabCount());
+		assertEquals(4, new PartitionedDecomposition(objects, 4).getSlabCount());
+		assertEquals(1, new PartitionedDecomposition(new ArrayList<ConvexObject>(), 4).getSlabCount());
+		assertThrows(IllegalArgumentException.class, ()->new PartitionedDecomposition(objects, 0));
+	}
+	
+	@Test
+	public void smallObjects() throws InterruptedException{
+		PlayfieldGenerator gen = new PlayfieldGenerator("3Y64YQ01S7B35T82PK9G");
+		gen.setRange(10, 20);
+		testPlayfield(gen.generatePlayfield(), new Random(0));
+	}
+	
+	@Test
+	public void singleObject(){
+		ConvexObject obj = new ConvexObject(100, 100, 300, 150, 200, 400);
+		List<ConvexObject> objects = Arrays.asList(obj);
+		for(PointLocator locator : Arrays.asList(new SlabLocator(objects), new KirkpatrickLocator(objects))){
+			assertTrue(obj == locator.queryObject(200.0D, 200.0D));
+			assertNull(locator.queryObject(50.0D, 50.0D));
+			assertNull(locator.queryObject(350.0D, 200.0D));
+		}
+	}
+
+	@Test
+	public void overlappingObjects(){
+		List<ConvexObject> objects = Arrays.asList(
+			new ConvexObject(100, 100, 300, 100, 300, 300, 100, 300),
+			new ConvexObject(200, 200, 400, 200, 400, 400, 200, 400)
+		);
+		assertThrows(IllegalStateException.class, ()->new KirkpatrickLocator(objects));
+	}
+
+	@Test
+	public void staticPlayfield() throws InterruptedException{
+		testPlayfield(new PlayfieldGenerator("3Y64YQ01S7B35T82PK9G").generatePlayfield(), new Random(0));
+	}
+	
+	@RepeatedTest(5)
+	public void randomPlayfield() throws InterruptedException{
+		testPlayfield(new PlayfieldGenerator().generatePlayfield(), new Random());
+	}
+	
+	@Test
+	public void mergedPlayfield() throws InterruptedException{
+		GameState game = new GameState(new PlayfieldGenerator("3Y657GF0UKKHHRZ2NZD1"), Arrays.asList(new GreedyPlayer(), new GreedyPlayer()));
+		game.init();
+		while(!game.isFinished()){
+			game.executePlayerTurn();
+		}
+		
+		testPlayfield(game.getObjects(), new Random(0));
+	}
+	
+	@Test
+	public void partitionedGame() throws InterruptedException{
+		GameState game = new GameState(new PlayfieldGenerator("3Y657GF0UKKHHRZ2NZD1"), Arrays.asList(new GreedyPlayer(), new GreedyPlayer()));
+		game.setPartitionedLocator(4);
+		game.init();
+		
+		//the partitioned decomposition is updated with every merge
+		Random r = new Random(0);
+		while(!game.isFinished()){
+			game.executePlayerTurn();
+			VerticalDecomposition decomp = game.getVerticalDecomposition();
+			for(int i = 0; i < 1000; i++){
+				double x = r.nextDouble() * Constants.PLAYFIELD_WIDTH;
+				double y = r.nextDouble() * Constants.PLAYFIELD_HEIGHT;
+				assertTrue(decomp.queryObject(x, y) == game.getObject(x, y), "partitioned " + x + " " + y);
+			}
+		}
+		
+		assertThrows(IllegalArgumentException.class, ()->game.setPartitionedLocator(-1));
+	}
+	
+	@Test
+	public void batchQuery() throws InterruptedException{
+		GameState game = new GameState(new PlayfieldGenerator("3Y657GF0UKKHHRZ2NZD1"), Arrays.asList(new GreedyPlayer(), new GreedyPlayer()));
+		game.init();
+		for(int turn = 0; turn < 10 && !game.isFinished(); turn++){
+			game.executePlayerTurn();
+		}
+		
+		VerticalDecomposition decomp = game.getVerticalDecomposition();
+		SlabLocator slab = new SlabLocator(game.getObjects());
+		
+		//a raster of the playfield followed by random points
+		int n = 160 * 90;
+		double[] xs = new double[n + 50000];
+		double[] ys = new double[xs.length];
+		for(int i = 0; i < n; i++){
+			xs[i] = (i % 160 + 0.5D) * (Constants.PLAYFIELD_WIDTH / 160.0D);
+			ys[i] = (i / 160 + 0.5D) * (Constants.PLAYFIELD_HEIGHT / 90.0D);
+		}
+		
+		Random r = new Random(0);
+		for(int i = n; i < xs.length; i++){
+			xs[i] = r.nextDouble() * Constants.PLAYFIELD_WIDTH;
+			ys[i] = r.nextDouble() * Constants.PLAYFIELD_HEIGHT;
+		}
+		
+		ConvexObject[] batch = new ConvexObject[xs.length];
+		ConvexObject[] parallel = new ConvexObject[xs.length];
+		ConvexObject[] slabs = new ConvexObject[xs.length];
+		decomp.queryObjects(xs, ys, batch);
+		decomp.getSnapshot().queryObjects(xs, ys, parallel, ForkJoinPool.commonPool());
+		slab.queryObjects(xs, ys, slabs);
+		
+		for(int i = 0; i < xs.length; i++){
+			ConvexObject expected = decomp.queryObject(xs[i], ys[i]);
+			assertTrue(expected == batch[i], "batch " + xs[i] + " " + ys[i]);
+			assertTrue(expected == parallel[i], "parallel " + xs[i] + " " + ys[i]);
+			if(i >= n){
+				//raster points can be on object boundaries where the slab locator differs
+				assertTrue(expected == slabs[i], "slab " + xs[i] + " " + ys[i]);
+			}
+		}
+		
+		assertThrows(IllegalArgumentException.class, ()->decomp.queryObjects(xs, new double[1], batch));
+		assertThrows(IllegalArgumentException.class, ()->slab.queryObjects(xs, ys, new ConvexObject[1]));
+	}
+	
+	private void testPlayfield(List<ConvexObject> objects, Random r) throws InterruptedException{
+		VerticalDecomposition decomp = new VerticalDecomposition(objects);
+		SlabLocator slab = new SlabLocator(objects);
+		KirkpatrickLocator kirkpatrick = new KirkpatrickLocator(objects);
+		PartitionedDecomposition partitioned = new PartitionedDecomposition(objects, 4);
+		
+		for(int i = 0; i < 10000; i++){
+			double x = r.nextDouble() * Constants.PLAYFIELD_WIDTH;
+			double y = r.nextDouble() * Constants.PLAYFIELD_HEIGHT;
+			ConvexObject expected = decomp.queryObject(x, y);
+			assertTrue(expected == slab.queryObject(x, y), "slab " + x + " " + y);
+			assertTrue(expected == kirkpatrick.queryObject(x, y), "kirkpatrick " + x + " " + y);
+			assertTrue(expected == partitioned.queryObject(x, y), "partitioned " + x + " " + y);
+		}
+		
+		for(ConvexObject obj : objects){
+			assertTrue(obj == slab.queryObject(obj.getCentroid().getX(), obj.getCentroid().getY()));
+			assertTrue(obj == kirkpatrick.queryObject(obj.getCentroid().getX(), obj.getCentroid().getY()));
+			assertTrue(obj == partitioned.queryObject(obj.getCentroid().getX(), obj.getCentroid().getY()));
+		}
+	}
+}
@@ -24,8 +24,13 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.awt.geom.Line2D;
 import java.awt.geom.Point2D;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.jupiter.api.Test;
 
@@ -195,6 +200,102 @@ public class SegmentPartitionTreeTest{
 		testAll(SegmentPartitionTree.TYPE_CONJUGATION_TREE, new PlayfieldGenerator());
 	}
 	
+	@Test
+	public void metricsDisabled(){
+		SegmentPartitionTree<KDTree<LineSegment>> tree = SegmentPartitionTree.TYPE_KD_TREE.fromPoints(testPoints);
+		tree.addSegment(testPoints.get(0), testPoints.get(5));
+		assertTrue(tree.intersects(testPoints.get(2), testPoints.get(4)));
+		assertEquals(0L, tree.getMetrics().getQueryCount());
+	}
+	
+	@Test
+	public void metricsKD(){
+		testMetrics(SegmentPartitionTree.TYPE_KD_TREE.fromObjects(new PlayfieldGenerator("3Y64QTK1WI14ZQ79GFMW").generatePlayfield()));
+	}
+	
+	@Test
+	public void metricsConj(){
+		testMetrics(SegmentPartitionTree.TYPE_CONJUGATION_TREE.fromObjects(new PlayfieldGenerator("3Y64QTK1WI14ZQ79GFMW").generatePlayfield()));
+	}
+	
+	@Test
+	public void cachedQueries(){
+		SegmentPartitionTree<KDTree<LineSegment>> tree = SegmentPartitionTree.TYPE_KD_TREE.fromPoints(testPoints);
+		tree.getMetrics().setEnabled(true);
+		tree.addSegment(testPoints.get(4), testPoints.get(5));
+		int epoch = tree.getEpoch();
+		
+		assertFalse(tree.intersects(testPoints.get(2), testPoints.get(4)));
+		assertFalse(tree.intersects(testPoints.get(4), testPoints.get(2)));
+		assertFalse(tree.intersects(new Line2D.Double(testPoints.get(2), testPoints.get(4))));
+		assertEquals(1L, tree.getMetrics().getQueryCount());
+		assertEquals(2L, tree.getMetrics().getCacheHits());
+		
+		tree.addSegment(testPoints.get(3), testPoints.get(5));
+		assertTrue(tree.getEpoch() > epoch);
+		assertTrue(tree.intersects(testPoints.get(4), testPoints.get(2)));
+		assertEquals(2L, tree.getMetrics().getQueryCount());
+	}
+	
+	@Test
+	public void concurrentQueries() throws Exception{
+		List<ConvexObject> objects = new PlayfieldGenerator("3Y64QTK1WI14ZQ79GFMW").generatePlayfield();
+		SegmentPartitionTree<ConjugationTree<LineSegment>> tree = SegmentPartitionTree.TYPE_CONJUGATION_TREE.fromObjects(objects);
+		SegmentPartitionTree<ConjugationTree<LineSegment>> reference = SegmentPartitionTree.TYPE_CONJUGATION_TREE.fromObjects(objects);
+		List<Point2D[]> lines = new ArrayList<Point2D[]>();
+		List<Boolean> expected = new ArrayList<Boolean>();
+		for(ConvexObject obj1 : objects){
+			for(ConvexObject obj2 : objects){
+				if(obj1 != obj2){
+					Point2D[] merge = ConvexUtil.computeMergeLines(obj1.getPoints(), obj2.getPoints(), false);
+					lines.add(merge);
+					expected.add(reference.intersects(merge[0], merge[1]));
+				}
+			}
+		}
+		
+		//every thread runs all queries on the shared tree and cache
+		List<Callable<List<Boolean>>> tasks = new ArrayList<Callable<List<Boolean>>>();
+		for(int i = 0; i < 8; i++){
+			tasks.add(()->{
+				List<Boolean> results = new ArrayList<Boolean>();
+				for(Point2D[] merge : lines){
+					results.add(tree.intersects(merge[0], merge[1]));
+				}
+				return results;
+			});
+		}
+		
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try{
+			for(Future<List<Boolean>> result : executor.invokeAll(tasks)){
+				assertEquals(expected, result.get());
+			}
+		}finally{
+			executor.shutdown();
+		}
+	}
+	
+	private void testMetrics(SegmentPartitionTree<?> tree){
+		SegmentTreeMetrics metrics = tree.getMetrics();
+		metrics.setEnabled(true);
+		assertTrue(tree.intersects(new Line2D.Double(444.31914618102513D, 194.85131929075814D, 628.4039710577933D, 331.7503860849795D)));
+		assertFalse(tree.intersects(new Line2D.Double(514.6784789976089D, 402.33862253612847D, 350.20149757949315D, 306.22387013590435D)));
+		
+		assertEquals(2L, metrics.getQueryCount());
+		assertTrue(metrics.getNodeVisits() >= 2L);
+		assertTrue(metrics.getSegmentScans() > 0L);
+		assertTrue(metrics.getDerivedSegments() > 0L);
+		assertEquals(2L, Arrays.stream(metrics.getLatencyHistogram()).sum());
+		assertTrue(metrics.getLatencyPercentile(1.0D) > 0L);
+		
+		metrics.reset();
+		metrics.setEnabled(false);
+		assertFalse(tree.intersects(new Line2D.Double(514.6784789976089D, 402.33862253612847D, 350.20149757949315D, 306.22387013590435D)));
+		assertEquals(0L, metrics.getQueryCount());
+		assertEquals(0L, metrics.getNodeVisits());
+	}
+	
 	private void testAll(SegmentPartitionTreeConstructor<?> ctor, PlayfieldGenerator gen){
 		List<ConvexObject> objects = gen.generatePlayfield();
 		SegmentPartitionTree<?> tree = ctor.fromObjects(objects);
@@ -20,17 +20,23 @@ package dev.roanh.convexmerger.util;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.awt.geom.Line2D;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
+import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.PrimitiveIterator.OfDouble;
 import java.util.Random;
+import java.util.Set;
 import java.util.concurrent.ThreadLocalRandom;
 
 import org.junit.jupiter.api.RepeatedTest;
@@ -41,7 +47,11 @@ import dev.roanh.convexmerger.game.ConvexObject;
 import dev.roanh.convexmerger.game.GameState;
 import dev.roanh.convexmerger.game.PlayfieldGenerator;
 import dev.roanh.convexmerger.player.GreedyPlayer;
+import dev.roanh.convexmerger.util.DecompositionSnapshot.Hint;
+import dev.roanh.convexmerger.util.VerticalDecomposition.DecompVertex;
+import dev.roanh.convexmerger.util.VerticalDecomposition.DecompVertexType;
 import dev.roanh.convexmerger.util.VerticalDecomposition.Line;
+import dev.roanh.convexmerger.util.VerticalDecomposition.Trapezoid;
 
 public class VerticalDecompTest{
 	
@@ -452,6 +462,208 @@ public class VerticalDecompTest{
 		}
 	}
 
+	@Test
+	public void randomInsertionOrder() throws InterruptedException{
+		List<ConvexObject> objects = new PlayfieldGenerator("3Y64YQ01S7B35T82PK9G").generatePlayfield();
+		for(int i = 0; i < objects.size(); i++){
+			objects.get(i).setID(i + 1);
+		}
+		
+		for(long seed = 0; seed < 10; seed++){
+			VerticalDecomposition decomp = new VerticalDecomposition(objects, seed);
+			testPlayfield(objects, decomp);
+			
+			int height = decomp.getHeight();
+			for(Trapezoid trap : decomp.getTrapezoids()){
+				int depth = trap.getDepth();
+				assertTrue(depth >= 0 && depth <= height);
+			}
+		}
+	}
+
+	@Test
+	public void depthAfterGame() throws Exception{
+		GameState game = new GameState(new PlayfieldGenerator("3Y64YQ01S7B35T82PK9G"), Arrays.asList(new GreedyPlayer(), new GreedyPlayer()));
+		game.init();
+		Field root = VerticalDecomposition.class.getDeclaredField("searchStructure");
+		root.setAccessible(true);
+		
+		while(!game.isFinished()){
+			game.executePlayerTurn();
+			VerticalDecomposition decomp = game.getVerticalDecomposition();
+			testPlayfield(game.getObjects(), decomp);
+			
+			//compare the tracked depths against the longest paths in the search structure
+			Map<DecompVertex, Integer> depths = computeDepths((DecompVertex)root.get(decomp));
+			assertEquals(decomp.getTrapezoids().size(), depths.keySet().stream().filter(v->v.getType() == DecompVertexType.LEAF).count());
+			
+			int max = 0;
+			long sum = 0;
+			for(Trapezoid trap : decomp.getTrapezoids()){
+				int depth = depths.get(trap.getDecompVertex());
+				assertTrue(depth > 0);
+				assertEquals(depth, trap.getDepth());
+				max = Math.max(max, depth);
+				sum += depth;
+			}
+			
+			assertEquals(max, decomp.getHeight());
+			assertEquals((double)sum / decomp.getTrapezoids().size(), decomp.getAverageDepth(), 1e-9);
+		}
+	}
+
+	@Test
+	public void hintMatchesQuery() throws InterruptedException{
+		GameState game = new GameState(new PlayfieldGenerator("3Y657GF0UKKHHRZ2NZD1"), Arrays.asList(new GreedyPlayer(), new GreedyPlayer()));
+		game.init();
+		Random r = new Random(1);
+		
+		//the same hint is used for all snapshots of the decomposition
+		Hint hint = new Hint();
+		while(!game.isFinished()){
+			game.executePlayerTurn();
+			VerticalDecomposition decomp = game.getVerticalDecomposition();
+			DecompositionSnapshot snapshot = decomp.getSnapshot();
+			
+			double x = r.nextDouble() * Constants.PLAYFIELD_WIDTH;
+			double y = r.nextDouble() * Constants.PLAYFIELD_HEIGHT;
+			for(int i = 0; i < 1000; i++){
+				x = Math.max(0.0D, Math.min(Constants.PLAYFIELD_WIDTH, x + r.nextGaussian() * 10.0D));
+				y = Math.max(0.0D, Math.min(Constants.PLAYFIELD_HEIGHT, y + r.nextGaussian() * 10.0D));
+				assertTrue(decomp.queryObject(x, y) == snapshot.queryObject(x, y, hint));
+			}
+		}
+	}
+
+	@Test
+	public void adoptRebuild() throws InterruptedException{
+		GameState game = new GameState(new PlayfieldGenerator("3Y657GF0UKKHHRZ2NZD1"), Arrays.asList(new GreedyPlayer(), new GreedyPlayer()));
+		game.init();
+		VerticalDecomposition decomp = game.getVerticalDecomposition();
+		decomp.setRebuildFactor(0.0D);
+		Random r = new Random(4);
+		Hint hint = new Hint();
+		
+		while(!game.isFinished()){
+			//wait for the rebuild so it is adopted on the next move
+			decomp.awaitRebuild();
+			List<Line2D> lines = new ArrayList<Line2D>(decomp.getLines());
+			Line2D last = decomp.getLastLine();
+			game.executePlayerTurn();
+			
+			//the history of added lines survives adopting a rebuild
+			assertEquals(lines, decomp.getLines().subList(0, lines.size()));
+			if(decomp.getLines().size() == lines.size()){
+				assertTrue(last == decomp.getLastLine());
+			}
+			
+			VerticalDecomposition fresh = new VerticalDecomposition(game.getObjects());
+			DecompositionSnapshot snapshot = decomp.getSnapshot();
+			for(int i = 0; i < 1000; i++){
+				double x = r.nextDouble() * Constants.PLAYFIELD_WIDTH;
+				double y = r.nextDouble() * Constants.PLAYFIELD_HEIGHT;
+				ConvexObject expected = fresh.queryObject(x, y);
+				assertTrue(expected == decomp.queryObject(x, y), "query " + x + " " + y);
+				assertTrue(expected == snapshot.queryObject(x, y, hint), "hint " + x + " " + y);
+				assertTrue(expected == snapshot.queryObject(x, y), "snapshot " + x + " " + y);
+			}
+			
+			for(ConvexObject obj : game.getObjects()){
+				assertTrue(obj == decomp.queryObject(obj.getCentroid().getX(), obj.getCentroid().getY()));
+			}
+		}
+		
+		assertTrue(decomp.getRebuildCount() > 0);
+	}
+
+	@Test
+	public void snapshotMatchesQuery() throws InterruptedException{
+		GameState game = new GameState(new PlayfieldGenerator("3Y657GF0UKKHHRZ2NZD1"), Arrays.asList(new GreedyPlayer(), new GreedyPlayer()));
+		game.init();
+		Random r = new Random(2);
+		
+		List<DecompositionSnapshot> snapshots = new ArrayList<DecompositionSnapshot>();
+		List<List<ConvexObject>> answers = new ArrayList<List<ConvexObject>>();
+		double[] points = new double[2000];
+		for(int i = 0; i < points.length; i += 2){
+			points[i] = r.nextDouble() * Constants.PLAYFIELD_WIDTH;
+			points[i + 1] = r.nextDouble() * Constants.PLAYFIELD_HEIGHT;
+		}
+		
+		while(!game.isFinished()){
+			game.executePlayerTurn();
+			VerticalDecomposition decomp = game.getVerticalDecomposition();
+			DecompositionSnapshot snapshot = decomp.getSnapshot();
+			
+			List<ConvexObject> answer = new ArrayList<ConvexObject>();
+			for(int i = 0; i < points.length; i += 2){
+				ConvexObject obj = decomp.queryObject(points[i], points[i + 1]);
+				assertTrue(obj == snapshot.queryObject(points[i], points[i + 1]));
+				answer.add(obj);
+			}
+			
+			snapshots.add(snapshot);
+			answers.add(answer);
+		}
+		
+		//earlier snapshots are not affected by later merges
+		for(int s = 0; s < snapshots.size(); s++){
+			for(int i = 0; i < points.length; i += 2){
+				assertTrue(answers.get(s).get(i / 2) == snapshots.get(s).queryObject(points[i], points[i + 1]));
+			}
+		}
+	}
+
+	@Test
+	public void incrementalSnapshot() throws InterruptedException{
+		GameState game = new GameState(new PlayfieldGenerator("3Y657GF0UKKHHRZ2NZD1"), Arrays.asList(new GreedyPlayer(), new GreedyPlayer()));
+		game.init();
+		VerticalDecomposition decomp = game.getVerticalDecomposition();
+		DecompositionSnapshot initial = decomp.getSnapshot();
+		assertEquals(initial.getVertexCount() + initial.getTrapezoidCount(), initial.getWrittenCount());
+		assertEquals(decomp.getTrapezoids().size(), initial.getTrapezoidCount());
+		
+		while(!game.isFinished()){
+			DecompositionSnapshot before = decomp.getSnapshot();
+			game.executePlayerTurn();
+			DecompositionSnapshot after = decomp.getSnapshot();
+			
+			if(after != before){
+				//only the vertices touched by the merge are written again
+				assertTrue(after.getWrittenCount() < (after.getVertexCount() + after.getTrapezoidCount()) / 4);
+				assertEquals(decomp.getTrapezoids().size(), after.getTrapezoidCount());
+			}
+		}
+	}
+
+	private static Map<DecompVertex, Integer> computeDepths(DecompVertex root){
+		List<DecompVertex> order = new ArrayList<DecompVertex>();
+		postOrder(root, Collections.newSetFromMap(new IdentityHashMap<DecompVertex, Boolean>()), order);
+		Collections.reverse(order);
+		
+		Map<DecompVertex, Integer> depths = new IdentityHashMap<DecompVertex, Integer>();
+		depths.put(root, 0);
+		for(DecompVertex vertex : order){
+			if(vertex.getType() != DecompVertexType.LEAF){
+				int depth = depths.get(vertex) + 1;
+				depths.merge(vertex.getLeftChild(), depth, Math::max);
+				depths.merge(vertex.getRightChild(), depth, Math::max);
+			}
+		}
+		
+		return depths;
+	}
+	
+	private static void postOrder(DecompVertex vertex, Set<DecompVertex> seen, List<DecompVertex> order){
+		if(seen.add(vertex)){
+			if(vertex.getType() != DecompVertexType.LEAF){
+				postOrder(vertex.getLeftChild(), seen, order);
+				postOrder(vertex.getRightChild(), seen, order);
+			}
+			order.add(vertex);
+		}
+	}
+
 	private void testSeed(String seed) throws InterruptedException{
 		List<ConvexObject> objects = new PlayfieldGenerator(seed).generatePlayfield();
 		VerticalDecomposition decomp = new VerticalDecomposition();